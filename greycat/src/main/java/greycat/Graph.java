@@ -18,6 +18,7 @@ package greycat;
 import greycat.plugin.*;
 import greycat.struct.Buffer;
 import greycat.chunk.ChunkSpace;
+import greycat.utility.Aggregation;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -112,6 +113,19 @@ public interface Graph {
      */
     void lookupTimes(long world, long from, long to, long id, int limit, Callback<Node[]> callback);
 
+    /**
+     * Asynchronous aggregation of the values of a {@link NodeValue} over a time range.<br>
+     * Values are read directly from the time series chunks, no {@link Node} is created per timepoint.
+     *
+     * @param world      The world identifier in which the NodeValue must be searched.
+     * @param from       The time at which the aggregation starts (included).
+     * @param to         The time at which the aggregation ends (included).
+     * @param id         The unique identifier of the {@link NodeValue}.
+     * @param bucketSize The duration of the downsampling buckets, zero or less to aggregate the whole range at once.
+     * @param callback   Called with the min, max, sum and count of each bucket.
+     */
+    void aggregate(long world, long from, long to, long id, long bucketSize, Callback<Aggregation> callback);
+
     /**
      * Creates a spin-off world from the world given as parameter.<br>
      * The forked world can then be altered independently of its parent.<br>
@@ -15,8 +15,12 @@
  */
 package greycat;
 
+import greycat.chunk.ChunkFormat;
+import greycat.chunk.EvictionPolicy;
+import greycat.chunk.KeyFormat;
 import greycat.internal.BlackHoleStorage;
 import greycat.internal.CoreGraph;
+import greycat.internal.heap.HeapMemoryFactory;
 import greycat.scheduler.TrampolineScheduler;
 import greycat.internal.ReadOnlyStorage;
 import greycat.plugin.Plugin;
@@ -35,6 +39,12 @@ public class GraphBuilder {
     private long _batchSize = -1;
     private boolean _readOnly = false;
     private boolean _deepPriority = true;
+    private int _memorySegments = 1;
+    private byte _evictionPolicy = EvictionPolicy.LRU;
+    private long _maxMemorySize = -1;
+    private long _memoryBackpressure = 0;
+    private byte _chunkFormat = ChunkFormat.TEXT;
+    private byte _keyFormat = KeyFormat.TEXT;
 
     public static GraphBuilder newBuilder() {
         return new GraphBuilder();
@@ -49,6 +59,12 @@ public class GraphBuilder {
         copy._batchSize = this._batchSize;
         copy._readOnly = this._readOnly;
         copy._deepPriority = this._deepPriority;
+        copy._memorySegments = this._memorySegments;
+        copy._evictionPolicy = this._evictionPolicy;
+        copy._maxMemorySize = this._maxMemorySize;
+        copy._memoryBackpressure = this._memoryBackpressure;
+        copy._chunkFormat = this._chunkFormat;
+        copy._keyFormat = this._keyFormat;
         return copy;
     }
 
@@ -91,6 +107,75 @@ public class GraphBuilder {
         return this;
     }
 
+    /**
+     * Lets the memory grow, by steps of the memory size, when no element can be unloaded, and shrink back once released.
+     *
+     * @param numberOfElements the maximum number of elements in memory
+     * @return the {@link GraphBuilder}, for a fluent API
+     */
+    public GraphBuilder withMaxMemorySize(long numberOfElements) {
+        this._maxMemorySize = numberOfElements;
+        return this;
+    }
+
+    /**
+     * Delays creations of elements when the memory is full, waiting for other tasks to release some, instead of failing immediately.
+     *
+     * @param milliseconds the maximum time to wait before failing
+     * @return the {@link GraphBuilder}, for a fluent API
+     */
+    public GraphBuilder withMemoryBackpressure(long milliseconds) {
+        this._memoryBackpressure = milliseconds;
+        return this;
+    }
+
+    /**
+     * Selects how elements are encoded when saved to the storage, elements saved with another format are still readable.
+     *
+     * @param chunkFormat the {@link ChunkFormat}, {@link ChunkFormat#TEXT} by default
+     * @return the {@link GraphBuilder}, for a fluent API
+     */
+    public GraphBuilder withChunkFormat(byte chunkFormat) {
+        this._chunkFormat = chunkFormat;
+        return this;
+    }
+
+    /**
+     * Selects how elements are keyed in the storage.
+     * {@link KeyFormat#ORDERED} lets sorted storages load all elements of a node between two times with a single scan.
+     * Existing storages have to be migrated first, see {@link greycat.utility.KeyHelper#migrate}.
+     *
+     * @param keyFormat the {@link KeyFormat}, {@link KeyFormat#TEXT} by default
+     * @return the {@link GraphBuilder}, for a fluent API
+     */
+    public GraphBuilder withKeyFormat(byte keyFormat) {
+        this._keyFormat = keyFormat;
+        return this;
+    }
+
+    /**
+     * Splits the memory into independent segments, each one with its own cache and lock, to scale with concurrent workers.
+     * The memory size is shared between segments.
+     *
+     * @param numberOfSegments the number of segments, 1 (default) keeps a single cache
+     * @return the {@link GraphBuilder}, for a fluent API
+     */
+    public GraphBuilder withMemorySegments(int numberOfSegments) {
+        this._memorySegments = numberOfSegments;
+        return this;
+    }
+
+    /**
+     * Sets the policy used to select chunks to unload when the memory is full.
+     *
+     * @param policy one of the {@link EvictionPolicy} constants, {@link EvictionPolicy#LRU} by default
+     * @return the {@link GraphBuilder}, for a fluent API
+     */
+    public GraphBuilder withEvictionPolicy(byte policy) {
+        this._evictionPolicy = policy;
+        return this;
+    }
+
     /**
      * Sets the scheduler to be used by the graph
      *
@@ -144,7 +229,13 @@ public class GraphBuilder {
         if (_memorySize == -1) {
             _memorySize = 100000;
         }
-        return new CoreGraph(storage, _memorySize, _batchSize, _scheduler, _plugins, _deepPriority);
+        return new CoreGraph(storage, _memorySize, _batchSize, _scheduler, _plugins, _deepPriority, new HeapMemoryFactory()
+                .setSegments(_memorySegments)
+                .setEvictionPolicy(_evictionPolicy)
+                .setMaxMemorySize(_maxMemorySize)
+                .setBackpressure(_memoryBackpressure)
+                .setChunkFormat(_chunkFormat)
+                .setKeyFormat(_keyFormat));
     }
 
 }
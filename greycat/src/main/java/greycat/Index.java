@@ -39,4 +39,23 @@ public interface Index {
 
     int[] keys();
 
+    /**
+     * A covering index stores the indexed values next to node ids, so that hash collisions are filtered and indexed
+     * values are projected without resolving nodes. It can only be changed while the index is empty, and only indexes
+     * primitive attributes: nodes with other indexed attribute types are refused.
+     *
+     * @param covering true to store indexed values
+     * @return this index
+     */
+    Index setCovering(boolean covering);
+
+    boolean isCovering();
+
+    /**
+     * @param nodeId        id of an indexed node
+     * @param attributeName name of an indexed attribute
+     * @return the value indexed for this node, with the type of the attribute, or null
+     */
+    Object coveredValue(long nodeId, String attributeName);
+
 }
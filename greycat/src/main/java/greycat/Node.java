@@ -171,6 +171,18 @@ public interface Node extends Container {
 
     <A> void traverseAt(int relationIndex, Callback<A> callback);
 
+    /**
+     * Resolves a window of a relation, an index or a paged relation, without loading the other related nodes.
+     *
+     * @param relationName name of the relation to traverse
+     * @param offset       index of the first related node to resolve
+     * @param limit        maximum number of related nodes to resolve, -1 for all remaining ones
+     * @param callback     called with the resolved nodes
+     */
+    void traversePage(String relationName, int offset, int limit, Callback<Node[]> callback);
+
+    void traversePageAt(int relationIndex, int offset, int limit, Callback<Node[]> callback);
+
     Node addToRelation(String relationName, Node relatedNode);
 
     Node addToRelationAt(int relationIndex, Node relatedNode);
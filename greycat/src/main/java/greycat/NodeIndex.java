@@ -15,8 +15,18 @@
  */
 package greycat;
 
-public interface NodeIndex extends Index, Node {
+public interface NodeIndex extends Index, SortedIndex, Node {
 
     void findFrom(Callback<Node[]> callback, String... params);
 
+    /**
+     * Additionally keeps indexed nodes ordered by the given attribute, enabling the {@link SortedIndex} queries.
+     * Nodes indexed before this declaration are ordered once they are updated again.
+     *
+     * @param attributeName name of the attribute ordering the nodes
+     */
+    void declareSortedAttribute(String attributeName);
+
+    boolean isSorted();
+
 }
@@ -15,6 +15,8 @@
  */
 package greycat;
 
+import greycat.utility.Aggregation;
+
 public interface NodeValue extends Node {
 
     Double getValue();
@@ -23,4 +25,9 @@ public interface NodeValue extends Node {
 
     void batchInsert(long[] times, double[] values);
 
+    /**
+     * Aggregates the values of this node in its world, see {@link Graph#aggregate(long, long, long, long, long, Callback)}.
+     */
+    void aggregate(long from, long to, long bucketSize, Callback<Aggregation> callback);
+
 }
@@ -0,0 +1,63 @@
+/**
+ * Copyright 2017 The GreyCat Authors.  All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package greycat;
+
+/**
+ * Relation meant to hold a very large number of node ids.<br>
+ * Ids are split in pages, each page being stored as a hidden node in its own chunks.
+ * Pages are therefore loaded lazily, saved independently and copied only when modified at a new time.
+ * The owner only keeps the page directory, methods then expect the world and time of the owner node.
+ */
+public interface PagedRelation {
+
+    int size();
+
+    int pageSize();
+
+    /**
+     * Changes the number of ids per page, only applied to pages created afterwards.
+     *
+     * @param pageSize maximum number of ids stored in each page
+     * @return this PagedRelation, fluent API
+     */
+    PagedRelation setPageSize(int pageSize);
+
+    void add(long world, long time, long id, Callback<Boolean> callback);
+
+    void remove(long world, long time, long id, Callback<Boolean> callback);
+
+    /**
+     * Collects a window of the related ids, loading only the pages that overlap it.
+     *
+     * @param world    world of the owner node
+     * @param time     time of the owner node
+     * @param offset   index of the first id to collect
+     * @param limit    maximum number of ids to collect, -1 for all remaining ones
+     * @param callback called with the collected ids
+     */
+    void ids(long world, long time, int offset, int limit, Callback<long[]> callback);
+
+    void traverse(long world, long time, int offset, int limit, Callback<Node[]> callback);
+
+    /**
+     * Empties the page directory of the owner at its current time.
+     * Page nodes are not freed: the owner at previous times still lists them, so they are kept to preserve history.
+     *
+     * @return this PagedRelation, fluent API
+     */
+    PagedRelation clear();
+
+}
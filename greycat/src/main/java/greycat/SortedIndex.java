@@ -0,0 +1,56 @@
+/**
+ * Copyright 2017 The GreyCat Authors.  All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package greycat;
+
+/**
+ * Index keeping nodes ordered by the value of one attribute, to answer range, prefix and ordered queries.
+ * Bounds and prefixes are given as strings, and parsed as numbers when the indexed attribute is numeric.
+ * An offset skips the first matching nodes, a negative limit returns all remaining ones.
+ */
+public interface SortedIndex {
+
+    /**
+     * @param from    lower bound (inclusive), null or empty for no lower bound
+     * @param to      upper bound (inclusive), null or empty for no upper bound
+     * @param offset  number of matching nodes to skip
+     * @param limit   maximum number of ids to return, negative for all
+     * @return ids of the matching nodes, ordered by attribute value
+     */
+    long[] selectRange(String from, String to, int offset, int limit);
+
+    /**
+     * @param prefix  prefix of the attribute value, only supported on string attributes
+     * @param offset  number of matching nodes to skip
+     * @param limit   maximum number of ids to return, negative for all
+     * @return ids of the matching nodes, ordered by attribute value
+     */
+    long[] selectPrefix(String prefix, int offset, int limit);
+
+    /**
+     * @param descending true to iterate from the greatest value
+     * @param offset     number of nodes to skip
+     * @param limit      maximum number of ids to return, negative for all
+     * @return ids of the indexed nodes, ordered by attribute value
+     */
+    long[] selectOrdered(boolean descending, int offset, int limit);
+
+    void findRange(Callback<Node[]> callback, long world, long time, String from, String to, int offset, int limit);
+
+    void findPrefix(Callback<Node[]> callback, long world, long time, String prefix, int offset, int limit);
+
+    void findOrdered(Callback<Node[]> callback, long world, long time, boolean descending, int offset, int limit);
+
+}
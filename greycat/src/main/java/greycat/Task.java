@@ -337,6 +337,16 @@ public interface Task {
 
     Task timepoints(String from, String to);
 
+    /**
+     * Aggregates the values of each NodeValue of the current result, without resolving one node per timepoint.
+     *
+     * @param from       start time of the aggregation (included)
+     * @param to         end time of the aggregation (included)
+     * @param bucketSize duration of the downsampling buckets, 0 for a single one
+     * @return this task to chain
+     */
+    Task aggregate(String from, String to, String bucketSize);
+
     Task attributesWithType(int filterType);
 
     Task addVarTo(String relName, String varName);
@@ -359,6 +369,14 @@ public interface Task {
 
     Task declareTimedIndex(String indexName, String... indexedAttributesNames);
 
+    Task declareSortedIndex(String indexName, String attribute);
+
+    Task declareTimedSortedIndex(String indexName, String attribute);
+
+    Task readIndexRange(String indexName, String from, String to, String offset, String limit);
+
+    Task readIndexPrefix(String indexName, String prefix, String offset, String limit);
+
     Task indexNames();
 
     Task selectWith(String name, String pattern);
@@ -56,6 +56,10 @@ public class Type {
     public static final int INDEX = 69808306; //hash of 'INDEX';
     public static final int KDTREE = -2082398089; //hash of 'KDTREE';
     public static final int NDTREE = -1996510636; //hash of 'NDTREE';
+    public static final int PAGED_RELATION = 1593695078; //hash of 'PAGED_RELATION';
+    public static final int SORTED_INDEX = 172284080; //hash of 'SORTED_INDEX';
+    public static final int FLAT_KDTREE = 485129213; //hash of 'FLAT_KDTREE';
+    public static final int HNSW = 2222570; //hash of 'HNSW';
 
     public static boolean isCustom(int p_type) {
         return p_type < BOOL || p_type > INT_TO_STRING_MAP;
@@ -123,6 +127,14 @@ public class Type {
                 return "KDTREE";
             case Type.NDTREE:
                 return "NDTREE";
+            case Type.PAGED_RELATION:
+                return "PAGED_RELATION";
+            case Type.SORTED_INDEX:
+                return "SORTED_INDEX";
+            case Type.FLAT_KDTREE:
+                return "FLAT_KDTREE";
+            case Type.HNSW:
+                return "HNSW";
             default:
                 return "Custom";
         }
@@ -181,6 +193,14 @@ public class Type {
                 return Type.NDTREE;
             case "INDEX":
                 return Type.INDEX;
+            case "PAGED_RELATION":
+                return Type.PAGED_RELATION;
+            case "SORTED_INDEX":
+                return Type.SORTED_INDEX;
+            case "FLAT_KDTREE":
+                return Type.FLAT_KDTREE;
+            case "HNSW":
+                return Type.HNSW;
             default:
                 return -1;
         }
@@ -982,6 +982,54 @@ public class BaseNode implements Node {
         traverseAt(this._resolver.stringToHash(relationName, false), callback);
     }
 
+    @Override
+    public final void traversePage(final String relationName, final int offset, final int limit, final Callback<Node[]> callback) {
+        traversePageAt(this._resolver.stringToHash(relationName, false), offset, limit, callback);
+    }
+
+    @Override
+    public final void traversePageAt(final int indexToTraverse, final int offset, final int limit, final Callback<Node[]> callback) {
+        if (callback == null) {
+            return;
+        }
+        long[] all = null;
+        switch (typeAt(indexToTraverse)) {
+            case Type.RELATION:
+                final Relation relation = (Relation) getAt(indexToTraverse);
+                if (relation != null) {
+                    all = relation.all();
+                }
+                break;
+            case Type.INDEX:
+                final Index findex = (Index) getAt(indexToTraverse);
+                if (findex != null) {
+                    all = findex.all();
+                }
+                break;
+            case Type.PAGED_RELATION:
+                final PagedRelation paged = (PagedRelation) getAt(indexToTraverse);
+                paged.traverse(_world, _time, offset, limit, callback);
+                return;
+            case Type.SORTED_INDEX:
+                final SortedIndex sorted = (SortedIndex) getAt(indexToTraverse);
+                sorted.findOrdered(callback, _world, _time, false, offset < 0 ? 0 : offset, limit);
+                return;
+        }
+        if (all == null) {
+            callback.on(new Node[0]);
+            return;
+        }
+        final int from = offset < 0 ? 0 : offset;
+        final int count = (limit < 0 || from + limit > all.length) ? all.length - from : limit;
+        if (count <= 0) {
+            callback.on(new Node[0]);
+            return;
+        }
+        final long[] ids = new long[count];
+        System.arraycopy(all, from, ids, 0, count);
+        this._resolver.lookupAll(_world, _time, ids, callback);
+    }
+
     @Override
     public final <A> void traverseAt(int indexToTraverse, Callback<A> callback) {
         if (callback == null) {
@@ -1017,6 +1065,24 @@ public class BaseNode implements Node {
                     }
                 });
                 break;
+            case Type.PAGED_RELATION:
+                final PagedRelation paged = (PagedRelation) getAt(indexToTraverse);
+                paged.traverse(_world, _time, 0, -1, new Callback<Node[]>() {
+                    @Override
+                    public void on(Node[] result) {
+                        callback.on((A) (Object) result);
+                    }
+                });
+                break;
+            case Type.SORTED_INDEX:
+                final SortedIndex sorted = (SortedIndex) getAt(indexToTraverse);
+                sorted.findOrdered(new Callback<Node[]>() {
+                    @Override
+                    public void on(Node[] result) {
+                        callback.on((A) (Object) result);
+                    }
+                }, _world, _time, false, 0, -1);
+                break;
             case Type.TASK:
                 final Task t = (Task) getAt(indexToTraverse);
                 final TaskContext tc = t.prepare(_graph, this, new Callback<TaskResult>() {
@@ -0,0 +1,34 @@
+/**
+ * Copyright 2017 The GreyCat Authors.  All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package greycat.chunk;
+
+/**
+ * Encodings available to serialize chunks to the storage, selected per graph.
+ * Whatever the selected one, payloads written in the other format are still loaded.
+ */
+public class ChunkFormat {
+
+    /**
+     * Base64 values separated by control characters (default).
+     */
+    public static final byte TEXT = 0;
+
+    /**
+     * Versioned binary encoding: varints, raw IEEE doubles and length prefixed strings, see {@link greycat.utility.Binary}.
+     */
+    public static final byte BINARY = 1;
+
+}
@@ -58,6 +58,26 @@ public interface ChunkSpace {
 
     void getOrLoadAndMarkAll(long[] keys, Callback<Chunk[]> callback);
 
+    /**
+     * Gets and marks, in one scan of the storage, all stored chunks of a node in a world whose time is between from and to (inclusive).
+     * Requires a {@link greycat.plugin.ScanStorage} and keys encoded with {@link KeyFormat#ORDERED}.
+     *
+     * @param type     the type of chunk {@link ChunkType}
+     * @param world    the world id of the chunks
+     * @param id       the id of the chunks
+     * @param from     the lower bound of chunks times
+     * @param to       the upper bound of chunks times
+     * @param callback method to be called with the chunks, sorted by time.
+     */
+    void getOrLoadAndMarkRange(byte type, long world, long id, long from, long to, Callback<Chunk[]> callback);
+
+    /**
+     * Encoding of the storage keys of chunks
+     *
+     * @return the {@link KeyFormat} of this space
+     */
+    byte keyFormat();
+
     /**
      * Retrieves the chunk for the given index
      *
@@ -136,6 +156,30 @@ public interface ChunkSpace {
 
     long dirties();
 
+    /**
+     * Number of lookups answered from memory, since the creation of the space
+     *
+     * @param chunkType the type of chunk {@link ChunkType}
+     * @return the number of hits for this type of chunk
+     */
+    long hits(byte chunkType);
+
+    /**
+     * Number of lookups not answered from memory, since the creation of the space
+     *
+     * @param chunkType the type of chunk {@link ChunkType}
+     * @return the number of misses for this type of chunk
+     */
+    long misses(byte chunkType);
+
+    /**
+     * Number of chunks evicted to make room for new ones, since the creation of the space
+     *
+     * @param chunkType the type of chunk {@link ChunkType}
+     * @return the number of evictions for this type of chunk
+     */
+    long evictions(byte chunkType);
+
     /**
      * Create a temporary EStructArray object, not related to the main Graph and without the purpose to be serialized. This object has to be free at end.
      *
@@ -29,4 +29,6 @@ public class ChunkType {
 
     public static final byte GEN_CHUNK = 5;
 
+    public static final byte TIME_SERIES_CHUNK = 6;
+
 }
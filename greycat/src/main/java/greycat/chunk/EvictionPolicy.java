@@ -0,0 +1,38 @@
+/**
+ * Copyright 2017 The GreyCat Authors.  All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package greycat.chunk;
+
+/**
+ * Policies available to select, among unmarked chunks, the one to evict when a {@link ChunkSpace} is full.
+ */
+public class EvictionPolicy {
+
+    /**
+     * Least recently unmarked chunk is evicted first (default).
+     */
+    public static final byte LRU = 0;
+
+    /**
+     * Clock sweep over unmarked chunks, each re-mark gives an extra chance to survive a sweep.
+     */
+    public static final byte CLOCK = 1;
+
+    /**
+     * Chunks used once are evicted (FIFO) before re-used ones (LRU), so that scans do not flush the hot working set.
+     */
+    public static final byte TWO_QUEUES = 2;
+
+}
@@ -0,0 +1,34 @@
+/**
+ * Copyright 2017 The GreyCat Authors.  All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package greycat.chunk;
+
+/**
+ * Encodings available for the storage keys of chunks, selected per graph, see {@link greycat.utility.KeyHelper}.
+ */
+public class KeyFormat {
+
+    /**
+     * Base64 &lt;type, world, time, id&gt; separated by {@link greycat.Constants#KEY_SEP} (default).
+     */
+    public static final byte TEXT = 0;
+
+    /**
+     * Fixed width &lt;type, world, id, time&gt; whose lexicographic order follows the numeric one,
+     * so that all chunks of a node between two times are contiguous in sorted storages.
+     */
+    public static final byte ORDERED = 1;
+
+}
@@ -27,4 +27,12 @@ public interface Stack {
 
     long size();
 
+    /**
+     * Changes the number of indexes managed by the stack.
+     * New indexes are enqueued if the stack was created filled, removed indexes must have been dequeued before.
+     *
+     * @param capacity the new number of indexes
+     */
+    void resize(long capacity);
+
 }
\ No newline at end of file
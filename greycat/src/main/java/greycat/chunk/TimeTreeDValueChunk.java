@@ -15,15 +15,24 @@
  */
 package greycat.chunk;
 
+import greycat.utility.Aggregation;
+
 public interface TimeTreeDValueChunk extends TimeTreeEmbeddedChunk {
 
     int previousOffset(long key);
 
     Double getValue(int offset);
 
+    void setValue(int offset, Double value);
+
     void insertValue(long key, Double value);
 
     void rangeValue(long startKey, long endKey, long maxElements, TreeDValueWalker walker);
 
+    /**
+     * Aggregates the non null values whose key is in [startKey, endKey].
+     */
+    void aggregate(long startKey, long endKey, Aggregation aggregation);
+
 
 }
\ No newline at end of file
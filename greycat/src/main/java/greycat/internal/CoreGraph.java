@@ -18,7 +18,6 @@ package greycat.internal;
 import greycat.*;
 import greycat.chunk.*;
 import greycat.internal.custom.*;
-import greycat.internal.heap.HeapMemoryFactory;
 import greycat.plugin.*;
 import greycat.struct.*;
 import greycat.utility.*;
@@ -57,12 +56,12 @@ public class CoreGraph implements Graph {
     //general properties
     private final HashMap<String, Object> _properties = new HashMap<String, Object>();
 
-    public CoreGraph(final Storage p_storage, final long memorySize, final long batchSize, final Scheduler p_scheduler, final Plugin[] p_plugins, final boolean deepPriority) {
+    public CoreGraph(final Storage p_storage, final long memorySize, final long batchSize, final Scheduler p_scheduler, final Plugin[] p_plugins, final boolean deepPriority, final MemoryFactory p_memoryFactory) {
         //initiate the two registry
         _actionRegistry = new CoreActionRegistry();
         _nodeRegistry = new CoreNodeRegistry();
         _typeRegistry = new CoreTypeRegistry();
-        _memoryFactory = new HeapMemoryFactory();
+        _memoryFactory = p_memoryFactory;
         this._isConnected = new AtomicBoolean(false);
         this._lock = new AtomicBoolean(false);
         this._plugins = p_plugins;
@@ -98,12 +97,36 @@ public class CoreGraph implements Graph {
                 return new KDTree(backend);
             }
         });
+        this._typeRegistry.getOrCreateDeclaration(FlatKDTree.NAME).setFactory(new TypeFactory() {
+            @Override
+            public Object wrap(final EStructArray backend) {
+                return new FlatKDTree(backend);
+            }
+        });
+        this._typeRegistry.getOrCreateDeclaration(HNSWTree.NAME).setFactory(new TypeFactory() {
+            @Override
+            public Object wrap(final EStructArray backend) {
+                return new HNSWTree(backend);
+            }
+        });
         this._typeRegistry.getOrCreateDeclaration(NDTree.NAME).setFactory(new TypeFactory() {
             @Override
             public Object wrap(final EStructArray backend) {
                 return new NDTree(backend, new IndexManager());
             }
         });
+        this._typeRegistry.getOrCreateDeclaration(CorePagedRelation.NAME).setFactory(new TypeFactory() {
+            @Override
+            public Object wrap(final EStructArray backend) {
+                return new CorePagedRelation(backend);
+            }
+        });
+        this._typeRegistry.getOrCreateDeclaration(CoreSortedIndex.NAME).setFactory(new TypeFactory() {
+            @Override
+            public Object wrap(final EStructArray backend) {
+                return new CoreSortedIndex(backend);
+            }
+        });
 
         this._nodeRegistry.getOrCreateDeclaration(CoreNodeIndex.NAME).setFactory(new NodeFactory() {
             @Override
@@ -117,6 +140,12 @@ public class CoreGraph implements Graph {
                 return new CoreNodeValue(world, time, id, graph);
             }
         });
+        this._nodeRegistry.getOrCreateDeclaration(CoreNodeValue.COMPRESSED_NAME).setFactory(new NodeFactory() {
+            @Override
+            public Node create(long world, long time, long id, Graph graph) {
+                return new CoreNodeValue(world, time, id, graph);
+            }
+        });
         this._nodeRegistry.getOrCreateDeclaration(KDTreeNode.NAME).setFactory(new NodeFactory() {
             @Override
             public Node create(long world, long time, long id, Graph graph) {
@@ -340,6 +369,14 @@ public class CoreGraph implements Graph {
         this._resolver.lookupTimes(world, from, to, id, limit, callback);
     }
 
+    @Override
+    public final void aggregate(long world, long from, long to, long id, long bucketSize, Callback<Aggregation> callback) {
+        if (!_isConnected.get()) {
+            throw new RuntimeException(CoreConstants.DISCONNECTED_ERROR);
+        }
+        this._resolver.aggregate(world, from, to, id, bucketSize, callback);
+    }
+
     @Override
     public final void save(Callback<Boolean> callback) {
         if (callback == null) {
@@ -400,16 +437,16 @@ public class CoreGraph implements Graph {
                                 prefixBuf.free();
                                 final Buffer connectionKeys = selfPointer.newBuffer();
                                 //preload ObjKeyGenerator
-                                KeyHelper.keyToBuffer(connectionKeys, ChunkType.GEN_CHUNK, Constants.BEGINNING_OF_TIME, Constants.NULL_LONG, _prefix);
+                                KeyHelper.keyToBufferWithFormat(connectionKeys, selfPointer._space.keyFormat(), ChunkType.GEN_CHUNK, Constants.BEGINNING_OF_TIME, Constants.NULL_LONG, _prefix);
                                 connectionKeys.write(CoreConstants.BUFFER_SEP);
                                 //preload WorldKeyGenerator
-                                KeyHelper.keyToBuffer(connectionKeys, ChunkType.GEN_CHUNK, Constants.END_OF_TIME, Constants.NULL_LONG, _prefix);
+                                KeyHelper.keyToBufferWithFormat(connectionKeys, selfPointer._space.keyFormat(), ChunkType.GEN_CHUNK, Constants.END_OF_TIME, Constants.NULL_LONG, _prefix);
                                 connectionKeys.write(CoreConstants.BUFFER_SEP);
                                 //preload GlobalWorldOrder
-                                KeyHelper.keyToBuffer(connectionKeys, ChunkType.WORLD_ORDER_CHUNK, 0, 0, Constants.NULL_LONG);
+                                KeyHelper.keyToBufferWithFormat(connectionKeys, selfPointer._space.keyFormat(), ChunkType.WORLD_ORDER_CHUNK, 0, 0, Constants.NULL_LONG);
                                 connectionKeys.write(CoreConstants.BUFFER_SEP);
                                 //preload GlobalDictionary
-                                KeyHelper.keyToBuffer(connectionKeys, ChunkType.STATE_CHUNK, CoreConstants.GLOBAL_DICTIONARY_KEY[0], CoreConstants.GLOBAL_DICTIONARY_KEY[1], CoreConstants.GLOBAL_DICTIONARY_KEY[2]);
+                                KeyHelper.keyToBufferWithFormat(connectionKeys, selfPointer._space.keyFormat(), ChunkType.STATE_CHUNK, CoreConstants.GLOBAL_DICTIONARY_KEY[0], CoreConstants.GLOBAL_DICTIONARY_KEY[1], CoreConstants.GLOBAL_DICTIONARY_KEY[2]);
                                 connectionKeys.write(CoreConstants.BUFFER_SEP);
                                 selfPointer._storage.get(connectionKeys, new Callback<Buffer>() {
                                     @Override
@@ -766,7 +803,16 @@ public class CoreGraph implements Graph {
                 if (current == Constants.KEY_SEP) {
                     switch (step) {
                         case 0:
-                            type = (byte) Base64.decodeToIntWithBounds(buffer, previous, cursor);
+                            if (KeyHelper.isOrderedKey(buffer, previous, cursor)) {
+                                //ordered keys are a single field, directly followed by the hash
+                                type = KeyHelper.decodeOrderedType(buffer, previous);
+                                world = KeyHelper.decodeOrderedLong(buffer, previous + 1);
+                                id = KeyHelper.decodeOrderedLong(buffer, previous + 1 + KeyHelper.ORDERED_LONG_SIZE);
+                                time = KeyHelper.decodeOrderedLong(buffer, previous + 1 + 2 * KeyHelper.ORDERED_LONG_SIZE);
+                                step = 3;
+                            } else {
+                                type = (byte) Base64.decodeToIntWithBounds(buffer, previous, cursor);
+                            }
                             break;
                         case 1:
                             world = Base64.decodeToLongWithBounds(buffer, previous, cursor);
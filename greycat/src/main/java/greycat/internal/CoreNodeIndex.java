@@ -18,12 +18,15 @@ package greycat.internal;
 import greycat.*;
 import greycat.base.BaseNode;
 import greycat.internal.custom.CoreIndexAttribute;
+import greycat.internal.custom.CoreSortedIndex;
 import greycat.utility.HashHelper;
 
 final class CoreNodeIndex extends BaseNode implements NodeIndex {
 
     static final String NAME = "NodeIndex";
 
+    private static final int SORTED = 1;
+
     CoreNodeIndex(long p_world, long p_time, long p_id, Graph p_graph) {
         super(p_world, p_time, p_id, p_graph);
     }
@@ -50,16 +53,28 @@ final class CoreNodeIndex extends BaseNode implements NodeIndex {
 
     @Override
     public final Index update(Node node) {
+        final CoreSortedIndex sorted = (CoreSortedIndex) getAt(SORTED);
+        if (sorted != null) {
+            sorted.update(node);
+        }
         return ((Index) getAt(0)).update(node);
     }
 
     @Override
     public final Index unindex(Node node) {
+        final CoreSortedIndex sorted = (CoreSortedIndex) getAt(SORTED);
+        if (sorted != null) {
+            sorted.unindex(node);
+        }
         return ((Index) getAt(0)).unindex(node);
     }
 
     @Override
     public final Index clear() {
+        final CoreSortedIndex sorted = (CoreSortedIndex) getAt(SORTED);
+        if (sorted != null) {
+            sorted.clear();
+        }
         return ((Index) getAt(0)).clear();
     }
 
@@ -88,8 +103,71 @@ final class CoreNodeIndex extends BaseNode implements NodeIndex {
         return ((Index) getAt(0)).keys();
     }
 
+    @Override
+    public final Index setCovering(boolean covering) {
+        return ((Index) getAt(0)).setCovering(covering);
+    }
+
+    @Override
+    public final boolean isCovering() {
+        return ((Index) getAt(0)).isCovering();
+    }
+
+    @Override
+    public final Object coveredValue(long nodeId, String attributeName) {
+        return ((Index) getAt(0)).coveredValue(nodeId, attributeName);
+    }
+
     @Override
     public final void findFrom(Callback<Node[]> callback, String... params) {
         ((Index) getAt(0)).find(callback, _world, _time, params);
     }
+
+    @Override
+    public final void declareSortedAttribute(String attributeName) {
+        ((CoreSortedIndex) getOrCreateAt(SORTED, Type.SORTED_INDEX)).declareAttribute(attributeName);
+    }
+
+    @Override
+    public final boolean isSorted() {
+        return getAt(SORTED) != null;
+    }
+
+    @Override
+    public final long[] selectRange(String from, String to, int offset, int limit) {
+        return sorted().selectRange(from, to, offset, limit);
+    }
+
+    @Override
+    public final long[] selectPrefix(String prefix, int offset, int limit) {
+        return sorted().selectPrefix(prefix, offset, limit);
+    }
+
+    @Override
+    public final long[] selectOrdered(boolean descending, int offset, int limit) {
+        return sorted().selectOrdered(descending, offset, limit);
+    }
+
+    @Override
+    public final void findRange(Callback<Node[]> callback, long world, long time, String from, String to, int offset, int limit) {
+        sorted().findRange(callback, world, time, from, to, offset, limit);
+    }
+
+    @Override
+    public final void findPrefix(Callback<Node[]> callback, long world, long time, String prefix, int offset, int limit) {
+        sorted().findPrefix(callback, world, time, prefix, offset, limit);
+    }
+
+    @Override
+    public final void findOrdered(Callback<Node[]> callback, long world, long time, boolean descending, int offset, int limit) {
+        sorted().findOrdered(callback, world, time, descending, offset, limit);
+    }
+
+    private SortedIndex sorted() {
+        final SortedIndex sorted = (SortedIndex) getAt(SORTED);
+        if (sorted == null) {
+            throw new RuntimeException("index is not sorted, use declareSortedAttribute first");
+        }
+        return sorted;
+    }
 }
@@ -15,11 +15,13 @@
  */
 package greycat.internal;
 
+import greycat.Callback;
 import greycat.Graph;
 import greycat.Node;
 import greycat.NodeValue;
 import greycat.Type;
 import greycat.base.BaseNode;
+import greycat.utility.Aggregation;
 import greycat.utility.HashHelper;
 
 public class CoreNodeValue extends BaseNode implements NodeValue {
@@ -28,6 +30,11 @@ public class CoreNodeValue extends BaseNode implements NodeValue {
 
     public static String NAME = "NodeValue";
 
+    /**
+     * Same API as {@link #NAME}, with values stored in compressed time series chunks, for long append-mostly numeric series.
+     */
+    public static String COMPRESSED_NAME = "CompressedNodeValue";
+
     CoreNodeValue(long p_world, long p_time, long p_id, Graph p_graph) {
         super(p_world, p_time, p_id, p_graph);
         if (cached == -1) {
@@ -50,6 +57,11 @@ public class CoreNodeValue extends BaseNode implements NodeValue {
         _resolver.batchInsert(this, times, values);
     }
 
+    @Override
+    public final void aggregate(final long from, final long to, final long bucketSize, final Callback<Aggregation> callback) {
+        _resolver.aggregate(world(), from, to, id(), bucketSize, callback);
+    }
+
     @Override
     public Node setAt(int index, int type, Object value) {
         if (index != cached) {
@@ -73,6 +73,25 @@ final class MWResolver implements Resolver {
 
     private static long NodeValueType = -1834056593;
 
+    private static long CompressedNodeValueType = -1904900626;
+
+    /**
+     * @return true if nodes of this type embed their value in their time trees instead of state chunks
+     */
+    private static boolean isValueType(final long nodeType) {
+        return nodeType == NodeValueType || nodeType == CompressedNodeValueType;
+    }
+
+    /**
+     * @return the chunk type of the time trees embedding the values of nodes of this type
+     */
+    private static byte valueTreeType(final long nodeType) {
+        if (nodeType == CompressedNodeValueType) {
+            return ChunkType.TIME_SERIES_CHUNK;
+        }
+        return ChunkType.TIME_TREE_DVALUE_CHUNK;
+    }
+
     @Override
     public final void initNode(final Node node, final long codeType) {
         final BaseNode casted = (BaseNode) node;
@@ -87,8 +106,8 @@ final class MWResolver implements Resolver {
         //initiate superTime management
         final SuperTimeTreeChunk superTimeTree = (SuperTimeTreeChunk) this._space.createAndMark(ChunkType.SUPER_TIME_TREE_CHUNK, node.world(), 0, node.id());
         //initiate time management
-        if (codeType == NodeValueType) { // HashHelper.hash(CoreNodeValue.NAME)
-            final TimeTreeDValueChunk timeTree = (TimeTreeDValueChunk) this._space.createAndMark(ChunkType.TIME_TREE_DVALUE_CHUNK, node.world(), time, node.id());
+        if (isValueType(codeType)) { // HashHelper.hash(CoreNodeValue.NAME) or HashHelper.hash(CoreNodeValue.COMPRESSED_NAME)
+            final TimeTreeDValueChunk timeTree = (TimeTreeDValueChunk) this._space.createAndMark(valueTreeType(codeType), node.world(), time, node.id());
             timeTree.insert(time);
             final long subTreeCapacity = superTimeTree.subTreeCapacity();
             superTimeTree.insert(time, subTreeCapacity);
@@ -224,12 +243,12 @@ final class MWResolver implements Resolver {
                         _space.unmark(stateChunk.index());
 
                         final Buffer toDelete = _graph.newBuffer();
-                        KeyHelper.keyToBuffer(toDelete, ChunkType.WORLD_ORDER_CHUNK, 0, 0, castedNode.id());
+                        KeyHelper.keyToBufferWithFormat(toDelete, _space.keyFormat(), ChunkType.WORLD_ORDER_CHUNK, 0, 0, castedNode.id());
                         _space.delete(ChunkType.WORLD_ORDER_CHUNK, 0, 0, castedNode.id());
                         for (int i = 0; i < superTimeTrees.length; i++) {
                             toDelete.write(Constants.BUFFER_SEP);
                             final SuperTimeTreeChunk stt = (SuperTimeTreeChunk) superTimeTrees[i];
-                            KeyHelper.keyToBuffer(toDelete, ChunkType.SUPER_TIME_TREE_CHUNK, stt.world(), 0, castedNode.id());
+                            KeyHelper.keyToBufferWithFormat(toDelete, _space.keyFormat(), ChunkType.SUPER_TIME_TREE_CHUNK, stt.world(), 0, castedNode.id());
                             _space.unmark(stt.index());
                             _space.delete(ChunkType.SUPER_TIME_TREE_CHUNK, stt.world(), 0, castedNode.id());
                         }
@@ -239,12 +258,12 @@ final class MWResolver implements Resolver {
                                 @Override
                                 public void elem(long time) {
                                     toDelete.write(Constants.BUFFER_SEP);
-                                    KeyHelper.keyToBuffer(toDelete, ChunkType.STATE_CHUNK, tt.world(), time, castedNode.id());
+                                    KeyHelper.keyToBufferWithFormat(toDelete, _space.keyFormat(), ChunkType.STATE_CHUNK, tt.world(), time, castedNode.id());
                                     _space.delete(ChunkType.STATE_CHUNK, tt.world(), time, castedNode.id());
                                 }
                             });
                             toDelete.write(Constants.BUFFER_SEP);
-                            KeyHelper.keyToBuffer(toDelete, ChunkType.TIME_TREE_CHUNK, tt.world(), tt.time(), castedNode.id());
+                            KeyHelper.keyToBufferWithFormat(toDelete, _space.keyFormat(), ChunkType.TIME_TREE_CHUNK, tt.world(), tt.time(), castedNode.id());
                             _space.unmark(tt.index());
                             _space.delete(ChunkType.TIME_TREE_CHUNK, tt.world(), tt.time(), castedNode.id());
                         }
@@ -269,118 +288,191 @@ final class MWResolver implements Resolver {
         if (times.length != values.length) {
             throw new RuntimeException("Bad API usage, times and values array should have the same size");
         }
+        if (times.length == 0) {
+            return;
+        }
         final BaseNode castedNode = (BaseNode) target;
+        final long nodeWorld = castedNode.world();
+        final long nodeId = castedNode.id();
         castedNode.cacheLock();
         if (castedNode._dead) {
             castedNode.cacheUnlock();
             throw new RuntimeException(CoreConstants.DEAD_NODE_ERROR + " node id: " + castedNode.id());
         }
-        final WorldOrderChunk worldOrderChunk = (WorldOrderChunk) this._space.get(castedNode._index_worldOrder);
-        if (worldOrderChunk.type() != NodeValueType) {
+        final WorldOrderChunk nodeWorldOrder = (WorldOrderChunk) this._space.get(castedNode._index_worldOrder);
+        if (!isValueType(nodeWorldOrder.type())) {
             castedNode.cacheUnlock();
             throw new RuntimeException("Bad API usage, batch insert only valid for NodeValue");
         }
-        worldOrderChunk.lock();
-        //compute time sensitivity
-        final SuperTimeTreeChunk superTimeTree = (SuperTimeTreeChunk) this._space.get(castedNode._index_superTimeTree);
-
-
-        final long timeSensitivity = superTimeTree.timeSensitivity();
-
-
-        /*
+        final long[] sortedTimes = new long[times.length];
+        final double[] sortedValues = new double[values.length];
+        System.arraycopy(times, 0, sortedTimes, 0, times.length);
+        System.arraycopy(values, 0, sortedValues, 0, values.length);
+        //apply time sensitivity
+        final SuperTimeTreeChunk resolvedSuperTimeTree = (SuperTimeTreeChunk) this._space.get(castedNode._index_superTimeTree);
+        final long timeSensitivity = resolvedSuperTimeTree.timeSensitivity();
         if (timeSensitivity != 0 && timeSensitivity != Constants.NULL_LONG) {
-            if (timeSensitivity < 0) {
-                nodeTime = previousTime;
-            } else {
-                long timeSensitivityOffset = superTimeTree.timeSensitivityOffset();
-                if (timeSensitivityOffset == Constants.NULL_LONG) {
-                    timeSensitivityOffset = 0;
-                }
-                nodeTime = nodeTime - (nodeTime % timeSensitivity) + timeSensitivityOffset;
+            long timeSensitivityOffset = resolvedSuperTimeTree.timeSensitivityOffset();
+            if (timeSensitivityOffset == Constants.NULL_LONG) {
+                timeSensitivityOffset = 0;
             }
-        }*/
-
-        /*
-        StateChunk clonedState = null;
-        if (castedNode._index_stateChunk != -1) {
-            if (nodeTime != previousTime || nodeWorld != previousWorld) {
-                try {
-                    clonedState = (StateChunk) this._space.createAndMark(ChunkType.STATE_CHUNK, nodeWorld, nodeTime, nodeId);
-                    clonedState.loadFrom(previouStateChunk);
-                } catch (Exception e) {
-                    nodeWorldOrder.unlock();
-                    castedNode.cacheUnlock();
-                    throw e;
+            final long previousTime = ((TimeTreeChunk) this._space.get(castedNode._index_timeTree)).getKey(castedNode._index_timeTree_offset);
+            for (int i = 0; i < sortedTimes.length; i++) {
+                if (timeSensitivity < 0) {
+                    sortedTimes[i] = previousTime;
+                } else {
+                    sortedTimes[i] = sortedTimes[i] - (sortedTimes[i] % timeSensitivity) + timeSensitivityOffset;
                 }
-                castedNode._index_stateChunk = clonedState.index();
-                _space.unmark(previouStateChunk.index());
-            } else {
-                clonedState = previouStateChunk;
             }
         }
-        castedNode._world_magic = -1;
-        castedNode._super_time_magic = -1;
-        castedNode._time_magic = -1;
-
-        byte subTreeType = ChunkType.TIME_TREE_CHUNK;
-        if (castedNode._index_stateChunk == -1) {
-            subTreeType = ChunkType.TIME_TREE_DVALUE_CHUNK;
+        sortByTime(sortedTimes, sortedValues);
+        if (nodeWorldOrder.get(nodeWorld) == CoreConstants.NULL_LONG && resolvedSuperTimeTree.world() != nodeWorld) {
+            //first values of the node in this world, the nominal path creates its time trees
+            castedNode.cacheUnlock();
+            newState(castedNode, nodeWorld, sortedTimes[0]);
+            castedNode.cacheLock();
         }
-        if (previousWorld == nodeWorld || nodeWorldOrder.get(nodeWorld) != CoreConstants.NULL_LONG) {
-            //final TimeTreeChunk superTimeTree = (TimeTreeChunk) this._space.get(castedNode._index_superTimeTree);
-            final TimeTreeChunk timeTree = (TimeTreeChunk) this._space.get(castedNode._index_timeTree);
-            final long subTreeCapacity = timeTree.capacity();
-            if (timeTree.size() < subTreeCapacity) {
-                //easy, just insert the new timeslot
-                castedNode._index_timeTree_offset = timeTree.insert(nodeTime);
-                if (superTimeTree.lastKey() == timeTree.time()) {
-                    superTimeTree.setLastValue(timeTree.size());
-                } else {
-                    castedNode.cacheUnlock();
-                    throw new RuntimeException("GreyCat internal error");
+        nodeWorldOrder.lock();
+        final SuperTimeTreeChunk superTimeTree = (SuperTimeTreeChunk) this._space.getAndMark(ChunkType.SUPER_TIME_TREE_CHUNK, nodeWorld, 0, nodeId);
+        if (superTimeTree == null) {
+            nodeWorldOrder.unlock();
+            castedNode.cacheUnlock();
+            throw new RuntimeException("Bad API usage, batch insert requires the node to be resolved in its world");
+        }
+        final byte treeType = valueTreeType(nodeWorldOrder.type());
+        //every existing time tree receiving values is resolved before any change, so that a missing one leaves the node untouched
+        final long[] subTreeTimes = new long[sortedTimes.length];
+        int nbSubTrees = 0;
+        for (int i = 0; i < sortedTimes.length; i++) {
+            final long subTreeTime = superTimeTree.previousOrEqual(sortedTimes[i]);
+            if (subTreeTime != CoreConstants.NULL_LONG && (nbSubTrees == 0 || subTreeTimes[nbSubTrees - 1] != subTreeTime)) {
+                subTreeTimes[nbSubTrees] = subTreeTime;
+                nbSubTrees++;
+            }
+        }
+        final TimeTreeDValueChunk[] subTrees = new TimeTreeDValueChunk[nbSubTrees];
+        for (int i = 0; i < nbSubTrees; i++) {
+            subTrees[i] = (TimeTreeDValueChunk) this._space.getAndMark(treeType, nodeWorld, subTreeTimes[i], nodeId);
+            if (subTrees[i] == null) {
+                for (int j = 0; j < i; j++) {
+                    _space.unmark(subTrees[j].index());
                 }
-            } else {
-                //are we the last last one?
-                if (superTimeTree.lastKey() == timeTree.time()) {
-                    TimeTreeChunk newTimeTree = (TimeTreeChunk) this._space.createAndMark(subTreeType, nodeWorld, nodeTime, nodeId);
-                    long allowedSubTreeCapacity = superTimeTree.subTreeCapacity();
-                    castedNode._index_timeTree_offset = newTimeTree.insert(nodeTime);
-                    newTimeTree.setCapacity(allowedSubTreeCapacity);
-                    superTimeTree.insert(nodeTime, allowedSubTreeCapacity);
-                    _space.unmark(castedNode._index_timeTree);
-                    castedNode._index_timeTree = newTimeTree.index();
-                } else {
-                    //insertion in past, oversize tree
-                    castedNode._index_timeTree_offset = timeTree.insert(nodeTime);
-                    timeTree.setCapacity(subTreeCapacity + 1);
-                    superTimeTree.insert(timeTree.time(), subTreeCapacity + 1);
+                _space.unmark(superTimeTree.index());
+                nodeWorldOrder.unlock();
+                castedNode.cacheUnlock();
+                throw new RuntimeException("Bad API usage, batch insert requires the time tree starting at " + subTreeTimes[i] + " to be loaded");
+            }
+        }
+        TimeTreeDValueChunk current = null;
+        //only trees created by this insert are unmarked when left, resolved ones are unmarked at the end
+        boolean currentIsNew = false;
+        int subTreeCursor = 0;
+        try {
+            for (int i = 0; i < sortedTimes.length; i++) {
+                final long time = sortedTimes[i];
+                final long subTreeTime = superTimeTree.previousOrEqual(time);
+                if (current == null || current.time() != subTreeTime) {
+                    if (current != null) {
+                        superTimeTree.insert(current.time(), current.size());
+                        if (currentIsNew) {
+                            _space.unmark(current.index());
+                        }
+                        current = null;
+                    }
+                    if (subTreeTime != CoreConstants.NULL_LONG) {
+                        while (subTreeCursor < nbSubTrees && subTreeTimes[subTreeCursor] != subTreeTime) {
+                            subTreeCursor++;
+                        }
+                        if (subTreeCursor == nbSubTrees) {
+                            throw new RuntimeException("Batch insert at time " + time + " reached an unresolved time tree starting at " + subTreeTime);
+                        }
+                        current = subTrees[subTreeCursor];
+                        currentIsNew = false;
+                    } else {
+                        //before the first time tree
+                        current = batchInsert_newTimeTree(treeType, superTimeTree, nodeWorldOrder.group(), nodeWorld, time, nodeId);
+                        currentIsNew = true;
+                    }
+                }
+                final boolean existing = current.size() > 0 && current.previousOrEqual(time) == time;
+                if (!existing && current.size() >= current.capacity()) {
+                    if (time > current.max() && superTimeTree.next(current.time()) == CoreConstants.NULL_LONG) {
+                        //the last tree is full, open a new one
+                        superTimeTree.insert(current.time(), current.size());
+                        if (currentIsNew) {
+                            _space.unmark(current.index());
+                        }
+                        current = batchInsert_newTimeTree(treeType, superTimeTree, nodeWorldOrder.group(), nodeWorld, time, nodeId);
+                        currentIsNew = true;
+                    } else {
+                        //insertion in past, oversize tree
+                        current.setCapacity(current.size() + 1);
+                    }
                 }
+                current.insertValue(time, sortedValues[i]);
             }
-        } else {
-            //create a new node superTimeTree
-            SuperTimeTreeChunk newSuperTimeTree = (SuperTimeTreeChunk) this._space.createAndMark(ChunkType.SUPER_TIME_TREE_CHUNK, nodeWorld, 0, nodeId);
-            long subTreeCapacity = superTimeTree.subTreeCapacity();
-            newSuperTimeTree.insert(nodeTime, subTreeCapacity);
-            //create a new node timeTree
-            TimeTreeChunk newTimeTree = (TimeTreeChunk) this._space.createAndMark(subTreeType, nodeWorld, nodeTime, nodeId);
-            castedNode._index_timeTree_offset = newTimeTree.insert(nodeTime);
-            newTimeTree.setCapacity(subTreeCapacity);
-            //insert into node world order
-            nodeWorldOrder.put(nodeWorld, nodeTime);
-            //let's store the new state if necessary
-            _space.unmark(castedNode._index_timeTree);
-            _space.unmark(castedNode._index_superTimeTree);
-            castedNode._index_timeTree = newTimeTree.index();
-            castedNode._index_superTimeTree = newSuperTimeTree.index();
+            if (current != null) {
+                superTimeTree.insert(current.time(), current.size());
+            }
+        } finally {
+            if (current != null && currentIsNew) {
+                _space.unmark(current.index());
+            }
+            for (int i = 0; i < nbSubTrees; i++) {
+                _space.unmark(subTrees[i].index());
+            }
+            _space.unmark(superTimeTree.index());
+            nodeWorldOrder.unlock();
+            castedNode.cacheUnlock();
         }
-        if (castedNode._index_stateChunk == -1) {
-            clonedState = ((TimeTreeEmbeddedChunk) _space.get(castedNode._index_timeTree)).state(castedNode._index_timeTree_offset);
+    }
+
+    private TimeTreeDValueChunk batchInsert_newTimeTree(final byte treeType, final SuperTimeTreeChunk superTimeTree, final int group, final long world, final long time, final long id) {
+        final TimeTreeDValueChunk newTimeTree = (TimeTreeDValueChunk) this._space.createAndMark(treeType, world, time, id);
+        newTimeTree.setGroup(group);
+        newTimeTree.setCapacity(superTimeTree.subTreeCapacity());
+        superTimeTree.insert(time, 0);
+        return newTimeTree;
+    }
+
+    /**
+     * Stable merge sort of times, values following their time, so that the last value of a duplicated time wins.
+     */
+    private static void sortByTime(final long[] times, final double[] values) {
+        final int size = times.length;
+        long[] fromTimes = times;
+        double[] fromValues = values;
+        long[] toTimes = new long[size];
+        double[] toValues = new double[size];
+        for (int width = 1; width < size; width = width * 2) {
+            for (int left = 0; left < size; left = left + 2 * width) {
+                final int middle = Math.min(left + width, size);
+                final int right = Math.min(left + 2 * width, size);
+                int i = left;
+                int j = middle;
+                for (int k = left; k < right; k++) {
+                    if (i < middle && (j >= right || fromTimes[i] <= fromTimes[j])) {
+                        toTimes[k] = fromTimes[i];
+                        toValues[k] = fromValues[i];
+                        i++;
+                    } else {
+                        toTimes[k] = fromTimes[j];
+                        toValues[k] = fromValues[j];
+                        j++;
+                    }
+                }
+            }
+            final long[] swapTimes = fromTimes;
+            fromTimes = toTimes;
+            toTimes = swapTimes;
+            final double[] swapValues = fromValues;
+            fromValues = toValues;
+            toValues = swapValues;
+        }
+        if (fromTimes != times) {
+            System.arraycopy(fromTimes, 0, times, 0, size);
+            System.arraycopy(fromValues, 0, values, 0, size);
         }
-        nodeWorldOrder.unlock();
-        castedNode.cacheUnlock();
-        return clonedState;
-        */
     }
 
     @Override
@@ -417,8 +509,8 @@ final class MWResolver implements Resolver {
                                 }
                                 byte treeType = ChunkType.TIME_TREE_CHUNK;
                                 //TODO extends
-                                if (castedWC.type() == NodeValueType) {
-                                    treeType = ChunkType.TIME_TREE_DVALUE_CHUNK;
+                                if (isValueType(castedWC.type())) {
+                                    treeType = valueTreeType(castedWC.type());
                                 }
                                 selfPointer._space.getOrLoadAndMark(treeType, closestWorld, closestSuperTime, id, new Callback<Chunk>() {
                                     @Override
@@ -482,7 +574,7 @@ final class MWResolver implements Resolver {
                                                     }
                                                 }
                                             };
-                                            if (castedWC.type() == NodeValueType) {
+                                            if (isValueType(castedWC.type())) {
                                                 cc.on(((TimeTreeEmbeddedChunk) theNodeTimeTree).state(closestTimeOffset));
                                             } else {
                                                 selfPointer._space.getOrLoadAndMark(ChunkType.STATE_CHUNK, closestWorld, closestTime, id, cc);
@@ -559,8 +651,8 @@ final class MWResolver implements Resolver {
                                                     isEmpty[0] = false;
                                                     keys[(i * Constants.KEY_SIZE) + 2] = closestSuperTime;
                                                     keys[i * Constants.KEY_SIZE] = ChunkType.TIME_TREE_CHUNK;
-                                                    if (((WorldOrderChunk) theNodeWorldOrders[i]).type() == NodeValueType) {
-                                                        keys[i * Constants.KEY_SIZE] = ChunkType.TIME_TREE_DVALUE_CHUNK;
+                                                    if (isValueType(((WorldOrderChunk) theNodeWorldOrders[i]).type())) {
+                                                        keys[i * Constants.KEY_SIZE] = valueTreeType(((WorldOrderChunk) theNodeWorldOrders[i]).type());
                                                     }
                                                 }
                                             } else {
@@ -585,7 +677,7 @@ final class MWResolver implements Resolver {
                                                                     keys[i * Constants.KEY_SIZE] = -1; //skip
                                                                 } else {
                                                                     isEmpty[0] = false;
-                                                                    if (((WorldOrderChunk) theNodeWorldOrders[i]).type() == NodeValueType) {
+                                                                    if (isValueType(((WorldOrderChunk) theNodeWorldOrders[i]).type())) {
                                                                         keys[i * Constants.KEY_SIZE] = -1;
                                                                         keys[(i * Constants.KEY_SIZE) + 2] = closestTimeOffset;
                                                                     } else {
@@ -608,7 +700,7 @@ final class MWResolver implements Resolver {
                                                                     } else {
                                                                         for (int i = 0; i < idsSize; i++) {
                                                                             int timeOffset = -1;
-                                                                            if (theObjectChunks[i] == null && ((WorldOrderChunk) theNodeWorldOrders[i]).type() == NodeValueType) {
+                                                                            if (theObjectChunks[i] == null && isValueType(((WorldOrderChunk) theNodeWorldOrders[i]).type())) {
                                                                                 timeOffset = (int) keys[(i * Constants.KEY_SIZE) + 2];
                                                                                 theObjectChunks[i] = ((TimeTreeEmbeddedChunk) theNodeTimeTrees[i]).state(timeOffset);
                                                                             }
@@ -740,8 +832,8 @@ final class MWResolver implements Resolver {
                                                 } else {
                                                     isEmpty[0] = false;
                                                     keys[i * Constants.KEY_SIZE] = ChunkType.TIME_TREE_CHUNK;
-                                                    if (((WorldOrderChunk) theNodeWorldOrders[i]).type() == NodeValueType) {
-                                                        keys[i * Constants.KEY_SIZE] = ChunkType.TIME_TREE_DVALUE_CHUNK;
+                                                    if (isValueType(((WorldOrderChunk) theNodeWorldOrders[i]).type())) {
+                                                        keys[i * Constants.KEY_SIZE] = valueTreeType(((WorldOrderChunk) theNodeWorldOrders[i]).type());
                                                     }
                                                     keys[(i * Constants.KEY_SIZE) + 2] = closestSuperTime;
                                                 }
@@ -767,7 +859,7 @@ final class MWResolver implements Resolver {
                                                                     keys[i * Constants.KEY_SIZE] = -1; //skip
                                                                 } else {
                                                                     isEmpty[0] = false;
-                                                                    if (((WorldOrderChunk) theNodeWorldOrders[i]).type() == NodeValueType) {
+                                                                    if (isValueType(((WorldOrderChunk) theNodeWorldOrders[i]).type())) {
                                                                         keys[i * Constants.KEY_SIZE] = -1;
                                                                         keys[(i * Constants.KEY_SIZE) + 2] = closestTimeOffset;
                                                                     } else {
@@ -791,7 +883,7 @@ final class MWResolver implements Resolver {
                                                                         for (int i = 0; i < idsSize; i++) {
                                                                             int timeOffset = -1;
                                                                             if(theNodeWorldOrders[i] != null){
-                                                                                if (theObjectChunks[i] == null && ((WorldOrderChunk) theNodeWorldOrders[i]).type() == NodeValueType) {
+                                                                                if (theObjectChunks[i] == null && isValueType(((WorldOrderChunk) theNodeWorldOrders[i]).type())) {
                                                                                     timeOffset = (int) keys[(i * Constants.KEY_SIZE) + 2];
                                                                                     theObjectChunks[i] = ((TimeTreeEmbeddedChunk) theNodeTimeTrees[i]).state(timeOffset);
                                                                                 }
@@ -948,8 +1040,8 @@ final class MWResolver implements Resolver {
                                     call_keys2[i * 3] = worldCollector.get((int) tempSuperTimeCollector.getValue(i));
                                     call_keys2[i * 3 + 1] = tempSuperTimeCollector.getKey(i);
                                     call_keys2[i * 3 + 2] = id;
-                                    if (objectWorldOrder.type() == NodeValueType) {
-                                        call_types2[i] = ChunkType.TIME_TREE_DVALUE_CHUNK;
+                                    if (isValueType(objectWorldOrder.type())) {
+                                        call_types2[i] = valueTreeType(objectWorldOrder.type());
                                     } else {
                                         call_types2[i] = ChunkType.TIME_TREE_CHUNK;
                                     }
@@ -990,8 +1082,8 @@ final class MWResolver implements Resolver {
                                     call_keys2[write_cursor * 3] = worldCollector.get((int) tempSuperTimeCollector.getValue(i));
                                     call_keys2[write_cursor * 3 + 1] = tempSuperTimeCollector.getKey(i);
                                     call_keys2[write_cursor * 3 + 2] = id;
-                                    if (objectWorldOrder.type() == NodeValueType) {
-                                        call_types2[write_cursor] = ChunkType.TIME_TREE_DVALUE_CHUNK;
+                                    if (isValueType(objectWorldOrder.type())) {
+                                        call_types2[write_cursor] = valueTreeType(objectWorldOrder.type());
                                     } else {
                                         call_types2[write_cursor] = ChunkType.TIME_TREE_CHUNK;
                                     }
@@ -1114,7 +1206,7 @@ final class MWResolver implements Resolver {
                                             call_keys3[i * 3 + 1] = result[i].time();
                                             call_keys3[i * 3 + 2] = id;
                                             call_types3[i] = ChunkType.STATE_CHUNK;
-                                            if (objectWorldOrder.type() == NodeValueType) {
+                                            if (isValueType(objectWorldOrder.type())) {
                                                 call_types3[i] = -1;
                                                 result[i]._index_timeTree_offset = ((TimeTreeDValueChunk) timeTrees[i]).previousOrEqualOffset(result[i].time());
                                             }
@@ -1185,7 +1277,7 @@ final class MWResolver implements Resolver {
             callback.on(cached);
         } else {
             final Buffer buffer = selfPointer._graph.newBuffer();
-            KeyHelper.keyToBuffer(buffer, type, world, time, id);
+            KeyHelper.keyToBufferWithFormat(buffer, _space.keyFormat(), type, world, time, id);
             this._storage.get(buffer, new Callback<Buffer>() {
                 @Override
                 public void on(Buffer payloads) {
@@ -1238,7 +1330,7 @@ final class MWResolver implements Resolver {
                     if (lastInsertedIndex != 0) {
                         keysToLoad.write(CoreConstants.BUFFER_SEP);
                     }
-                    KeyHelper.keyToBuffer(keysToLoad, types[i], keys[i * KEY_SIZE], keys[i * KEY_SIZE + 1], keys[i * KEY_SIZE + 2]);
+                    KeyHelper.keyToBufferWithFormat(keysToLoad, _space.keyFormat(), types[i], keys[i * KEY_SIZE], keys[i * KEY_SIZE + 1], keys[i * KEY_SIZE + 2]);
                     lastInsertedIndex = lastInsertedIndex + 1;
                 }
             }
@@ -1527,7 +1619,8 @@ final class MWResolver implements Resolver {
                     long resolvedSuperTime = nodeSuperTimeTree.previousOrEqual(nodeTime);
                     if (resolvedSuperTime != nodeTimeTree.time()) {
                         //we have to update the timeTree
-                        final TimeTreeChunk tempNodeTimeTree = (TimeTreeChunk) this._space.getAndMark(ChunkType.TIME_TREE_CHUNK, resolvedWorld, resolvedSuperTime, nodeId);
+                        final byte treeType = castedNode._index_stateChunk == -1 ? valueTreeType(nodeWorldOrder.type()) : ChunkType.TIME_TREE_CHUNK;
+                        final TimeTreeChunk tempNodeTimeTree = (TimeTreeChunk) this._space.getAndMark(treeType, resolvedWorld, resolvedSuperTime, nodeId);
                         if (tempNodeTimeTree != null) {
                             _space.unmark(nodeTimeTree.index());
                             nodeTimeTree = tempNodeTimeTree;
@@ -1693,7 +1786,7 @@ final class MWResolver implements Resolver {
 
         byte subTreeType = ChunkType.TIME_TREE_CHUNK;
         if (castedNode._index_stateChunk == -1) {
-            subTreeType = ChunkType.TIME_TREE_DVALUE_CHUNK;
+            subTreeType = valueTreeType(nodeWorldOrder.type());
         }
         if (previousWorld == nodeWorld || nodeWorldOrder.get(nodeWorld) != CoreConstants.NULL_LONG) {
             //final TimeTreeChunk superTimeTree = (TimeTreeChunk) this._space.get(castedNode._index_superTimeTree);
@@ -1780,6 +1873,7 @@ final class MWResolver implements Resolver {
         fakeNode._index_superTimeTree = castedNode._index_superTimeTree;
         fakeNode._index_timeTree = castedNode._index_timeTree;
         fakeNode._index_stateChunk = castedNode._index_stateChunk;
+        fakeNode._index_timeTree_offset = castedNode._index_timeTree_offset;
 
         fakeNode._time_magic = castedNode._time_magic;
         fakeNode._super_time_magic = castedNode._super_time_magic;
@@ -1791,6 +1885,7 @@ final class MWResolver implements Resolver {
         castedNode._index_superTimeTree = fakeNode._index_superTimeTree;
         castedNode._index_timeTree = fakeNode._index_timeTree;
         castedNode._index_stateChunk = fakeNode._index_stateChunk;
+        castedNode._index_timeTree_offset = fakeNode._index_timeTree_offset;
 
         castedNode._time_magic = fakeNode._time_magic;
         castedNode._super_time_magic = fakeNode._super_time_magic;
@@ -1803,12 +1898,26 @@ final class MWResolver implements Resolver {
 
     @Override
     public void resolveTimepoints(final Node node, final long beginningOfSearch, final long endOfSearch, final Callback<long[]> callback) {
-        internal_resolveTimepoints(node, beginningOfSearch, endOfSearch, callback);
+        internal_resolveTimepoints(node.world(), node.id(), beginningOfSearch, endOfSearch, null, callback);
+    }
+
+    @Override
+    public void aggregate(final long world, final long from, final long to, final long id, final long bucketSize, final Callback<Aggregation> callback) {
+        final Aggregation aggregation = new Aggregation(from, to, bucketSize);
+        internal_resolveTimepoints(world, id, from, to, aggregation, new Callback<long[]>() {
+            @Override
+            public void on(long[] ignored) {
+                callback.on(aggregation);
+            }
+        });
     }
 
-    private void internal_resolveTimepoints(final Node node, final long beginningOfSearch, final long endOfSearch, final Callback<long[]> callback) {
+    /**
+     * Collects the timepoints of a node, or feeds their values into the aggregation when there is one.
+     */
+    private void internal_resolveTimepoints(final long world, final long id, final long beginningOfSearch, final long endOfSearch, final Aggregation aggregation, final Callback<long[]> callback) {
         final MWResolver selfPointer = this;
-        _space.getOrLoadAndMark(ChunkType.WORLD_ORDER_CHUNK, 0, 0, node.id(), new Callback<Chunk>() {
+        _space.getOrLoadAndMark(ChunkType.WORLD_ORDER_CHUNK, 0, 0, id, new Callback<Chunk>() {
             @Override
             public void on(Chunk resolved) {
                 if (resolved == null) {
@@ -1820,7 +1929,7 @@ final class MWResolver implements Resolver {
                 final int[] collectionSize = {CoreConstants.MAP_INITIAL_CAPACITY};
                 final long[][] collectedWorlds = {new long[collectionSize[0]]};
                 int collectedIndex = 0;
-                long currentWorld = node.world();
+                long currentWorld = world;
                 while (currentWorld != CoreConstants.NULL_LONG) {
                     long divergenceTimepoint = objectWorldOrder.get(currentWorld);
                     if (divergenceTimepoint != CoreConstants.NULL_LONG) {
@@ -1852,20 +1961,20 @@ final class MWResolver implements Resolver {
                     }
                 }
                 //create request concat keys
-                selfPointer.resolveTimepointsFromWorlds(objectWorldOrder, node, beginningOfSearch, endOfSearch, collectedWorlds[0], collectedIndex, callback);
+                selfPointer.resolveTimepointsFromWorlds(objectWorldOrder, id, beginningOfSearch, endOfSearch, aggregation, collectedWorlds[0], collectedIndex, callback);
             }
         });
     }
 
 
-    private void resolveTimepointsFromWorlds(final WorldOrderChunk objectWorldOrder, final Node node, final long beginningOfSearch, final long endOfSearch, final long[] collectedWorlds, final int collectedWorldsSize, final Callback<long[]> callback) {
+    private void resolveTimepointsFromWorlds(final WorldOrderChunk objectWorldOrder, final long id, final long beginningOfSearch, final long endOfSearch, final Aggregation aggregation, final long[] collectedWorlds, final int collectedWorldsSize, final Callback<long[]> callback) {
         final MWResolver selfPointer = this;
         final long[] timeTreeKeys = new long[collectedWorldsSize * 3];
         final byte[] types = new byte[collectedWorldsSize];
         for (int i = 0; i < collectedWorldsSize; i++) {
             timeTreeKeys[i * 3] = collectedWorlds[i];
             timeTreeKeys[i * 3 + 1] = 0;
-            timeTreeKeys[i * 3 + 2] = node.id();
+            timeTreeKeys[i * 3 + 2] = id;
             types[i] = ChunkType.SUPER_TIME_TREE_CHUNK;
         }
         getOrLoadAndMarkAll(types, timeTreeKeys, new Callback<Chunk[]>() {
@@ -1917,22 +2026,28 @@ final class MWResolver implements Resolver {
                         selfPointer._space.unmark(timeTree.index());
                     }
                     //now we have superTimes, lets convert them to all times
-                    selfPointer.resolveTimepointsFromSuperTimes(objectWorldOrder, node, beginningOfSearch, endOfSearch, collectedSuperTimesAssociatedWorlds[0], collectedSuperTimes[0], insert_index[0], callback);
+                    selfPointer.resolveTimepointsFromSuperTimes(objectWorldOrder, id, beginningOfSearch, endOfSearch, aggregation, collectedSuperTimesAssociatedWorlds[0], collectedSuperTimes[0], insert_index[0], callback);
                 }
             }
         });
     }
 
-    private void resolveTimepointsFromSuperTimes(final WorldOrderChunk objectWorldOrder, final Node node, final long beginningOfSearch, final long endOfSearch, final long[] collectedWorlds, final long[] collectedSuperTimes, final int collectedSize, final Callback<long[]> callback) {
+    private void resolveTimepointsFromSuperTimes(final WorldOrderChunk objectWorldOrder, final long id, final long beginningOfSearch, final long endOfSearch, final Aggregation aggregation, final long[] collectedWorlds, final long[] collectedSuperTimes, final int collectedSize, final Callback<long[]> callback) {
         final MWResolver selfPointer = this;
+        if (aggregation != null && !isValueType(objectWorldOrder.type())) {
+            //only value nodes carry series to aggregate
+            _space.unmark(objectWorldOrder.index());
+            callback.on(new long[0]);
+            return;
+        }
         final long[] timeTreeKeys = new long[collectedSize * 3];
         final byte[] types = new byte[collectedSize];
         for (int i = 0; i < collectedSize; i++) {
             timeTreeKeys[i * 3] = collectedWorlds[i];
             timeTreeKeys[i * 3 + 1] = collectedSuperTimes[i];
-            timeTreeKeys[i * 3 + 2] = node.id();
-            if (objectWorldOrder.type() == NodeValueType) {
-                types[i] = ChunkType.TIME_TREE_DVALUE_CHUNK;
+            timeTreeKeys[i * 3 + 2] = id;
+            if (isValueType(objectWorldOrder.type())) {
+                types[i] = valueTreeType(objectWorldOrder.type());
             } else {
                 types[i] = ChunkType.TIME_TREE_CHUNK;
             }
@@ -1950,6 +2065,7 @@ final class MWResolver implements Resolver {
                     final long[][] collectedTimes = {new long[collectedTimesSize[0]]};
                     final int[] insert_index = {0};
                     long previousDivergenceTime = endOfSearch;
+                    boolean overridden = false;
                     for (int i = 0; i < collectedSize; i++) {
                         final TimeTreeChunk timeTree = (TimeTreeChunk) timeTrees[i];
                         if (timeTree != null) {
@@ -1958,26 +2074,32 @@ final class MWResolver implements Resolver {
                                 currentDivergenceTime = beginningOfSearch;
                             }
                             final long finalPreviousDivergenceTime = previousDivergenceTime;
-                            timeTree.range(currentDivergenceTime, previousDivergenceTime, CoreConstants.END_OF_TIME, new TreeWalker() {
-                                @Override
-                                public void elem(long t) {
-                                    if (t != finalPreviousDivergenceTime) {
-                                        collectedTimes[0][insert_index[0]] = t;
-                                        insert_index[0]++;
-                                        if (collectedTimesSize[0] == insert_index[0]) {
-                                            //reallocate
-                                            long[] temp_collectedTimes = new long[collectedTimesSize[0] * 2];
-                                            System.arraycopy(collectedTimes[0], 0, temp_collectedTimes, 0, collectedTimesSize[0]);
-                                            collectedTimes[0] = temp_collectedTimes;
-                                            collectedTimesSize[0] = collectedTimesSize[0] * 2;
+                            if (aggregation != null) {
+                                //values are streamed from the chunk, the divergence time of an overriding world is excluded
+                                ((TimeTreeDValueChunk) timeTree).aggregate(currentDivergenceTime, overridden ? previousDivergenceTime - 1 : previousDivergenceTime, aggregation);
+                            } else {
+                                timeTree.range(currentDivergenceTime, previousDivergenceTime, CoreConstants.END_OF_TIME, new TreeWalker() {
+                                    @Override
+                                    public void elem(long t) {
+                                        if (t != finalPreviousDivergenceTime) {
+                                            collectedTimes[0][insert_index[0]] = t;
+                                            insert_index[0]++;
+                                            if (collectedTimesSize[0] == insert_index[0]) {
+                                                //reallocate
+                                                long[] temp_collectedTimes = new long[collectedTimesSize[0] * 2];
+                                                System.arraycopy(collectedTimes[0], 0, temp_collectedTimes, 0, collectedTimesSize[0]);
+                                                collectedTimes[0] = temp_collectedTimes;
+                                                collectedTimesSize[0] = collectedTimesSize[0] * 2;
+                                            }
                                         }
                                     }
-                                }
-                            });
+                                });
+                            }
                             if (i < collectedSize - 1) {
                                 if (collectedWorlds[i + 1] != collectedWorlds[i]) {
                                     //world overriding semantic
                                     previousDivergenceTime = currentDivergenceTime;
+                                    overridden = true;
                                 }
                             }
                             selfPointer._space.unmark(timeTree.index());
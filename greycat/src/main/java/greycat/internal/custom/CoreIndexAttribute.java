@@ -27,6 +27,13 @@ public class CoreIndexAttribute extends BaseCustomTypeSingle implements Index {
     private static final int P_MAP = 0;
     private static final int R_MAP = 1;
     private static final int HASHES = 2;
+    private static final int COVERING = 3;
+    private static final int C_MAP = 4;
+
+    /**
+     * Slot of the node id in the EStruct holding the covered values of one node, other slots are attribute hashes.
+     */
+    private static final int C_ID = 0;
 
     public static final String NAME = "INDEX";
 
@@ -51,7 +58,11 @@ public class CoreIndexAttribute extends BaseCustomTypeSingle implements Index {
 
     @Override
     public final int size() {
-        return ((LongLongArrayMap) getAt(P_MAP)).size();
+        final LongLongArrayMap l_map = (LongLongArrayMap) getAt(P_MAP);
+        if (l_map == null) {
+            return 0;
+        }
+        return l_map.size();
     }
 
     @Override
@@ -80,6 +91,15 @@ public class CoreIndexAttribute extends BaseCustomTypeSingle implements Index {
         final IntArray hashes = (IntArray) getAt(HASHES);
         final Query flatQuery = node.graph().newQuery();
         final NodeState toIndexNodeState = node.graph().resolver().resolveState(node);
+        if (isCovering()) {
+            //checked before any change, so that a refused node leaves the index untouched
+            for (int i = 0; i < hashes.size(); i++) {
+                final int type = toIndexNodeState.typeAt(hashes.get(i));
+                if (type != -1 && !isCoverable(type)) {
+                    throw new RuntimeException("Covering indexes only store primitive attributes, received " + Type.typeName(type));
+                }
+            }
+        }
         for (int i = 0; i < hashes.size(); i++) {
             final int hash = hashes.get(i);
             final Object attValue = toIndexNodeState.getAt(hash);
@@ -94,6 +114,9 @@ public class CoreIndexAttribute extends BaseCustomTypeSingle implements Index {
         relationIndexed.delete(prevHash, node.id());
         relationIndexed.put(newHash, node.id());
         reverseMap.put(node.id(), newHash);
+        if (isCovering()) {
+            cover(node.id(), hashes, toIndexNodeState);
+        }
         return this;
     }
 
@@ -104,6 +127,9 @@ public class CoreIndexAttribute extends BaseCustomTypeSingle implements Index {
         final long prevHash = reverseMap.get(node.id());
         relationIndexed.delete(prevHash, node.id());
         reverseMap.remove(node.id());
+        if (isCovering()) {
+            uncover(node.id());
+        }
         return this;
     }
 
@@ -111,9 +137,53 @@ public class CoreIndexAttribute extends BaseCustomTypeSingle implements Index {
     public final Index clear() {
         setAt(P_MAP, Type.LONG_TO_LONG_ARRAY_MAP, null);
         setAt(R_MAP, Type.LONG_TO_LONG_MAP, null);
+        if (isCovering()) {
+            while (_backend.size() > 1) {
+                _backend.drop(_backend.estruct(_backend.size() - 1));
+            }
+            removeAt(C_MAP);
+            getOrCreateAt(C_MAP, Type.LONG_TO_LONG_MAP);
+        }
         return this;
     }
 
+    @Override
+    public final Index setCovering(final boolean covering) {
+        if (covering == isCovering()) {
+            return this;
+        }
+        final LongLongArrayMap relationIndexed = (LongLongArrayMap) getAt(P_MAP);
+        if (relationIndexed != null && relationIndexed.size() > 0) {
+            throw new RuntimeException("Covering can only be changed on an empty index, clear it and index nodes again");
+        }
+        if (covering) {
+            setAt(COVERING, Type.BOOL, true);
+            getOrCreateAt(C_MAP, Type.LONG_TO_LONG_MAP);
+        } else {
+            removeAt(COVERING);
+            removeAt(C_MAP);
+        }
+        return this;
+    }
+
+    @Override
+    public final boolean isCovering() {
+        return getAtWithDefault(COVERING, false);
+    }
+
+    @Override
+    public final Object coveredValue(final long nodeId, final String attributeName) {
+        final LongLongMap coverMap = (LongLongMap) getAt(C_MAP);
+        if (coverMap == null) {
+            throw new RuntimeException("Index is not covering, values are only stored by covering indexes");
+        }
+        final long coverIndex = coverMap.get(nodeId);
+        if (coverIndex == Constants.NULL_LONG) {
+            return null;
+        }
+        return _backend.estruct((int) coverIndex).getAt(HashHelper.hash(attributeName));
+    }
+
     @Override
     public final void find(Callback<Node[]> callback, long world, long time, String... params) {
         if (params == null || params.length == 0) {
@@ -143,68 +213,51 @@ public class CoreIndexAttribute extends BaseCustomTypeSingle implements Index {
     public final void findByQuery(Query query, Callback<Node[]> callback) {
         final LongLongArrayMap relationIndexed = (LongLongArrayMap) getAt(P_MAP);
         final Graph g = _backend.graph();
-        final long[] foundIds = relationIndexed.get(query.hash());
-        if (foundIds == null) {
+        final long[] candidateIds = relationIndexed.get(query.hash());
+        if (candidateIds == null) {
             callback.on(new BaseNode[0]);
-        } else {
-            g.resolver().lookupAll(query.world(), query.time(), foundIds, new Callback<Node[]>() {
-                @Override
-                public void on(Node[] resolved) {
-                    //select
-                    Node[] resultSet = new BaseNode[foundIds.length];
-                    int resultSetIndex = 0;
-                    for (int i = 0; i < resultSet.length; i++) {
-                        final Node resolvedNode = resolved[i];
-                        if (resolvedNode != null) {
-                            final NodeState resolvedState = g.resolver().resolveState(resolvedNode);
-                            boolean exact = true;
-                            for (int j = 0; j < query.attributes().length; j++) {
-                                Object obj = resolvedState.getAt(query.attributes()[j]);
-                                if (query.values()[j] == null) {
-                                    if (obj != null) {
-                                        exact = false;
-                                        break;
-                                    }
-                                } else {
-                                    if (obj == null) {
-                                        exact = false;
-                                        break;
-                                    } else {
-                                        if (obj instanceof long[]) {
-                                            if (query.values()[j] instanceof long[]) {
-                                                if (!Constants.longArrayEquals((long[]) query.values()[j], (long[]) obj)) {
-                                                    exact = false;
-                                                    break;
-                                                }
-                                            } else {
-                                                exact = false;
-                                                break;
-                                            }
-                                        } else {
-                                            if (!Constants.equals(query.values()[j].toString(), obj.toString())) {
-                                                exact = false;
-                                                break;
-                                            }
-                                        }
-                                    }
-                                }
-                            }
-                            if (exact) {
-                                resultSet[resultSetIndex] = resolvedNode;
-                                resultSetIndex++;
-                            }
-                        }
+            return;
+        }
+        if (isCovering()) {
+            //collisions are removed from covered values, only matching nodes are resolved
+            final long[] foundIds = filterCovered(query, candidateIds);
+            if (foundIds.length == 0) {
+                callback.on(new BaseNode[0]);
+            } else {
+                g.resolver().lookupAll(query.world(), query.time(), foundIds, new Callback<Node[]>() {
+                    @Override
+                    public void on(Node[] resolved) {
+                        callback.on(trim(resolved));
                     }
-                    if (resultSet.length == resultSetIndex) {
-                        callback.on(resultSet);
-                    } else {
-                        Node[] trimmedResultSet = new BaseNode[resultSetIndex];
-                        System.arraycopy(resultSet, 0, trimmedResultSet, 0, resultSetIndex);
-                        callback.on(trimmedResultSet);
+                });
+            }
+            return;
+        }
+        final long[] foundIds = candidateIds;
+        g.resolver().lookupAll(query.world(), query.time(), foundIds, new Callback<Node[]>() {
+            @Override
+            public void on(Node[] resolved) {
+                //select
+                Node[] resultSet = new BaseNode[foundIds.length];
+                int resultSetIndex = 0;
+                for (int i = 0; i < resultSet.length; i++) {
+                    final Node resolvedNode = resolved[i];
+                    if (resolvedNode != null) {
+                        if (matches(query, g.resolver().resolveState(resolvedNode))) {
+                            resultSet[resultSetIndex] = resolvedNode;
+                            resultSetIndex++;
+                        }
                     }
                 }
-            });
-        }
+                if (resultSet.length == resultSetIndex) {
+                    callback.on(resultSet);
+                } else {
+                    Node[] trimmedResultSet = new BaseNode[resultSetIndex];
+                    System.arraycopy(resultSet, 0, trimmedResultSet, 0, resultSetIndex);
+                    callback.on(trimmedResultSet);
+                }
+            }
+        });
     }
 
     @Override
@@ -218,14 +271,17 @@ public class CoreIndexAttribute extends BaseCustomTypeSingle implements Index {
         for (int i = 0; i < params.length; i++) {
             queryObj.addRaw(hashes.get(i), params[i]);
         }
-        long hash = queryObj.hash();
-        return relationIndexed.get(hash);
+        return selectByQuery(queryObj);
     }
 
     @Override
     public final long[] selectByQuery(Query query) {
         final LongLongArrayMap relationIndexed = (LongLongArrayMap) getAt(P_MAP);
-        return relationIndexed.get(query.hash());
+        final long[] candidateIds = relationIndexed.get(query.hash());
+        if (candidateIds != null && isCovering()) {
+            return filterCovered(query, candidateIds);
+        }
+        return candidateIds;
     }
 
     @Override
@@ -236,4 +292,132 @@ public class CoreIndexAttribute extends BaseCustomTypeSingle implements Index {
         }
         return hashes.extract();
     }
+
+    private static boolean isCoverable(final int type) {
+        switch (type) {
+            case Type.BOOL:
+            case Type.STRING:
+            case Type.LONG:
+            case Type.INT:
+            case Type.DOUBLE:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Copies the indexed values of a node into its own EStruct, with their original type, so that queries compare them as
+     * they would compare the node state.
+     */
+    private void cover(final long nodeId, final IntArray hashes, final NodeState state) {
+        final LongLongMap coverMap = (LongLongMap) getOrCreateAt(C_MAP, Type.LONG_TO_LONG_MAP);
+        final long coverIndex = coverMap.get(nodeId);
+        final EStruct cover;
+        if (coverIndex == Constants.NULL_LONG) {
+            cover = _backend.newEStruct();
+            cover.setAt(C_ID, Type.LONG, nodeId);
+            coverMap.put(nodeId, cover.id());
+        } else {
+            cover = _backend.estruct((int) coverIndex);
+        }
+        for (int i = 0; i < hashes.size(); i++) {
+            final int hash = hashes.get(i);
+            final Object attValue = state.getAt(hash);
+            if (attValue == null) {
+                cover.removeAt(hash);
+            } else {
+                cover.setAt(hash, state.typeAt(hash), attValue);
+            }
+        }
+    }
+
+    private void uncover(final long nodeId) {
+        final LongLongMap coverMap = (LongLongMap) getAt(C_MAP);
+        final long coverIndex = coverMap.get(nodeId);
+        if (coverIndex == Constants.NULL_LONG) {
+            return;
+        }
+        coverMap.remove(nodeId);
+        final int lastIndex = _backend.size() - 1;
+        if (coverIndex != lastIndex) {
+            //drop moves the last EStruct into the freed slot
+            final long movedId = (Long) _backend.estruct(lastIndex).getAt(C_ID);
+            coverMap.put(movedId, coverIndex);
+        }
+        _backend.drop(_backend.estruct((int) coverIndex));
+    }
+
+    private long[] filterCovered(final Query query, final long[] candidateIds) {
+        final LongLongMap coverMap = (LongLongMap) getAt(C_MAP);
+        final long[] found = new long[candidateIds.length];
+        int foundIndex = 0;
+        for (int i = 0; i < candidateIds.length; i++) {
+            final long coverIndex = coverMap.get(candidateIds[i]);
+            if (coverIndex != Constants.NULL_LONG && matches(query, _backend.estruct((int) coverIndex))) {
+                found[foundIndex] = candidateIds[i];
+                foundIndex++;
+            }
+        }
+        if (foundIndex == found.length) {
+            return found;
+        }
+        final long[] trimmed = new long[foundIndex];
+        System.arraycopy(found, 0, trimmed, 0, foundIndex);
+        return trimmed;
+    }
+
+    private static Node[] trim(final Node[] resolved) {
+        int size = 0;
+        for (int i = 0; i < resolved.length; i++) {
+            if (resolved[i] != null) {
+                size++;
+            }
+        }
+        if (size == resolved.length) {
+            return resolved;
+        }
+        final Node[] trimmed = new BaseNode[size];
+        int index = 0;
+        for (int i = 0; i < resolved.length; i++) {
+            if (resolved[i] != null) {
+                trimmed[index] = resolved[i];
+                index++;
+            }
+        }
+        return trimmed;
+    }
+
+    /**
+     * Checks the values of a node state or of covered values against every attribute of the query.
+     */
+    private static boolean matches(final Query query, final Container values) {
+        for (int j = 0; j < query.attributes().length; j++) {
+            final Object obj = values.getAt(query.attributes()[j]);
+            if (query.values()[j] == null) {
+                if (obj != null) {
+                    return false;
+                }
+            } else {
+                if (obj == null) {
+                    return false;
+                } else {
+                    if (obj instanceof long[]) {
+                        if (query.values()[j] instanceof long[]) {
+                            if (!Constants.longArrayEquals((long[]) query.values()[j], (long[]) obj)) {
+                                return false;
+                            }
+                        } else {
+                            return false;
+                        }
+                    } else {
+                        if (!Constants.equals(query.values()[j].toString(), obj.toString())) {
+                            return false;
+                        }
+                    }
+                }
+            }
+        }
+        return true;
+    }
 }
@@ -0,0 +1,248 @@
+/**
+ * Copyright 2017 The GreyCat Authors.  All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package greycat.internal.custom;
+
+import greycat.Callback;
+import greycat.Graph;
+import greycat.Node;
+import greycat.PagedRelation;
+import greycat.Type;
+import greycat.base.BaseCustomTypeSingle;
+import greycat.struct.EStructArray;
+import greycat.struct.IntArray;
+import greycat.struct.LongArray;
+
+public class CorePagedRelation extends BaseCustomTypeSingle implements PagedRelation {
+
+    private static final int PAGES = 0;
+    private static final int SIZES = 1;
+    private static final int PAGE_SIZE = 2;
+
+    //attribute of a page node holding its ids
+    private static final int PAGE_IDS = 0;
+
+    public static final int DEFAULT_PAGE_SIZE = 1024;
+
+    public static final String NAME = "PAGED_RELATION";
+
+    public CorePagedRelation(final EStructArray p_backend) {
+        super(p_backend);
+    }
+
+    @Override
+    public final int size() {
+        final IntArray sizes = (IntArray) getAt(SIZES);
+        if (sizes == null) {
+            return 0;
+        }
+        int sum = 0;
+        for (int i = 0; i < sizes.size(); i++) {
+            sum += sizes.get(i);
+        }
+        return sum;
+    }
+
+    @Override
+    public final int pageSize() {
+        return getAtWithDefault(PAGE_SIZE, DEFAULT_PAGE_SIZE);
+    }
+
+    @Override
+    public final PagedRelation setPageSize(final int pageSize) {
+        if (pageSize <= 0) {
+            throw new RuntimeException("Bad API usage: page size must be positive, received " + pageSize);
+        }
+        setAt(PAGE_SIZE, Type.INT, pageSize);
+        return this;
+    }
+
+    @Override
+    public final void add(final long world, final long time, final long id, final Callback<Boolean> callback) {
+        final LongArray pages = (LongArray) getOrCreateAt(PAGES, Type.LONG_ARRAY);
+        final IntArray sizes = (IntArray) getOrCreateAt(SIZES, Type.INT_ARRAY);
+        final Graph graph = _backend.graph();
+        final int last = pages.size() - 1;
+        if (last == -1 || sizes.get(last) >= pageSize()) {
+            final Node page = graph.newNode(world, time);
+            ((LongArray) page.getOrCreateAt(PAGE_IDS, Type.LONG_ARRAY)).addElement(id);
+            pages.addElement(page.id());
+            sizes.addElement(1);
+            page.free();
+            if (callback != null) {
+                callback.on(true);
+            }
+            return;
+        }
+        //the directory is updated first to keep concurrent additions in order
+        sizes.set(last, sizes.get(last) + 1);
+        graph.lookup(world, time, pages.get(last), new Callback<Node>() {
+            @Override
+            public void on(final Node page) {
+                if (page == null) {
+                    sizes.set(last, sizes.get(last) - 1);
+                    if (callback != null) {
+                        callback.on(false);
+                    }
+                    return;
+                }
+                ((LongArray) page.getOrCreateAt(PAGE_IDS, Type.LONG_ARRAY)).addElement(id);
+                page.free();
+                if (callback != null) {
+                    callback.on(true);
+                }
+            }
+        });
+    }
+
+    @Override
+    public final void remove(final long world, final long time, final long id, final Callback<Boolean> callback) {
+        final LongArray pages = (LongArray) getAt(PAGES);
+        if (pages == null || pages.size() == 0) {
+            if (callback != null) {
+                callback.on(false);
+            }
+            return;
+        }
+        removeFrom(world, time, id, pages.size() - 1, callback);
+    }
+
+    /**
+     * Looks for the id from the last page backward, loading pages one at a time.
+     */
+    private void removeFrom(final long world, final long time, final long id, final int pageIndex, final Callback<Boolean> callback) {
+        if (pageIndex < 0) {
+            if (callback != null) {
+                callback.on(false);
+            }
+            return;
+        }
+        final LongArray pages = (LongArray) getAt(PAGES);
+        final IntArray sizes = (IntArray) getAt(SIZES);
+        _backend.graph().lookup(world, time, pages.get(pageIndex), new Callback<Node>() {
+            @Override
+            public void on(final Node page) {
+                final LongArray ids = page == null ? null : (LongArray) page.getAt(PAGE_IDS);
+                int found = -1;
+                if (ids != null) {
+                    for (int i = 0; i < ids.size(); i++) {
+                        if (ids.get(i) == id) {
+                            found = i;
+                            break;
+                        }
+                    }
+                }
+                if (found == -1) {
+                    if (page != null) {
+                        page.free();
+                    }
+                    removeFrom(world, time, id, pageIndex - 1, callback);
+                    return;
+                }
+                if (sizes.get(pageIndex) == 1) {
+                    //empty pages are dropped from the directory, the page node itself is kept for previous times
+                    pages.removeElementbyIndex(pageIndex);
+                    sizes.removeElementbyIndex(pageIndex);
+                } else {
+                    ((LongArray) page.getOrCreateAt(PAGE_IDS, Type.LONG_ARRAY)).removeElementbyIndex(found);
+                    sizes.set(pageIndex, sizes.get(pageIndex) - 1);
+                }
+                page.free();
+                if (callback != null) {
+                    callback.on(true);
+                }
+            }
+        });
+    }
+
+    @Override
+    public final void ids(final long world, final long time, final int offset, final int limit, final Callback<long[]> callback) {
+        final LongArray pages = (LongArray) getAt(PAGES);
+        final IntArray sizes = (IntArray) getAt(SIZES);
+        final int total = size();
+        final int from = offset < 0 ? 0 : offset;
+        final int count = (limit < 0 || from + limit > total) ? total - from : limit;
+        if (pages == null || count <= 0) {
+            callback.on(new long[0]);
+            return;
+        }
+        //select the pages overlapping [from, from + count[
+        int firstPage = 0;
+        int firstSkip = from;
+        while (firstSkip >= sizes.get(firstPage)) {
+            firstSkip -= sizes.get(firstPage);
+            firstPage++;
+        }
+        int lastPage = firstPage;
+        int covered = sizes.get(firstPage) - firstSkip;
+        while (covered < count) {
+            lastPage++;
+            covered += sizes.get(lastPage);
+        }
+        final long[] pageIds = new long[lastPage - firstPage + 1];
+        for (int i = 0; i < pageIds.length; i++) {
+            pageIds[i] = pages.get(firstPage + i);
+        }
+        final int skip = firstSkip;
+        _backend.graph().lookupAll(world, time, pageIds, new Callback<Node[]>() {
+            @Override
+            public void on(final Node[] loaded) {
+                final long[] result = new long[count];
+                int cursor = 0;
+                int toSkip = skip;
+                for (int i = 0; i < loaded.length; i++) {
+                    if (loaded[i] != null) {
+                        final LongArray ids = (LongArray) loaded[i].getAt(PAGE_IDS);
+                        if (ids != null) {
+                            for (int j = toSkip; j < ids.size() && cursor < count; j++) {
+                                result[cursor] = ids.get(j);
+                                cursor++;
+                            }
+                        }
+                        loaded[i].free();
+                    }
+                    toSkip = 0;
+                }
+                if (cursor == count) {
+                    callback.on(result);
+                } else {
+                    final long[] trimmed = new long[cursor];
+                    System.arraycopy(result, 0, trimmed, 0, cursor);
+                    callback.on(trimmed);
+                }
+            }
+        });
+    }
+
+    @Override
+    public final void traverse(final long world, final long time, final int offset, final int limit, final Callback<Node[]> callback) {
+        final Graph graph = _backend.graph();
+        ids(world, time, offset, limit, new Callback<long[]>() {
+            @Override
+            public void on(final long[] result) {
+                graph.lookupAll(world, time, result, callback);
+            }
+        });
+    }
+
+    @Override
+    public final PagedRelation clear() {
+        //only the directory is dropped, page nodes are still referenced by the owner at previous times
+        setAt(PAGES, Type.LONG_ARRAY, null);
+        setAt(SIZES, Type.INT_ARRAY, null);
+        return this;
+    }
+
+}
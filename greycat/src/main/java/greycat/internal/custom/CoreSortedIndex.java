@@ -0,0 +1,564 @@
+/**
+ * Copyright 2017 The GreyCat Authors.  All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package greycat.internal.custom;
+
+import greycat.*;
+import greycat.base.BaseCustomTypeSingle;
+import greycat.plugin.NodeState;
+import greycat.struct.*;
+import greycat.utility.HashHelper;
+
+/**
+ * B+-tree over the values of one attribute, stored as pages of the backing EStructArray.
+ * Leaves hold sorted (value, node id) pairs and are linked in both directions for ordered iteration, inner pages hold
+ * (value, node id) separators and the indexes of their children. The node id is part of every key so that duplicated
+ * values keep a total order. A reverse map from node id to leaf allows to unindex a node without knowing its previous
+ * value. Removed entries only shrink their leaf, pages are never merged.
+ */
+public class CoreSortedIndex extends BaseCustomTypeSingle implements SortedIndex {
+
+    public static final String NAME = "SORTED_INDEX";
+
+    public static final int DEFAULT_PAGE_SIZE = 64;
+
+    private static final int ATTRIBUTE = 0;
+    private static final int KIND = 1;
+    private static final int ROOT = 2;
+    private static final int SIZE = 3;
+    private static final int FIRST = 4;
+    private static final int LAST = 5;
+    private static final int LEAVES = 6;
+    private static final int PAGE_SIZE = 7;
+
+    private static final int KIND_NUMERIC = 1;
+    private static final int KIND_STRING = 2;
+
+    private static final int P_KEYS = 0;
+    private static final int P_IDS = 1;
+    private static final int P_CHILDREN = 2;
+    private static final int P_NEXT = 3;
+    private static final int P_PREV = 4;
+
+    public CoreSortedIndex(final EStructArray p_backend) {
+        super(p_backend);
+    }
+
+    /**
+     * Declares the attribute ordering the index. Declaring another attribute drops the previous content.
+     */
+    public final void declareAttribute(final String attributeName) {
+        final int hash = HashHelper.hash(attributeName);
+        if (getAtWithDefault(ATTRIBUTE, 0) == hash) {
+            return;
+        }
+        clear();
+        setAt(ATTRIBUTE, Type.INT, hash);
+    }
+
+    public final int size() {
+        return getAtWithDefault(SIZE, 0);
+    }
+
+    public final int pageSize() {
+        return getAtWithDefault(PAGE_SIZE, DEFAULT_PAGE_SIZE);
+    }
+
+    public final CoreSortedIndex setPageSize(final int pageSize) {
+        if (pageSize < 3) {
+            throw new RuntimeException("Page size should be at least 3, received " + pageSize);
+        }
+        setAt(PAGE_SIZE, Type.INT, pageSize);
+        return this;
+    }
+
+    public final CoreSortedIndex update(final Node node) {
+        remove(node.id());
+        final Object key = keyOf(node);
+        if (key != null) {
+            insert(key, node.id());
+        }
+        return this;
+    }
+
+    public final CoreSortedIndex unindex(final Node node) {
+        remove(node.id());
+        return this;
+    }
+
+    public final CoreSortedIndex clear() {
+        while (_backend.size() > 1) {
+            _backend.drop(_backend.estruct(_backend.size() - 1));
+        }
+        removeAt(KIND);
+        removeAt(ROOT);
+        removeAt(SIZE);
+        removeAt(FIRST);
+        removeAt(LAST);
+        removeAt(LEAVES);
+        return this;
+    }
+
+    @Override
+    public final long[] selectRange(final String from, final String to, final int offset, final int limit) {
+        final Object lower = parseBound(from);
+        final Object upper = parseBound(to);
+        return collect(lower, upper, null, offset, limit);
+    }
+
+    @Override
+    public final long[] selectPrefix(final String prefix, final int offset, final int limit) {
+        if (kind() == KIND_NUMERIC) {
+            throw new RuntimeException("Prefix queries are only supported on string attributes");
+        }
+        if (prefix == null || prefix.length() == 0) {
+            return collect(null, null, null, offset, limit);
+        }
+        return collect(prefix, null, prefix, offset, limit);
+    }
+
+    @Override
+    public final long[] selectOrdered(final boolean descending, final int offset, final int limit) {
+        if (!descending) {
+            return collect(null, null, null, offset, limit);
+        }
+        long[] result = new long[0];
+        int count = 0;
+        int skipped = 0;
+        int leafIndex = getAtWithDefault(LAST, -1);
+        while (leafIndex != -1 && (limit < 0 || count < limit)) {
+            final EStruct leaf = _backend.estruct(leafIndex);
+            final long[] ids = readIds(leaf);
+            for (int i = ids.length - 1; i >= 0 && (limit < 0 || count < limit); i--) {
+                if (skipped < offset) {
+                    skipped++;
+                } else {
+                    if (count == result.length) {
+                        result = grow(result);
+                    }
+                    result[count] = ids[i];
+                    count++;
+                }
+            }
+            leafIndex = leaf.getAtWithDefault(P_PREV, -1);
+        }
+        return trim(result, count);
+    }
+
+    @Override
+    public final void findRange(final Callback<Node[]> callback, final long world, final long time, final String from, final String to, final int offset, final int limit) {
+        _backend.graph().lookupAll(world, time, selectRange(from, to, offset, limit), callback);
+    }
+
+    @Override
+    public final void findPrefix(final Callback<Node[]> callback, final long world, final long time, final String prefix, final int offset, final int limit) {
+        _backend.graph().lookupAll(world, time, selectPrefix(prefix, offset, limit), callback);
+    }
+
+    @Override
+    public final void findOrdered(final Callback<Node[]> callback, final long world, final long time, final boolean descending, final int offset, final int limit) {
+        _backend.graph().lookupAll(world, time, selectOrdered(descending, offset, limit), callback);
+    }
+
+    private int kind() {
+        return getAtWithDefault(KIND, 0);
+    }
+
+    /**
+     * Reads the indexed value of a node, as a Double for numeric attributes or a String otherwise.
+     * The kind of the index is fixed by the first indexed value.
+     */
+    private Object keyOf(final Node node) {
+        final int hash = getAtWithDefault(ATTRIBUTE, 0);
+        final NodeState state = node.graph().resolver().resolveState(node);
+        final Object value = state.getAt(hash);
+        if (value == null) {
+            return null;
+        }
+        final int valueType = state.typeAt(hash);
+        int kind = kind();
+        if (kind == 0) {
+            if (valueType == Type.INT || valueType == Type.LONG || valueType == Type.DOUBLE || valueType == Type.BOOL) {
+                kind = KIND_NUMERIC;
+            } else {
+                kind = KIND_STRING;
+            }
+            setAt(KIND, Type.INT, kind);
+        }
+        if (kind == KIND_STRING) {
+            return value.toString();
+        }
+        switch (valueType) {
+            case Type.INT:
+                return (double) ((Integer) value);
+            case Type.LONG:
+                return (double) ((Long) value);
+            case Type.DOUBLE:
+                return (Double) value;
+            case Type.BOOL:
+                return ((Boolean) value) ? 1.0 : 0.0;
+            default:
+                try {
+                    return Double.parseDouble(value.toString());
+                } catch (NumberFormatException e) {
+                    return null;
+                }
+        }
+    }
+
+    private Object parseBound(final String bound) {
+        if (bound == null || bound.length() == 0) {
+            return null;
+        }
+        if (kind() == KIND_NUMERIC) {
+            return Double.parseDouble(bound);
+        }
+        return bound;
+    }
+
+    private static int compareKeys(final Object key, final Object other) {
+        if (key instanceof String) {
+            return ((String) key).compareTo((String) other);
+        }
+        return Double.compare((Double) key, (Double) other);
+    }
+
+    private static int compare(final Object key, final long id, final Object otherKey, final long otherId) {
+        final int result = compareKeys(key, otherKey);
+        if (result != 0) {
+            return result;
+        }
+        return id < otherId ? -1 : (id > otherId ? 1 : 0);
+    }
+
+    /**
+     * @return the number of entries lower than or equal to (key, id)
+     */
+    private static int upperBound(final Object[] keys, final long[] ids, final Object key, final long id) {
+        int low = 0;
+        int high = keys.length;
+        while (low < high) {
+            final int middle = (low + high) >>> 1;
+            if (compare(keys[middle], ids[middle], key, id) <= 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * @return the number of entries strictly lower than (key, id)
+     */
+    private static int lowerBound(final Object[] keys, final long[] ids, final Object key, final long id) {
+        int low = 0;
+        int high = keys.length;
+        while (low < high) {
+            final int middle = (low + high) >>> 1;
+            if (compare(keys[middle], ids[middle], key, id) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private void insert(final Object key, final long id) {
+        final int pageSize = pageSize();
+        final LongLongMap leaves = (LongLongMap) getOrCreateAt(LEAVES, Type.LONG_TO_LONG_MAP);
+        setAt(SIZE, Type.INT, size() + 1);
+        final int rootIndex = getAtWithDefault(ROOT, -1);
+        if (rootIndex == -1) {
+            final EStruct leaf = _backend.newEStruct();
+            writeKeys(leaf, new Object[]{key});
+            writeIds(leaf, new long[]{id});
+            setAt(ROOT, Type.INT, leaf.id());
+            setAt(FIRST, Type.INT, leaf.id());
+            setAt(LAST, Type.INT, leaf.id());
+            leaves.put(id, leaf.id());
+            return;
+        }
+        int[] path = new int[8];
+        int[] positions = new int[8];
+        int depth = 0;
+        EStruct current = _backend.estruct(rootIndex);
+        while (current.getAt(P_CHILDREN) != null) {
+            final int position = upperBound(readKeys(current), readIds(current), key, id);
+            if (depth == path.length) {
+                final int[] newPath = new int[depth * 2];
+                final int[] newPositions = new int[depth * 2];
+                System.arraycopy(path, 0, newPath, 0, depth);
+                System.arraycopy(positions, 0, newPositions, 0, depth);
+                path = newPath;
+                positions = newPositions;
+            }
+            path[depth] = current.id();
+            positions[depth] = position;
+            depth++;
+            current = _backend.estruct(((IntArray) current.getAt(P_CHILDREN)).get(position));
+        }
+        Object[] keys = readKeys(current);
+        long[] ids = readIds(current);
+        final int position = lowerBound(keys, ids, key, id);
+        keys = insertKeyAt(keys, position, key);
+        ids = insertIdAt(ids, position, id);
+        leaves.put(id, current.id());
+        if (keys.length <= pageSize) {
+            writeKeys(current, keys);
+            writeIds(current, ids);
+            return;
+        }
+        //split the leaf
+        final int middle = keys.length / 2;
+        final EStruct right = _backend.newEStruct();
+        writeKeys(current, sliceKeys(keys, 0, middle));
+        writeIds(current, sliceIds(ids, 0, middle));
+        writeKeys(right, sliceKeys(keys, middle, keys.length));
+        writeIds(right, sliceIds(ids, middle, ids.length));
+        for (int i = middle; i < ids.length; i++) {
+            leaves.put(ids[i], right.id());
+        }
+        final int next = current.getAtWithDefault(P_NEXT, -1);
+        right.setAt(P_PREV, Type.INT, current.id());
+        right.setAt(P_NEXT, Type.INT, next);
+        current.setAt(P_NEXT, Type.INT, right.id());
+        if (next == -1) {
+            setAt(LAST, Type.INT, right.id());
+        } else {
+            _backend.estruct(next).setAt(P_PREV, Type.INT, right.id());
+        }
+        Object separatorKey = keys[middle];
+        long separatorId = ids[middle];
+        int newChild = right.id();
+        //propagate the split to the parents
+        while (depth > 0) {
+            depth--;
+            final EStruct parent = _backend.estruct(path[depth]);
+            final int parentPosition = positions[depth];
+            final Object[] parentKeys = insertKeyAt(readKeys(parent), parentPosition, separatorKey);
+            final long[] parentIds = insertIdAt(readIds(parent), parentPosition, separatorId);
+            final int[] parentChildren = insertChildAt(((IntArray) parent.getAt(P_CHILDREN)).extract(), parentPosition + 1, newChild);
+            if (parentKeys.length <= pageSize) {
+                writeInner(parent, parentKeys, parentIds, parentChildren);
+                return;
+            }
+            final int parentMiddle = parentKeys.length / 2;
+            final EStruct parentRight = _backend.newEStruct();
+            writeInner(parentRight, sliceKeys(parentKeys, parentMiddle + 1, parentKeys.length), sliceIds(parentIds, parentMiddle + 1, parentIds.length), sliceChildren(parentChildren, parentMiddle + 1, parentChildren.length));
+            writeInner(parent, sliceKeys(parentKeys, 0, parentMiddle), sliceIds(parentIds, 0, parentMiddle), sliceChildren(parentChildren, 0, parentMiddle + 1));
+            separatorKey = parentKeys[parentMiddle];
+            separatorId = parentIds[parentMiddle];
+            newChild = parentRight.id();
+        }
+        //the root has been split
+        final EStruct newRoot = _backend.newEStruct();
+        writeInner(newRoot, new Object[]{separatorKey}, new long[]{separatorId}, new int[]{rootIndex, newChild});
+        setAt(ROOT, Type.INT, newRoot.id());
+    }
+
+    private void remove(final long id) {
+        final LongLongMap leaves = (LongLongMap) getAt(LEAVES);
+        if (leaves == null) {
+            return;
+        }
+        final long leafIndex = leaves.get(id);
+        if (leafIndex == Constants.NULL_LONG) {
+            return;
+        }
+        final EStruct leaf = _backend.estruct((int) leafIndex);
+        final long[] ids = readIds(leaf);
+        for (int i = 0; i < ids.length; i++) {
+            if (ids[i] == id) {
+                ((LongArray) leaf.getAt(P_IDS)).removeElementbyIndex(i);
+                if (kind() == KIND_NUMERIC) {
+                    ((DoubleArray) leaf.getAt(P_KEYS)).removeElementbyIndex(i);
+                } else {
+                    ((StringArray) leaf.getAt(P_KEYS)).removeElementbyIndex(i);
+                }
+                break;
+            }
+        }
+        leaves.remove(id);
+        setAt(SIZE, Type.INT, size() - 1);
+    }
+
+    /**
+     * Iterates leaves from the lower bound, until the upper bound or the end of the prefix.
+     */
+    private long[] collect(final Object lower, final Object upper, final String prefix, final int offset, final int limit) {
+        long[] result = new long[0];
+        int count = 0;
+        int skipped = 0;
+        int leafIndex;
+        int position = 0;
+        if (lower == null) {
+            leafIndex = getAtWithDefault(FIRST, -1);
+        } else {
+            leafIndex = getAtWithDefault(ROOT, -1);
+            if (leafIndex != -1) {
+                EStruct current = _backend.estruct(leafIndex);
+                while (current.getAt(P_CHILDREN) != null) {
+                    final int childPosition = upperBound(readKeys(current), readIds(current), lower, Long.MIN_VALUE);
+                    current = _backend.estruct(((IntArray) current.getAt(P_CHILDREN)).get(childPosition));
+                }
+                leafIndex = current.id();
+                position = lowerBound(readKeys(current), readIds(current), lower, Long.MIN_VALUE);
+            }
+        }
+        while (leafIndex != -1 && (limit < 0 || count < limit)) {
+            final EStruct leaf = _backend.estruct(leafIndex);
+            final Object[] keys = readKeys(leaf);
+            final long[] ids = readIds(leaf);
+            for (int i = position; i < keys.length && (limit < 0 || count < limit); i++) {
+                if (upper != null && compareKeys(keys[i], upper) > 0) {
+                    return trim(result, count);
+                }
+                if (prefix != null && !((String) keys[i]).startsWith(prefix)) {
+                    return trim(result, count);
+                }
+                if (skipped < offset) {
+                    skipped++;
+                } else {
+                    if (count == result.length) {
+                        result = grow(result);
+                    }
+                    result[count] = ids[i];
+                    count++;
+                }
+            }
+            position = 0;
+            leafIndex = leaf.getAtWithDefault(P_NEXT, -1);
+        }
+        return trim(result, count);
+    }
+
+    private Object[] readKeys(final EStruct page) {
+        if (kind() == KIND_NUMERIC) {
+            final DoubleArray keys = (DoubleArray) page.getAt(P_KEYS);
+            if (keys == null) {
+                return new Object[0];
+            }
+            final double[] extracted = keys.extract();
+            final Object[] result = new Object[extracted.length];
+            for (int i = 0; i < extracted.length; i++) {
+                result[i] = extracted[i];
+            }
+            return result;
+        } else {
+            final StringArray keys = (StringArray) page.getAt(P_KEYS);
+            if (keys == null) {
+                return new Object[0];
+            }
+            final String[] extracted = keys.extract();
+            final Object[] result = new Object[extracted.length];
+            System.arraycopy(extracted, 0, result, 0, extracted.length);
+            return result;
+        }
+    }
+
+    private void writeKeys(final EStruct page, final Object[] keys) {
+        if (kind() == KIND_NUMERIC) {
+            final double[] values = new double[keys.length];
+            for (int i = 0; i < keys.length; i++) {
+                values[i] = (Double) keys[i];
+            }
+            ((DoubleArray) page.getOrCreateAt(P_KEYS, Type.DOUBLE_ARRAY)).initWith(values);
+        } else {
+            final String[] values = new String[keys.length];
+            for (int i = 0; i < keys.length; i++) {
+                values[i] = (String) keys[i];
+            }
+            ((StringArray) page.getOrCreateAt(P_KEYS, Type.STRING_ARRAY)).initWith(values);
+        }
+    }
+
+    private static long[] readIds(final EStruct page) {
+        final LongArray ids = (LongArray) page.getAt(P_IDS);
+        if (ids == null) {
+            return new long[0];
+        }
+        return ids.extract();
+    }
+
+    private static void writeIds(final EStruct page, final long[] ids) {
+        ((LongArray) page.getOrCreateAt(P_IDS, Type.LONG_ARRAY)).initWith(ids);
+    }
+
+    private void writeInner(final EStruct page, final Object[] keys, final long[] ids, final int[] children) {
+        writeKeys(page, keys);
+        writeIds(page, ids);
+        ((IntArray) page.getOrCreateAt(P_CHILDREN, Type.INT_ARRAY)).initWith(children);
+    }
+
+    private static Object[] insertKeyAt(final Object[] values, final int position, final Object value) {
+        final Object[] result = new Object[values.length + 1];
+        System.arraycopy(values, 0, result, 0, position);
+        result[position] = value;
+        System.arraycopy(values, position, result, position + 1, values.length - position);
+        return result;
+    }
+
+    private static long[] insertIdAt(final long[] values, final int position, final long value) {
+        final long[] result = new long[values.length + 1];
+        System.arraycopy(values, 0, result, 0, position);
+        result[position] = value;
+        System.arraycopy(values, position, result, position + 1, values.length - position);
+        return result;
+    }
+
+    private static int[] insertChildAt(final int[] values, final int position, final int value) {
+        final int[] result = new int[values.length + 1];
+        System.arraycopy(values, 0, result, 0, position);
+        result[position] = value;
+        System.arraycopy(values, position, result, position + 1, values.length - position);
+        return result;
+    }
+
+    private static Object[] sliceKeys(final Object[] values, final int from, final int to) {
+        final Object[] result = new Object[to - from];
+        System.arraycopy(values, from, result, 0, to - from);
+        return result;
+    }
+
+    private static long[] sliceIds(final long[] values, final int from, final int to) {
+        final long[] result = new long[to - from];
+        System.arraycopy(values, from, result, 0, to - from);
+        return result;
+    }
+
+    private static int[] sliceChildren(final int[] values, final int from, final int to) {
+        final int[] result = new int[to - from];
+        System.arraycopy(values, from, result, 0, to - from);
+        return result;
+    }
+
+    private static long[] grow(final long[] values) {
+        final long[] result = new long[values.length == 0 ? 16 : values.length * 2];
+        System.arraycopy(values, 0, result, 0, values.length);
+        return result;
+    }
+
+    private static long[] trim(final long[] values, final int size) {
+        if (values.length == size) {
+            return values;
+        }
+        final long[] result = new long[size];
+        System.arraycopy(values, 0, result, 0, size);
+        return result;
+    }
+
+}
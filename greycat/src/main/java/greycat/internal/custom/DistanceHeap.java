@@ -0,0 +1,111 @@
+/**
+ * Copyright 2017 The GreyCat Authors.  All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package greycat.internal.custom;
+
+/**
+ * Binary heap of (element, distance) pairs stored in parallel arrays, ordered by ascending distance or by descending
+ * distance when built as a max heap.
+ */
+class DistanceHeap {
+
+    private final boolean _max;
+    private int[] _elements;
+    private double[] _distances;
+    private int _size;
+
+    DistanceHeap(final int capacity, final boolean max) {
+        final int initial = capacity < 4 ? 4 : capacity;
+        this._max = max;
+        this._elements = new int[initial];
+        this._distances = new double[initial];
+        this._size = 0;
+    }
+
+    final int size() {
+        return _size;
+    }
+
+    final int peekElement() {
+        return _elements[0];
+    }
+
+    final double peekDistance() {
+        return _distances[0];
+    }
+
+    final void push(final int element, final double distance) {
+        if (_size == _elements.length) {
+            final int[] newElements = new int[_size * 2];
+            final double[] newDistances = new double[_size * 2];
+            System.arraycopy(_elements, 0, newElements, 0, _size);
+            System.arraycopy(_distances, 0, newDistances, 0, _size);
+            _elements = newElements;
+            _distances = newDistances;
+        }
+        int position = _size;
+        _size++;
+        while (position > 0) {
+            final int parent = (position - 1) >>> 1;
+            if (!before(distance, _distances[parent])) {
+                break;
+            }
+            _elements[position] = _elements[parent];
+            _distances[position] = _distances[parent];
+            position = parent;
+        }
+        _elements[position] = element;
+        _distances[position] = distance;
+    }
+
+    /**
+     * @return the element on top of the heap, which is removed
+     */
+    final int pop() {
+        final int top = _elements[0];
+        _size--;
+        if (_size > 0) {
+            final int element = _elements[_size];
+            final double distance = _distances[_size];
+            int position = 0;
+            while (true) {
+                int child = 2 * position + 1;
+                if (child >= _size) {
+                    break;
+                }
+                if (child + 1 < _size && before(_distances[child + 1], _distances[child])) {
+                    child++;
+                }
+                if (!before(_distances[child], distance)) {
+                    break;
+                }
+                _elements[position] = _elements[child];
+                _distances[position] = _distances[child];
+                position = child;
+            }
+            _elements[position] = element;
+            _distances[position] = distance;
+        }
+        return top;
+    }
+
+    private boolean before(final double distance, final double other) {
+        if (_max) {
+            return distance > other;
+        }
+        return distance < other;
+    }
+
+}
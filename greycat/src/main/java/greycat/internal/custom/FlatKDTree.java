@@ -0,0 +1,429 @@
+/**
+ * Copyright 2017 The GreyCat Authors.  All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package greycat.internal.custom;
+
+import greycat.Type;
+import greycat.base.BaseCustomTypeSingle;
+import greycat.struct.*;
+import greycat.utility.distance.Distance;
+import greycat.utility.distance.Distances;
+
+/**
+ * KD-tree stored as flat primitive arrays: the keys of all points in one double array (dim values per point),
+ * their values in one long array and the tree shape as left and right child offsets, -1 for no child.
+ * Bulk loads build a balanced tree by median splits, laid out in pre-order so that a subtree is contiguous.
+ * Incremental inserts descend and append like a classic KD-tree, and the whole tree is rebuilt once it doubled in
+ * size since the last build, keeping inserts amortized logarithmic. Queries read the arrays in place, without copying
+ * keys.
+ */
+public class FlatKDTree extends BaseCustomTypeSingle implements Tree {
+
+    public static final String NAME = "FLAT_KDTREE";
+
+    /**
+     * public configuration elements
+     */
+    public static final int RESOLUTION = 10;
+    public static final int DISTANCE = 11;
+
+    /**
+     * private keys
+     */
+    private static final int F_DIM = 0;
+    private static final int F_SIZE = 1;
+    private static final int F_KEYS = 2;
+    private static final int F_VALUES = 3;
+    private static final int F_LEFT = 4;
+    private static final int F_RIGHT = 5;
+    private static final int F_BUILT = 6;
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    public FlatKDTree(final EStructArray p_backend) {
+        super(p_backend);
+    }
+
+    @Override
+    public final void setDistance(final int distanceType) {
+        setAt(DISTANCE, Type.INT, distanceType);
+    }
+
+    @Override
+    public final void setResolution(final double[] resolution) {
+        ((DoubleArray) getOrCreateAt(RESOLUTION, Type.DOUBLE_ARRAY)).initWith(resolution);
+    }
+
+    @Override
+    public final void setMinBound(final double[] min) {
+        //Not needed
+    }
+
+    @Override
+    public final void setMaxBound(final double[] max) {
+        //Not needed
+    }
+
+    @Override
+    public final long size() {
+        final int size = getAtWithDefault(F_SIZE, 0);
+        return size;
+    }
+
+    @Override
+    public final long treeSize() {
+        return size();
+    }
+
+    /**
+     * Inserts a batch of points and rebuilds a balanced tree over all points of the tree.
+     * Unlike {@link #insert(double[], long)}, keys closer than the resolution are not merged.
+     *
+     * @param keys   one key per point, all of the same length
+     * @param values one value per point
+     */
+    public final void bulkInsert(final double[][] keys, final long[] values) {
+        if (keys.length != values.length) {
+            throw new RuntimeException("Keys and values should have the same length");
+        }
+        if (keys.length == 0) {
+            return;
+        }
+        final int dim = checkDim(keys[0].length);
+        final int previousSize = getAtWithDefault(F_SIZE, 0);
+        final int size = previousSize + keys.length;
+        final double[] flatKeys = new double[size * dim];
+        final long[] flatValues = new long[size];
+        if (previousSize > 0) {
+            System.arraycopy(((DoubleArray) getAt(F_KEYS)).extract(), 0, flatKeys, 0, previousSize * dim);
+            System.arraycopy(((LongArray) getAt(F_VALUES)).extract(), 0, flatValues, 0, previousSize);
+        }
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i].length != dim) {
+                throw new RuntimeException("Keys should always be the same length");
+            }
+            System.arraycopy(keys[i], 0, flatKeys, (previousSize + i) * dim, dim);
+            flatValues[previousSize + i] = values[i];
+        }
+        build(flatKeys, flatValues, size, dim);
+    }
+
+    /**
+     * Rebuilds a balanced tree over the current points.
+     */
+    public final void rebuild() {
+        final int size = getAtWithDefault(F_SIZE, 0);
+        if (size == 0) {
+            return;
+        }
+        build(((DoubleArray) getAt(F_KEYS)).extract(), ((LongArray) getAt(F_VALUES)).extract(), size, getAtWithDefault(F_DIM, 0));
+    }
+
+    @Override
+    public final void insert(final double[] key, final long value) {
+        final int dim = checkDim(key.length);
+        final int size = getAtWithDefault(F_SIZE, 0);
+        final DoubleArray resolutionArray = (DoubleArray) getAt(RESOLUTION);
+        final double[] resolution = resolutionArray == null ? null : resolutionArray.extract();
+        ensureCapacity(size + 1, dim);
+        final DoubleArray keys = (DoubleArray) getAt(F_KEYS);
+        final LongArray values = (LongArray) getAt(F_VALUES);
+        final IntArray left = (IntArray) getAt(F_LEFT);
+        final IntArray right = (IntArray) getAt(F_RIGHT);
+        int parent = -1;
+        boolean toRight = false;
+        if (size > 0) {
+            int depth = 0;
+            int current = 0;
+            while (current != -1) {
+                final int offset = current * dim;
+                boolean same = true;
+                for (int i = 0; i < dim; i++) {
+                    final double delta = Math.abs(key[i] - keys.get(offset + i));
+                    if (resolution != null ? delta > resolution[i] : delta != 0) {
+                        same = false;
+                        break;
+                    }
+                }
+                if (same) {
+                    values.set(current, value);
+                    return;
+                }
+                parent = current;
+                final int s = depth % dim;
+                toRight = key[s] > keys.get(offset + s);
+                current = toRight ? right.get(current) : left.get(current);
+                depth++;
+            }
+        }
+        final int offset = size * dim;
+        for (int i = 0; i < dim; i++) {
+            keys.set(offset + i, key[i]);
+        }
+        values.set(size, value);
+        left.set(size, -1);
+        right.set(size, -1);
+        if (parent != -1) {
+            if (toRight) {
+                right.set(parent, size);
+            } else {
+                left.set(parent, size);
+            }
+        }
+        setAt(F_SIZE, Type.INT, size + 1);
+        final int built = getAtWithDefault(F_BUILT, 0);
+        if (size + 1 >= 2 * built && size + 1 >= INITIAL_CAPACITY) {
+            rebuild();
+        }
+    }
+
+    @Override
+    public final TreeResult queryAround(final double[] keys, final int max) {
+        return queryBoundedRadius(keys, -1, max);
+    }
+
+    @Override
+    public final TreeResult queryRadius(final double[] keys, final double radius) {
+        return queryBoundedRadius(keys, radius, -1);
+    }
+
+    @Override
+    public final TreeResult queryBoundedRadius(final double[] keys, final double radius, final int max) {
+        final int size = getAtWithDefault(F_SIZE, 0);
+        if (size == 0) {
+            return null;
+        }
+        final int dim = getAtWithDefault(F_DIM, 0);
+        if (keys.length != dim) {
+            throw new RuntimeException("Keys are not of the same size");
+        }
+        final Distance distance = Distances.getDistance(getAtWithDefault(DISTANCE, Distances.DEFAULT), null);
+        final EStructArray calcZone = _backend.graph().space().newVolatileGraph();
+        final VolatileTreeResult nnl = new VolatileTreeResult(calcZone.newEStruct(), max);
+        final double[] closest = new double[dim];
+        System.arraycopy(keys, 0, closest, 0, dim);
+        nearest(0, 0, dim, keys, closest, new double[dim], Double.MAX_VALUE, radius, distance, (DoubleArray) getAt(F_KEYS), (LongArray) getAt(F_VALUES), (IntArray) getAt(F_LEFT), (IntArray) getAt(F_RIGHT), nnl);
+        nnl.sort(true);
+        return nnl;
+    }
+
+    @Override
+    public final TreeResult queryArea(final double[] min, final double[] max) {
+        final int size = getAtWithDefault(F_SIZE, 0);
+        if (size == 0) {
+            return null;
+        }
+        final int dim = getAtWithDefault(F_DIM, 0);
+        final Distance distance = Distances.getDistance(getAtWithDefault(DISTANCE, Distances.DEFAULT), null);
+        final double[] center = new double[dim];
+        for (int i = 0; i < dim; i++) {
+            center[i] = (min[i] + max[i]) / 2;
+        }
+        final EStructArray calcZone = _backend.graph().space().newVolatileGraph();
+        final VolatileTreeResult nnl = new VolatileTreeResult(calcZone.newEStruct(), -1);
+        range(0, 0, dim, min, max, center, new double[dim], distance, (DoubleArray) getAt(F_KEYS), (LongArray) getAt(F_VALUES), (IntArray) getAt(F_LEFT), (IntArray) getAt(F_RIGHT), nnl);
+        nnl.sort(true);
+        return nnl;
+    }
+
+    private int checkDim(final int dim) {
+        final int previous = getAtWithDefault(F_DIM, 0);
+        if (previous == 0) {
+            setAt(F_DIM, Type.INT, dim);
+            return dim;
+        }
+        if (previous != dim) {
+            throw new RuntimeException("Keys should always be the same length");
+        }
+        return previous;
+    }
+
+    /**
+     * Grows the backing arrays by doubling, so that appending a point stays amortized constant.
+     */
+    private void ensureCapacity(final int size, final int dim) {
+        final LongArray values = (LongArray) getOrCreateAt(F_VALUES, Type.LONG_ARRAY);
+        final int capacity = values.size();
+        if (size <= capacity) {
+            return;
+        }
+        int newCapacity = capacity == 0 ? INITIAL_CAPACITY : capacity * 2;
+        while (newCapacity < size) {
+            newCapacity = newCapacity * 2;
+        }
+        final double[] newKeys = new double[newCapacity * dim];
+        final long[] newValues = new long[newCapacity];
+        final int[] newLeft = new int[newCapacity];
+        final int[] newRight = new int[newCapacity];
+        if (capacity > 0) {
+            System.arraycopy(((DoubleArray) getAt(F_KEYS)).extract(), 0, newKeys, 0, capacity * dim);
+            System.arraycopy(values.extract(), 0, newValues, 0, capacity);
+            System.arraycopy(((IntArray) getAt(F_LEFT)).extract(), 0, newLeft, 0, capacity);
+            System.arraycopy(((IntArray) getAt(F_RIGHT)).extract(), 0, newRight, 0, capacity);
+        }
+        ((DoubleArray) getOrCreateAt(F_KEYS, Type.DOUBLE_ARRAY)).initWith(newKeys);
+        values.initWith(newValues);
+        ((IntArray) getOrCreateAt(F_LEFT, Type.INT_ARRAY)).initWith(newLeft);
+        ((IntArray) getOrCreateAt(F_RIGHT, Type.INT_ARRAY)).initWith(newRight);
+    }
+
+    /**
+     * Builds a balanced tree by median splits over the first size points, and stores it in pre-order.
+     */
+    private void build(final double[] keys, final long[] values, final int size, final int dim) {
+        final int[] permutation = new int[size];
+        for (int i = 0; i < size; i++) {
+            permutation[i] = i;
+        }
+        final double[] newKeys = new double[size * dim];
+        final long[] newValues = new long[size];
+        final int[] newLeft = new int[size];
+        final int[] newRight = new int[size];
+        final int[] counter = new int[]{0};
+        buildRange(keys, values, permutation, 0, size, 0, dim, newKeys, newValues, newLeft, newRight, counter);
+        ((DoubleArray) getOrCreateAt(F_KEYS, Type.DOUBLE_ARRAY)).initWith(newKeys);
+        ((LongArray) getOrCreateAt(F_VALUES, Type.LONG_ARRAY)).initWith(newValues);
+        ((IntArray) getOrCreateAt(F_LEFT, Type.INT_ARRAY)).initWith(newLeft);
+        ((IntArray) getOrCreateAt(F_RIGHT, Type.INT_ARRAY)).initWith(newRight);
+        setAt(F_SIZE, Type.INT, size);
+        setAt(F_BUILT, Type.INT, size);
+    }
+
+    private static int buildRange(final double[] keys, final long[] values, final int[] permutation, final int from, final int to, final int depth, final int dim, final double[] newKeys, final long[] newValues, final int[] newLeft, final int[] newRight, final int[] counter) {
+        if (from >= to) {
+            return -1;
+        }
+        final int s = depth % dim;
+        final int middle = (from + to) >>> 1;
+        select(keys, permutation, from, to - 1, middle, s, dim);
+        final int index = counter[0];
+        counter[0]++;
+        System.arraycopy(keys, permutation[middle] * dim, newKeys, index * dim, dim);
+        newValues[index] = values[permutation[middle]];
+        newLeft[index] = buildRange(keys, values, permutation, from, middle, depth + 1, dim, newKeys, newValues, newLeft, newRight, counter);
+        newRight[index] = buildRange(keys, values, permutation, middle + 1, to, depth + 1, dim, newKeys, newValues, newLeft, newRight, counter);
+        return index;
+    }
+
+    /**
+     * Quickselect: reorders permutation[from..to] so that the point at position k has the k-th coordinate s,
+     * with lower or equal coordinates before and greater or equal ones after.
+     */
+    private static void select(final double[] keys, final int[] permutation, final int from, final int to, final int k, final int s, final int dim) {
+        int low = from;
+        int high = to;
+        while (low < high) {
+            final double pivot = keys[permutation[(low + high) >>> 1] * dim + s];
+            int i = low;
+            int j = high;
+            while (i <= j) {
+                while (keys[permutation[i] * dim + s] < pivot) {
+                    i++;
+                }
+                while (keys[permutation[j] * dim + s] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    final int tmp = permutation[i];
+                    permutation[i] = permutation[j];
+                    permutation[j] = tmp;
+                    i++;
+                    j--;
+                }
+            }
+            if (k <= j) {
+                high = j;
+            } else if (k >= i) {
+                low = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private static void load(final DoubleArray keys, final int node, final int dim, final double[] buffer) {
+        final int offset = node * dim;
+        for (int i = 0; i < dim; i++) {
+            buffer[i] = keys.get(offset + i);
+        }
+    }
+
+    /**
+     * Nearest neighbours search, closest is the point of the current sub-space closest to the target, updated in
+     * place on the split dimension when visiting the further child.
+     */
+    private static void nearest(final int node, final int depth, final int dim, final double[] target, final double[] closest, final double[] pivot, double maxDistance, final double radius, final Distance distance, final DoubleArray keys, final LongArray values, final IntArray left, final IntArray right, final VolatileTreeResult nnl) {
+        if (node == -1) {
+            return;
+        }
+        final int s = depth % dim;
+        load(keys, node, dim, pivot);
+        final double pivotToTarget = distance.measure(pivot, target);
+        final double split = pivot[s];
+        final int nearer;
+        final int further;
+        if (target[s] < split) {
+            nearer = left.get(node);
+            further = right.get(node);
+        } else {
+            nearer = right.get(node);
+            further = left.get(node);
+        }
+        nearest(nearer, depth + 1, dim, target, closest, pivot, maxDistance, radius, distance, keys, values, left, right, nnl);
+        double worst = nnl.isCapacityReached() ? nnl.getWorstDistance() : Double.MAX_VALUE;
+        if (radius > 0 && radius < worst) {
+            worst = radius;
+        }
+        maxDistance = Math.min(maxDistance, worst);
+        final double previous = closest[s];
+        closest[s] = split;
+        if (distance.measure(closest, target) < maxDistance) {
+            if (pivotToTarget < worst) {
+                //the pivot buffer has been reused by the nearer subtree
+                load(keys, node, dim, pivot);
+                nnl.insert(pivot, values.get(node), pivotToTarget);
+                maxDistance = nnl.isCapacityReached() ? nnl.getWorstDistance() : Double.MAX_VALUE;
+                if (radius > 0 && radius < maxDistance) {
+                    maxDistance = radius;
+                }
+            }
+            nearest(further, depth + 1, dim, target, closest, pivot, maxDistance, radius, distance, keys, values, left, right, nnl);
+        }
+        closest[s] = previous;
+    }
+
+    private static void range(final int node, final int depth, final int dim, final double[] min, final double[] max, final double[] center, final double[] pivot, final Distance distance, final DoubleArray keys, final LongArray values, final IntArray left, final IntArray right, final VolatileTreeResult nnl) {
+        if (node == -1) {
+            return;
+        }
+        final int s = depth % dim;
+        final double split = keys.get(node * dim + s);
+        if (min[s] <= split) {
+            range(left.get(node), depth + 1, dim, min, max, center, pivot, distance, keys, values, left, right, nnl);
+        }
+        load(keys, node, dim, pivot);
+        int j = 0;
+        while (j < dim && min[j] <= pivot[j] && max[j] >= pivot[j]) {
+            j++;
+        }
+        if (j == dim) {
+            nnl.insert(pivot, values.get(node), distance.measure(pivot, center));
+        }
+        if (max[s] >= split) {
+            range(right.get(node), depth + 1, dim, min, max, center, pivot, distance, keys, values, left, right, nnl);
+        }
+    }
+
+}
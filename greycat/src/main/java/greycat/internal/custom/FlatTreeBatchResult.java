@@ -0,0 +1,72 @@
+/**
+ * Copyright 2017 The GreyCat Authors.  All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package greycat.internal.custom;
+
+import greycat.struct.TreeBatchResult;
+
+class FlatTreeBatchResult implements TreeBatchResult {
+
+    final int _max;
+    final long[] _values;
+    final double[] _distances;
+    final int[] _sizes;
+
+    FlatTreeBatchResult(final int queries, final int max) {
+        if (max <= 0) {
+            throw new RuntimeException("Batch queries need a positive max, received " + max);
+        }
+        this._max = max;
+        this._values = new long[queries * max];
+        this._distances = new double[queries * max];
+        this._sizes = new int[queries];
+    }
+
+    @Override
+    public final int queries() {
+        return _sizes.length;
+    }
+
+    @Override
+    public final int max() {
+        return _max;
+    }
+
+    @Override
+    public final int size(final int query) {
+        return _sizes[query];
+    }
+
+    @Override
+    public final long value(final int query, final int index) {
+        return _values[query * _max + index];
+    }
+
+    @Override
+    public final double distance(final int query, final int index) {
+        return _distances[query * _max + index];
+    }
+
+    @Override
+    public final long[] values() {
+        return _values;
+    }
+
+    @Override
+    public final double[] distances() {
+        return _distances;
+    }
+
+}
@@ -0,0 +1,503 @@
+/**
+ * Copyright 2017 The GreyCat Authors.  All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package greycat.internal.custom;
+
+import greycat.Constants;
+import greycat.Type;
+import greycat.base.BaseCustomTypeSingle;
+import greycat.struct.*;
+import greycat.struct.matrix.RandomGenerator;
+import greycat.utility.distance.Distance;
+import greycat.utility.distance.Distances;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Approximate nearest neighbours index following Hierarchical Navigable Small World graphs (Malkov and Yashunin).
+ * Vectors are stored as the columns of one DMatrix, their values and removal flags in flat arrays, and the
+ * neighbours of the i-th vector on each layer as IntArrays of the EStruct i + 1. A value is indexed at most once, inserting it
+ * again replaces its vector. Removed vectors are only flagged: they keep routing searches but are never returned.
+ * Queries are approximate, the ef parameter trades speed for recall. Radius queries widen ef until the farthest candidate
+ * lies beyond the radius, so they are not cut at ef results. Area queries have no spatial partition to rely on and scan
+ * all vectors. Levels are drawn from a seeded generator, an index built with the same seed and inserts is reproducible.
+ */
+public class HNSWTree extends BaseCustomTypeSingle implements Tree {
+
+    public static final String NAME = "HNSW";
+
+    /**
+     * public configuration elements
+     */
+    public static final int RESOLUTION = 10;
+    public static final int DISTANCE = 11;
+
+    public static final int DEFAULT_M = 16;
+    public static final int DEFAULT_EF_CONSTRUCTION = 100;
+    public static final int DEFAULT_EF = 50;
+    public static final long DEFAULT_SEED = 0;
+
+    /**
+     * private keys
+     */
+    private static final int H_DIM = 0;
+    private static final int H_SIZE = 1;
+    private static final int H_KEYS = 2;
+    private static final int H_VALUES = 3;
+    private static final int H_DELETED = 4;
+    private static final int H_ENTRY = 5;
+    private static final int H_TOP = 6;
+    private static final int H_M = 7;
+    private static final int H_EF_CONSTRUCTION = 8;
+    private static final int H_EF = 9;
+    private static final int H_IDS = 12;
+    private static final int H_TOTAL = 13;
+    private static final int H_SEED = 14;
+
+    private static final long SEED_MIX = 0x9E3779B97F4A7C15L;
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final RandomGenerator _random = new RandomGenerator();
+
+    public HNSWTree(final EStructArray p_backend) {
+        super(p_backend);
+    }
+
+    /**
+     * @param m maximum number of neighbours per vector on upper layers, twice on the bottom layer
+     */
+    public final HNSWTree setM(final int m) {
+        if (m < 2) {
+            throw new RuntimeException("M should be at least 2, received " + m);
+        }
+        if (treeSize() > 0) {
+            throw new RuntimeException("M can only be configured on an empty index");
+        }
+        setAt(H_M, Type.INT, m);
+        return this;
+    }
+
+    /**
+     * @param efConstruction number of candidates considered when linking a new vector
+     */
+    public final HNSWTree setEfConstruction(final int efConstruction) {
+        setAt(H_EF_CONSTRUCTION, Type.INT, efConstruction);
+        return this;
+    }
+
+    /**
+     * @param ef default number of candidates considered by queries
+     */
+    public final HNSWTree setEf(final int ef) {
+        setAt(H_EF, Type.INT, ef);
+        return this;
+    }
+
+    /**
+     * @param seed seed of the level generator, the level of each vector only depends on it and on the insertion rank
+     */
+    public final HNSWTree setSeed(final long seed) {
+        setAt(H_SEED, Type.LONG, seed);
+        return this;
+    }
+
+    @Override
+    public final void setDistance(final int distanceType) {
+        setAt(DISTANCE, Type.INT, distanceType);
+    }
+
+    @Override
+    public final void setResolution(final double[] resolution) {
+        //Not needed
+    }
+
+    @Override
+    public final void setMinBound(final double[] min) {
+        //Not needed
+    }
+
+    @Override
+    public final void setMaxBound(final double[] max) {
+        //Not needed
+    }
+
+    @Override
+    public final long size() {
+        final int size = getAtWithDefault(H_SIZE, 0);
+        return size;
+    }
+
+    @Override
+    public final long treeSize() {
+        final int total = getAtWithDefault(H_TOTAL, 0);
+        return total;
+    }
+
+    @Override
+    public final void insert(final double[] keys, final long value) {
+        final int previousDim = getAtWithDefault(H_DIM, 0);
+        if (previousDim == 0) {
+            setAt(H_DIM, Type.INT, keys.length);
+        } else if (previousDim != keys.length) {
+            throw new RuntimeException("Keys should always be the same length");
+        }
+        remove(value);
+        final Distance distance = distance();
+        final int m = getAtWithDefault(H_M, DEFAULT_M);
+        final int efConstruction = getAtWithDefault(H_EF_CONSTRUCTION, DEFAULT_EF_CONSTRUCTION);
+        final int element = getAtWithDefault(H_TOTAL, 0);
+        ensureCapacity(element + 1);
+        final DMatrix vectors = (DMatrix) getOrCreateAt(H_KEYS, Type.DMATRIX);
+        final IntArray deleted = (IntArray) getAt(H_DELETED);
+        //wrappers are rebuilt on each access, the generator is therefore reseeded from the insertion rank
+        _random.setSeed(getAtWithDefault(H_SEED, DEFAULT_SEED) + element * SEED_MIX);
+        final int level = (int) Math.floor(-Math.log(1 - _random.nextDouble()) / Math.log(m));
+        vectors.appendColumn(keys);
+        ((LongArray) getAt(H_VALUES)).set(element, value);
+        deleted.set(element, 0);
+        setAt(H_TOTAL, Type.INT, element + 1);
+        _backend.newEStruct();
+        ((LongLongMap) getOrCreateAt(H_IDS, Type.LONG_TO_LONG_MAP)).put(value, element);
+        setAt(H_SIZE, Type.INT, (int) size() + 1);
+        if (element == 0) {
+            setAt(H_ENTRY, Type.INT, element);
+            setAt(H_TOP, Type.INT, level);
+            return;
+        }
+        final int top = getAtWithDefault(H_TOP, 0);
+        int entry = getAtWithDefault(H_ENTRY, 0);
+        double entryDistance = distance.measure(keys, vectors.column(entry));
+        //greedy descent on the layers above the level of the new vector
+        for (int layer = top; layer > level; layer--) {
+            boolean changed = true;
+            while (changed) {
+                changed = false;
+                final int[] neighbours = neighbours(entry, layer);
+                for (int i = 0; i < neighbours.length; i++) {
+                    final double d = distance.measure(keys, vectors.column(neighbours[i]));
+                    if (d < entryDistance) {
+                        entryDistance = d;
+                        entry = neighbours[i];
+                        changed = true;
+                    }
+                }
+            }
+        }
+        final int[] entries = new int[]{entry};
+        final double[] entriesDistances = new double[]{entryDistance};
+        for (int layer = Math.min(top, level); layer >= 0; layer--) {
+            final int maxNeighbours = layer == 0 ? 2 * m : m;
+            final DistanceHeap found = searchLayer(keys, entries, entriesDistances, efConstruction, layer, false, distance, vectors, deleted);
+            final int foundSize = found.size();
+            final int[] candidates = new int[foundSize];
+            final double[] candidatesDistances = new double[foundSize];
+            for (int i = foundSize - 1; i >= 0; i--) {
+                candidatesDistances[i] = found.peekDistance();
+                candidates[i] = found.pop();
+            }
+            final int[] selected = selectNeighbours(candidates, candidatesDistances, m, distance, vectors);
+            setNeighbours(element, layer, selected);
+            for (int i = 0; i < selected.length; i++) {
+                link(selected[i], element, layer, maxNeighbours, distance, vectors);
+            }
+            entries[0] = candidates[0];
+            entriesDistances[0] = candidatesDistances[0];
+        }
+        if (level > top) {
+            setAt(H_ENTRY, Type.INT, element);
+            setAt(H_TOP, Type.INT, level);
+        }
+    }
+
+    /**
+     * Flags the vector indexed with this value as removed.
+     *
+     * @param value value previously inserted
+     * @return true if the value was indexed
+     */
+    public final boolean remove(final long value) {
+        final LongLongMap ids = (LongLongMap) getAt(H_IDS);
+        if (ids == null) {
+            return false;
+        }
+        final long element = ids.get(value);
+        if (element == Constants.NULL_LONG) {
+            return false;
+        }
+        ids.remove(value);
+        ((IntArray) getAt(H_DELETED)).set((int) element, 1);
+        setAt(H_SIZE, Type.INT, (int) size() - 1);
+        return true;
+    }
+
+    @Override
+    public final TreeResult queryAround(final double[] keys, final int max) {
+        return queryAroundWithEf(keys, max, getAtWithDefault(H_EF, DEFAULT_EF));
+    }
+
+    /**
+     * @param keys vector to look around
+     * @param max  number of neighbours to return
+     * @param ef   number of candidates to consider, raised to max if lower
+     * @return treeResult object which has to be freed after usage
+     */
+    public final TreeResult queryAroundWithEf(final double[] keys, final int max, final int ef) {
+        return search(keys, -1, max, ef < max ? max : ef);
+    }
+
+    @Override
+    public final TreeResult queryRadius(final double[] keys, final double radius) {
+        return search(keys, radius, -1, getAtWithDefault(H_EF, DEFAULT_EF));
+    }
+
+    @Override
+    public final TreeResult queryBoundedRadius(final double[] keys, final double radius, final int max) {
+        final int ef = getAtWithDefault(H_EF, DEFAULT_EF);
+        return search(keys, radius, max, ef < max ? max : ef);
+    }
+
+    @Override
+    public final TreeResult queryArea(final double[] min, final double[] max) {
+        if (size() == 0) {
+            return null;
+        }
+        final Distance distance = distance();
+        final double[] center = new double[min.length];
+        for (int i = 0; i < center.length; i++) {
+            center[i] = (min[i] + max[i]) / 2;
+        }
+        final DMatrix vectors = (DMatrix) getAt(H_KEYS);
+        final LongArray values = (LongArray) getAt(H_VALUES);
+        final IntArray deleted = (IntArray) getAt(H_DELETED);
+        final EStructArray calcZone = _backend.graph().space().newVolatileGraph();
+        final VolatileTreeResult nnl = new VolatileTreeResult(calcZone.newEStruct(), -1);
+        final int total = getAtWithDefault(H_TOTAL, 0);
+        for (int element = 0; element < total; element++) {
+            if (deleted.get(element) == 0) {
+                final double[] vector = vectors.column(element);
+                int j = 0;
+                while (j < vector.length && min[j] <= vector[j] && max[j] >= vector[j]) {
+                    j++;
+                }
+                if (j == vector.length) {
+                    nnl.insert(vector, values.get(element), distance.measure(vector, center));
+                }
+            }
+        }
+        nnl.sort(true);
+        return nnl;
+    }
+
+    /**
+     * Grows the per vector arrays by doubling, so that appending a vector stays amortized constant.
+     */
+    private void ensureCapacity(final int total) {
+        final LongArray values = (LongArray) getOrCreateAt(H_VALUES, Type.LONG_ARRAY);
+        final int capacity = values.size();
+        if (total <= capacity) {
+            return;
+        }
+        final int newCapacity = capacity == 0 ? INITIAL_CAPACITY : capacity * 2;
+        final long[] newValues = new long[newCapacity];
+        final int[] newDeleted = new int[newCapacity];
+        if (capacity > 0) {
+            System.arraycopy(values.extract(), 0, newValues, 0, capacity);
+            System.arraycopy(((IntArray) getAt(H_DELETED)).extract(), 0, newDeleted, 0, capacity);
+        }
+        values.initWith(newValues);
+        ((IntArray) getOrCreateAt(H_DELETED, Type.INT_ARRAY)).initWith(newDeleted);
+    }
+
+    private Distance distance() {
+        return Distances.getDistance(getAtWithDefault(DISTANCE, Distances.DEFAULT), null);
+    }
+
+    private TreeResult search(final double[] keys, final double radius, final int max, final int ef) {
+        if (size() == 0) {
+            return null;
+        }
+        final int dim = getAtWithDefault(H_DIM, 0);
+        if (keys.length != dim) {
+            throw new RuntimeException("Keys are not of the same size");
+        }
+        final Distance distance = distance();
+        final DMatrix vectors = (DMatrix) getAt(H_KEYS);
+        final LongArray values = (LongArray) getAt(H_VALUES);
+        final IntArray deleted = (IntArray) getAt(H_DELETED);
+        int entry = getAtWithDefault(H_ENTRY, 0);
+        double entryDistance = distance.measure(keys, vectors.column(entry));
+        for (int layer = getAtWithDefault(H_TOP, 0); layer > 0; layer--) {
+            boolean changed = true;
+            while (changed) {
+                changed = false;
+                final int[] neighbours = neighbours(entry, layer);
+                for (int i = 0; i < neighbours.length; i++) {
+                    final double d = distance.measure(keys, vectors.column(neighbours[i]));
+                    if (d < entryDistance) {
+                        entryDistance = d;
+                        entry = neighbours[i];
+                        changed = true;
+                    }
+                }
+            }
+        }
+        DistanceHeap found = searchLayer(keys, new int[]{entry}, new double[]{entryDistance}, ef, 0, true, distance, vectors, deleted);
+        //an unbounded radius query is widened while the ef-th candidate is still within the radius
+        final int total = getAtWithDefault(H_TOTAL, 0);
+        int width = ef;
+        while (max <= 0 && radius > 0 && width < total && found.size() >= width && found.peekDistance() < radius) {
+            width = width * 2;
+            found = searchLayer(keys, new int[]{entry}, new double[]{entryDistance}, width, 0, true, distance, vectors, deleted);
+        }
+        final EStructArray calcZone = _backend.graph().space().newVolatileGraph();
+        final VolatileTreeResult nnl = new VolatileTreeResult(calcZone.newEStruct(), max);
+        //only the max closest candidates are copied into the result
+        while (max > 0 && found.size() > max) {
+            found.pop();
+        }
+        while (found.size() > 0) {
+            final double d = found.peekDistance();
+            final int element = found.pop();
+            if (radius <= 0 || d < radius) {
+                nnl.insert(vectors.column(element), values.get(element), d);
+            }
+        }
+        nnl.sort(true);
+        return nnl;
+    }
+
+    /**
+     * Best first search of one layer.
+     *
+     * @param skipDeleted true to route through removed vectors without returning them
+     * @return a max heap of the ef closest vectors found
+     */
+    private DistanceHeap searchLayer(final double[] keys, final int[] entries, final double[] entriesDistances, final int ef, final int layer, final boolean skipDeleted, final Distance distance, final DMatrix vectors, final IntArray deleted) {
+        final Set<Integer> visited = new HashSet<Integer>();
+        final DistanceHeap candidates = new DistanceHeap(ef, false);
+        final DistanceHeap found = new DistanceHeap(ef + 1, true);
+        for (int i = 0; i < entries.length; i++) {
+            visited.add(entries[i]);
+            candidates.push(entries[i], entriesDistances[i]);
+            if (!skipDeleted || deleted.get(entries[i]) == 0) {
+                found.push(entries[i], entriesDistances[i]);
+            }
+        }
+        while (candidates.size() > 0) {
+            final double candidateDistance = candidates.peekDistance();
+            if (found.size() >= ef && candidateDistance > found.peekDistance()) {
+                break;
+            }
+            final int[] neighbours = neighbours(candidates.pop(), layer);
+            for (int i = 0; i < neighbours.length; i++) {
+                final int neighbour = neighbours[i];
+                if (visited.add(neighbour)) {
+                    final double d = distance.measure(keys, vectors.column(neighbour));
+                    if (found.size() < ef || d < found.peekDistance()) {
+                        candidates.push(neighbour, d);
+                        if (!skipDeleted || deleted.get(neighbour) == 0) {
+                            found.push(neighbour, d);
+                            if (found.size() > ef) {
+                                found.pop();
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Neighbour selection heuristic: a candidate is kept only if it is closer to the base vector than to any kept one,
+     * which spreads links across clusters.
+     *
+     * @param candidates sorted by ascending distance to the base vector
+     */
+    private static int[] selectNeighbours(final int[] candidates, final double[] candidatesDistances, final int max, final Distance distance, final DMatrix vectors) {
+        if (candidates.length <= max) {
+            return candidates;
+        }
+        final int[] selected = new int[max];
+        final double[][] selectedVectors = new double[max][];
+        int count = 0;
+        for (int i = 0; i < candidates.length && count < max; i++) {
+            final double[] candidate = vectors.column(candidates[i]);
+            boolean keep = true;
+            for (int j = 0; j < count; j++) {
+                if (distance.measure(candidate, selectedVectors[j]) < candidatesDistances[i]) {
+                    keep = false;
+                    break;
+                }
+            }
+            if (keep) {
+                selected[count] = candidates[i];
+                selectedVectors[count] = candidate;
+                count++;
+            }
+        }
+        if (count == max) {
+            return selected;
+        }
+        final int[] trimmed = new int[count];
+        System.arraycopy(selected, 0, trimmed, 0, count);
+        return trimmed;
+    }
+
+    /**
+     * Adds the new element to the neighbours of an existing one, shrinking them with the heuristic when full.
+     */
+    private void link(final int element, final int newNeighbour, final int layer, final int maxNeighbours, final Distance distance, final DMatrix vectors) {
+        final int[] previous = neighbours(element, layer);
+        if (previous.length < maxNeighbours) {
+            final int[] extended = new int[previous.length + 1];
+            System.arraycopy(previous, 0, extended, 0, previous.length);
+            extended[previous.length] = newNeighbour;
+            setNeighbours(element, layer, extended);
+            return;
+        }
+        final double[] base = vectors.column(element);
+        final DistanceHeap sorted = new DistanceHeap(previous.length + 1, false);
+        for (int i = 0; i < previous.length; i++) {
+            sorted.push(previous[i], distance.measure(base, vectors.column(previous[i])));
+        }
+        sorted.push(newNeighbour, distance.measure(base, vectors.column(newNeighbour)));
+        final int[] candidates = new int[sorted.size()];
+        final double[] candidatesDistances = new double[candidates.length];
+        for (int i = 0; i < candidates.length; i++) {
+            candidatesDistances[i] = sorted.peekDistance();
+            candidates[i] = sorted.pop();
+        }
+        setNeighbours(element, layer, selectNeighbours(candidates, candidatesDistances, maxNeighbours, distance, vectors));
+    }
+
+    /**
+     * Neighbours of element are stored in the EStruct following the root, one IntArray per layer.
+     */
+    private int[] neighbours(final int element, final int layer) {
+        final IntArray neighbours = (IntArray) _backend.estruct(element + 1).getAt(layer);
+        if (neighbours == null) {
+            return new int[0];
+        }
+        return neighbours.extract();
+    }
+
+    private void setNeighbours(final int element, final int layer, final int[] neighbours) {
+        ((IntArray) _backend.estruct(element + 1).getOrCreateAt(layer, Type.INT_ARRAY)).initWith(neighbours);
+    }
+
+}
@@ -15,13 +15,14 @@
  */
 package greycat.internal.custom;
 
+import greycat.Callback;
 import greycat.Type;
 import greycat.base.BaseCustomType;
 import greycat.struct.*;
 import greycat.utility.distance.Distance;
 import greycat.utility.distance.Distances;
 
-public class KDTree extends BaseCustomType implements Tree {
+public class KDTree extends BaseCustomType implements Tree, TreeBatchQuery {
 
     public static final String NAME = "KDTREE";
 
@@ -70,7 +71,7 @@ public class KDTree extends BaseCustomType implements Tree {
     }
 
     // Method rangeSearch translated from 352.range.c of Gonnet & Baeza-Yates
-    private static void rangeSearch(final double[] lowk, final double[] uppk, final double[] center, final Distance distance, final EStruct node, final int lev, final int dim, final VolatileTreeResult nnl) {
+    private static void rangeSearch(final double[] lowk, final double[] uppk, final double[] center, final Distance distance, final EStruct node, final int lev, final int dim, final TreeResult nnl) {
 
         if (node == null)
             return;
@@ -94,7 +95,7 @@ public class KDTree extends BaseCustomType implements Tree {
         }
     }
 
-    private static void recursiveTraverse(final EStruct node, final VolatileTreeResult nnl, final Distance distance, final double[] target, HRect hr, final int lev, final int dim, double max_dist_sqd, final double radius) {
+    private static void recursiveTraverse(final EStruct node, final TreeResult nnl, final Distance distance, final double[] target, HRect hr, final int lev, final int dim, double max_dist_sqd, final double radius) {
         // 1. if kd is empty exit.
         if (node == null) {
             return;
@@ -339,6 +340,46 @@ public class KDTree extends BaseCustomType implements Tree {
         return nnl;
     }
 
+    @Override
+    public final TreeBatchResult queryAroundBatch(final double[][] keys, final int max) {
+        return queryBoundedRadiusBatch(keys, -1, max);
+    }
+
+    @Override
+    public final TreeBatchResult queryBoundedRadiusBatch(final double[][] keys, final double radius, final int max) {
+        return batch(keys, radius).run(keys, max);
+    }
+
+    @Override
+    public final void queryBatchParallel(final double[][] keys, final double radius, final int max, final Callback<TreeBatchResult> callback) {
+        batch(keys, radius).runParallel(_backend.graph(), keys, max, callback);
+    }
+
+    /**
+     * Checks the root and resolves the distance once for the whole batch.
+     */
+    private TreeBatch batch(final double[][] keys, final double radius) {
+        final EStruct root = _backend.root();
+        final boolean empty = root.getAt(E_KEY) == null;
+        if (!empty) {
+            final int dim = ((DoubleArray) root.getAt(E_KEY)).size();
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i].length != dim) {
+                    throw new RuntimeException("Keys are not of the same size");
+                }
+            }
+        }
+        final Distance distance = Distances.getDistance(root.getAtWithDefault(DISTANCE, Distances.DEFAULT), null);
+        return new TreeBatch() {
+            @Override
+            void search(final double[] key, final TreeResult sink) {
+                if (!empty) {
+                    recursiveTraverse(root, sink, distance, key, HRect.infiniteHRect(key.length), 0, key.length, Double.MAX_VALUE, radius);
+                }
+            }
+        };
+    }
+
     @Override
     public final TreeResult queryArea(double[] min, double[] max) {
         EStruct root = _backend.root();
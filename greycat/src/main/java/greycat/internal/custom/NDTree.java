@@ -15,14 +15,14 @@
  */
 package greycat.internal.custom;
 
+import greycat.Callback;
 import greycat.Type;
 import greycat.base.BaseCustomType;
-import greycat.plugin.NodeStateCallback;
 import greycat.struct.*;
 import greycat.utility.distance.Distance;
 import greycat.utility.distance.Distances;
 
-public class NDTree extends BaseCustomType implements NDIndexer {
+public class NDTree extends BaseCustomType implements NDIndexer, TreeBatchQuery {
 
     public static final String NAME = "NDTREE";
 
@@ -398,12 +398,50 @@ public class NDTree extends BaseCustomType implements NDIndexer {
         Distance distance = Distances.getDistance(root.getAtWithDefault(DISTANCE, Distances.DEFAULT), null);
         EStructArray calcZone = _backend.graph().space().newVolatileGraph();
         VolatileTreeResult nnl = new VolatileTreeResult(calcZone.newEStruct(), max);
-        reccursiveTraverse(root, calcZone, nnl, distance, keys, null, null, radius, space);
+        reccursiveTraverse(root, nnl, distance, keys, null, null, radius, space);
         nnl.sort(true);
         return nnl;
     }
 
 
+    @Override
+    public final TreeBatchResult queryAroundBatch(final double[][] keys, final int max) {
+        return queryBoundedRadiusBatch(keys, -1, max);
+    }
+
+    @Override
+    public final TreeBatchResult queryBoundedRadiusBatch(final double[][] keys, final double radius, final int max) {
+        return batch(keys, radius).run(keys, max);
+    }
+
+    @Override
+    public final void queryBatchParallel(final double[][] keys, final double radius, final int max, final Callback<TreeBatchResult> callback) {
+        batch(keys, radius).runParallel(_backend.graph(), keys, max, callback);
+    }
+
+    /**
+     * Reads the root space and resolves the distance once for the whole batch.
+     */
+    private TreeBatch batch(final double[][] keys, final double radius) {
+        final EStruct root = _backend.root();
+        final boolean empty = root.getAtWithDefault(E_TOTAL, 0L) == 0;
+        final double[][] space = empty ? null : getRootMinMax(root);
+        if (!empty) {
+            for (int i = 0; i < keys.length; i++) {
+                check(keys[i], space[MIN], space[MAX]);
+            }
+        }
+        final Distance distance = Distances.getDistance(root.getAtWithDefault(DISTANCE, Distances.DEFAULT), null);
+        return new TreeBatch() {
+            @Override
+            void search(final double[] key, final TreeResult sink) {
+                if (!empty) {
+                    reccursiveTraverse(root, sink, distance, key, null, null, radius, space);
+                }
+            }
+        };
+    }
+
     @Override
     public final ProfileResult queryArea(final double[] min, final double[] max) {
         EStruct root = _backend.root();
@@ -419,7 +457,7 @@ public class NDTree extends BaseCustomType implements NDIndexer {
         VolatileTreeResult nnl = new VolatileTreeResult(calcZone.newEStruct(), -1);
         double[][] space = getRootMinMax(root);
 
-        reccursiveTraverse(root, calcZone, nnl, distance, center, min, max, -1, space);
+        reccursiveTraverse(root, nnl, distance, center, min, max, -1, space);
         nnl.sort(true);
         return nnl;
     }
@@ -436,7 +474,7 @@ public class NDTree extends BaseCustomType implements NDIndexer {
     }
 
 
-    private static void reccursiveTraverse(final EStruct node, final EStructArray calcZone, final VolatileTreeResult nnl, final Distance distance, final double[] target, final double[] targetmin, final double[] targetmax, final double radius, final double[][] space) {
+    private static void reccursiveTraverse(final EStruct node, final TreeResult nnl, final Distance distance, final double[] target, final double[] targetmin, final double[] targetmax, final double radius, final double[][] space) {
 
         if (node.getAtWithDefault(E_SUBNODES, 0L) == 0) {
             //Leave node
@@ -463,45 +501,34 @@ public class NDTree extends BaseCustomType implements NDIndexer {
 
         } else {
             //Parent node
-            final double worst = nnl.getWorstDistance();
+            final int[] attributes = node.attributeIndexes();
             if (targetmin == null || targetmax == null) {
-                if (!nnl.isCapacityReached() || TreeHelper.getclosestDistance(target, space[MIN], space[MAX], distance) <= worst) {
-                    final EStruct tempList = calcZone.newEStruct();
-                    final VolatileTreeResult childPriority = new VolatileTreeResult(tempList, -1);
-
-
-                    node.each(new NodeStateCallback() {
-                        @Override
-                        public void on(int attributeKey, int elemType, Object elem) {
-                            if (attributeKey >= E_OFFSET_REL) {
-                                double[][] childSpace = getChildMinMax(space, attributeKey);
-                                childPriority.insert(childSpace[MIN], attributeKey, TreeHelper.getclosestDistance(target, childSpace[MIN], childSpace[MAX], distance));
-                            }
+                if (!nnl.isCapacityReached() || TreeHelper.getclosestDistance(target, space[MIN], space[MAX], distance) <= nnl.getWorstDistance()) {
+                    //children are visited from the closest one, ordered in a heap rather than a volatile result
+                    final DistanceHeap childPriority = new DistanceHeap(attributes.length, false);
+                    for (int i = 0; i < attributes.length; i++) {
+                        if (attributes[i] >= E_OFFSET_REL) {
+                            double[][] childSpace = getChildMinMax(space, attributes[i]);
+                            childPriority.push(attributes[i], TreeHelper.getclosestDistance(target, childSpace[MIN], childSpace[MAX], distance));
                         }
-                    });
-                    childPriority.sort(true);
-
-                    for (int i = 0; i < childPriority.size(); i++) {
-                        EStruct child = (EStruct) node.getAt((int) childPriority.value(i));
-                        double[][] childSpace = getChildMinMax(space, (int) childPriority.value(i));
-                        reccursiveTraverse(child, calcZone, nnl, distance, target, targetmin, targetmax, radius, childSpace);
                     }
-                    childPriority.free();
+                    while (childPriority.size() > 0) {
+                        final int attributeKey = childPriority.pop();
+                        EStruct child = (EStruct) node.getAt(attributeKey);
+                        double[][] childSpace = getChildMinMax(space, attributeKey);
+                        reccursiveTraverse(child, nnl, distance, target, targetmin, targetmax, radius, childSpace);
+                    }
                 }
             } else {
-                node.each(new NodeStateCallback() {
-                    @Override
-                    public void on(int attributeKey, int elemType, Object elem) {
-                        if (attributeKey >= E_OFFSET_REL) {
-                            EStruct child = (EStruct) node.getAt(attributeKey);
-                            double[][] childSpace = getChildMinMax(space, attributeKey);
-
-                            if (TreeHelper.checkBoundsIntersection(targetmin, targetmax, childSpace[MIN], childSpace[MAX])) {
-                                reccursiveTraverse(child, calcZone, nnl, distance, target, targetmin, targetmax, radius, childSpace);
-                            }
+                for (int i = 0; i < attributes.length; i++) {
+                    if (attributes[i] >= E_OFFSET_REL) {
+                        EStruct child = (EStruct) node.getAt(attributes[i]);
+                        double[][] childSpace = getChildMinMax(space, attributes[i]);
+                        if (TreeHelper.checkBoundsIntersection(targetmin, targetmax, childSpace[MIN], childSpace[MAX])) {
+                            reccursiveTraverse(child, nnl, distance, target, targetmin, targetmax, radius, childSpace);
                         }
                     }
-                });
+                }
             }
         }
     }
@@ -0,0 +1,81 @@
+/**
+ * Copyright 2017 The GreyCat Authors.  All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package greycat.internal.custom;
+
+import greycat.Callback;
+import greycat.DeferCounter;
+import greycat.Graph;
+import greycat.plugin.Job;
+import greycat.plugin.SchedulerAffinity;
+import greycat.struct.TreeBatchResult;
+import greycat.struct.TreeResult;
+
+/**
+ * Runs a batch of queries of one tree, sequentially or in slices dispatched on the scheduler.
+ */
+abstract class TreeBatch {
+
+    /**
+     * Collects the neighbours of one key into the sink, state shared by the whole batch is prepared by the subclass.
+     */
+    abstract void search(double[] key, TreeResult sink);
+
+    final TreeBatchResult run(final double[][] keys, final int max) {
+        final FlatTreeBatchResult result = new FlatTreeBatchResult(keys.length, max);
+        runSlice(keys, 0, keys.length, result);
+        return result;
+    }
+
+    final void runParallel(final Graph graph, final double[][] keys, final int max, final Callback<TreeBatchResult> callback) {
+        final FlatTreeBatchResult result = new FlatTreeBatchResult(keys.length, max);
+        int slices = graph.scheduler().workers();
+        if (slices < 1) {
+            slices = 1;
+        }
+        if (slices > keys.length) {
+            slices = keys.length == 0 ? 1 : keys.length;
+        }
+        final DeferCounter counter = graph.newCounter(slices);
+        counter.then(new Job() {
+            @Override
+            public void run() {
+                callback.on(result);
+            }
+        });
+        final int sliceSize = (keys.length + slices - 1) / slices;
+        for (int i = 0; i < slices; i++) {
+            final int from = i * sliceSize;
+            final int to = Math.min(keys.length, from + sliceSize);
+            graph.scheduler().dispatch(SchedulerAffinity.ANY_LOCAL_THREAD, new Job() {
+                @Override
+                public void run() {
+                    runSlice(keys, from, to, result);
+                    counter.count();
+                }
+            });
+        }
+    }
+
+    private void runSlice(final double[][] keys, final int from, final int to, final FlatTreeBatchResult result) {
+        final TreeBatchCursor cursor = new TreeBatchCursor(result);
+        for (int i = from; i < to; i++) {
+            cursor.select(i);
+            search(keys[i], cursor);
+            cursor.done();
+        }
+    }
+
+}
@@ -0,0 +1,154 @@
+/**
+ * Copyright 2017 The GreyCat Authors.  All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package greycat.internal.custom;
+
+import greycat.struct.TreeResult;
+
+/**
+ * TreeResult writing the neighbours of one query into its slice of a {@link FlatTreeBatchResult}, kept as a max heap
+ * on distance while the query runs. One cursor is reused for all queries of a slice of the batch.
+ */
+class TreeBatchCursor implements TreeResult {
+
+    private final FlatTreeBatchResult _result;
+    private int _offset;
+    private int _query;
+    private int _count;
+
+    TreeBatchCursor(final FlatTreeBatchResult result) {
+        this._result = result;
+    }
+
+    final void select(final int query) {
+        _query = query;
+        _offset = query * _result._max;
+        _count = 0;
+    }
+
+    /**
+     * Sorts the slice by ascending distance and records its size.
+     */
+    final void done() {
+        sort(true);
+        _result._sizes[_query] = _count;
+    }
+
+    @Override
+    public final boolean insert(final double[] key, final long value, final double distance) {
+        final long[] values = _result._values;
+        final double[] distances = _result._distances;
+        int position;
+        if (_count < _result._max) {
+            position = _count;
+            _count++;
+            //sift up
+            while (position > 0) {
+                final int parent = (position - 1) >>> 1;
+                if (distances[_offset + parent] >= distance) {
+                    break;
+                }
+                distances[_offset + position] = distances[_offset + parent];
+                values[_offset + position] = values[_offset + parent];
+                position = parent;
+            }
+        } else {
+            if (distance >= distances[_offset]) {
+                return false;
+            }
+            //replace the worst and sift down
+            position = 0;
+            while (true) {
+                int child = 2 * position + 1;
+                if (child >= _count) {
+                    break;
+                }
+                if (child + 1 < _count && distances[_offset + child + 1] > distances[_offset + child]) {
+                    child++;
+                }
+                if (distances[_offset + child] <= distance) {
+                    break;
+                }
+                distances[_offset + position] = distances[_offset + child];
+                values[_offset + position] = values[_offset + child];
+                position = child;
+            }
+        }
+        distances[_offset + position] = distance;
+        values[_offset + position] = value;
+        return true;
+    }
+
+    @Override
+    public final double[] keys(final int index) {
+        throw new RuntimeException("Keys are not kept by batch queries");
+    }
+
+    @Override
+    public final long value(final int index) {
+        return _result._values[_offset + index];
+    }
+
+    @Override
+    public final double distance(final int index) {
+        return _result._distances[_offset + index];
+    }
+
+    @Override
+    public final double getWorstDistance() {
+        if (_count == 0) {
+            return Double.MAX_VALUE;
+        }
+        return _result._distances[_offset];
+    }
+
+    @Override
+    public final boolean isCapacityReached() {
+        return _count == _result._max;
+    }
+
+    /**
+     * Insertion sort of the slice, slices hold at most max neighbours.
+     */
+    @Override
+    public final TreeResult sort(final boolean ascending) {
+        final long[] values = _result._values;
+        final double[] distances = _result._distances;
+        for (int i = 1; i < _count; i++) {
+            final double distance = distances[_offset + i];
+            final long value = values[_offset + i];
+            int j = i - 1;
+            while (j >= 0 && (ascending ? distances[_offset + j] > distance : distances[_offset + j] < distance)) {
+                distances[_offset + j + 1] = distances[_offset + j];
+                values[_offset + j + 1] = values[_offset + j];
+                j--;
+            }
+            distances[_offset + j + 1] = distance;
+            values[_offset + j + 1] = value;
+        }
+        return this;
+    }
+
+    @Override
+    public final void free() {
+        //nothing to free, the slice belongs to the batch result
+    }
+
+    @Override
+    public final int size() {
+        return _count;
+    }
+
+}
@@ -15,6 +15,7 @@
  */
 package greycat.internal.custom;
 
+import greycat.struct.TreeResult;
 import greycat.utility.distance.Distance;
 
 class TreeHelper {
@@ -53,7 +54,7 @@ class TreeHelper {
         return distance.measure(closest, target);
     }
 
-    static void filterAndInsert(double[] key, long value, double[] target, double[] targetmin, double[] targetmax, Distance distance, double radius, VolatileTreeResult nnl) {
+    static void filterAndInsert(double[] key, long value, double[] target, double[] targetmin, double[] targetmax, Distance distance, double radius, TreeResult nnl) {
         if (targetmin != null) {
             if (checkKeyInsideBounds(key, targetmin, targetmax)) {
                 nnl.insert(key, value, distance.measure(key, target));
@@ -0,0 +1,95 @@
+/**
+ * Copyright 2017 The GreyCat Authors.  All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package greycat.internal.heap;
+
+import greycat.chunk.Stack;
+
+/**
+ * Simplified 2Q: chunks unmarked for the first time wait in a FIFO queue, chunks re-marked at least once go to a LRU
+ * queue. Victims are taken from the FIFO queue as long as it holds more than a quarter of the capacity, which protects
+ * re-used chunks from one shot scans.
+ */
+public final class Heap2QStack implements Stack {
+
+    private final HeapFixedStack _in;
+    private final HeapFixedStack _main;
+    private boolean[] _reused;
+    private int _inMax;
+
+    public Heap2QStack(int capacity, boolean fill) {
+        this._in = new HeapFixedStack(capacity, fill);
+        this._main = new HeapFixedStack(capacity, false);
+        this._reused = new boolean[capacity];
+        this._inMax = capacity / 4;
+    }
+
+    @Override
+    public synchronized final boolean enqueue(long index) {
+        if (_in.size() + _main.size() >= _reused.length) {
+            return false;
+        }
+        if (_reused[(int) index]) {
+            return _main.enqueue(index);
+        } else {
+            return _in.enqueue(index);
+        }
+    }
+
+    @Override
+    public synchronized final long dequeueTail() {
+        long victim = -1;
+        if (_in.size() > _inMax || _main.size() == 0) {
+            victim = _in.dequeueTail();
+        }
+        if (victim == -1) {
+            victim = _main.dequeueTail();
+        }
+        if (victim != -1) {
+            _reused[(int) victim] = false;
+        }
+        return victim;
+    }
+
+    @Override
+    public synchronized final boolean dequeue(long index) {
+        if (_in.dequeue(index) || _main.dequeue(index)) {
+            _reused[(int) index] = true;
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public final void free() {
+        //noop
+    }
+
+    @Override
+    public synchronized long size() {
+        return _in.size() + _main.size();
+    }
+
+    @Override
+    public synchronized final void resize(long capacity) {
+        final boolean[] newReused = new boolean[(int) capacity];
+        System.arraycopy(_reused, 0, newReused, 0, Math.min(_reused.length, newReused.length));
+        _reused = newReused;
+        _inMax = (int) (capacity / 4);
+        _main.resize(capacity);
+        _in.resize(capacity);
+    }
+
+}
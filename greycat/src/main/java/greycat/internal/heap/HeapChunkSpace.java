@@ -19,6 +19,9 @@ import greycat.Callback;
 import greycat.Constants;
 import greycat.Graph;
 import greycat.chunk.*;
+import greycat.plugin.AppendStorage;
+import greycat.plugin.ScanStorage;
+import greycat.plugin.Storage;
 import greycat.struct.Buffer;
 import greycat.struct.BufferIterator;
 import greycat.struct.EStructArray;
@@ -26,30 +29,40 @@ import greycat.utility.*;
 
 import java.util.concurrent.atomic.AtomicIntegerArray;
 import java.util.concurrent.atomic.AtomicLongArray;
-import java.util.concurrent.atomic.AtomicReferenceArray;
 
 public class HeapChunkSpace implements ChunkSpace {
 
     private static final int HASH_LOAD_FACTOR = 4;
 
-    private final int _maxEntries;
+    private static final int NB_CHUNK_TYPES = 7;
+
+    private volatile int _maxEntries;
+    private final int _blockSize;
+    private final int _maxCapacity;
+    private final long _backpressure;
+    private final byte _chunkFormat;
+    private final byte _keyFormat;
     private final int _batchSize;
     private final int _hashEntries;
 
     private final Stack _lru;
     private final Stack _dirtiesStack;
 
-    private final AtomicIntegerArray _hashNext;
+    private final HeapElasticIntArray _hashNext;
     private final AtomicIntegerArray _hash;
 
-    private final AtomicLongArray _chunkWorlds;
-    private final AtomicLongArray _chunkTimes;
-    private final AtomicLongArray _chunkIds;
-    private final HeapAtomicByteArray _chunkTypes;
+    private final HeapElasticLongArray _chunkWorlds;
+    private final HeapElasticLongArray _chunkTimes;
+    private final HeapElasticLongArray _chunkIds;
+    private final HeapElasticByteArray _chunkTypes;
+
+    private final HeapElasticChunkArray _chunkValues;
 
-    private final AtomicReferenceArray<Chunk> _chunkValues;
+    private final HeapElasticLongArray _chunkMarks;
 
-    private final AtomicLongArray _chunkMarks;
+    private final AtomicLongArray _hits;
+    private final AtomicLongArray _misses;
+    private final AtomicLongArray _evictions;
 
     private final Graph _graph;
 
@@ -57,33 +70,109 @@ public class HeapChunkSpace implements ChunkSpace {
 
     private Interceptor[] _interceptors;
 
+    /**
+     * Offset of the first index managed by this space, non zero only when used as a segment of {@link HeapShardedChunkSpace}.
+     */
+    private long _offset;
+
+    /**
+     * Space used to resolve chunks outside of this one, itself except when used as a segment.
+     */
+    private ChunkSpace _root;
+
     @Override
     public final Graph graph() {
         return this._graph;
     }
 
+    /**
+     * @return the {@link ChunkFormat} used by chunks of this space to save themselves
+     */
+    public final byte chunkFormat() {
+        return _chunkFormat;
+    }
+
+    @Override
+    public final byte keyFormat() {
+        return _keyFormat;
+    }
+
+    /**
+     * Turns this space into a segment of {@link HeapShardedChunkSpace}, to be called before any chunk is created.
+     *
+     * @param p_root   space used to resolve chunks outside of this segment
+     * @param p_offset index of the first chunk managed by this segment
+     */
+    final void asSegment(final ChunkSpace p_root, final long p_offset) {
+        _root = p_root;
+        _offset = p_offset;
+    }
+
     final long worldByIndex(long index) {
-        return this._chunkWorlds.get((int) index);
+        return this._chunkWorlds.get((int) (index - _offset));
     }
 
     final long timeByIndex(long index) {
-        return this._chunkTimes.get((int) index);
+        return this._chunkTimes.get((int) (index - _offset));
     }
 
     final long idByIndex(long index) {
-        return this._chunkIds.get((int) index);
+        return this._chunkIds.get((int) (index - _offset));
+    }
+
+    final byte typeByIndex(long index) {
+        return this._chunkTypes.get((int) (index - _offset));
     }
 
-    public HeapChunkSpace(final int initialCapacity, final int batchSize, final Graph p_graph, final boolean deepWorldPriority) {
+    /**
+     * Creates an elastic space: when no chunk can be evicted, capacity grows by blocks of initialCapacity up to maxCapacity,
+     * and shrinks back when saving while at least one block and a half is unused.
+     * Once maxCapacity is reached, creations wait up to backpressure milliseconds for a chunk to be released before failing.
+     * A maxCapacity not above initialCapacity gives a fixed size space.
+     *
+     * @param initialCapacity   initial number of chunks, also used as growth step
+     * @param batchSize         number of chunks saved by a partial save
+     * @param p_graph           graph using this space
+     * @param deepWorldPriority hash strategy, see {@link greycat.Constants#DEEP_WORLD}
+     * @param evictionPolicy    the {@link EvictionPolicy} used to select chunks to unload
+     * @param maxCapacity       maximum number of chunks, rounded up to a multiple of initialCapacity
+     * @param backpressure      maximum time in milliseconds a creation waits for a free chunk when the space is full
+     * @param chunkFormat       the {@link ChunkFormat} used by chunks of this space to save themselves
+     * @param keyFormat         the {@link KeyFormat} used to store chunks
+     */
+    public HeapChunkSpace(final int initialCapacity, final int batchSize, final Graph p_graph, final boolean deepWorldPriority, final byte evictionPolicy, final int maxCapacity, final long backpressure, final byte chunkFormat, final byte keyFormat) {
         _interceptors = null;
+        _chunkFormat = chunkFormat;
+        _keyFormat = keyFormat;
+        _offset = 0;
+        _root = this;
         _batchSize = batchSize;
         _deep_priority = deepWorldPriority;
         _graph = p_graph;
         _maxEntries = initialCapacity;
-        _hashEntries = initialCapacity * HASH_LOAD_FACTOR;
-        _lru = new HeapFixedStack(initialCapacity, true);
+        _blockSize = initialCapacity;
+        final int maxBlocks;
+        if (maxCapacity > initialCapacity) {
+            maxBlocks = (maxCapacity + initialCapacity - 1) / initialCapacity;
+        } else {
+            maxBlocks = 1;
+        }
+        _maxCapacity = maxBlocks * initialCapacity;
+        _backpressure = backpressure;
+        //the hash directory is sized for the maximum capacity, so that growing never rehashes under concurrent readers
+        _hashEntries = _maxCapacity * HASH_LOAD_FACTOR;
+        switch (evictionPolicy) {
+            case EvictionPolicy.CLOCK:
+                _lru = new HeapClockStack(initialCapacity, true);
+                break;
+            case EvictionPolicy.TWO_QUEUES:
+                _lru = new Heap2QStack(initialCapacity, true);
+                break;
+            default:
+                _lru = new HeapFixedStack(initialCapacity, true);
+        }
         _dirtiesStack = new HeapFixedStack(initialCapacity, false);
-        _hashNext = new AtomicIntegerArray(initialCapacity);
+        _hashNext = new HeapElasticIntArray(initialCapacity, maxBlocks);
         _hash = new AtomicIntegerArray(_hashEntries);
         for (int i = 0; i < initialCapacity; i++) {
             _hashNext.set(i, -1);
@@ -91,15 +180,18 @@ public class HeapChunkSpace implements ChunkSpace {
         for (int i = 0; i < _hashEntries; i++) {
             _hash.set(i, -1);
         }
-        _chunkValues = new AtomicReferenceArray<Chunk>(initialCapacity);
-        _chunkWorlds = new AtomicLongArray(_maxEntries);
-        _chunkTimes = new AtomicLongArray(_maxEntries);
-        _chunkIds = new AtomicLongArray(_maxEntries);
-        _chunkTypes = new HeapAtomicByteArray(_maxEntries);
-        _chunkMarks = new AtomicLongArray(_maxEntries);
+        _chunkValues = new HeapElasticChunkArray(initialCapacity, maxBlocks);
+        _chunkWorlds = new HeapElasticLongArray(initialCapacity, maxBlocks);
+        _chunkTimes = new HeapElasticLongArray(initialCapacity, maxBlocks);
+        _chunkIds = new HeapElasticLongArray(initialCapacity, maxBlocks);
+        _chunkTypes = new HeapElasticByteArray(initialCapacity, maxBlocks);
+        _chunkMarks = new HeapElasticLongArray(initialCapacity, maxBlocks);
         for (int i = 0; i < _maxEntries; i++) {
             _chunkMarks.set(i, 0);
         }
+        _hits = new AtomicLongArray(NB_CHUNK_TYPES);
+        _misses = new AtomicLongArray(NB_CHUNK_TYPES);
+        _evictions = new AtomicLongArray(NB_CHUNK_TYPES);
     }
 
     @Override
@@ -127,7 +219,7 @@ public class HeapChunkSpace implements ChunkSpace {
                     && _chunkWorlds.get(m) == world
                     && _chunkTimes.get(m) == time
                     && _chunkIds.get(m) == id) {
-                if (mark(m) > 0) {
+                if (internal_mark(m) > 0) {
                     found = m;
                 }
                 break;
@@ -144,15 +236,20 @@ public class HeapChunkSpace implements ChunkSpace {
                 result = null;
             }
         }
+        if (result != null) {
+            count(_hits, type);
+        } else {
+            count(_misses, type);
+        }
         return result;
     }
 
     @Override
     public final Chunk get(final long index) {
-        final int casted = (int) index;
-        if (casted == -1) {
+        if (index == -1) {
             return null;
         }
+        final int casted = (int) (index - _offset);
         boolean valid = true;
         if (_interceptors != null) {
             for (int i = 0; i < _interceptors.length && valid; i++) {
@@ -172,7 +269,7 @@ public class HeapChunkSpace implements ChunkSpace {
             callback.on(fromMemory);
         } else {
             final Buffer keys = graph().newBuffer();
-            KeyHelper.keyToBuffer(keys, type, world, time, id);
+            KeyHelper.keyToBufferWithFormat(keys, _keyFormat, type, world, time, id);
             graph().storage().get(keys, new Callback<Buffer>() {
                 @Override
                 public void on(final Buffer result) {
@@ -190,6 +287,69 @@ public class HeapChunkSpace implements ChunkSpace {
         }
     }
 
+    @Override
+    public final void getOrLoadAndMarkRange(final byte type, final long world, final long id, final long from, final long to, final Callback<Chunk[]> callback) {
+        loadRange(this, type, world, id, from, to, callback);
+    }
+
+    /**
+     * {@native ts
+     * return (<any>storage).scan !== undefined;
+     * }
+     */
+    private static boolean canScan(final Storage storage) {
+        return storage instanceof ScanStorage;
+    }
+
+    static void loadRange(final ChunkSpace space, final byte type, final long world, final long id, final long from, final long to, final Callback<Chunk[]> callback) {
+        final Graph graph = space.graph();
+        if (space.keyFormat() != KeyFormat.ORDERED || !canScan(graph.storage())) {
+            throw new RuntimeException("Range loading requires a ScanStorage and ordered keys");
+        }
+        final Buffer prefix = graph.newBuffer();
+        KeyHelper.orderedPrefixToBuffer(prefix, type, world, id);
+        final Buffer lower = graph.newBuffer();
+        KeyHelper.orderedLongToBuffer(from, lower);
+        final Buffer upper = graph.newBuffer();
+        KeyHelper.orderedLongToBuffer(to, upper);
+        ((ScanStorage) graph.storage()).scan(prefix, lower, upper, -1, new Callback<Buffer>() {
+            @Override
+            public void on(final Buffer result) {
+                prefix.free();
+                lower.free();
+                upper.free();
+                Chunk[] chunks = new Chunk[Constants.MAP_INITIAL_CAPACITY];
+                int size = 0;
+                final BufferIterator it = result.iterator();
+                while (it.hasNext()) {
+                    final Buffer keyView = it.next();
+                    final Buffer valueView = it.next();
+                    final long time = KeyHelper.decodeOrderedLong(keyView, 1 + 2 * KeyHelper.ORDERED_LONG_SIZE);
+                    //chunks already in memory are more recent than stored ones
+                    Chunk chunk = space.getAndMark(type, world, time, id);
+                    if (chunk == null) {
+                        chunk = space.createAndMark(type, world, time, id);
+                        if (chunk == null) {
+                            continue;
+                        }
+                        chunk.load(valueView);
+                    }
+                    if (size == chunks.length) {
+                        final Chunk[] extended = new Chunk[size * 2];
+                        System.arraycopy(chunks, 0, extended, 0, size);
+                        chunks = extended;
+                    }
+                    chunks[size] = chunk;
+                    size++;
+                }
+                result.free();
+                final Chunk[] trimmed = new Chunk[size];
+                System.arraycopy(chunks, 0, trimmed, 0, size);
+                callback.on(trimmed);
+            }
+        });
+    }
+
     @Override
     public final void getOrLoadAndMarkAll(final long[] keys, final Callback<Chunk[]> callback) {
         final int querySize = keys.length / Constants.KEY_SIZE;
@@ -214,7 +374,7 @@ public class HeapChunkSpace implements ChunkSpace {
                     if (reverseIndex != 0) {
                         toLoadKeys.write(Constants.BUFFER_SEP);
                     }
-                    KeyHelper.keyToBuffer(toLoadKeys, (byte) keys[offset], keys[offset + 1], keys[offset + 2], keys[offset + 3]);
+                    KeyHelper.keyToBufferWithFormat(toLoadKeys, _keyFormat, (byte) keys[offset], keys[offset + 1], keys[offset + 2], keys[offset + 3]);
                     reverseIndex++;
                 }
             } else {
@@ -252,7 +412,10 @@ public class HeapChunkSpace implements ChunkSpace {
 
     @Override
     public final long mark(final long index) {
-        int castedIndex = (int) index;
+        return internal_mark((int) (index - _offset));
+    }
+
+    private long internal_mark(final int castedIndex) {
         long before;
         long after;
         do {
@@ -265,14 +428,17 @@ public class HeapChunkSpace implements ChunkSpace {
         } while (!_chunkMarks.compareAndSet(castedIndex, before, after));
         if (before == 0 && after == 1) {
             //was at zero before, risky operation, check selectWith LRU
-            this._lru.dequeue(index);
+            this._lru.dequeue(castedIndex);
         }
         return after;
     }
 
     @Override
     public final void unmark(final long index) {
-        int castedIndex = (int) index;
+        internal_unmark((int) (index - _offset));
+    }
+
+    private void internal_unmark(final int castedIndex) {
         long before;
         long after;
         do {
@@ -286,7 +452,7 @@ public class HeapChunkSpace implements ChunkSpace {
         } while (!_chunkMarks.compareAndSet(castedIndex, before, after));
         if (before == 1 && after == 0) {
             //was at zero before, risky operation, check selectWith LRU
-            this._lru.enqueue(index);
+            this._lru.enqueue(castedIndex);
         }
     }
 
@@ -342,7 +508,36 @@ public class HeapChunkSpace implements ChunkSpace {
         if (!valid) {
             return null;
         }
-        return internal_createAndMark(type, world, time, id);
+        Chunk result = internal_createAndMark(type, world, time, id);
+        if (result == null && _backpressure > 0) {
+            final long deadline = System.currentTimeMillis() + _backpressure;
+            while (result == null && System.currentTimeMillis() < deadline && pause()) {
+                result = internal_createAndMark(type, world, time, id);
+            }
+        }
+        if (result == null) {
+            // printMarked();
+            throw new RuntimeException("GreyCat crashed, cache is full, please avoid to much retention of nodes or augment cache capacity! available:" + available());
+        }
+        return result;
+    }
+
+    /**
+     * Lets other threads release chunks while a creation waits for a free one.
+     *
+     * @return false if waiting is not possible
+     * {@native ts
+     * return false;
+     * }
+     */
+    private static boolean pause() {
+        try {
+            Thread.sleep(1);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
     }
 
     private synchronized Chunk internal_createAndMark(final byte type, final long world, final long time, final long id) {
@@ -377,75 +572,39 @@ public class HeapChunkSpace implements ChunkSpace {
                 return _chunkValues.get(entry);
             }
         }
-        int currentVictimIndex = -1;
-        while (currentVictimIndex == -1) {
-            int temp_victim = (int) this._lru.dequeueTail();
-            if (temp_victim == -1) {
-                break;
-            } else {
-                if (_chunkMarks.compareAndSet(temp_victim, 0, -1)) {
-                    currentVictimIndex = temp_victim;
-                }
-            }
+        int currentVictimIndex = nextVictim();
+        if (currentVictimIndex == -1 && grow()) {
+            currentVictimIndex = nextVictim();
         }
         if (currentVictimIndex == -1) {
-            // printMarked();
-            throw new RuntimeException("GreyCat crashed, cache is full, please avoid to much retention of nodes or augment cache capacity! available:" + available());
+            return null;
         }
         Chunk toInsert = null;
         switch (type) {
             case ChunkType.STATE_CHUNK:
-                toInsert = new HeapStateChunk(this, currentVictimIndex);
+                toInsert = new HeapStateChunk(this, _offset + currentVictimIndex);
                 break;
             case ChunkType.WORLD_ORDER_CHUNK:
-                toInsert = new HeapWorldOrderChunk(this, currentVictimIndex);
+                toInsert = new HeapWorldOrderChunk(this, _offset + currentVictimIndex);
                 break;
             case ChunkType.TIME_TREE_CHUNK:
-                toInsert = new HeapTimeTreeChunk(this, currentVictimIndex);
+                toInsert = new HeapTimeTreeChunk(this, _offset + currentVictimIndex);
                 break;
             case ChunkType.SUPER_TIME_TREE_CHUNK:
-                toInsert = new HeapSuperTimeTreeChunk(this, currentVictimIndex);
+                toInsert = new HeapSuperTimeTreeChunk(this, _offset + currentVictimIndex);
                 break;
             case ChunkType.TIME_TREE_DVALUE_CHUNK:
-                toInsert = new HeapTimeTreeDValueChunk(this, currentVictimIndex);
+                toInsert = new HeapTimeTreeDValueChunk(this, _offset + currentVictimIndex);
                 break;
             case ChunkType.GEN_CHUNK:
-                toInsert = new HeapGenChunk(this, id, currentVictimIndex);
+                toInsert = new HeapGenChunk(this, id, _offset + currentVictimIndex);
+                break;
+            case ChunkType.TIME_SERIES_CHUNK:
+                toInsert = new HeapTimeSeriesChunk(this, _offset + currentVictimIndex);
                 break;
         }
         if (this._chunkValues.get(currentVictimIndex) != null) {
-            // Chunk victim = this._chunkValues[currentVictimIndex];
-            final long victimWorld = _chunkWorlds.get(currentVictimIndex);
-            final long victimTime = _chunkTimes.get(currentVictimIndex);
-            final long victimObj = _chunkIds.get(currentVictimIndex);
-            final byte victimType = _chunkTypes.get(currentVictimIndex);
-            final int indexVictim;
-            if (_deep_priority) {
-                indexVictim = (int) HashHelper.tripleHash(victimType, victimWorld, victimTime, victimObj, this._hashEntries);
-            } else {
-                indexVictim = (int) HashHelper.simpleTripleHash(victimType, victimWorld, victimTime, victimObj, this._hashEntries);
-            }
-            m = _hash.get(indexVictim);
-            int last = -1;
-            while (m >= 0) {
-                if (victimType == _chunkTypes.get(m) && victimWorld == _chunkWorlds.get(m) && victimTime == _chunkTimes.get(m) && victimObj == _chunkIds.get(m)) {
-                    break;
-                }
-                last = m;
-                m = _hashNext.get(m);
-            }
-            //POP THE VALUE FROM THE NEXT LIST
-            if (last == -1) {
-                int previousNext = _hashNext.get(m);
-                _hash.set(indexVictim, previousNext);
-            } else {
-                if (m == -1) {
-                    _hashNext.set(last, -1);
-                } else {
-                    _hashNext.set(last, _hashNext.get(m));
-                }
-            }
-            _hashNext.set(m, -1);
+            evict(currentVictimIndex);
         }
         _chunkValues.set(currentVictimIndex, toInsert);
         _chunkMarks.set(currentVictimIndex, 1);
@@ -460,21 +619,164 @@ public class HeapChunkSpace implements ChunkSpace {
         return toInsert;
     }
 
+    private int nextVictim() {
+        int currentVictimIndex = -1;
+        while (currentVictimIndex == -1) {
+            int temp_victim = (int) this._lru.dequeueTail();
+            if (temp_victim == -1) {
+                break;
+            } else {
+                if (_chunkMarks.compareAndSet(temp_victim, 0, -1)) {
+                    currentVictimIndex = temp_victim;
+                }
+            }
+        }
+        return currentVictimIndex;
+    }
+
+    /**
+     * Removes the chunk stored at this (locked) index from the hash.
+     */
+    private void evict(final int victimIndex) {
+        final long victimWorld = _chunkWorlds.get(victimIndex);
+        final long victimTime = _chunkTimes.get(victimIndex);
+        final long victimObj = _chunkIds.get(victimIndex);
+        final byte victimType = _chunkTypes.get(victimIndex);
+        count(_evictions, victimType);
+        final int indexVictim;
+        if (_deep_priority) {
+            indexVictim = (int) HashHelper.tripleHash(victimType, victimWorld, victimTime, victimObj, this._hashEntries);
+        } else {
+            indexVictim = (int) HashHelper.simpleTripleHash(victimType, victimWorld, victimTime, victimObj, this._hashEntries);
+        }
+        int m = _hash.get(indexVictim);
+        int last = -1;
+        while (m >= 0) {
+            if (victimType == _chunkTypes.get(m) && victimWorld == _chunkWorlds.get(m) && victimTime == _chunkTimes.get(m) && victimObj == _chunkIds.get(m)) {
+                break;
+            }
+            last = m;
+            m = _hashNext.get(m);
+        }
+        //POP THE VALUE FROM THE NEXT LIST
+        if (last == -1) {
+            int previousNext = _hashNext.get(m);
+            _hash.set(indexVictim, previousNext);
+        } else {
+            if (m == -1) {
+                _hashNext.set(last, -1);
+            } else {
+                _hashNext.set(last, _hashNext.get(m));
+            }
+        }
+        _hashNext.set(m, -1);
+    }
+
+    /**
+     * Adds a block of free chunks, if the space is elastic and below its maximum capacity.
+     *
+     * @return true if the capacity increased
+     */
+    private boolean grow() {
+        final int from = _maxEntries;
+        if (from >= _maxCapacity) {
+            return false;
+        }
+        final int to = from + _blockSize;
+        final int block = from / _blockSize;
+        _hashNext.ensureBlock(block);
+        _chunkValues.ensureBlock(block);
+        _chunkWorlds.ensureBlock(block);
+        _chunkTimes.ensureBlock(block);
+        _chunkIds.ensureBlock(block);
+        _chunkTypes.ensureBlock(block);
+        _chunkMarks.ensureBlock(block);
+        for (int i = from; i < to; i++) {
+            _hashNext.set(i, -1);
+            _chunkMarks.set(i, 0);
+        }
+        _dirtiesStack.resize(to);
+        _maxEntries = to;
+        _lru.resize(to);
+        return true;
+    }
+
+    /**
+     * Releases the last block of chunks, if none of them is currently marked.
+     * Arrays of the block are kept allocated for a next growth, only chunks are freed.
+     *
+     * @return true if the capacity decreased
+     */
+    private boolean shrink() {
+        final int to = _maxEntries;
+        if (to <= _blockSize) {
+            return false;
+        }
+        final int from = to - _blockSize;
+        int locked = from;
+        while (locked < to && _chunkMarks.compareAndSet(locked, 0, -1)) {
+            locked++;
+        }
+        if (locked != to) {
+            for (int i = from; i < locked; i++) {
+                _chunkMarks.set(i, 0);
+            }
+            return false;
+        }
+        for (int i = from; i < to; i++) {
+            _lru.dequeue(i);
+            if (_chunkValues.get(i) != null) {
+                evict(i);
+                _chunkValues.set(i, null);
+            }
+        }
+        _maxEntries = from;
+        _lru.resize(from);
+        _dirtiesStack.resize(from);
+        return true;
+    }
+
     @Override
     public final void notifyUpdate(final long index) {
-        if (_dirtiesStack.enqueue(index)) {
-            mark(index);
+        final int castedIndex = (int) (index - _offset);
+        if (_dirtiesStack.enqueue(castedIndex)) {
+            internal_mark(castedIndex);
         }
     }
 
     @Override
     public final synchronized void save(final boolean silent, final boolean partial, final LMap filter, final Callback<Buffer> callback) {
+        final java.util.Map<Long, Tuple<Listeners, LArray>> events = new java.util.HashMap<Long, Tuple<Listeners, LArray>>();
+        final Buffer stream = this._graph.newBuffer();
+        final Buffer diffStream = newDiffStream(silent);
+        final HeapPendingSaves pending = new HeapPendingSaves();
+        saveDirties(stream, diffStream, pending, partial, 0, filter, events);
+        flush(this._graph, stream, diffStream, pending, events, silent, callback);
+    }
 
-        java.util.Map<Long, Tuple<Listeners, LArray>> events = null;
+    /**
+     * Creates the buffer collecting incremental records of chunks, null if the storage cannot append them or chunks are not binary encoded.
+     */
+    final Buffer newDiffStream(final boolean silent) {
+        if (!silent && _chunkFormat == ChunkFormat.BINARY && _graph.storage() instanceof AppendStorage) {
+            return _graph.newBuffer();
+        }
+        return null;
+    }
 
-        final Buffer stream = this._graph.newBuffer();
-        boolean isFirst = true;
-        int counter = 0;
+    /**
+     * Serializes dirty chunks of this space (keys and payloads) at the end of the stream.
+     *
+     * @param stream     buffer to write into, chunks are separated by {@link Constants#BUFFER_SEP}
+     * @param diffStream optional buffer collecting incremental records of state chunks, to be appended by the storage
+     * @param pending collector of state chunks waiting for the answer of the storage
+     * @param partial specifies if the batch size configuration should be used
+     * @param counter number of chunks already saved in the current batch
+     * @param filter  optional set of chunk ids to save, others stay dirty
+     * @param events  collector of listeners to notify, per node id
+     * @return the number of chunks saved in the current batch
+     */
+    final synchronized int saveDirties(final Buffer stream, final Buffer diffStream, final HeapPendingSaves pending, final boolean partial, int counter, final LMap filter, final java.util.Map<Long, Tuple<Listeners, LArray>> events) {
         while (_dirtiesStack.size() != 0 && (!partial || _batchSize == -1 || counter <= _batchSize)) {
             int tail = (int) _dirtiesStack.dequeueTail();
             counter++;
@@ -485,29 +787,27 @@ public class HeapChunkSpace implements ChunkSpace {
                 }
             }
             if (!filtered) {
+                final Chunk loopChunk = _chunkValues.get(tail);
+                final boolean diff = diffStream != null && loopChunk instanceof HeapStateChunk && ((HeapStateChunk) loopChunk).diffable();
+                final Buffer target = diff ? diffStream : stream;
                 //Save chunk Key
-                if (isFirst) {
-                    isFirst = false;
-                } else {
-                    stream.write(Constants.BUFFER_SEP);
+                if (target.length() != 0) {
+                    target.write(Constants.BUFFER_SEP);
                 }
                 long chunkId = _chunkIds.get(tail);
                 byte chunkType = _chunkTypes.get(tail);
                 long chunkTime = _chunkTimes.get(tail);
-                KeyHelper.keyToBuffer(stream, chunkType, _chunkWorlds.get(tail), chunkTime, chunkId);
+                KeyHelper.keyToBufferWithFormat(target, _keyFormat, chunkType, _chunkWorlds.get(tail), chunkTime, chunkId);
                 //we prepare the notifier
                 if (chunkType == ChunkType.STATE_CHUNK) {
-                    if (events != null && events.get(chunkId) != null) {
+                    if (events.get(chunkId) != null) {
                         events.get(chunkId).right().add(chunkTime);
                     } else {
-                        final WorldOrderChunk wo = (WorldOrderChunk) getAndMark(ChunkType.WORLD_ORDER_CHUNK, 0, 0, chunkId);
+                        final WorldOrderChunk wo = (WorldOrderChunk) _root.getAndMark(ChunkType.WORLD_ORDER_CHUNK, 0, 0, chunkId);
                         if (wo != null) {
                             final Listeners l = wo.listeners();
-                            unmark(wo.index());
+                            _root.unmark(wo.index());
                             if (l != null) {
-                                if (events == null) {
-                                    events = new java.util.HashMap<Long, Tuple<Listeners, LArray>>();
-                                }
                                 LArray collector = new LArray();
                                 collector.add(chunkTime);
                                 events.put(chunkId, new Tuple<Listeners, LArray>(l, collector));
@@ -517,11 +817,16 @@ public class HeapChunkSpace implements ChunkSpace {
                 }
 
                 //Save chunk payload
-                stream.write(Constants.BUFFER_SEP);
+                target.write(Constants.BUFFER_SEP);
                 try {
-                    final Chunk loopChunk = _chunkValues.get(tail);
-                    loopChunk.save(stream);
-                    unmark(tail);
+                    if (loopChunk instanceof HeapStateChunk) {
+                        //released once the storage answered
+                        ((HeapStateChunk) loopChunk).persist(target, diff);
+                        pending.add(this, tail, diff);
+                    } else {
+                        loopChunk.save(target);
+                        internal_unmark(tail);
+                    }
                 } catch (Exception e) {
                     e.printStackTrace();
                 }
@@ -529,31 +834,99 @@ public class HeapChunkSpace implements ChunkSpace {
                 _dirtiesStack.enqueue(tail);
             }
         }
+        pending.involve(this);
+        return counter;
+    }
+
+    /**
+     * Gives back unused blocks of an elastic space, keeping half a block of margin to avoid growing again immediately.
+     * Called once saved chunks are released, see {@link HeapPendingSaves}.
+     */
+    final synchronized void shrinkIdle() {
+        while (_maxEntries > _blockSize && _lru.size() >= _blockSize + _blockSize / 2 && shrink()) {
+            //continue while the load allows it
+        }
+    }
+
+    /**
+     * Writes the whole payload of a state chunk whose incremental record was refused by the storage, at the end of the stream.
+     */
+    final synchronized void saveFull(final int index, final Buffer stream) {
+        if (stream.length() != 0) {
+            stream.write(Constants.BUFFER_SEP);
+        }
+        KeyHelper.keyToBufferWithFormat(stream, _keyFormat, _chunkTypes.get(index), _chunkWorlds.get(index), _chunkTimes.get(index), _chunkIds.get(index));
+        stream.write(Constants.BUFFER_SEP);
+        ((HeapStateChunk) _chunkValues.get(index)).persist(stream, false);
+    }
+
+    /**
+     * Records the answer of the storage on a state chunk saved by {@link #saveDirties}, then releases it.
+     */
+    final void persisted(final int index, final boolean diff, final boolean success) {
+        final Chunk chunk = _chunkValues.get(index);
+        if (chunk instanceof HeapStateChunk) {
+            ((HeapStateChunk) chunk).persisted(diff, success);
+        }
+        internal_unmark(index);
+    }
+
+    /**
+     * Notifies collected listeners, then sends the serialized chunks to the storage of the graph.
+     */
+    static void flush(final Graph graph, final Buffer stream, final Buffer diffStream, final HeapPendingSaves pending, final java.util.Map<Long, Tuple<Listeners, LArray>> events, final boolean silent, final Callback<Buffer> callback) {
         //call nocal notifier
-        if (events != null) {
+        if (events.size() != 0) {
             final Tuple[] tuples = events.values().toArray(new Tuple[events.size()]);
             for (int i = 0; i < tuples.length; i++) {
                 Tuple<Listeners, LArray> tt = tuples[i];
                 tt.left().dispatch(tt.right().all());
             }
         }
+        if (diffStream != null) {
+            if (diffStream.length() == 0) {
+                diffStream.free();
+            } else {
+                //incremental records first, then whole payloads
+                ((AppendStorage) graph.storage()).append(diffStream, new Callback<Boolean>() {
+                    @Override
+                    public void on(final Boolean result) {
+                        diffStream.free();
+                        if (result != null && result) {
+                            pending.complete(true, true);
+                        } else {
+                            //refused records are written again as whole payloads
+                            pending.fallback(stream);
+                        }
+                        write(graph, stream, pending, silent, callback);
+                    }
+                });
+                return;
+            }
+        }
+        write(graph, stream, pending, silent, callback);
+    }
+
+    private static void write(final Graph graph, final Buffer stream, final HeapPendingSaves pending, final boolean silent, final Callback<Buffer> callback) {
         if (silent) {
-            this.graph().storage().putSilent(stream, new Callback<Buffer>() {
+            graph.storage().putSilent(stream, new Callback<Buffer>() {
                 @Override
                 public void on(final Buffer result) {
                     //free all value
                     stream.free();
+                    pending.complete(false, result != null);
                     if (callback != null) {
                         callback.on(result);
                     }
                 }
             });
         } else {
-            this.graph().storage().put(stream, new Callback<Boolean>() {
+            graph.storage().put(stream, new Callback<Boolean>() {
                 @Override
                 public void on(final Boolean result) {
                     //free all value
                     stream.free();
+                    pending.complete(false, result != null && result);
                     if (callback != null) {
                         callback.on(null);
                     }
@@ -576,7 +949,7 @@ public class HeapChunkSpace implements ChunkSpace {
             } else {
                 stream.write(Constants.BUFFER_SEP);
             }
-            KeyHelper.keyToBuffer(stream, _chunkTypes.get(tail), _chunkWorlds.get(tail), _chunkTimes.get(tail), _chunkIds.get(tail));
+            KeyHelper.keyToBufferWithFormat(stream, _keyFormat, _chunkTypes.get(tail), _chunkWorlds.get(tail), _chunkTimes.get(tail), _chunkIds.get(tail));
             //Save chunk payload
             stream.write(Constants.BUFFER_SEP);
             try {
@@ -612,7 +985,7 @@ public class HeapChunkSpace implements ChunkSpace {
             } else {
                 stream.write(Constants.BUFFER_SEP);
             }
-            KeyHelper.keyToBuffer(stream, _chunkTypes.get(tail), _chunkWorlds.get(tail), _chunkTimes.get(tail), _chunkIds.get(tail));
+            KeyHelper.keyToBufferWithFormat(stream, _keyFormat, _chunkTypes.get(tail), _chunkWorlds.get(tail), _chunkTimes.get(tail), _chunkIds.get(tail));
             //Save chunk payload
             stream.write(Constants.BUFFER_SEP);
             try {
@@ -656,6 +1029,36 @@ public class HeapChunkSpace implements ChunkSpace {
         return _dirtiesStack.size();
     }
 
+    private static void count(final AtomicLongArray counters, final byte chunkType) {
+        if (chunkType >= 0 && chunkType < NB_CHUNK_TYPES) {
+            counters.incrementAndGet(chunkType);
+        }
+    }
+
+    @Override
+    public final long hits(final byte chunkType) {
+        if (chunkType < 0 || chunkType >= NB_CHUNK_TYPES) {
+            return 0;
+        }
+        return _hits.get(chunkType);
+    }
+
+    @Override
+    public final long misses(final byte chunkType) {
+        if (chunkType < 0 || chunkType >= NB_CHUNK_TYPES) {
+            return 0;
+        }
+        return _misses.get(chunkType);
+    }
+
+    @Override
+    public final long evictions(final byte chunkType) {
+        if (chunkType < 0 || chunkType >= NB_CHUNK_TYPES) {
+            return 0;
+        }
+        return _evictions.get(chunkType);
+    }
+
     @Override
     public EStructArray newVolatileGraph() {
         return new HeapEStructArray(null, null, _graph);
@@ -693,7 +1096,7 @@ public class HeapChunkSpace implements ChunkSpace {
     }
 
     public final void printMarked() {
-        for (int i = 0; i < _chunkValues.length(); i++) {
+        for (int i = 0; i < _maxEntries; i++) {
             if (_chunkValues.get(i) != null) {
                 if (_chunkMarks.get(i) != 0) {
                     switch (_chunkTypes.get(i)) {
@@ -0,0 +1,128 @@
+/**
+ * Copyright 2017 The GreyCat Authors.  All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package greycat.internal.heap;
+
+import greycat.chunk.Stack;
+
+/**
+ * Generalized CLOCK: candidates are swept in index order, each re-mark (dequeue) increases a small weight that the
+ * hand decrements before evicting the chunk.
+ */
+public final class HeapClockStack implements Stack {
+
+    private static final byte MAX_WEIGHT = 3;
+
+    private final boolean _fill;
+    private boolean[] _candidates;
+    private byte[] _weights;
+    private int _capacity;
+    private int _hand;
+    private int _count;
+
+    public HeapClockStack(int capacity, boolean fill) {
+        this._fill = fill;
+        this._capacity = capacity;
+        this._candidates = new boolean[capacity];
+        this._weights = new byte[capacity];
+        this._hand = 0;
+        if (fill) {
+            for (int i = 0; i < capacity; i++) {
+                _candidates[i] = true;
+            }
+            _count = capacity;
+        } else {
+            _count = 0;
+        }
+    }
+
+    @Override
+    public synchronized final boolean enqueue(long index) {
+        int castedIndex = (int) index;
+        if (_count >= _capacity || _candidates[castedIndex]) {
+            return false;
+        }
+        _candidates[castedIndex] = true;
+        _count++;
+        return true;
+    }
+
+    @Override
+    public synchronized final long dequeueTail() {
+        if (_count == 0) {
+            return -1;
+        }
+        while (true) {
+            int h = _hand;
+            _hand = (h + 1) % _capacity;
+            if (_candidates[h]) {
+                if (_weights[h] > 0) {
+                    _weights[h]--;
+                } else {
+                    _candidates[h] = false;
+                    _count--;
+                    return h;
+                }
+            }
+        }
+    }
+
+    @Override
+    public synchronized final boolean dequeue(long index) {
+        int castedIndex = (int) index;
+        if (!_candidates[castedIndex]) {
+            return false;
+        }
+        _candidates[castedIndex] = false;
+        if (_weights[castedIndex] < MAX_WEIGHT) {
+            _weights[castedIndex]++;
+        }
+        _count--;
+        return true;
+    }
+
+    @Override
+    public final void free() {
+        //noop
+    }
+
+    @Override
+    public synchronized long size() {
+        return _count;
+    }
+
+    @Override
+    public synchronized final void resize(long capacity) {
+        final int newCapacity = (int) capacity;
+        final boolean[] newCandidates = new boolean[newCapacity];
+        final byte[] newWeights = new byte[newCapacity];
+        final int copied = Math.min(_capacity, newCapacity);
+        System.arraycopy(_candidates, 0, newCandidates, 0, copied);
+        System.arraycopy(_weights, 0, newWeights, 0, copied);
+        if (_fill) {
+            for (int i = copied; i < newCapacity; i++) {
+                newCandidates[i] = true;
+                _count++;
+            }
+        }
+        _candidates = newCandidates;
+        _weights = newWeights;
+        _capacity = newCapacity;
+        if (_hand >= newCapacity) {
+            _hand = 0;
+        }
+    }
+
+}
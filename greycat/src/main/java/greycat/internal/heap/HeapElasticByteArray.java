@@ -0,0 +1,62 @@
+/**
+ * Copyright 2017 The GreyCat Authors.  All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package greycat.internal.heap;
+
+
+/**
+ * Array of atomic bytes, split in blocks of fixed size, used by {@link HeapChunkSpace} to grow.
+ * Blocks are allocated on demand and never moved, so that lock-free readers never observe a stale copy.
+ */
+final class HeapElasticByteArray {
+
+    private final int _blockSize;
+    private final HeapAtomicByteArray[] _blocks;
+    private final HeapAtomicByteArray _first;
+
+    HeapElasticByteArray(final int blockSize, final int maxBlocks) {
+        _blockSize = blockSize;
+        _blocks = new HeapAtomicByteArray[maxBlocks];
+        _first = new HeapAtomicByteArray(blockSize);
+        _blocks[0] = _first;
+    }
+
+    /**
+     * Allocates the block if it is not already present (allocated blocks are kept on shrink and reused).
+     *
+     * @param block the index of the block
+     */
+    final void ensureBlock(final int block) {
+        if (_blocks[block] == null) {
+            _blocks[block] = new HeapAtomicByteArray(_blockSize);
+        }
+    }
+
+    final byte get(final int index) {
+        if (index < _blockSize) {
+            return _first.get(index);
+        }
+        return _blocks[index / _blockSize].get(index % _blockSize);
+    }
+
+    final void set(final int index, final byte value) {
+        if (index < _blockSize) {
+            _first.set(index, value);
+        } else {
+            _blocks[index / _blockSize].set(index % _blockSize, value);
+        }
+    }
+
+}
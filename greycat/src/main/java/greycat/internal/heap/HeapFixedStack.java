@@ -22,14 +22,16 @@ import java.util.Arrays;
 
 public final class HeapFixedStack implements Stack {
 
-    private final int[] _next;
-    private final int[] _prev;
-    private final int _capacity;
+    private final boolean _fill;
+    private int[] _next;
+    private int[] _prev;
+    private int _capacity;
     private int _first;
     private int _last;
     private int _count;
 
     public HeapFixedStack(int capacity, boolean fill) {
+        this._fill = fill;
         this._capacity = capacity;
         this._next = new int[capacity];
         this._prev = new int[capacity];
@@ -103,7 +105,7 @@ public final class HeapFixedStack implements Stack {
         int castedIndex = (int) index;
         int p = _prev[castedIndex];
         int n = _next[castedIndex];
-        if (p == -1 && n == -1) {
+        if (p == -1 && n == -1 && _first != castedIndex) {
             return false;
         }
         if (p == -1) {
@@ -156,4 +158,27 @@ public final class HeapFixedStack implements Stack {
         return _count;
     }
 
+    @Override
+    public synchronized final void resize(long capacity) {
+        final int newCapacity = (int) capacity;
+        final int[] newNext = new int[newCapacity];
+        final int[] newPrev = new int[newCapacity];
+        final int copied = Math.min(_capacity, newCapacity);
+        System.arraycopy(_next, 0, newNext, 0, copied);
+        System.arraycopy(_prev, 0, newPrev, 0, copied);
+        if (newCapacity > copied) {
+            Arrays.fill(newNext, copied, newCapacity, -1);
+            Arrays.fill(newPrev, copied, newCapacity, -1);
+        }
+        final int previousCapacity = _capacity;
+        _next = newNext;
+        _prev = newPrev;
+        _capacity = newCapacity;
+        if (_fill) {
+            for (int i = previousCapacity; i < newCapacity; i++) {
+                enqueue(i);
+            }
+        }
+    }
+
 }
\ No newline at end of file
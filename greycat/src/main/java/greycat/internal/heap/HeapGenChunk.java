@@ -17,10 +17,13 @@ package greycat.internal.heap;
 
 import greycat.Constants;
 import greycat.chunk.Chunk;
+import greycat.chunk.ChunkFormat;
 import greycat.chunk.ChunkType;
 import greycat.internal.CoreConstants;
 import greycat.struct.Buffer;
 import greycat.utility.Base64;
+import greycat.utility.Binary;
+import greycat.utility.BinaryReader;
 import greycat.chunk.GenChunk;
 import greycat.utility.HashHelper;
 
@@ -63,11 +66,17 @@ final class HeapGenChunk implements GenChunk {
     @Override
     public synchronized final void save(final Buffer buffer) {
         final long beginIndex = buffer.writeIndex();
-        if (_group != 0) {
-            Base64.encodeIntToBuffer(_group, buffer);
-            buffer.write(CoreConstants.CHUNK_META_SEP);
+        if (_space != null && _space.chunkFormat() == ChunkFormat.BINARY) {
+            Binary.writeHeader(buffer);
+            Binary.writeVarInt(_group, buffer);
+            Binary.writeVarLong(_seed, buffer);
+        } else {
+            if (_group != 0) {
+                Base64.encodeIntToBuffer(_group, buffer);
+                buffer.write(CoreConstants.CHUNK_META_SEP);
+            }
+            Base64.encodeLongToBuffer(_seed, buffer);
         }
-        Base64.encodeLongToBuffer(_seed, buffer);
         _hash = HashHelper.hashBuffer(buffer, beginIndex, buffer.writeIndex());
     }
 
@@ -123,7 +132,14 @@ final class HeapGenChunk implements GenChunk {
         if (buffer == null || buffer.length() == 0) {
             return;
         }
-        long loaded = Base64.decodeToLongWithBounds(buffer, 0, buffer.length());
+        long loaded;
+        if (Binary.isBinary(buffer)) {
+            final BinaryReader reader = new BinaryReader(buffer);
+            _group = reader.readVarInt();
+            loaded = reader.readVarLong();
+        } else {
+            loaded = Base64.decodeToLongWithBounds(buffer, 0, buffer.length());
+        }
         long previousSeed = _seed;
         _seed = loaded;
         if (previousSeed != -1 && previousSeed != _seed) {
@@ -20,6 +20,8 @@ import greycat.internal.CoreConstants;
 import greycat.struct.Buffer;
 import greycat.struct.LongArray;
 import greycat.utility.Base64;
+import greycat.utility.Binary;
+import greycat.utility.BinaryReader;
 
 final class HeapLongArray implements LongArray {
 
@@ -195,6 +197,24 @@ final class HeapLongArray implements LongArray {
         }
     }
 
+    public final void saveBinary(final Buffer buffer) {
+        if (_backend != null) {
+            Binary.writeVarInt(_backend.length, buffer);
+            for (int j = 0; j < _backend.length; j++) {
+                Binary.writeVarLong(_backend[j], buffer);
+            }
+        } else {
+            Binary.writeVarInt(0, buffer);
+        }
+    }
+
+    public final void loadBinary(final BinaryReader reader) {
+        _backend = new long[reader.readVarInt()];
+        for (int j = 0; j < _backend.length; j++) {
+            _backend[j] = reader.readVarLong();
+        }
+    }
+
     public final long load(final Buffer buffer, final long offset, final long max) {
         long cursor = offset;
         byte current = buffer.read(cursor);
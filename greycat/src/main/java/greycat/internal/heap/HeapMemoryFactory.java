@@ -16,15 +16,82 @@
 package greycat.internal.heap;
 
 import greycat.Graph;
+import greycat.chunk.ChunkFormat;
 import greycat.chunk.ChunkSpace;
+import greycat.chunk.EvictionPolicy;
+import greycat.chunk.KeyFormat;
 import greycat.plugin.MemoryFactory;
 import greycat.struct.Buffer;
 
 public class HeapMemoryFactory implements MemoryFactory {
 
+    private int _segments = 1;
+    private byte _evictionPolicy = EvictionPolicy.LRU;
+    private long _maxMemorySize = -1;
+    private long _backpressure = 0;
+    private byte _chunkFormat = ChunkFormat.TEXT;
+    private byte _keyFormat = KeyFormat.TEXT;
+
+    /**
+     * @param segments number of independent segments of the chunk space, more than one enables {@link HeapShardedChunkSpace}
+     */
+    public final HeapMemoryFactory setSegments(final int segments) {
+        this._segments = segments;
+        return this;
+    }
+
+    /**
+     * @param evictionPolicy the {@link EvictionPolicy} used to select chunks to unload
+     */
+    public final HeapMemoryFactory setEvictionPolicy(final byte evictionPolicy) {
+        this._evictionPolicy = evictionPolicy;
+        return this;
+    }
+
+    /**
+     * @param maxMemorySize maximum number of chunks of an elastic space, -1 for a fixed size space
+     */
+    public final HeapMemoryFactory setMaxMemorySize(final long maxMemorySize) {
+        this._maxMemorySize = maxMemorySize;
+        return this;
+    }
+
+    /**
+     * @param backpressure maximum time in milliseconds a creation waits for a free chunk when the space is full
+     */
+    public final HeapMemoryFactory setBackpressure(final long backpressure) {
+        this._backpressure = backpressure;
+        return this;
+    }
+
+    /**
+     * @param chunkFormat the {@link ChunkFormat} used by chunks to save themselves
+     */
+    public final HeapMemoryFactory setChunkFormat(final byte chunkFormat) {
+        this._chunkFormat = chunkFormat;
+        return this;
+    }
+
+    /**
+     * @param keyFormat the {@link KeyFormat} used to store chunks
+     */
+    public final HeapMemoryFactory setKeyFormat(final byte keyFormat) {
+        this._keyFormat = keyFormat;
+        return this;
+    }
+
+    /**
+     * {@native ts
+     * return new greycat.internal.heap.HeapChunkSpace(memorySize, batchSize, graph, deepWorld, this._evictionPolicy, Math.max(memorySize, this._maxMemorySize), this._backpressure, this._chunkFormat, this._keyFormat);
+     * }
+     */
     @Override
     public final ChunkSpace newSpace(final long memorySize, final long batchSize, final Graph graph, final boolean deepWorld) {
-        return new HeapChunkSpace((int) memorySize, (int) batchSize, graph, deepWorld);
+        final long maxMemorySize = Math.max(memorySize, _maxMemorySize);
+        if (_segments > 1) {
+            return new HeapShardedChunkSpace((int) memorySize, (int) batchSize, graph, deepWorld, _segments, _evictionPolicy, (int) maxMemorySize, _backpressure, _chunkFormat, _keyFormat);
+        }
+        return new HeapChunkSpace((int) memorySize, (int) batchSize, graph, deepWorld, _evictionPolicy, (int) maxMemorySize, _backpressure, _chunkFormat, _keyFormat);
     }
 
     @Override
@@ -0,0 +1,95 @@
+/**
+ * Copyright 2017 The GreyCat Authors.  All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package greycat.internal.heap;
+
+import greycat.struct.Buffer;
+
+/**
+ * State chunks serialized by a save and waiting for the answer of the storage.
+ * They stay marked until then, so that the outcome of the write can be recorded on them, see {@link HeapStateChunk#persisted(boolean, boolean)}.
+ */
+final class HeapPendingSaves {
+
+    private HeapChunkSpace[] _spaces = new HeapChunkSpace[8];
+    private int[] _indexes = new int[8];
+    private boolean[] _diffs = new boolean[8];
+    private int _size = 0;
+    private HeapChunkSpace[] _involved = new HeapChunkSpace[0];
+
+    /**
+     * Registers a space taking part in the save, shrunk once every chunk is released.
+     */
+    final void involve(final HeapChunkSpace space) {
+        for (int i = 0; i < _involved.length; i++) {
+            if (_involved[i] == space) {
+                return;
+            }
+        }
+        final HeapChunkSpace[] involved = new HeapChunkSpace[_involved.length + 1];
+        System.arraycopy(_involved, 0, involved, 0, _involved.length);
+        involved[_involved.length] = space;
+        _involved = involved;
+    }
+
+    final void add(final HeapChunkSpace space, final int index, final boolean diff) {
+        if (_size == _indexes.length) {
+            final HeapChunkSpace[] spaces = new HeapChunkSpace[_size * 2];
+            final int[] indexes = new int[_size * 2];
+            final boolean[] diffs = new boolean[_size * 2];
+            System.arraycopy(_spaces, 0, spaces, 0, _size);
+            System.arraycopy(_indexes, 0, indexes, 0, _size);
+            System.arraycopy(_diffs, 0, diffs, 0, _size);
+            _spaces = spaces;
+            _indexes = indexes;
+            _diffs = diffs;
+        }
+        _spaces[_size] = space;
+        _indexes[_size] = index;
+        _diffs[_size] = diff;
+        _size++;
+    }
+
+    /**
+     * Serializes again as whole payloads the chunks whose incremental records were refused, at the end of the stream.
+     */
+    final void fallback(final Buffer stream) {
+        for (int i = 0; i < _size; i++) {
+            if (_spaces[i] != null && _diffs[i]) {
+                _spaces[i].saveFull(_indexes[i], stream);
+                _diffs[i] = false;
+            }
+        }
+    }
+
+    /**
+     * Records the answer of the storage on the chunks written as incremental records or as whole payloads, and releases them.
+     * Whole payloads being written last, involved spaces are shrunk once they are released.
+     */
+    final void complete(final boolean diff, final boolean success) {
+        for (int i = 0; i < _size; i++) {
+            if (_spaces[i] != null && _diffs[i] == diff) {
+                _spaces[i].persisted(_indexes[i], diff, success);
+                _spaces[i] = null;
+            }
+        }
+        if (!diff) {
+            for (int i = 0; i < _involved.length; i++) {
+                _involved[i].shrinkIdle();
+            }
+        }
+    }
+
+}
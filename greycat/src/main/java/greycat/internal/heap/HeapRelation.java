@@ -20,6 +20,8 @@ import greycat.Node;
 import greycat.internal.CoreConstants;
 import greycat.struct.Buffer;
 import greycat.utility.Base64;
+import greycat.utility.Binary;
+import greycat.utility.BinaryReader;
 import greycat.struct.Relation;
 
 class HeapRelation implements Relation {
@@ -276,6 +278,21 @@ class HeapRelation implements Relation {
         }
     }
 
+    public final void saveBinary(final Buffer buffer) {
+        Binary.writeVarInt(_size, buffer);
+        for (int j = 0; j < _size; j++) {
+            Binary.writeVarLong(_backend[j], buffer);
+        }
+    }
+
+    public final void loadBinary(final BinaryReader reader) {
+        final int size = reader.readVarInt();
+        allocate(size);
+        for (int j = 0; j < size; j++) {
+            internal_add(reader.readVarLong());
+        }
+    }
+
     public final long load(final Buffer buffer, final long offset, final long max) {
         long cursor = offset;
         byte current = buffer.read(cursor);
@@ -0,0 +1,364 @@
+/**
+ * Copyright 2017 The GreyCat Authors.  All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package greycat.internal.heap;
+
+import greycat.Callback;
+import greycat.Constants;
+import greycat.Graph;
+import greycat.chunk.Chunk;
+import greycat.chunk.ChunkFormat;
+import greycat.chunk.ChunkSpace;
+import greycat.chunk.EvictionPolicy;
+import greycat.chunk.Interceptor;
+import greycat.chunk.KeyFormat;
+import greycat.struct.Buffer;
+import greycat.struct.BufferIterator;
+import greycat.struct.EStructArray;
+import greycat.utility.*;
+
+/**
+ * Chunk space split into independent {@link HeapChunkSpace} segments, each one with its own hash, LRU and lock.
+ * Chunks are dispatched to a segment by hashing their key, while indexes are global: segment i owns [i * segmentCapacity, (i + 1) * segmentCapacity[.
+ * This way concurrent workers only contend when they touch the same segment.
+ *
+ * @ignore ts
+ */
+public class HeapShardedChunkSpace implements ChunkSpace {
+
+    private final HeapChunkSpace[] _segments;
+    private final int _segmentCapacity;
+    private final Graph _graph;
+
+    private Interceptor[] _interceptors;
+
+    public HeapShardedChunkSpace(final int capacity, final int batchSize, final Graph p_graph, final boolean deepWorldPriority, final int nbSegments) {
+        this(capacity, batchSize, p_graph, deepWorldPriority, nbSegments, EvictionPolicy.LRU, capacity, 0, ChunkFormat.TEXT, KeyFormat.TEXT);
+    }
+
+    /**
+     * @param maxCapacity  maximum number of chunks of an elastic space, shared between segments (see {@link HeapChunkSpace})
+     * @param backpressure maximum time in milliseconds a creation waits for a free chunk when its segment is full
+     * @param chunkFormat  the {@link ChunkFormat} used by chunks to save themselves
+     * @param keyFormat    the {@link KeyFormat} used to store chunks
+     */
+    public HeapShardedChunkSpace(final int capacity, final int batchSize, final Graph p_graph, final boolean deepWorldPriority, final int nbSegments, final byte evictionPolicy, final int maxCapacity, final long backpressure, final byte chunkFormat, final byte keyFormat) {
+        if (nbSegments <= 0) {
+            throw new IllegalArgumentException("number of segments must be > 0");
+        }
+        _graph = p_graph;
+        _interceptors = null;
+        final int initialSegmentCapacity = (capacity + nbSegments - 1) / nbSegments;
+        final int maxSegmentCapacity = (Math.max(capacity, maxCapacity) + nbSegments - 1) / nbSegments;
+        //indexes ranges are reserved for the maximum capacity of each segment
+        _segmentCapacity = ((maxSegmentCapacity + initialSegmentCapacity - 1) / initialSegmentCapacity) * initialSegmentCapacity;
+        _segments = new HeapChunkSpace[nbSegments];
+        for (int i = 0; i < nbSegments; i++) {
+            _segments[i] = new HeapChunkSpace(initialSegmentCapacity, batchSize, p_graph, deepWorldPriority, evictionPolicy, maxSegmentCapacity, backpressure, chunkFormat, keyFormat);
+            _segments[i].asSegment(this, ((long) i) * _segmentCapacity);
+        }
+    }
+
+    private HeapChunkSpace segmentByKey(final byte type, final long world, final long time, final long id) {
+        //parameters are permuted to decorrelate from the hash used inside segments
+        return _segments[(int) HashHelper.tripleHash(type, id, world, time, _segments.length)];
+    }
+
+    private HeapChunkSpace segmentByIndex(final long index) {
+        return _segments[(int) (index / _segmentCapacity)];
+    }
+
+    @Override
+    public final Graph graph() {
+        return this._graph;
+    }
+
+    @Override
+    public final Chunk createAndMark(final byte type, final long world, final long time, final long id) {
+        boolean valid = true;
+        if (_interceptors != null) {
+            for (int i = 0; i < _interceptors.length && valid; i++) {
+                valid = _interceptors[i].preChunkCreate(type, world, time, id);
+            }
+        }
+        if (!valid) {
+            return null;
+        }
+        return segmentByKey(type, world, time, id).createAndMark(type, world, time, id);
+    }
+
+    @Override
+    public final Chunk getAndMark(final byte type, final long world, final long time, final long id) {
+        boolean valid = true;
+        if (_interceptors != null) {
+            for (int i = 0; i < _interceptors.length && valid; i++) {
+                valid = _interceptors[i].preChunkRead(type, world, time, id);
+            }
+        }
+        if (!valid) {
+            return null;
+        }
+        return segmentByKey(type, world, time, id).getAndMark(type, world, time, id);
+    }
+
+    @Override
+    public final Chunk get(final long index) {
+        if (index == -1) {
+            return null;
+        }
+        final HeapChunkSpace segment = segmentByIndex(index);
+        boolean valid = true;
+        if (_interceptors != null) {
+            for (int i = 0; i < _interceptors.length && valid; i++) {
+                valid = _interceptors[i].preChunkRead(segment.typeByIndex(index), segment.worldByIndex(index), segment.timeByIndex(index), segment.idByIndex(index));
+            }
+        }
+        if (!valid) {
+            return null;
+        }
+        return segment.get(index);
+    }
+
+    @Override
+    public final void getOrLoadAndMark(final byte type, final long world, final long time, final long id, final Callback<Chunk> callback) {
+        final Chunk fromMemory = getAndMark(type, world, time, id);
+        if (fromMemory != null) {
+            callback.on(fromMemory);
+        } else {
+            final Buffer keys = graph().newBuffer();
+            KeyHelper.keyToBufferWithFormat(keys, keyFormat(), type, world, time, id);
+            graph().storage().get(keys, new Callback<Buffer>() {
+                @Override
+                public void on(final Buffer result) {
+                    if (result != null && result.length() > 0) {
+                        Chunk loadedChunk = createAndMark(type, world, time, id);
+                        loadedChunk.load(result);
+                        result.free();
+                        callback.on(loadedChunk);
+                    } else {
+                        keys.free();
+                        callback.on(null);
+                    }
+                }
+            });
+        }
+    }
+
+    @Override
+    public final void getOrLoadAndMarkRange(final byte type, final long world, final long id, final long from, final long to, final Callback<Chunk[]> callback) {
+        HeapChunkSpace.loadRange(this, type, world, id, from, to, callback);
+    }
+
+    @Override
+    public final byte keyFormat() {
+        return _segments[0].keyFormat();
+    }
+
+    @Override
+    public final void getOrLoadAndMarkAll(final long[] keys, final Callback<Chunk[]> callback) {
+        final int querySize = keys.length / Constants.KEY_SIZE;
+        final Chunk[] finalResult = new Chunk[querySize];
+        int[] reverse = null;
+        int reverseIndex = 0;
+        Buffer toLoadKeys = null;
+        for (int i = 0; i < querySize; i++) {
+            final int offset = i * Constants.KEY_SIZE;
+            final byte loopType = (byte) keys[offset];
+            if (loopType != -1) {
+                final Chunk fromMemory = getAndMark(loopType, keys[offset + 1], keys[offset + 2], keys[offset + 3]);
+                if (fromMemory != null) {
+                    finalResult[i] = fromMemory;
+                } else {
+                    if (reverse == null) {
+                        reverse = new int[querySize];
+                        toLoadKeys = graph().newBuffer();
+                    }
+                    reverse[reverseIndex] = i;
+                    if (reverseIndex != 0) {
+                        toLoadKeys.write(Constants.BUFFER_SEP);
+                    }
+                    KeyHelper.keyToBufferWithFormat(toLoadKeys, keyFormat(), loopType, keys[offset + 1], keys[offset + 2], keys[offset + 3]);
+                    reverseIndex++;
+                }
+            } else {
+                finalResult[i] = null;
+            }
+        }
+        if (reverse != null) {
+            final int[] finalReverse = reverse;
+            graph().storage().get(toLoadKeys, new Callback<Buffer>() {
+                @Override
+                public void on(final Buffer loadAllResult) {
+                    BufferIterator it = loadAllResult.iterator();
+                    int i = 0;
+                    while (it.hasNext()) {
+                        final Buffer view = it.next();
+                        int reversedIndex = finalReverse[i];
+                        int reversedOffset = reversedIndex * Constants.KEY_SIZE;
+                        if (view.length() > 0) {
+                            Chunk loadedChunk = createAndMark((byte) keys[reversedOffset], keys[reversedOffset + 1], keys[reversedOffset + 2], keys[reversedOffset + 3]);
+                            loadedChunk.load(view);
+                            finalResult[reversedIndex] = loadedChunk;
+                        } else {
+                            finalResult[reversedIndex] = null;
+                        }
+                        i++;
+                    }
+                    loadAllResult.free();
+                    callback.on(finalResult);
+                }
+            });
+        } else {
+            callback.on(finalResult);
+        }
+    }
+
+    @Override
+    public final long mark(final long index) {
+        return segmentByIndex(index).mark(index);
+    }
+
+    @Override
+    public final void unmark(final long index) {
+        segmentByIndex(index).unmark(index);
+    }
+
+    @Override
+    public final void delete(final byte type, final long world, final long time, final long id) {
+        segmentByKey(type, world, time, id).delete(type, world, time, id);
+    }
+
+    @Override
+    public final void free(final Chunk chunk) {
+        //NOOP
+    }
+
+    @Override
+    public final void notifyUpdate(final long index) {
+        segmentByIndex(index).notifyUpdate(index);
+    }
+
+    @Override
+    public final synchronized void save(final boolean silent, final boolean partial, final LMap filter, final Callback<Buffer> callback) {
+        final java.util.Map<Long, Tuple<Listeners, LArray>> events = new java.util.HashMap<Long, Tuple<Listeners, LArray>>();
+        final Buffer stream = this._graph.newBuffer();
+        final Buffer diffStream = _segments[0].newDiffStream(silent);
+        final HeapPendingSaves pending = new HeapPendingSaves();
+        int counter = 0;
+        for (int i = 0; i < _segments.length; i++) {
+            counter = _segments[i].saveDirties(stream, diffStream, pending, partial, counter, filter, events);
+        }
+        HeapChunkSpace.flush(this._graph, stream, diffStream, pending, events, silent, callback);
+    }
+
+    @Override
+    public final void clear() {
+        //TODO reset everything
+    }
+
+    @Override
+    public final void freeAll() {
+        //TODO reset everything
+    }
+
+    @Override
+    public final long available() {
+        long sum = 0;
+        for (int i = 0; i < _segments.length; i++) {
+            sum += _segments[i].available();
+        }
+        return sum;
+    }
+
+    @Override
+    public final long dirties() {
+        long sum = 0;
+        for (int i = 0; i < _segments.length; i++) {
+            sum += _segments[i].dirties();
+        }
+        return sum;
+    }
+
+    @Override
+    public final long hits(final byte chunkType) {
+        long sum = 0;
+        for (int i = 0; i < _segments.length; i++) {
+            sum += _segments[i].hits(chunkType);
+        }
+        return sum;
+    }
+
+    @Override
+    public final long misses(final byte chunkType) {
+        long sum = 0;
+        for (int i = 0; i < _segments.length; i++) {
+            sum += _segments[i].misses(chunkType);
+        }
+        return sum;
+    }
+
+    @Override
+    public final long evictions(final byte chunkType) {
+        long sum = 0;
+        for (int i = 0; i < _segments.length; i++) {
+            sum += _segments[i].evictions(chunkType);
+        }
+        return sum;
+    }
+
+    @Override
+    public final EStructArray newVolatileGraph() {
+        return new HeapEStructArray(null, null, _graph);
+    }
+
+    @Override
+    public final Interceptor[] interceptors() {
+        return _interceptors;
+    }
+
+    @Override
+    public final void addInterceptorFirst(final Interceptor it) {
+        if (_interceptors == null) {
+            _interceptors = new Interceptor[1];
+            _interceptors[0] = it;
+        } else {
+            Interceptor[] interceptors2 = new Interceptor[_interceptors.length + 1];
+            System.arraycopy(_interceptors, 0, interceptors2, 1, _interceptors.length);
+            interceptors2[0] = it;
+            _interceptors = interceptors2;
+        }
+    }
+
+    @Override
+    public final void addInterceptorLast(final Interceptor it) {
+        if (_interceptors == null) {
+            _interceptors = new Interceptor[1];
+            _interceptors[0] = it;
+        } else {
+            Interceptor[] interceptors2 = new Interceptor[_interceptors.length + 1];
+            System.arraycopy(_interceptors, 0, interceptors2, 0, _interceptors.length);
+            interceptors2[_interceptors.length] = it;
+            _interceptors = interceptors2;
+        }
+    }
+
+    @Override
+    public final void printMarked() {
+        for (int i = 0; i < _segments.length; i++) {
+            _segments[i].printMarked();
+        }
+    }
+
+}
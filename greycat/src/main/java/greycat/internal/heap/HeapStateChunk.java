@@ -18,6 +18,7 @@ package greycat.internal.heap;
 import greycat.*;
 import greycat.base.BaseCustomType;
 import greycat.chunk.Chunk;
+import greycat.chunk.ChunkFormat;
 import greycat.chunk.ChunkType;
 import greycat.chunk.StateChunk;
 import greycat.internal.CoreConstants;
@@ -25,6 +26,8 @@ import greycat.plugin.NodeStateCallback;
 import greycat.plugin.TypeDeclaration;
 import greycat.struct.*;
 import greycat.utility.Base64;
+import greycat.utility.Binary;
+import greycat.utility.BinaryReader;
 import greycat.utility.HashHelper;
 
 import java.util.Arrays;
@@ -44,6 +47,21 @@ class HeapStateChunk implements StateChunk, HeapContainer {
     private boolean _inSync;
     private int _group;
 
+    //number of incremental records stored after a payload before it is saved again as a whole
+    static final int MAX_DIFFS = 8;
+
+    //slots modified since the last persisted payload
+    private boolean[] _diff;
+    private int _diffSize;
+    //a nested structure changed, without telling its slot, the whole state has to be saved
+    private boolean _fullDirty;
+    //the storage holds a payload of this chunk that incremental records can be appended to
+    private boolean _persisted;
+    private int _nbDiffs;
+
+    //slots holding a container shared with the state this one was cloned from, or cloned to
+    private boolean[] _shared;
+
     @Override
     public final Graph graph() {
         return _space.graph();
@@ -132,6 +150,7 @@ class HeapStateChunk implements StateChunk, HeapContainer {
         }
         int found = internal_find(index);
         if (found != -1 && _type[found] == type) {
+            internal_own(found);
             return _v[found];
         }
         return null;
@@ -172,6 +191,7 @@ class HeapStateChunk implements StateChunk, HeapContainer {
         int found = internal_find(p_key);
         Object result;
         if (found != -1) {
+            internal_own(found);
             result = _v[found];
             if (result != null) {
                 switch (_type[found]) {
@@ -316,6 +336,7 @@ class HeapStateChunk implements StateChunk, HeapContainer {
         final int found = internal_find(p_key);
         if (found != -1) {
             if (_type[found] == p_type) {
+                internal_own(found);
                 Object foundValue = _v[found];
                 if (foundValue != null) {
                     if (Type.isCustom(p_type)) {
@@ -427,16 +448,59 @@ class HeapStateChunk implements StateChunk, HeapContainer {
 
     @Override
     final public void declareDirty() {
+        _fullDirty = true;
+        internal_notify_dirty();
+    }
+
+    private void internal_declare_dirty(final int slot) {
+        if (!_fullDirty) {
+            if (_diff == null || _diff.length <= slot) {
+                final boolean[] diff = new boolean[_capacity];
+                if (_diff != null) {
+                    System.arraycopy(_diff, 0, diff, 0, _diff.length);
+                }
+                _diff = diff;
+            }
+            if (!_diff[slot]) {
+                _diff[slot] = true;
+                _diffSize++;
+            }
+        }
+        internal_notify_dirty();
+    }
+
+    private void internal_notify_dirty() {
         if (_space != null && _hash != Constants.EMPTY_HASH) {
             _hash = Constants.EMPTY_HASH;
             _space.notifyUpdate(_index);
         }
     }
 
+    private void internal_clear_diff() {
+        if (_diff != null) {
+            Arrays.fill(_diff, false);
+        }
+        _diffSize = 0;
+        _fullDirty = false;
+    }
+
+    /**
+     * Tells if the changes since the last persisted payload can be saved as an incremental record, see {@link #saveDiff(Buffer)}.<br>
+     * Once {@link #MAX_DIFFS} records are stored after a payload, the whole state is saved again to compact them.
+     */
+    synchronized final boolean diffable() {
+        return _persisted && !_fullDirty && _diffSize > 0 && _diffSize * 2 <= _size && _nbDiffs < MAX_DIFFS && _space != null && _space.chunkFormat() == ChunkFormat.BINARY;
+    }
+
     @SuppressWarnings("Duplicates")
     @Override
     public synchronized final void save(final Buffer buffer) {
         final long beginIndex = buffer.writeIndex();
+        if (_space != null && _space.chunkFormat() == ChunkFormat.BINARY) {
+            internal_save_binary(buffer);
+            _hash = HashHelper.hashBuffer(buffer, beginIndex, buffer.writeIndex());
+            return;
+        }
         if (_group != 0) {
             Base64.encodeIntToBuffer(_group, buffer);
             buffer.write(CoreConstants.CHUNK_META_SEP);
@@ -515,15 +579,141 @@ class HeapStateChunk implements StateChunk, HeapContainer {
         _hash = HashHelper.hashBuffer(buffer, beginIndex, buffer.writeIndex());
     }
 
+    private void internal_save_binary(final Buffer buffer) {
+        Binary.writeHeader(buffer);
+        Binary.writeVarInt(_group, buffer);
+        Binary.writeVarInt(_size, buffer);
+        for (int i = 0; i < _size; i++) {
+            internal_save_entry(i, buffer);
+        }
+    }
+
+    private void internal_save_entry(final int i, final Buffer buffer) {
+        final Object loopValue = _v[i];
+        Binary.writeVarInt(_type[i], buffer);
+        Binary.writeVarInt(_k[i], buffer);
+        Binary.writeBool(loopValue != null, buffer);
+        if (loopValue != null) {
+            switch (_type[i]) {
+                case Type.STRING:
+                    Binary.writeString((String) loopValue, buffer);
+                    break;
+                case Type.BOOL:
+                    Binary.writeBool((Boolean) loopValue, buffer);
+                    break;
+                case Type.LONG:
+                    Binary.writeVarLong((Long) loopValue, buffer);
+                    break;
+                case Type.DOUBLE:
+                    Binary.writeDouble((Double) loopValue, buffer);
+                    break;
+                case Type.INT:
+                    Binary.writeVarInt((Integer) loopValue, buffer);
+                    break;
+                case Type.DOUBLE_ARRAY:
+                    ((HeapDoubleArray) loopValue).saveBinary(buffer);
+                    break;
+                case Type.LONG_ARRAY:
+                    ((HeapLongArray) loopValue).saveBinary(buffer);
+                    break;
+                case Type.INT_ARRAY:
+                    ((HeapIntArray) loopValue).saveBinary(buffer);
+                    break;
+                case Type.RELATION:
+                    ((HeapRelation) loopValue).saveBinary(buffer);
+                    break;
+                default:
+                    //other structures keep their text encoding, embedded as a length prefixed block
+                    final Buffer block = new HeapBuffer();
+                    save_text_value(_type[i], loopValue, block);
+                    Binary.writeTextBlock(block.data(), buffer);
+                    block.free();
+                    break;
+            }
+        }
+    }
+
+    private static void save_text_value(final int type, final Object value, final Buffer buffer) {
+        switch (type) {
+            case Type.STRING_ARRAY:
+                ((HeapStringArray) value).save(buffer);
+                break;
+            case Type.DMATRIX:
+                ((HeapDMatrix) value).save(buffer);
+                break;
+            case Type.LMATRIX:
+                ((HeapLMatrix) value).save(buffer);
+                break;
+            case Type.STRING_TO_INT_MAP:
+                ((HeapStringIntMap) value).save(buffer);
+                break;
+            case Type.LONG_TO_LONG_MAP:
+                ((HeapLongLongMap) value).save(buffer);
+                break;
+            case Type.INT_TO_INT_MAP:
+                ((HeapIntIntMap) value).save(buffer);
+                break;
+            case Type.INT_TO_STRING_MAP:
+                ((HeapIntStringMap) value).save(buffer);
+                break;
+            case Type.LONG_TO_LONG_ARRAY_MAP:
+                ((HeapLongLongArrayMap) value).save(buffer);
+                break;
+            default:
+                ((HeapEStructArray) value).save(buffer);
+                break;
+        }
+    }
+
+    /**
+     * Writes an incremental record holding the slots modified since the last persisted payload, to be appended after it.
+     */
     @Override
-    public void saveDiff(Buffer buffer) {
+    public synchronized final void saveDiff(final Buffer buffer) {
+        final long beginIndex = buffer.writeIndex();
+        Binary.writeDiffHeader(buffer);
+        Binary.writeVarInt(_diffSize, buffer);
+        for (int i = 0; i < _size && _diffSize > 0; i++) {
+            if (i < _diff.length && _diff[i]) {
+                internal_save_entry(i, buffer);
+            }
+        }
+        _hash = HashHelper.hashBuffer(buffer, beginIndex, buffer.writeIndex());
+    }
 
+    /**
+     * Serializes the chunk for the storage, as a whole payload or as an incremental record, and restarts the tracking of changes.<br>
+     * Only the persistence path of the space calls it, {@link #persisted(boolean, boolean)} being called once the storage answered.
+     */
+    synchronized final void persist(final Buffer buffer, final boolean diff) {
+        if (diff) {
+            saveDiff(buffer);
+        } else {
+            save(buffer);
+        }
+        internal_clear_diff();
+    }
+
+    /**
+     * Records the answer of the storage to a write prepared by {@link #persist(Buffer, boolean)}.
+     * After a failure, changes tracked since then are not enough to rebuild the chunk, so the next save is a whole payload.
+     */
+    synchronized final void persisted(final boolean diff, final boolean success) {
+        if (!success) {
+            _fullDirty = true;
+        } else if (diff) {
+            _nbDiffs++;
+        } else {
+            _persisted = true;
+            _nbDiffs = 0;
+        }
     }
 
     @Override
     public synchronized final void each(final NodeStateCallback callBack) {
         for (int i = 0; i < _size; i++) {
             if (_v[i] != null) {
+                internal_own(i);
                 callBack.on(_k[i], _type[i], _v[i]);
             }
         }
@@ -565,90 +755,106 @@ class HeapStateChunk implements StateChunk, HeapContainer {
         if (casted._v != null) {
             _v = new Object[_capacity];
             for (int i = 0; i < _size; i++) {
-                if (casted._v[i] == null) {
-                    _v[i] = null;
-                } else {
-                    switch (casted._type[i]) {
-                        case Type.LONG_TO_LONG_MAP:
-                            if (casted._v[i] != null) {
-                                _v[i] = ((HeapLongLongMap) casted._v[i]).cloneFor(this);
-                            }
-                            break;
-                        case Type.LONG_TO_LONG_ARRAY_MAP:
-                            if (casted._v[i] != null) {
-                                _v[i] = ((HeapLongLongArrayMap) casted._v[i]).cloneFor(this);
-                            }
-                            break;
-                        case Type.STRING_TO_INT_MAP:
-                            if (casted._v[i] != null) {
-                                _v[i] = ((HeapStringIntMap) casted._v[i]).cloneFor(this);
-                            }
-                            break;
-                        case Type.INT_TO_INT_MAP:
-                            if (casted._v[i] != null) {
-                                _v[i] = ((HeapIntIntMap) casted._v[i]).cloneFor(this);
-                            }
-                            break;
-                        case Type.INT_TO_STRING_MAP:
-                            if (casted._v[i] != null) {
-                                _v[i] = ((HeapIntStringMap) casted._v[i]).cloneFor(this);
-                            }
-                            break;
-                        case Type.RELATION:
-                            if (casted._v[i] != null) {
-                                _v[i] = new HeapRelation(this, (HeapRelation) casted._v[i]);
-                            }
-                            break;
-                        case Type.DMATRIX:
-                            if (casted._v[i] != null) {
-                                _v[i] = new HeapDMatrix(this, (HeapDMatrix) casted._v[i]);
-                            }
-                            break;
-                        case Type.LMATRIX:
-                            if (casted._v[i] != null) {
-                                _v[i] = new HeapLMatrix(this, (HeapLMatrix) casted._v[i]);
-                            }
-                            break;
-                        case Type.ESTRUCT_ARRAY:
-                            if (casted._v[i] != null) {
-                                _v[i] = new HeapEStructArray(this, (HeapEStructArray) casted._v[i], _space.graph());
-                            }
-                            break;
-                        case Type.LONG_ARRAY:
-                            if (casted._v[i] != null) {
-                                _v[i] = ((HeapLongArray) casted._v[i]).cloneFor(this);
-                            }
-                            break;
-                        case Type.DOUBLE_ARRAY:
-                            if (casted._v[i] != null) {
-                                _v[i] = ((HeapDoubleArray) casted._v[i]).cloneFor(this);
-                            }
-                            break;
-                        case Type.INT_ARRAY:
-                            if (casted._v[i] != null) {
-                                _v[i] = ((HeapIntArray) casted._v[i]).cloneFor(this);
-                            }
-                            break;
-                        case Type.STRING_ARRAY:
-                            if (casted._v[i] != null) {
-                                _v[i] = ((HeapStringArray) casted._v[i]).cloneFor(this);
-                            }
-                            break;
-                        default:
-                            if (!Type.isCustom(casted._type[i])) {
-                                _v[i] = casted._v[i];
-                            } else {
-                                if (casted._v[i] != null) {
-                                    _v[i] = new HeapEStructArray(this, (HeapEStructArray) casted._v[i], _space.graph());
-                                }
-                            }
-                            break;
+                final Object value = casted._v[i];
+                if (value != null) {
+                    if (isShareable(casted._type[i])) {
+                        //containers are shared with the origin, whichever side accesses one first will copy it
+                        _v[i] = value;
+                        internal_share(i);
+                        casted.internal_share(i);
+                    } else if (!Type.isCustom(casted._type[i]) && casted._type[i] != Type.ESTRUCT_ARRAY) {
+                        _v[i] = value;
+                    } else {
+                        _v[i] = new HeapEStructArray(this, (HeapEStructArray) value, _space.graph());
                     }
                 }
             }
         }
     }
 
+    private static boolean isShareable(final int type) {
+        switch (type) {
+            case Type.LONG_TO_LONG_MAP:
+            case Type.LONG_TO_LONG_ARRAY_MAP:
+            case Type.STRING_TO_INT_MAP:
+            case Type.INT_TO_INT_MAP:
+            case Type.INT_TO_STRING_MAP:
+            case Type.RELATION:
+            case Type.DMATRIX:
+            case Type.LMATRIX:
+            case Type.LONG_ARRAY:
+            case Type.DOUBLE_ARRAY:
+            case Type.INT_ARRAY:
+            case Type.STRING_ARRAY:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private void internal_share(final int slot) {
+        if (_shared == null || _shared.length <= slot) {
+            final boolean[] shared = new boolean[_capacity];
+            if (_shared != null) {
+                System.arraycopy(_shared, 0, shared, 0, _shared.length);
+            }
+            _shared = shared;
+        }
+        _shared[slot] = true;
+    }
+
+    /**
+     * Replaces a container still shared with another state by a private copy, before handing it out.
+     */
+    private void internal_own(final int slot) {
+        if (_shared == null || slot >= _shared.length || !_shared[slot]) {
+            return;
+        }
+        _shared[slot] = false;
+        final Object value = _v[slot];
+        if (value == null) {
+            return;
+        }
+        switch (_type[slot]) {
+            case Type.LONG_TO_LONG_MAP:
+                _v[slot] = ((HeapLongLongMap) value).cloneFor(this);
+                break;
+            case Type.LONG_TO_LONG_ARRAY_MAP:
+                _v[slot] = ((HeapLongLongArrayMap) value).cloneFor(this);
+                break;
+            case Type.STRING_TO_INT_MAP:
+                _v[slot] = ((HeapStringIntMap) value).cloneFor(this);
+                break;
+            case Type.INT_TO_INT_MAP:
+                _v[slot] = ((HeapIntIntMap) value).cloneFor(this);
+                break;
+            case Type.INT_TO_STRING_MAP:
+                _v[slot] = ((HeapIntStringMap) value).cloneFor(this);
+                break;
+            case Type.RELATION:
+                _v[slot] = new HeapRelation(this, (HeapRelation) value);
+                break;
+            case Type.DMATRIX:
+                _v[slot] = new HeapDMatrix(this, (HeapDMatrix) value);
+                break;
+            case Type.LMATRIX:
+                _v[slot] = new HeapLMatrix(this, (HeapLMatrix) value);
+                break;
+            case Type.LONG_ARRAY:
+                _v[slot] = ((HeapLongArray) value).cloneFor(this);
+                break;
+            case Type.DOUBLE_ARRAY:
+                _v[slot] = ((HeapDoubleArray) value).cloneFor(this);
+                break;
+            case Type.INT_ARRAY:
+                _v[slot] = ((HeapIntArray) value).cloneFor(this);
+                break;
+            case Type.STRING_ARRAY:
+                _v[slot] = ((HeapStringArray) value).cloneFor(this);
+                break;
+        }
+    }
+
     private void internal_set(final int p_key, final int p_type, final Object p_unsafe_elem, boolean replaceIfPresent, boolean initial) {
         Object param_elem = null;
         //check the param type
@@ -780,7 +986,7 @@ class HeapStateChunk implements StateChunk, HeapContainer {
             _type[0] = p_type;
             _size = 1;
             if (!initial) {
-                declareDirty();
+                internal_declare_dirty(0);
             }
             return;
         }
@@ -860,13 +1066,16 @@ class HeapStateChunk implements StateChunk, HeapContainer {
                     _size--;
                 } else {*/
                 _v[entry] = param_elem;
+                if (_shared != null && entry < _shared.length) {
+                    _shared[entry] = false;
+                }
                 //if (_type[entry] != p_type) {
                 _type[entry] = p_type;
                 //}
                 //}
             }
             if (!initial) {
-                declareDirty();
+                internal_declare_dirty(entry);
             }
             return;
         }
@@ -880,7 +1089,7 @@ class HeapStateChunk implements StateChunk, HeapContainer {
             }
             _size++;
             if (!initial) {
-                declareDirty();
+                internal_declare_dirty(_size - 1);
             }
             return;
         }
@@ -914,7 +1123,7 @@ class HeapStateChunk implements StateChunk, HeapContainer {
             next_and_hash[_capacity + keyHash] = i;
         }
         if (!initial) {
-            declareDirty();
+            internal_declare_dirty(_size - 1);
         }
     }
 
@@ -956,7 +1165,9 @@ class HeapStateChunk implements StateChunk, HeapContainer {
     private static final byte LOAD_WAITING_VALUE = 3;
 
     private synchronized void internal_load(final Buffer buffer, final boolean initial) {
-        if (buffer != null && buffer.length() > 0) {
+        if (Binary.isBinary(buffer) || (buffer != null && buffer.length() > 0 && buffer.read(0) == Binary.DIFF_1)) {
+            internal_load_binary(buffer, initial);
+        } else if (buffer != null && buffer.length() > 0) {
             final long payloadSize = buffer.length();
             long previous = 0;
             long cursor = 0;
@@ -1157,6 +1368,7 @@ class HeapStateChunk implements StateChunk, HeapContainer {
                                     final int previousFound = internal_find(read_key);
                                     HeapStringIntMap s2lmap;
                                     if (previousFound != -1 && _type[previousFound] == Type.STRING_TO_INT_MAP) {
+                                        internal_own(previousFound);
                                         s2lmap = (HeapStringIntMap) _v[previousFound];
                                     } else {
                                         s2lmap = new HeapStringIntMap(this);
@@ -1226,6 +1438,153 @@ class HeapStateChunk implements StateChunk, HeapContainer {
         }
     }
 
+    private void internal_load_binary(final Buffer buffer, final boolean initial) {
+        final BinaryReader reader = new BinaryReader(buffer);
+        int nbDiffs = 0;
+        if (buffer.read(0) == Binary.VERSION_1) {
+            _group = reader.readVarInt();
+            final int size = reader.readVarInt();
+            allocate(size);
+            for (int i = 0; i < size; i++) {
+                internal_load_entry(reader, buffer, initial);
+            }
+        } else {
+            //a lone incremental record
+            internal_load_diff(reader, buffer, initial);
+            nbDiffs++;
+        }
+        //incremental records appended by the storage after the payload
+        while (reader.hasNext()) {
+            if (reader.readByte() != Binary.DIFF_1) {
+                throw new RuntimeException("Corrupted state chunk, incremental record expected");
+            }
+            internal_load_diff(reader, buffer, initial);
+            nbDiffs++;
+        }
+        if (initial) {
+            _persisted = true;
+            _nbDiffs = nbDiffs;
+            internal_clear_diff();
+        }
+        _hash = HashHelper.hashBuffer(buffer, 0, buffer.length());
+    }
+
+    private void internal_load_diff(final BinaryReader reader, final Buffer buffer, final boolean initial) {
+        final int size = reader.readVarInt();
+        for (int i = 0; i < size; i++) {
+            internal_load_entry(reader, buffer, initial);
+        }
+    }
+
+    private void internal_load_entry(final BinaryReader reader, final Buffer buffer, final boolean initial) {
+        final int read_type = reader.readVarInt();
+        final int read_key = reader.readVarInt();
+        if (!reader.readBool()) {
+            internal_set(read_key, read_type, null, true, initial);
+            return;
+        }
+        switch (read_type) {
+            case Type.STRING:
+                internal_set(read_key, read_type, reader.readString(), true, initial);
+                break;
+            case Type.BOOL:
+                internal_set(read_key, read_type, reader.readBool(), true, initial);
+                break;
+            case Type.LONG:
+                internal_set(read_key, read_type, reader.readVarLong(), true, initial);
+                break;
+            case Type.DOUBLE:
+                internal_set(read_key, read_type, reader.readDouble(), true, initial);
+                break;
+            case Type.INT:
+                internal_set(read_key, read_type, reader.readVarInt(), true, initial);
+                break;
+            case Type.DOUBLE_ARRAY:
+                final HeapDoubleArray darray = new HeapDoubleArray(this);
+                darray.loadBinary(reader);
+                internal_set(read_key, read_type, darray, true, initial);
+                break;
+            case Type.LONG_ARRAY:
+                final HeapLongArray larray = new HeapLongArray(this);
+                larray.loadBinary(reader);
+                internal_set(read_key, read_type, larray, true, initial);
+                break;
+            case Type.INT_ARRAY:
+                final HeapIntArray iarray = new HeapIntArray(this);
+                iarray.loadBinary(reader);
+                internal_set(read_key, read_type, iarray, true, initial);
+                break;
+            case Type.RELATION:
+                final HeapRelation relation = new HeapRelation(this, null);
+                relation.loadBinary(reader);
+                internal_set(read_key, read_type, relation, true, initial);
+                break;
+            default:
+                final int blockSize = reader.readVarInt();
+                final long blockBegin = reader.cursor();
+                load_text_value(read_key, read_type, buffer, blockBegin, blockBegin + blockSize, initial);
+                reader.skip(blockSize);
+                break;
+        }
+    }
+
+    private void load_text_value(final int read_key, final int read_type, final Buffer buffer, final long begin, final long end, final boolean initial) {
+        switch (read_type) {
+            case Type.STRING_ARRAY:
+                final HeapStringArray sarray = new HeapStringArray(this);
+                sarray.load(buffer, begin, end);
+                internal_set(read_key, read_type, sarray, true, initial);
+                break;
+            case Type.DMATRIX:
+                final HeapDMatrix matrix = new HeapDMatrix(this, null);
+                matrix.load(buffer, begin, end);
+                internal_set(read_key, read_type, matrix, true, initial);
+                break;
+            case Type.LMATRIX:
+                final HeapLMatrix lmatrix = new HeapLMatrix(this, null);
+                lmatrix.load(buffer, begin, end);
+                internal_set(read_key, read_type, lmatrix, true, initial);
+                break;
+            case Type.LONG_TO_LONG_MAP:
+                final HeapLongLongMap l2lmap = new HeapLongLongMap(this);
+                l2lmap.load(buffer, begin, end);
+                internal_set(read_key, read_type, l2lmap, true, initial);
+                break;
+            case Type.INT_TO_INT_MAP:
+                final HeapIntIntMap i2imap = new HeapIntIntMap(this);
+                i2imap.load(buffer, begin, end);
+                internal_set(read_key, read_type, i2imap, true, initial);
+                break;
+            case Type.INT_TO_STRING_MAP:
+                final HeapIntStringMap i2smap = new HeapIntStringMap(this);
+                i2smap.load(buffer, begin, end);
+                internal_set(read_key, read_type, i2smap, true, initial);
+                break;
+            case Type.LONG_TO_LONG_ARRAY_MAP:
+                final HeapLongLongArrayMap l2lrmap = new HeapLongLongArrayMap(this);
+                l2lrmap.load(buffer, begin, end);
+                internal_set(read_key, read_type, l2lrmap, true, initial);
+                break;
+            case Type.STRING_TO_INT_MAP:
+                final int previousFound = internal_find(read_key);
+                HeapStringIntMap s2lmap;
+                if (previousFound != -1 && _type[previousFound] == Type.STRING_TO_INT_MAP) {
+                    internal_own(previousFound);
+                    s2lmap = (HeapStringIntMap) _v[previousFound];
+                } else {
+                    s2lmap = new HeapStringIntMap(this);
+                    internal_set(read_key, read_type, s2lmap, true, initial);
+                }
+                s2lmap.load(buffer, begin, end);
+                break;
+            default:
+                final HeapEStructArray eGraph = new HeapEStructArray(this, null, this.graph());
+                eGraph.load(buffer, begin, end);
+                internal_set(read_key, read_type, eGraph, true, initial);
+                break;
+        }
+    }
+
     private void load_primitive(final int read_key, final int read_type, final Buffer buffer, final long previous, final long cursor, final boolean initial) {
         if (previous == cursor) {
             internal_set(read_key, read_type, null, true, initial);
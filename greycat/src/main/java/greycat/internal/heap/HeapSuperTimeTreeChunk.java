@@ -17,12 +17,15 @@ package greycat.internal.heap;
 
 import greycat.Constants;
 import greycat.chunk.Chunk;
+import greycat.chunk.ChunkFormat;
 import greycat.chunk.ChunkType;
 import greycat.chunk.SuperTimeTreeChunk;
 import greycat.chunk.SuperTreeWalker;
 import greycat.internal.CoreConstants;
 import greycat.struct.Buffer;
 import greycat.utility.Base64;
+import greycat.utility.Binary;
+import greycat.utility.BinaryReader;
 import greycat.utility.HashHelper;
 
 public class HeapSuperTimeTreeChunk implements SuperTimeTreeChunk {
@@ -188,25 +191,39 @@ public class HeapSuperTimeTreeChunk implements SuperTimeTreeChunk {
     @Override
     public synchronized final void save(final Buffer buffer) {
         final long beginIndex = buffer.writeIndex();
-        if (_group != 0) {
-            Base64.encodeIntToBuffer(_group, buffer);
-            buffer.write(CoreConstants.CHUNK_META_SEP);
-        }
-        Base64.encodeIntToBuffer(_size, buffer);
-        buffer.write(CoreConstants.CHUNK_SEP);
-        if (_timeSensitivity != 0) {
-            Base64.encodeLongToBuffer(_timeSensitivity, buffer);
-        }
-        buffer.write(CoreConstants.CHUNK_SEP);
-        if (_timeSensitivityOffset != 0) {
-            Base64.encodeLongToBuffer(_timeSensitivityOffset, buffer);
-        }
-        buffer.write(CoreConstants.CHUNK_SEP);
-        for (int i = 0; i < _size; i++) {
-            Base64.encodeLongToBuffer(this._k[i], buffer);
-            buffer.write(CoreConstants.CHUNK_VAL_SEP);
-            Base64.encodeLongToBuffer(this._v[i], buffer);
-            buffer.write(CoreConstants.CHUNK_VAL_SEP);
+        if (_space != null && _space.chunkFormat() == ChunkFormat.BINARY) {
+            Binary.writeHeader(buffer);
+            Binary.writeVarInt(_group, buffer);
+            Binary.writeVarInt(_size, buffer);
+            Binary.writeVarLong(_timeSensitivity, buffer);
+            Binary.writeVarLong(_timeSensitivityOffset, buffer);
+            long previousKey = 0;
+            for (int i = 0; i < _size; i++) {
+                Binary.writeVarLong(this._k[i] - previousKey, buffer);
+                Binary.writeVarLong(this._v[i], buffer);
+                previousKey = this._k[i];
+            }
+        } else {
+            if (_group != 0) {
+                Base64.encodeIntToBuffer(_group, buffer);
+                buffer.write(CoreConstants.CHUNK_META_SEP);
+            }
+            Base64.encodeIntToBuffer(_size, buffer);
+            buffer.write(CoreConstants.CHUNK_SEP);
+            if (_timeSensitivity != 0) {
+                Base64.encodeLongToBuffer(_timeSensitivity, buffer);
+            }
+            buffer.write(CoreConstants.CHUNK_SEP);
+            if (_timeSensitivityOffset != 0) {
+                Base64.encodeLongToBuffer(_timeSensitivityOffset, buffer);
+            }
+            buffer.write(CoreConstants.CHUNK_SEP);
+            for (int i = 0; i < _size; i++) {
+                Base64.encodeLongToBuffer(this._k[i], buffer);
+                buffer.write(CoreConstants.CHUNK_VAL_SEP);
+                Base64.encodeLongToBuffer(this._v[i], buffer);
+                buffer.write(CoreConstants.CHUNK_VAL_SEP);
+            }
         }
         _hash = HashHelper.hashBuffer(buffer, beginIndex, buffer.writeIndex());
     }
@@ -255,10 +272,31 @@ public class HeapSuperTimeTreeChunk implements SuperTimeTreeChunk {
         return _hash;
     }
 
+    private boolean internal_load_binary(final Buffer buffer, final boolean initial) {
+        final BinaryReader reader = new BinaryReader(buffer);
+        _group = reader.readVarInt();
+        final int treeSize = reader.readVarInt();
+        final int closePowerOfTwo = (int) Math.pow(2, Math.ceil(Math.log(treeSize) / Math.log(2)));
+        reallocate(closePowerOfTwo);
+        _timeSensitivity = reader.readVarLong();
+        _timeSensitivityOffset = reader.readVarLong();
+        boolean isDirty = false;
+        long key = 0;
+        for (int i = 0; i < treeSize; i++) {
+            key = key + reader.readVarLong();
+            final boolean insertResult = internal_insert(key, reader.readVarLong(), initial);
+            isDirty = isDirty || insertResult;
+        }
+        return isDirty;
+    }
+
     private boolean internal_load(final Buffer buffer, final boolean initial) {
         if (buffer == null || buffer.length() == 0) {
             return false;
         }
+        if (Binary.isBinary(buffer)) {
+            return internal_load_binary(buffer, initial);
+        }
         boolean isDirty = false;
         long cursor = 0;
         long previous = 0;
@@ -0,0 +1,695 @@
+/**
+ * Copyright 2017 The GreyCat Authors.  All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package greycat.internal.heap;
+
+import greycat.Constants;
+import greycat.chunk.*;
+import greycat.internal.CoreConstants;
+import greycat.struct.Buffer;
+import greycat.utility.Aggregation;
+import greycat.utility.Binary;
+import greycat.utility.BinaryReader;
+import greycat.utility.HashHelper;
+import greycat.utility.Tuple;
+
+/**
+ * Time series of doubles kept as Gorilla compressed blocks of {@link #BLOCK_SIZE} points plus an uncompressed tail.
+ * Offsets are arrival ordinals, the time order is followed through a permutation only once a point arrives out of order.
+ */
+class HeapTimeSeriesChunk implements TimeTreeDValueChunk {
+
+    static final int BLOCK_SIZE = 128;
+
+    //count, sum, min and max of the non null values of a sealed block
+    private static final int STATS_SIZE = 4;
+
+    private final long _index;
+    private final HeapChunkSpace _space;
+
+    private byte[][] _blocks;
+    private long[] _blockMin;
+    private long[] _blockMax;
+    private double[] _blockStats;
+    private int _nbBlocks;
+
+    private long[] _tailKeys;
+    private double[] _tailValues;
+    private boolean[] _tailNulls;
+
+    //permutation of offsets sorted by key, null as long as keys arrived in increasing order
+    private int[] _order;
+
+    private int _cachedBlock;
+    private long[] _cachedKeys;
+    private double[] _cachedValues;
+    private boolean[] _cachedNulls;
+
+    private long _hash;
+    private boolean _inSync;
+
+    private volatile long _capacity;
+    private volatile long _magic;
+    private volatile int _size;
+
+    private long _max;
+    private int _group;
+
+    HeapTimeSeriesChunk(final HeapChunkSpace p_space, final long p_index) {
+        _space = p_space;
+        _index = p_index;
+        _magic = 0;
+        _hash = 0;
+        _capacity = 0;
+        _size = 0;
+        _nbBlocks = 0;
+        _cachedBlock = -1;
+        _inSync = true;
+        _group = 0;
+    }
+
+    @Override
+    public final long capacity() {
+        return _capacity;
+    }
+
+    @Override
+    public final void setCapacity(long v) {
+        _capacity = v;
+    }
+
+    @Override
+    public long max() {
+        return _max;
+    }
+
+    @Override
+    public final long world() {
+        return _space.worldByIndex(_index);
+    }
+
+    @Override
+    public final long time() {
+        return _space.timeByIndex(_index);
+    }
+
+    @Override
+    public final long id() {
+        return _space.idByIndex(_index);
+    }
+
+    @Override
+    public final long index() {
+        return _index;
+    }
+
+    @Override
+    public final int size() {
+        return _size;
+    }
+
+    @Override
+    public final long magic() {
+        return this._magic;
+    }
+
+    @Override
+    public final long hash() {
+        return _hash;
+    }
+
+    @Override
+    public synchronized final boolean inSync() {
+        return _inSync;
+    }
+
+    @Override
+    public synchronized final boolean sync(long remoteHash) {
+        if (_inSync && remoteHash != _hash) {
+            _inSync = false;
+            return true;
+        } else {
+            return false;
+        }
+    }
+
+    @Override
+    public final int group() {
+        return _group;
+    }
+
+    @Override
+    public final Chunk setGroup(int g) {
+        _group = g;
+        return this;
+    }
+
+    @Override
+    public final byte chunkType() {
+        return ChunkType.TIME_SERIES_CHUNK;
+    }
+
+    @Override
+    public StateChunk state(final int offset) {
+        return new MockNodeStateDValue(this, offset);
+    }
+
+    @Override
+    public synchronized final int insert(final long key) {
+        final Tuple<Boolean, Integer> inserted = internal_insert(key, 0.0d, false);
+        if (inserted.left()) {
+            internal_set_dirty();
+        }
+        return inserted.right();
+    }
+
+    @Override
+    public synchronized final void insertValue(final long key, final Double value) {
+        final Tuple<Boolean, Integer> inserted;
+        if (value == null) {
+            inserted = internal_insert(key, 0d, true);
+        } else {
+            inserted = internal_insert(key, value, false);
+        }
+        if (inserted.left()) {
+            internal_set_dirty();
+        }
+    }
+
+    @Override
+    public synchronized final Double getValue(final int offset) {
+        final int position = offset % BLOCK_SIZE;
+        if (internal_block(offset) == _nbBlocks) {
+            return _tailNulls[position] ? null : _tailValues[position];
+        }
+        return _cachedNulls[position] ? null : _cachedValues[position];
+    }
+
+    @Override
+    public synchronized final void setValue(final int offset, final Double value) {
+        final boolean isNull = value == null;
+        if (internal_write(offset, isNull ? 0d : value, isNull)) {
+            internal_set_dirty();
+        }
+    }
+
+    @Override
+    public synchronized final long getKey(final int offset) {
+        return internal_key(offset);
+    }
+
+    @Override
+    public synchronized final long previousOrEqual(final long key) {
+        final int rank = internal_previousOrEqual_rank(key);
+        if (rank == -1) {
+            return CoreConstants.NULL_LONG;
+        }
+        return internal_key(internal_offset(rank));
+    }
+
+    @Override
+    public synchronized final int previousOrEqualOffset(final long key) {
+        final int rank = internal_previousOrEqual_rank(key);
+        if (rank == -1) {
+            return -1;
+        }
+        return internal_offset(rank);
+    }
+
+    @Override
+    public synchronized final long previous(final long key) {
+        final int rank = internal_previous_rank(key);
+        if (rank == -1) {
+            return CoreConstants.NULL_LONG;
+        }
+        return internal_key(internal_offset(rank));
+    }
+
+    @Override
+    public synchronized final int previousOffset(final long key) {
+        final int rank = internal_previous_rank(key);
+        if (rank == -1) {
+            return -1;
+        }
+        return internal_offset(rank);
+    }
+
+    @Override
+    public synchronized final long next(final long key) {
+        final int rank = internal_previousOrEqual_rank(key);
+        if (rank == -1 || rank + 1 >= _size) {
+            return CoreConstants.NULL_LONG;
+        }
+        return internal_key(internal_offset(rank + 1));
+    }
+
+    @Override
+    public synchronized final void range(final long startKey, final long endKey, final long maxElements, final TreeWalker walker) {
+        int nbElements = 0;
+        int rank = internal_previousOrEqual_rank(endKey);
+        while (rank != -1 && nbElements < maxElements) {
+            final long key = internal_key(internal_offset(rank));
+            if (key < startKey) {
+                break;
+            }
+            walker.elem(key);
+            nbElements++;
+            rank--;
+        }
+    }
+
+    @Override
+    public synchronized final void rangeValue(final long startKey, final long endKey, final long maxElements, final TreeDValueWalker walker) {
+        int nbElements = 0;
+        int rank = internal_previousOrEqual_rank(endKey);
+        while (rank != -1 && nbElements < maxElements) {
+            final int offset = internal_offset(rank);
+            final long key = internal_key(offset);
+            if (key < startKey) {
+                break;
+            }
+            final int position = offset % BLOCK_SIZE;
+            if (internal_block(offset) == _nbBlocks) {
+                walker.elem(key, _tailNulls[position] ? null : _tailValues[position]);
+            } else {
+                walker.elem(key, _cachedNulls[position] ? null : _cachedValues[position]);
+            }
+            nbElements++;
+            rank--;
+        }
+    }
+
+    @Override
+    public synchronized final void aggregate(final long startKey, final long endKey, final Aggregation aggregation) {
+        for (int i = 0; i < _nbBlocks; i++) {
+            if (_blockMax[i] < startKey || _blockMin[i] > endKey) {
+                continue;
+            }
+            if (_blockMin[i] >= startKey && _blockMax[i] <= endKey && aggregation.covers(_blockMin[i], _blockMax[i])) {
+                //the whole block falls in one bucket, its rollup is enough
+                final int stats = i * STATS_SIZE;
+                aggregation.merge(aggregation.bucketOf(_blockMin[i]), (long) _blockStats[stats], _blockStats[stats + 1], _blockStats[stats + 2], _blockStats[stats + 3]);
+            } else {
+                internal_block(i * BLOCK_SIZE);
+                internal_aggregate(_cachedKeys, _cachedValues, _cachedNulls, BLOCK_SIZE, startKey, endKey, aggregation);
+            }
+        }
+        final int tailSize = _size - _nbBlocks * BLOCK_SIZE;
+        if (tailSize > 0) {
+            internal_aggregate(_tailKeys, _tailValues, _tailNulls, tailSize, startKey, endKey, aggregation);
+        }
+    }
+
+    private static void internal_aggregate(final long[] keys, final double[] values, final boolean[] nulls, final int size, final long startKey, final long endKey, final Aggregation aggregation) {
+        for (int i = 0; i < size; i++) {
+            if (!nulls[i] && keys[i] >= startKey && keys[i] <= endKey) {
+                aggregation.add(keys[i], values[i]);
+            }
+        }
+    }
+
+    @Override
+    public synchronized final void save(final Buffer buffer) {
+        final long beginIndex = buffer.writeIndex();
+        Binary.writeHeader(buffer);
+        Binary.writeVarInt(_group, buffer);
+        Binary.writeVarInt(_size, buffer);
+        Binary.writeVarLong(_capacity, buffer);
+        for (int i = 0; i < _nbBlocks; i++) {
+            internal_write_block(_blocks[i], buffer);
+        }
+        final int tailSize = _size - _nbBlocks * BLOCK_SIZE;
+        if (tailSize > 0) {
+            internal_write_block(TimeSeriesCodec.encode(_tailKeys, _tailValues, _tailNulls, tailSize), buffer);
+        }
+        Binary.writeBool(_order == null, buffer);
+        if (_order != null) {
+            for (int i = 0; i < _size; i++) {
+                Binary.writeVarInt(_order[i], buffer);
+            }
+        }
+        _hash = HashHelper.hashBuffer(buffer, beginIndex, buffer.writeIndex());
+    }
+
+    @Override
+    public final synchronized void saveDiff(final Buffer buffer) {
+        //blocks are not diffable, a modified series is sent as a whole and merged point by point on the other side
+        if (_hash == Constants.EMPTY_HASH) {
+            save(buffer);
+        }
+    }
+
+    @Override
+    public final synchronized void load(final Buffer buffer) {
+        internal_load(buffer);
+    }
+
+    @Override
+    public final synchronized void loadDiff(final Buffer buffer) {
+        if (internal_load(buffer) && _hash != Constants.EMPTY_HASH) {
+            _hash = Constants.EMPTY_HASH;
+            if (_space != null) {
+                _space.notifyUpdate(_index);
+            }
+        }
+    }
+
+    private void internal_write_block(final byte[] block, final Buffer buffer) {
+        Binary.writeVarInt(block.length, buffer);
+        for (int i = 0; i < block.length; i++) {
+            Binary.writeByte(block[i], buffer);
+        }
+    }
+
+    private byte[] internal_read_block(final BinaryReader reader) {
+        final byte[] block = new byte[reader.readVarInt()];
+        for (int i = 0; i < block.length; i++) {
+            block[i] = reader.readByte();
+        }
+        return block;
+    }
+
+    private boolean internal_load(final Buffer buffer) {
+        if (buffer == null || buffer.length() == 0) {
+            return false;
+        }
+        final BinaryReader reader = new BinaryReader(buffer);
+        final int group = reader.readVarInt();
+        final int size = reader.readVarInt();
+        final long capacity = reader.readVarLong();
+        final int nbBlocks = (size + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        if (_size == 0) {
+            //fresh chunk, sealed blocks are adopted as they are
+            _group = group;
+            _capacity = capacity;
+            _blocks = new byte[nbBlocks][];
+            _blockMin = new long[nbBlocks];
+            _blockMax = new long[nbBlocks];
+            _blockStats = new double[nbBlocks * STATS_SIZE];
+            _nbBlocks = 0;
+            _cachedBlock = -1;
+            _max = 0;
+            for (int i = 0; i < nbBlocks; i++) {
+                final byte[] block = internal_read_block(reader);
+                final int blockSize = i == nbBlocks - 1 ? size - i * BLOCK_SIZE : BLOCK_SIZE;
+                internal_allocate_tail();
+                TimeSeriesCodec.decode(block, blockSize, _tailKeys, _tailValues, _tailNulls);
+                for (int j = 0; j < blockSize; j++) {
+                    if ((i == 0 && j == 0) || _tailKeys[j] > _max) {
+                        _max = _tailKeys[j];
+                    }
+                }
+                if (blockSize == BLOCK_SIZE) {
+                    _blocks[i] = block;
+                    internal_rollup(i, _tailKeys, _tailValues, _tailNulls);
+                    _nbBlocks++;
+                }
+            }
+            _size = size;
+            if (!reader.readBool()) {
+                _order = new int[size];
+                for (int i = 0; i < size; i++) {
+                    _order[i] = reader.readVarInt();
+                }
+            } else {
+                _order = null;
+            }
+            return false;
+        }
+        //merge into the existing series
+        boolean isDirty = false;
+        final long[] keys = new long[BLOCK_SIZE];
+        final double[] values = new double[BLOCK_SIZE];
+        final boolean[] nulls = new boolean[BLOCK_SIZE];
+        for (int i = 0; i < nbBlocks; i++) {
+            final int blockSize = i == nbBlocks - 1 ? size - i * BLOCK_SIZE : BLOCK_SIZE;
+            TimeSeriesCodec.decode(internal_read_block(reader), blockSize, keys, values, nulls);
+            for (int j = 0; j < blockSize; j++) {
+                isDirty = internal_insert(keys[j], values[j], nulls[j]).left() || isDirty;
+            }
+        }
+        return isDirty;
+    }
+
+    private void internal_set_dirty() {
+        _magic = _magic + 1;
+        if (_space != null && _hash != Constants.EMPTY_HASH) {
+            _hash = Constants.EMPTY_HASH;
+            _space.notifyUpdate(_index);
+        }
+    }
+
+    private void internal_allocate_tail() {
+        if (_tailKeys == null) {
+            _tailKeys = new long[BLOCK_SIZE];
+            _tailValues = new double[BLOCK_SIZE];
+            _tailNulls = new boolean[BLOCK_SIZE];
+        }
+    }
+
+    /**
+     * Returns the block holding the offset, decoding it in the block cache when it is sealed.
+     */
+    private int internal_block(final int offset) {
+        final int block = offset / BLOCK_SIZE;
+        if (block < _nbBlocks && block != _cachedBlock) {
+            if (_cachedKeys == null) {
+                _cachedKeys = new long[BLOCK_SIZE];
+                _cachedValues = new double[BLOCK_SIZE];
+                _cachedNulls = new boolean[BLOCK_SIZE];
+            }
+            TimeSeriesCodec.decode(_blocks[block], BLOCK_SIZE, _cachedKeys, _cachedValues, _cachedNulls);
+            _cachedBlock = block;
+        }
+        return block;
+    }
+
+    private long internal_key(final int offset) {
+        if (internal_block(offset) == _nbBlocks) {
+            return _tailKeys[offset % BLOCK_SIZE];
+        }
+        return _cachedKeys[offset % BLOCK_SIZE];
+    }
+
+    private int internal_offset(final int rank) {
+        if (_order == null) {
+            return rank;
+        }
+        return _order[rank];
+    }
+
+    private int internal_previous_rank(final long key) {
+        if (key == Long.MIN_VALUE) {
+            return -1;
+        }
+        return internal_previousOrEqual_rank(key - 1);
+    }
+
+    /**
+     * Rank in time order of the last point whose key is lower or equal to the requested one, -1 if there is none.
+     */
+    private int internal_previousOrEqual_rank(final long key) {
+        if (_size == 0) {
+            return -1;
+        }
+        if (_order != null) {
+            int low = 0;
+            int high = _size - 1;
+            int result = -1;
+            while (low <= high) {
+                final int middle = (low + high) >>> 1;
+                if (internal_key(_order[middle]) <= key) {
+                    result = middle;
+                    low = middle + 1;
+                } else {
+                    high = middle - 1;
+                }
+            }
+            return result;
+        }
+        final int tailSize = _size - _nbBlocks * BLOCK_SIZE;
+        if (tailSize > 0 && _tailKeys[0] <= key) {
+            return _nbBlocks * BLOCK_SIZE + internal_search(_tailKeys, tailSize, key);
+        }
+        //last sealed block starting before the key
+        int low = 0;
+        int high = _nbBlocks - 1;
+        int block = -1;
+        while (low <= high) {
+            final int middle = (low + high) >>> 1;
+            if (_blockMin[middle] <= key) {
+                block = middle;
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        if (block == -1) {
+            return -1;
+        }
+        internal_block(block * BLOCK_SIZE);
+        return block * BLOCK_SIZE + internal_search(_cachedKeys, BLOCK_SIZE, key);
+    }
+
+    private static int internal_search(final long[] keys, final int size, final long key) {
+        int low = 0;
+        int high = size - 1;
+        int result = -1;
+        while (low <= high) {
+            final int middle = (low + high) >>> 1;
+            if (keys[middle] <= key) {
+                result = middle;
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return result;
+    }
+
+    private Tuple<Boolean, Integer> internal_insert(final long key, final double value, final boolean isNull) {
+        final int rank = internal_previousOrEqual_rank(key);
+        if (rank != -1) {
+            final int existing = internal_offset(rank);
+            if (internal_key(existing) == key) {
+                return new Tuple<Boolean, Integer>(internal_write(existing, value, isNull), existing);
+            }
+        }
+        final int offset = _size;
+        if (_size > 0 && key < _max) {
+            //out of order arrival, switch to (or maintain) the sorted permutation
+            if (_order == null) {
+                _order = new int[_size * 2];
+                for (int i = 0; i < _size; i++) {
+                    _order[i] = i;
+                }
+            } else if (_order.length == _size) {
+                final int[] grown = new int[_size * 2];
+                System.arraycopy(_order, 0, grown, 0, _size);
+                _order = grown;
+            }
+            System.arraycopy(_order, rank + 1, _order, rank + 2, _size - rank - 1);
+            _order[rank + 1] = offset;
+        } else {
+            if (_order != null) {
+                if (_order.length == _size) {
+                    final int[] grown = new int[_size * 2];
+                    System.arraycopy(_order, 0, grown, 0, _size);
+                    _order = grown;
+                }
+                _order[_size] = offset;
+            }
+            _max = key;
+        }
+        internal_allocate_tail();
+        final int position = offset % BLOCK_SIZE;
+        _tailKeys[position] = key;
+        _tailValues[position] = value;
+        _tailNulls[position] = isNull;
+        _size++;
+        if (position == BLOCK_SIZE - 1) {
+            internal_seal();
+        }
+        return new Tuple<Boolean, Integer>(true, offset);
+    }
+
+    /**
+     * Compresses the full tail into a new sealed block.
+     */
+    private void internal_seal() {
+        if (_blocks == null || _blocks.length == _nbBlocks) {
+            final int length = _nbBlocks == 0 ? Constants.MAP_INITIAL_CAPACITY : _nbBlocks * 2;
+            final byte[][] blocks = new byte[length][];
+            final long[] blockMin = new long[length];
+            final long[] blockMax = new long[length];
+            final double[] blockStats = new double[length * STATS_SIZE];
+            if (_blocks != null) {
+                System.arraycopy(_blocks, 0, blocks, 0, _nbBlocks);
+                System.arraycopy(_blockMin, 0, blockMin, 0, _nbBlocks);
+                System.arraycopy(_blockMax, 0, blockMax, 0, _nbBlocks);
+                System.arraycopy(_blockStats, 0, blockStats, 0, _nbBlocks * STATS_SIZE);
+            }
+            _blocks = blocks;
+            _blockMin = blockMin;
+            _blockMax = blockMax;
+            _blockStats = blockStats;
+        }
+        _blocks[_nbBlocks] = TimeSeriesCodec.encode(_tailKeys, _tailValues, _tailNulls, BLOCK_SIZE);
+        internal_rollup(_nbBlocks, _tailKeys, _tailValues, _tailNulls);
+        _nbBlocks++;
+    }
+
+    /**
+     * Computes the key bounds and the value rollup of a sealed block from its decoded points.
+     */
+    private void internal_rollup(final int block, final long[] keys, final double[] values, final boolean[] nulls) {
+        long minKey = keys[0];
+        long maxKey = keys[0];
+        long count = 0;
+        double sum = 0;
+        double min = 0;
+        double max = 0;
+        for (int i = 0; i < BLOCK_SIZE; i++) {
+            if (keys[i] < minKey) {
+                minKey = keys[i];
+            }
+            if (keys[i] > maxKey) {
+                maxKey = keys[i];
+            }
+            if (!nulls[i]) {
+                if (count == 0 || values[i] < min) {
+                    min = values[i];
+                }
+                if (count == 0 || values[i] > max) {
+                    max = values[i];
+                }
+                sum = sum + values[i];
+                count++;
+            }
+        }
+        _blockMin[block] = minKey;
+        _blockMax[block] = maxKey;
+        final int stats = block * STATS_SIZE;
+        _blockStats[stats] = count;
+        _blockStats[stats + 1] = sum;
+        _blockStats[stats + 2] = min;
+        _blockStats[stats + 3] = max;
+    }
+
+    /**
+     * Overwrites the value at the offset, re-encoding its block when it is sealed, returns true if anything changed.
+     */
+    private boolean internal_write(final int offset, final double value, final boolean isNull) {
+        final int position = offset % BLOCK_SIZE;
+        final int block = internal_block(offset);
+        if (block == _nbBlocks) {
+            if (_tailValues[position] == value && _tailNulls[position] == isNull) {
+                return false;
+            }
+            _tailValues[position] = value;
+            _tailNulls[position] = isNull;
+            return true;
+        }
+        if (_cachedValues[position] == value && _cachedNulls[position] == isNull) {
+            return false;
+        }
+        _cachedValues[position] = value;
+        _cachedNulls[position] = isNull;
+        _blocks[block] = TimeSeriesCodec.encode(_cachedKeys, _cachedValues, _cachedNulls, BLOCK_SIZE);
+        internal_rollup(block, _cachedKeys, _cachedValues, _cachedNulls);
+        return true;
+    }
+
+}
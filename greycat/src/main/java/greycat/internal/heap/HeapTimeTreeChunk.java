@@ -17,12 +17,15 @@ package greycat.internal.heap;
 
 import greycat.Constants;
 import greycat.chunk.Chunk;
+import greycat.chunk.ChunkFormat;
 import greycat.chunk.ChunkType;
 import greycat.chunk.TimeTreeChunk;
 import greycat.chunk.TreeWalker;
 import greycat.internal.CoreConstants;
 import greycat.struct.Buffer;
 import greycat.utility.Base64;
+import greycat.utility.Binary;
+import greycat.utility.BinaryReader;
 import greycat.utility.HashHelper;
 import greycat.utility.Tuple;
 
@@ -136,17 +139,30 @@ class HeapTimeTreeChunk implements TimeTreeChunk {
     @Override
     public synchronized final void save(Buffer buffer) {
         final long beginIndex = buffer.writeIndex();
-        if (_group != 0) {
-            Base64.encodeIntToBuffer(_group, buffer);
-            buffer.write(CoreConstants.CHUNK_META_SEP);
-        }
-        Base64.encodeIntToBuffer(_size, buffer);
-        buffer.write(CoreConstants.CHUNK_SEP);
-        Base64.encodeLongToBuffer(_capacity, buffer);
-        buffer.write(CoreConstants.CHUNK_SEP);
-        for (int i = 0; i < _size; i++) {
-            Base64.encodeLongToBuffer(this._k[i], buffer);
-            buffer.write(CoreConstants.CHUNK_VAL_SEP);
+        if (_space != null && _space.chunkFormat() == ChunkFormat.BINARY) {
+            Binary.writeHeader(buffer);
+            Binary.writeVarInt(_group, buffer);
+            Binary.writeVarInt(_size, buffer);
+            Binary.writeVarLong(_capacity, buffer);
+            //keys are delta encoded, successive times are usually close
+            long previousKey = 0;
+            for (int i = 0; i < _size; i++) {
+                Binary.writeVarLong(this._k[i] - previousKey, buffer);
+                previousKey = this._k[i];
+            }
+        } else {
+            if (_group != 0) {
+                Base64.encodeIntToBuffer(_group, buffer);
+                buffer.write(CoreConstants.CHUNK_META_SEP);
+            }
+            Base64.encodeIntToBuffer(_size, buffer);
+            buffer.write(CoreConstants.CHUNK_SEP);
+            Base64.encodeLongToBuffer(_capacity, buffer);
+            buffer.write(CoreConstants.CHUNK_SEP);
+            for (int i = 0; i < _size; i++) {
+                Base64.encodeLongToBuffer(this._k[i], buffer);
+                buffer.write(CoreConstants.CHUNK_VAL_SEP);
+            }
         }
         _hash = HashHelper.hashBuffer(buffer, beginIndex, buffer.writeIndex());
     }
@@ -194,6 +210,9 @@ class HeapTimeTreeChunk implements TimeTreeChunk {
         if (buffer == null || buffer.length() == 0) {
             return false;
         }
+        if (Binary.isBinary(buffer)) {
+            return internal_load_binary(buffer);
+        }
         boolean isDirty = false;
         long cursor = 0;
         long previous = 0;
@@ -233,6 +252,23 @@ class HeapTimeTreeChunk implements TimeTreeChunk {
         return isDirty;
     }
 
+    private boolean internal_load_binary(final Buffer buffer) {
+        final BinaryReader reader = new BinaryReader(buffer);
+        _group = reader.readVarInt();
+        final int treeSize = reader.readVarInt();
+        final int closePowerOfTwo = (int) Math.pow(2, Math.ceil(Math.log(treeSize) / Math.log(2)));
+        reallocate(closePowerOfTwo);
+        _capacity = reader.readVarLong();
+        boolean isDirty = false;
+        long key = 0;
+        for (int i = 0; i < treeSize; i++) {
+            key = key + reader.readVarLong();
+            final Tuple<Boolean, Integer> insertTuple = internal_insert(key);
+            isDirty = isDirty || insertTuple.left();
+        }
+        return isDirty;
+    }
+
     @Override
     public final long index() {
         return _index;
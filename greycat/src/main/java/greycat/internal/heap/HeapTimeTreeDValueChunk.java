@@ -19,7 +19,10 @@ import greycat.Constants;
 import greycat.chunk.*;
 import greycat.internal.CoreConstants;
 import greycat.struct.*;
+import greycat.utility.Aggregation;
 import greycat.utility.Base64;
+import greycat.utility.Binary;
+import greycat.utility.BinaryReader;
 import greycat.utility.HashHelper;
 import greycat.utility.Tuple;
 
@@ -123,21 +126,37 @@ class HeapTimeTreeDValueChunk implements TimeTreeDValueChunk {
     @Override
     public synchronized final void save(Buffer buffer) {
         final long beginIndex = buffer.writeIndex();
-        if (_group != 0) {
-            Base64.encodeIntToBuffer(_group, buffer);
-            buffer.write(CoreConstants.CHUNK_META_SEP);
-        }
-        Base64.encodeIntToBuffer(_size, buffer);
-        buffer.write(CoreConstants.CHUNK_SEP);
-        Base64.encodeLongToBuffer(_capacity, buffer);
-        buffer.write(CoreConstants.CHUNK_SEP);
-        for (int i = 0; i < _size; i++) {
-            Base64.encodeLongToBuffer(this._k[i], buffer);
-            buffer.write(CoreConstants.CHUNK_VAL_SEP);
-            if (!this._values_is_null[i]) {
-                Base64.encodeDoubleToBuffer(this._values[i], buffer);
+        if (_space != null && _space.chunkFormat() == ChunkFormat.BINARY) {
+            Binary.writeHeader(buffer);
+            Binary.writeVarInt(_group, buffer);
+            Binary.writeVarInt(_size, buffer);
+            Binary.writeVarLong(_capacity, buffer);
+            long previousKey = 0;
+            for (int i = 0; i < _size; i++) {
+                Binary.writeVarLong(this._k[i] - previousKey, buffer);
+                previousKey = this._k[i];
+                Binary.writeBool(this._values_is_null[i], buffer);
+                if (!this._values_is_null[i]) {
+                    Binary.writeDouble(this._values[i], buffer);
+                }
+            }
+        } else {
+            if (_group != 0) {
+                Base64.encodeIntToBuffer(_group, buffer);
+                buffer.write(CoreConstants.CHUNK_META_SEP);
+            }
+            Base64.encodeIntToBuffer(_size, buffer);
+            buffer.write(CoreConstants.CHUNK_SEP);
+            Base64.encodeLongToBuffer(_capacity, buffer);
+            buffer.write(CoreConstants.CHUNK_SEP);
+            for (int i = 0; i < _size; i++) {
+                Base64.encodeLongToBuffer(this._k[i], buffer);
+                buffer.write(CoreConstants.CHUNK_VAL_SEP);
+                if (!this._values_is_null[i]) {
+                    Base64.encodeDoubleToBuffer(this._values[i], buffer);
+                }
+                buffer.write(CoreConstants.CHUNK_VAL_SEP);
             }
-            buffer.write(CoreConstants.CHUNK_VAL_SEP);
         }
         _hash = HashHelper.hashBuffer(buffer, beginIndex, buffer.writeIndex());
     }
@@ -181,10 +200,35 @@ class HeapTimeTreeDValueChunk implements TimeTreeDValueChunk {
         return _hash;
     }
 
+    private boolean internal_load_binary(final Buffer buffer) {
+        final BinaryReader reader = new BinaryReader(buffer);
+        _group = reader.readVarInt();
+        final int treeSize = reader.readVarInt();
+        final int closePowerOfTwo = (int) Math.pow(2, Math.ceil(Math.log(treeSize) / Math.log(2)));
+        reallocate(closePowerOfTwo);
+        _capacity = reader.readVarLong();
+        boolean isDirty = false;
+        long key = 0;
+        for (int i = 0; i < treeSize; i++) {
+            key = key + reader.readVarLong();
+            final Tuple<Boolean, Integer> index;
+            if (reader.readBool()) {
+                index = internal_insert(key, 0d, true);
+            } else {
+                index = internal_insert(key, reader.readDouble(), false);
+            }
+            isDirty = isDirty || index.left();
+        }
+        return isDirty;
+    }
+
     private boolean internal_load(final Buffer buffer, final boolean initial) {
         if (buffer == null || buffer.length() == 0) {
             return false;
         }
+        if (Binary.isBinary(buffer)) {
+            return internal_load_binary(buffer);
+        }
         boolean isDirty = false;
         long cursor = 0;
         long previous = 0;
@@ -270,6 +314,17 @@ class HeapTimeTreeDValueChunk implements TimeTreeDValueChunk {
         }
     }
 
+    @Override
+    public synchronized final void setValue(int offset, Double value) {
+        final boolean isNull = value == null;
+        final double rawValue = isNull ? 0d : value;
+        if (_values[offset] != rawValue || _values_is_null[offset] != isNull) {
+            _values[offset] = rawValue;
+            _values_is_null[offset] = isNull;
+            internal_set_dirty();
+        }
+    }
+
     @Override
     public final long getKey(int offset) {
         return _k[offset];
@@ -764,6 +819,17 @@ class HeapTimeTreeDValueChunk implements TimeTreeDValueChunk {
         }
     }
 
+    @Override
+    public synchronized final void aggregate(final long startKey, final long endKey, final Aggregation aggregation) {
+        int index = internal_previousOrEqual_index(endKey);
+        while (index != -1 && _k[index] >= startKey) {
+            if (!_values_is_null[index]) {
+                aggregation.add(_k[index], _values[index]);
+            }
+            index = internal_previous(index);
+        }
+    }
+
     @Override
     public synchronized final void range(final long startKey, final long endKey, final long maxElements, final TreeWalker walker) {
         //lock and load fromVar main memory
@@ -18,11 +18,14 @@ package greycat.internal.heap;
 import greycat.Constants;
 import greycat.NodeListener;
 import greycat.chunk.Chunk;
+import greycat.chunk.ChunkFormat;
 import greycat.chunk.ChunkType;
 import greycat.struct.Buffer;
 import greycat.struct.LongLongMap;
 import greycat.struct.LongLongMapCallBack;
 import greycat.utility.Base64;
+import greycat.utility.Binary;
+import greycat.utility.BinaryReader;
 import greycat.utility.HashHelper;
 import greycat.utility.Listeners;
 import greycat.utility.Unsafe;
@@ -374,7 +377,18 @@ final class HeapWorldOrderChunk implements WorldOrderChunk {
     }
 
     private void internal_load(final boolean initial, final Buffer buffer) {
-        if (buffer != null && buffer.length() > 0) {
+        if (Binary.isBinary(buffer)) {
+            final BinaryReader reader = new BinaryReader(buffer);
+            _group = reader.readVarInt();
+            final int mapSize = reader.readVarInt();
+            final int closePowerOfTwo = (int) Math.pow(2, Math.ceil(Math.log(mapSize) / Math.log(2)));
+            resize(closePowerOfTwo);
+            _type = reader.readVarLong();
+            for (int i = 0; i < mapSize; i++) {
+                final long loopKey = reader.readVarLong();
+                internal_put(loopKey, reader.readVarLong(), !initial);
+            }
+        } else if (buffer != null && buffer.length() > 0) {
             long cursor = 0;
             long bufferSize = buffer.length();
             long previousStart = 0;
@@ -445,21 +459,32 @@ final class HeapWorldOrderChunk implements WorldOrderChunk {
     @Override
     public final synchronized void save(final Buffer buffer) {
         final long beginIndex = buffer.writeIndex();
-        if (_group != 0) {
-            Base64.encodeIntToBuffer(_group, buffer);
-            buffer.write(CoreConstants.CHUNK_META_SEP);
-        }
-        Base64.encodeIntToBuffer(_size, buffer);
-        buffer.write(CoreConstants.CHUNK_SEP);
-        if (_type != Constants.NULL_LONG) {
-            Base64.encodeLongToBuffer(_type, buffer);
-        }
-        buffer.write(CoreConstants.CHUNK_SEP);
-        for (int i = 0; i < _size; i++) {
-            Base64.encodeLongToBuffer(_kv[i * 2], buffer);
-            buffer.write(CoreConstants.CHUNK_VAL_SEP);
-            Base64.encodeLongToBuffer(_kv[i * 2 + 1], buffer);
-            buffer.write(CoreConstants.CHUNK_VAL_SEP);
+        if (_space != null && _space.chunkFormat() == ChunkFormat.BINARY) {
+            Binary.writeHeader(buffer);
+            Binary.writeVarInt(_group, buffer);
+            Binary.writeVarInt(_size, buffer);
+            Binary.writeVarLong(_type, buffer);
+            for (int i = 0; i < _size; i++) {
+                Binary.writeVarLong(_kv[i * 2], buffer);
+                Binary.writeVarLong(_kv[i * 2 + 1], buffer);
+            }
+        } else {
+            if (_group != 0) {
+                Base64.encodeIntToBuffer(_group, buffer);
+                buffer.write(CoreConstants.CHUNK_META_SEP);
+            }
+            Base64.encodeIntToBuffer(_size, buffer);
+            buffer.write(CoreConstants.CHUNK_SEP);
+            if (_type != Constants.NULL_LONG) {
+                Base64.encodeLongToBuffer(_type, buffer);
+            }
+            buffer.write(CoreConstants.CHUNK_SEP);
+            for (int i = 0; i < _size; i++) {
+                Base64.encodeLongToBuffer(_kv[i * 2], buffer);
+                buffer.write(CoreConstants.CHUNK_VAL_SEP);
+                Base64.encodeLongToBuffer(_kv[i * 2 + 1], buffer);
+                buffer.write(CoreConstants.CHUNK_VAL_SEP);
+            }
         }
         _chunkHash = HashHelper.hashBuffer(buffer, beginIndex, buffer.writeIndex());
     }
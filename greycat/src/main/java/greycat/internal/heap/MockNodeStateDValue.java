@@ -20,19 +20,31 @@ import greycat.Index;
 import greycat.Type;
 import greycat.chunk.Chunk;
 import greycat.chunk.StateChunk;
+import greycat.chunk.TimeTreeDValueChunk;
 import greycat.plugin.NodeStateCallback;
 import greycat.struct.*;
 
 public class MockNodeStateDValue implements StateChunk {
 
-    private HeapTimeTreeDValueChunk chunk;
+    private TimeTreeDValueChunk chunk;
     private int offset;
 
-    MockNodeStateDValue(HeapTimeTreeDValueChunk p_chunk, int p_offset) {
+    MockNodeStateDValue(TimeTreeDValueChunk p_chunk, int p_offset) {
         chunk = p_chunk;
         offset = p_offset;
     }
 
+    /**
+     * @return the value, 0 if null
+     */
+    private double rawValue() {
+        final Double value = chunk.getValue(offset);
+        if (value == null) {
+            return 0d;
+        }
+        return value;
+    }
+
     @Override
     public final long world() {
         return chunk.world();
@@ -40,7 +52,7 @@ public class MockNodeStateDValue implements StateChunk {
 
     @Override
     public final long time() {
-        return chunk._k[offset];
+        return chunk.getKey(offset);
     }
 
     @Override
@@ -106,12 +118,12 @@ public class MockNodeStateDValue implements StateChunk {
 
     @Override
     public final void each(NodeStateCallback callBack) {
-        callBack.on(offset, Type.DOUBLE, chunk._values[offset]);
+        callBack.on(offset, Type.DOUBLE, rawValue());
     }
 
     @Override
     public final Object get(String name) {
-        return chunk._values[offset];
+        return rawValue();
     }
 
     @Override
@@ -186,23 +198,17 @@ public class MockNodeStateDValue implements StateChunk {
 
     @Override
     public final Object getAt(int index) {
-        if (chunk._values_is_null[offset]) {
-            return null;
-        }
-        return chunk._values[offset];
+        return chunk.getValue(offset);
     }
 
     @Override
     public final Object getRawAt(int index) {
-        if (chunk._values_is_null[offset]) {
-            return null;
-        }
-        return chunk._values[offset];
+        return chunk.getValue(offset);
     }
 
     @Override
     public final Object getTypedRawAt(int index, int type) {
-        return chunk._values[offset];
+        return rawValue();
     }
 
     @Override
@@ -217,19 +223,13 @@ public class MockNodeStateDValue implements StateChunk {
 
     @Override
     public final Container set(String name, int type, Object value) {
-        chunk._values[offset] = (double) value;
+        chunk.setValue(offset, (Double) value);
         return this;
     }
 
     @Override
     public final Container setAt(int index, int type, Object value) {
-        if (value == null) {
-            chunk._values[offset] = 0d;
-            chunk._values_is_null[offset] = true;
-        } else {
-            chunk._values[offset] = (double) value;
-            chunk._values_is_null[offset] = false;
-        }
+        chunk.setValue(offset, (Double) value);
         return this;
     }
 
@@ -0,0 +1,285 @@
+/**
+ * Copyright 2017 The GreyCat Authors.  All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package greycat.internal.heap;
+
+/**
+ * Gorilla compression of a block of points, as bits:
+ * times are encoded as the delta of their delta, values as the XOR with the previous one, each value preceded by a null flag.
+ */
+final class TimeSeriesCodec {
+
+    private byte[] _buffer;
+    private int _bitCursor;
+    private int _count;
+    private long _previousTime;
+    private long _previousDelta;
+    private long _previousValue;
+    private int _previousLeading;
+    private int _previousTrailing;
+
+    private TimeSeriesCodec(final byte[] buffer) {
+        _buffer = buffer;
+        _bitCursor = 0;
+        _count = 0;
+        _previousTime = 0;
+        _previousDelta = 0;
+        _previousValue = 0;
+        _previousLeading = -1;
+        _previousTrailing = 0;
+    }
+
+    static byte[] encode(final long[] keys, final double[] values, final boolean[] nulls, final int size) {
+        final TimeSeriesCodec codec = new TimeSeriesCodec(new byte[size * 2 + 16]);
+        for (int i = 0; i < size; i++) {
+            codec.writeTime(keys[i]);
+            if (nulls[i]) {
+                codec.writeBits(1, 1);
+            } else {
+                codec.writeBits(0, 1);
+                codec.writeValue(values[i]);
+            }
+        }
+        final byte[] result = new byte[(codec._bitCursor + 7) >>> 3];
+        System.arraycopy(codec._buffer, 0, result, 0, result.length);
+        return result;
+    }
+
+    static void decode(final byte[] block, final int size, final long[] keys, final double[] values, final boolean[] nulls) {
+        final TimeSeriesCodec codec = new TimeSeriesCodec(block);
+        for (int i = 0; i < size; i++) {
+            keys[i] = codec.readTime();
+            nulls[i] = codec.readBits(1) == 1;
+            if (nulls[i]) {
+                values[i] = 0d;
+            } else {
+                values[i] = codec.readValue();
+            }
+        }
+    }
+
+    private void writeTime(final long time) {
+        if (_count == 0) {
+            writeBits(time, 64);
+        } else {
+            final long delta = time - _previousTime;
+            final long deltaOfDelta = delta - _previousDelta;
+            if (deltaOfDelta == 0) {
+                writeBits(0, 1);
+            } else if (deltaOfDelta >= -63 && deltaOfDelta <= 64) {
+                writeBits(2, 2);
+                writeBits(deltaOfDelta + 63, 7);
+            } else if (deltaOfDelta >= -255 && deltaOfDelta <= 256) {
+                writeBits(6, 3);
+                writeBits(deltaOfDelta + 255, 9);
+            } else if (deltaOfDelta >= -2047 && deltaOfDelta <= 2048) {
+                writeBits(14, 4);
+                writeBits(deltaOfDelta + 2047, 12);
+            } else {
+                writeBits(15, 4);
+                writeBits(deltaOfDelta, 64);
+            }
+            _previousDelta = delta;
+        }
+        _previousTime = time;
+        _count++;
+    }
+
+    private long readTime() {
+        long time;
+        if (_count == 0) {
+            time = readBits(64);
+        } else {
+            long deltaOfDelta;
+            if (readBits(1) == 0) {
+                deltaOfDelta = 0;
+            } else if (readBits(1) == 0) {
+                deltaOfDelta = readBits(7) - 63;
+            } else if (readBits(1) == 0) {
+                deltaOfDelta = readBits(9) - 255;
+            } else if (readBits(1) == 0) {
+                deltaOfDelta = readBits(12) - 2047;
+            } else {
+                deltaOfDelta = readBits(64);
+            }
+            _previousDelta = _previousDelta + deltaOfDelta;
+            time = _previousTime + _previousDelta;
+        }
+        _previousTime = time;
+        _count++;
+        return time;
+    }
+
+    /**
+     * {@native ts
+     * var view = new DataView(new ArrayBuffer(8));
+     * view.setFloat64(0, value);
+     * var bits = new Long(view.getInt32(4), view.getInt32(0));
+     * var xor = bits.xor(Long.fromValue(this._previousValue));
+     * if (xor.isZero()) {
+     * this.writeBits(0, 1);
+     * } else {
+     * var leading = xor.high != 0 ? Math.clz32(xor.high) : 32 + Math.clz32(xor.low);
+     * if (leading > 31) {
+     * leading = 31;
+     * }
+     * var trailing = xor.low != 0 ? 31 - Math.clz32(xor.low & -xor.low) : 63 - Math.clz32(xor.high & -xor.high);
+     * if (this._previousLeading != -1 && leading >= this._previousLeading && trailing >= this._previousTrailing) {
+     * this.writeBits(2, 2);
+     * this.writeBits(xor.shiftRightUnsigned(this._previousTrailing), 64 - this._previousLeading - this._previousTrailing);
+     * } else {
+     * var meaningful = 64 - leading - trailing;
+     * this.writeBits(3, 2);
+     * this.writeBits(leading, 5);
+     * this.writeBits(meaningful - 1, 6);
+     * this.writeBits(xor.shiftRightUnsigned(trailing), meaningful);
+     * this._previousLeading = leading;
+     * this._previousTrailing = trailing;
+     * }
+     * }
+     * this._previousValue = bits;
+     * }
+     */
+    private void writeValue(final double value) {
+        final long bits = Double.doubleToRawLongBits(value);
+        final long xor = bits ^ _previousValue;
+        if (xor == 0) {
+            writeBits(0, 1);
+        } else {
+            int leading = Long.numberOfLeadingZeros(xor);
+            if (leading > 31) {
+                leading = 31;
+            }
+            final int trailing = Long.numberOfTrailingZeros(xor);
+            if (_previousLeading != -1 && leading >= _previousLeading && trailing >= _previousTrailing) {
+                //meaningful bits fit in the previous window
+                writeBits(2, 2);
+                writeBits(xor >>> _previousTrailing, 64 - _previousLeading - _previousTrailing);
+            } else {
+                final int meaningful = 64 - leading - trailing;
+                writeBits(3, 2);
+                writeBits(leading, 5);
+                writeBits(meaningful - 1, 6);
+                writeBits(xor >>> trailing, meaningful);
+                _previousLeading = leading;
+                _previousTrailing = trailing;
+            }
+        }
+        _previousValue = bits;
+    }
+
+    /**
+     * {@native ts
+     * if (this.readBits(1) != 0) {
+     * if (this.readBits(1) != 0) {
+     * this._previousLeading = this.readBits(5);
+     * var length = this.readBits(6) + 1;
+     * this._previousTrailing = 64 - this._previousLeading - length;
+     * }
+     * var meaningful = 64 - this._previousLeading - this._previousTrailing;
+     * var xor = Long.ZERO;
+     * for (var i = 0; i < meaningful; i++) {
+     * xor = xor.shiftLeft(1).or(Long.fromInt(this.readBits(1)));
+     * }
+     * this._previousValue = Long.fromValue(this._previousValue).xor(xor.shiftLeft(this._previousTrailing));
+     * }
+     * var previous = Long.fromValue(this._previousValue);
+     * var view = new DataView(new ArrayBuffer(8));
+     * view.setInt32(0, previous.high);
+     * view.setInt32(4, previous.low);
+     * return view.getFloat64(0);
+     * }
+     */
+    private double readValue() {
+        if (readBits(1) != 0) {
+            if (readBits(1) != 0) {
+                _previousLeading = (int) readBits(5);
+                final int meaningful = (int) readBits(6) + 1;
+                _previousTrailing = 64 - _previousLeading - meaningful;
+            }
+            final int meaningful = 64 - _previousLeading - _previousTrailing;
+            _previousValue = _previousValue ^ (readBits(meaningful) << _previousTrailing);
+        }
+        return Double.longBitsToDouble(_previousValue);
+    }
+
+    /**
+     * {@native ts
+     * var bitsToWrite = Long.fromValue(value);
+     * var remaining = nbBits;
+     * while (remaining > 0) {
+     * var byteIndex = this._bitCursor >>> 3;
+     * if (byteIndex == this._buffer.length) {
+     * var grown = new Int8Array(this._buffer.length * 2);
+     * grown.set(this._buffer);
+     * this._buffer = grown;
+     * }
+     * var free = 8 - (this._bitCursor & 7);
+     * var toWrite = remaining < free ? remaining : free;
+     * var bits = bitsToWrite.shiftRightUnsigned(remaining - toWrite).low & ((1 << toWrite) - 1);
+     * this._buffer[byteIndex] = this._buffer[byteIndex] | (bits << (free - toWrite));
+     * this._bitCursor += toWrite;
+     * remaining -= toWrite;
+     * }
+     * }
+     */
+    private void writeBits(final long value, final int nbBits) {
+        int remaining = nbBits;
+        while (remaining > 0) {
+            final int byteIndex = _bitCursor >>> 3;
+            if (byteIndex == _buffer.length) {
+                final byte[] grown = new byte[_buffer.length * 2];
+                System.arraycopy(_buffer, 0, grown, 0, _buffer.length);
+                _buffer = grown;
+            }
+            final int free = 8 - (_bitCursor & 7);
+            final int toWrite = remaining < free ? remaining : free;
+            final int bits = (int) (value >>> (remaining - toWrite)) & ((1 << toWrite) - 1);
+            _buffer[byteIndex] = (byte) (_buffer[byteIndex] | (bits << (free - toWrite)));
+            _bitCursor += toWrite;
+            remaining -= toWrite;
+        }
+    }
+
+    /**
+     * {@native ts
+     * var result = Long.ZERO;
+     * var remaining = nbBits;
+     * while (remaining > 0) {
+     * var available = 8 - (this._bitCursor & 7);
+     * var toRead = remaining < available ? remaining : available;
+     * var bits = ((this._buffer[this._bitCursor >>> 3] & 0xFF) >>> (available - toRead)) & ((1 << toRead) - 1);
+     * result = result.shiftLeft(toRead).or(Long.fromInt(bits));
+     * this._bitCursor += toRead;
+     * remaining -= toRead;
+     * }
+     * return result.toNumber();
+     * }
+     */
+    private long readBits(final int nbBits) {
+        long result = 0;
+        int remaining = nbBits;
+        while (remaining > 0) {
+            final int available = 8 - (_bitCursor & 7);
+            final int toRead = remaining < available ? remaining : available;
+            final int bits = ((_buffer[_bitCursor >>> 3] & 0xFF) >>> (available - toRead)) & ((1 << toRead) - 1);
+            result = (result << toRead) | bits;
+            _bitCursor += toRead;
+            remaining -= toRead;
+        }
+        return result;
+    }
+
+}
@@ -0,0 +1,103 @@
+/**
+ * Copyright 2017 The GreyCat Authors.  All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package greycat.internal.task;
+
+import greycat.*;
+import greycat.base.BaseNode;
+import greycat.internal.CoreDeferCounter;
+import greycat.plugin.Job;
+import greycat.struct.Buffer;
+import greycat.utility.Aggregation;
+
+class ActionAggregate implements Action {
+
+    private final String _from;
+    private final String _to;
+    private final String _bucketSize;
+
+    ActionAggregate(final String from, final String to, final String bucketSize) {
+        this._from = from;
+        this._to = to;
+        this._bucketSize = bucketSize;
+    }
+
+    @Override
+    public void eval(final TaskContext ctx) {
+        final TaskResult previous = ctx.result();
+        final long parsedFrom = parse(ctx.template(_from));
+        final long parsedTo = parse(ctx.template(_to));
+        final long parsedBucketSize = parse(ctx.template(_bucketSize));
+        final TaskResult next = ctx.newResult();
+        if (previous != null) {
+            final DeferCounter defer = new CoreDeferCounter(previous.size());
+            for (int i = 0; i < previous.size(); i++) {
+                if (previous.get(i) instanceof NodeValue) {
+                    final NodeValue casted = (NodeValue) previous.get(i);
+                    casted.aggregate(parsedFrom, parsedTo, parsedBucketSize, new Callback<Aggregation>() {
+                        @Override
+                        public void on(final Aggregation result) {
+                            next.add(result);
+                            casted.free();
+                            defer.count();
+                        }
+                    });
+                } else {
+                    //other nodes are dropped from the result, their marks are released
+                    if (previous.get(i) instanceof BaseNode) {
+                        ((BaseNode) previous.get(i)).free();
+                    }
+                    defer.count();
+                }
+            }
+            defer.then(new Job() {
+                @Override
+                public void run() {
+                    previous.clear();
+                    ctx.continueWith(next);
+                }
+            });
+        } else {
+            ctx.continueWith(next);
+        }
+    }
+
+    private static long parse(final String value) {
+        try {
+            return Long.parseLong(value);
+        } catch (Throwable t) {
+            final Double d = Double.parseDouble(value);
+            return d.longValue();
+        }
+    }
+
+    @Override
+    public void serialize(final Buffer builder) {
+        builder.writeString(CoreActionNames.AGGREGATE);
+        builder.writeChar(Constants.TASK_PARAM_OPEN);
+        TaskHelper.serializeString(_from, builder, true);
+        builder.writeChar(Constants.TASK_PARAM_SEP);
+        TaskHelper.serializeString(_to, builder, true);
+        builder.writeChar(Constants.TASK_PARAM_SEP);
+        TaskHelper.serializeString(_bucketSize, builder, true);
+        builder.writeChar(Constants.TASK_PARAM_CLOSE);
+    }
+
+    @Override
+    public final String name() {
+        return CoreActionNames.AGGREGATE;
+    }
+
+}
@@ -0,0 +1,73 @@
+/**
+ * Copyright 2017 The GreyCat Authors.  All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package greycat.internal.task;
+
+import greycat.*;
+import greycat.struct.Buffer;
+
+class ActionDeclareSortedIndex implements Action {
+
+    private final boolean _timed;
+    private final String _name;
+    private final String _attribute;
+
+    ActionDeclareSortedIndex(final boolean timed, final String name, final String attribute) {
+        if (name == null || attribute == null) {
+            throw new RuntimeException("name and attribute should not be null");
+        }
+        this._timed = timed;
+        this._name = name;
+        this._attribute = attribute;
+    }
+
+    @Override
+    public final void eval(final TaskContext ctx) {
+        final String templatedIndexName = ctx.template(_name);
+        final String templatedAttribute = ctx.template(_attribute);
+        final Callback<NodeIndex> then = new Callback<NodeIndex>() {
+            @Override
+            public void on(NodeIndex result) {
+                result.declareSortedAttribute(templatedAttribute);
+                result.free();
+                ctx.continueTask();
+            }
+        };
+        if (_timed) {
+            ctx.graph().declareTimedIndex(ctx.world(), ctx.time(), templatedIndexName, then, templatedAttribute);
+        } else {
+            ctx.graph().declareIndex(ctx.world(), templatedIndexName, then, templatedAttribute);
+        }
+    }
+
+    @Override
+    public final void serialize(final Buffer builder) {
+        builder.writeString(name());
+        builder.writeChar(Constants.TASK_PARAM_OPEN);
+        TaskHelper.serializeString(_name, builder, true);
+        builder.writeChar(Constants.TASK_PARAM_SEP);
+        TaskHelper.serializeString(_attribute, builder, true);
+        builder.writeChar(Constants.TASK_PARAM_CLOSE);
+    }
+
+    @Override
+    public final String name() {
+        if (_timed) {
+            return CoreActionNames.DECLARE_TIMED_SORTED_INDEX;
+        } else {
+            return CoreActionNames.DECLARE_SORTED_INDEX;
+        }
+    }
+}
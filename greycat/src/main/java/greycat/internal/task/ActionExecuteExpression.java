@@ -32,10 +32,15 @@ class ActionExecuteExpression implements Action {
 
     final private MathExpressionEngine _engine;
     final private String _expression;
+    final private Map<String, Double> _constants;
 
     ActionExecuteExpression(final String mathExpression) {
         this._expression = mathExpression;
         this._engine = CoreMathExpressionEngine.parse(mathExpression);
+        this._constants = new HashMap<String, Double>();
+        this._constants.put("PI", Math.PI);
+        this._constants.put("TRUE", 1.0);
+        this._constants.put("FALSE", 0.0);
     }
 
     @Override
@@ -45,15 +50,11 @@ class ActionExecuteExpression implements Action {
         final int previousSize = previous.size();
         for (int i = 0; i < previousSize; i++) {
             final Object loop = previous.get(i);
-            Map<String, Double> variables = new HashMap<String, Double>();
-            variables.put("PI", Math.PI);
-            variables.put("TRUE", 1.0);
-            variables.put("FALSE", 0.0);
             if (loop instanceof BaseNode) {
-                next.add(_engine.eval((Node) loop, ctx, variables));
+                next.add(_engine.eval((Node) loop, ctx, _constants));
                 ((BaseNode) loop).free();
             } else {
-                next.add(_engine.eval(null, ctx, variables));
+                next.add(_engine.eval(null, ctx, _constants));
             }
         }
         //optimization to avoid iteration on previous result for free
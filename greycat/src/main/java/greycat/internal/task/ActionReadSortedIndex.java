@@ -0,0 +1,113 @@
+/**
+ * Copyright 2017 The GreyCat Authors.  All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package greycat.internal.task;
+
+import greycat.*;
+import greycat.struct.Buffer;
+
+class ActionReadSortedIndex implements Action {
+
+    private final boolean _prefix;
+    private final String _name;
+    private final String _from;
+    private final String _to;
+    private final String _offset;
+    private final String _limit;
+
+    /**
+     * @param prefix true to look for values starting with from, false to look for values between from and to
+     */
+    ActionReadSortedIndex(final boolean prefix, final String name, final String from, final String to, final String offset, final String limit) {
+        if (name == null) {
+            throw new RuntimeException("indexName should not be null");
+        }
+        this._prefix = prefix;
+        this._name = name;
+        this._from = from;
+        this._to = to;
+        this._offset = offset;
+        this._limit = limit;
+    }
+
+    @Override
+    public final void eval(final TaskContext ctx) {
+        final String name = ctx.template(_name);
+        final String from = _from == null ? null : ctx.template(_from);
+        final String to = _to == null ? null : ctx.template(_to);
+        final int offset = parseInt(ctx, _offset, 0);
+        final int limit = parseInt(ctx, _limit, -1);
+        ctx.graph().index(ctx.world(), ctx.time(), name, new Callback<NodeIndex>() {
+            @Override
+            public void on(final NodeIndex resolvedIndex) {
+                if (resolvedIndex != null) {
+                    final Callback<Node[]> collect = new Callback<Node[]>() {
+                        @Override
+                        public void on(Node[] result) {
+                            resolvedIndex.free();
+                            ctx.continueWith(ctx.wrap(result));
+                        }
+                    };
+                    if (_prefix) {
+                        resolvedIndex.findPrefix(collect, ctx.world(), ctx.time(), from, offset, limit);
+                    } else {
+                        resolvedIndex.findRange(collect, ctx.world(), ctx.time(), from, to, offset, limit);
+                    }
+                } else {
+                    ctx.continueWith(ctx.newResult());
+                }
+            }
+        });
+    }
+
+    private static int parseInt(final TaskContext ctx, final String param, final int defaultValue) {
+        if (param == null) {
+            return defaultValue;
+        }
+        final String templated = ctx.template(param);
+        if (templated == null || templated.length() == 0) {
+            return defaultValue;
+        }
+        return Integer.parseInt(templated);
+    }
+
+    @Override
+    public final void serialize(final Buffer builder) {
+        builder.writeString(name());
+        builder.writeChar(Constants.TASK_PARAM_OPEN);
+        TaskHelper.serializeString(_name, builder, true);
+        builder.writeChar(Constants.TASK_PARAM_SEP);
+        TaskHelper.serializeString(_from == null ? "" : _from, builder, true);
+        if (!_prefix) {
+            builder.writeChar(Constants.TASK_PARAM_SEP);
+            TaskHelper.serializeString(_to == null ? "" : _to, builder, true);
+        }
+        builder.writeChar(Constants.TASK_PARAM_SEP);
+        TaskHelper.serializeString(_offset == null ? "" : _offset, builder, true);
+        builder.writeChar(Constants.TASK_PARAM_SEP);
+        TaskHelper.serializeString(_limit == null ? "" : _limit, builder, true);
+        builder.writeChar(Constants.TASK_PARAM_CLOSE);
+    }
+
+    @Override
+    public final String name() {
+        if (_prefix) {
+            return CoreActionNames.READ_INDEX_PREFIX;
+        } else {
+            return CoreActionNames.READ_INDEX_RANGE;
+        }
+    }
+
+}
@@ -82,7 +82,7 @@ class ActionScript implements Action {
         scriptCtx.setAttribute("ctx", ctx, ScriptContext.ENGINE_SCOPE);
         scriptCtx.setAttribute("result", ctx.result(), ScriptContext.ENGINE_SCOPE);
         try {
-            Object result = TaskHelper.SCRIPT_ENGINE.eval(this._script, scriptCtx);
+            Object result = TaskHelper.evalScript(this._script, scriptCtx);
             if (!_async) {
                 if (result != null) {
                     ctx.continueWith(ctx.wrap(result));
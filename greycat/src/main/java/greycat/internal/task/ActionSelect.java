@@ -32,6 +32,8 @@ class ActionSelect implements Action {
 
     private final String _script;
     private final TaskFunctionSelect _filter;
+    private TaskFunctionSelect _translated = null;
+    private boolean _translationDone = false;
 
     ActionSelect(String script, TaskFunctionSelect filter) {
         this._script = script;
@@ -73,11 +75,18 @@ class ActionSelect implements Action {
      * return eval(this._script);
      */
     private boolean callScript(Node node, TaskContext context) {
-        ScriptContext scriptCtx = new SimpleScriptContext();
+        if (!_translationDone) {
+            _translated = TaskHelper.translateSelectScript(_script);
+            _translationDone = true;
+        }
+        if (_translated != null) {
+            return _translated.select(node, context);
+        }
+        final ScriptContext scriptCtx = new SimpleScriptContext();
         scriptCtx.setAttribute("node", node, ScriptContext.ENGINE_SCOPE);
         scriptCtx.setAttribute("context", context, ScriptContext.ENGINE_SCOPE);
         try {
-            return (boolean) TaskHelper.SCRIPT_ENGINE.eval(_script, scriptCtx);
+            return (boolean) TaskHelper.evalScript(_script, scriptCtx);
         } catch (ScriptException | ClassCastException e) {
             throw new RuntimeException(e);
         }
@@ -62,6 +62,7 @@ class ActionTraverseOrAttribute implements Action {
             final LArray ids = new LArray();
 
             Query query = null;
+            boolean verify = false;
             for (int i = 0; i < previousSize; i++) {
                 final Object loop = previousResult.get(i);
                 //TODO manage eNode here
@@ -86,14 +87,16 @@ class ActionTraverseOrAttribute implements Action {
                                 if (_params != null && _params.length > 0) {
                                     query = ctx.graph().newQuery();
                                     for (int k = 0; k < keys.length && k < _params.length; k++) {
-                                        query.addRaw(keys[i], ctx.template(_params[k]));
+                                        query.addRaw(keys[k], ctx.template(_params[k]));
                                     }
                                 } else {
                                     query = null;
                                 }
                                 if (query != null) {
+                                    //covering indexes already filter collisions
+                                    verify = verify || !relationIndexed.isCovering();
                                     final long[] candidates = relationIndexed.selectByQuery(query);
-                                    for (int k = 0; k < candidates.length; k++) {
+                                    for (int k = 0; candidates != null && k < candidates.length; k++) {
                                         worlds.add(casted.world());
                                         times.add(casted.time());
                                         ids.add(candidates[k]);
@@ -126,7 +129,7 @@ class ActionTraverseOrAttribute implements Action {
                     finalResult.add(loop);
                 }
             }
-            final Query finalQuery = query;
+            final Query finalQuery = verify ? query : null;
             Callback secondStep = new Callback() {
                 @Override
                 public void on(Object result) {
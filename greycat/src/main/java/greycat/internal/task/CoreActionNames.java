@@ -25,6 +25,8 @@ public class CoreActionNames {
     public static String DECLARE_INDEX = "declareIndex";
     public static String DECLARE_LOCAL_INDEX = "declareLocalIndex";
     public static String DECLARE_TIMED_INDEX = "declareTimedIndex";
+    public static String DECLARE_SORTED_INDEX = "declareSortedIndex";
+    public static String DECLARE_TIMED_SORTED_INDEX = "declareTimedSortedIndex";
     public static String CREATE_NODE = "createNode";
     public static String CREATE_TYPED_NODE = "createTypedNode";
     public static String CLONE_NODES = "cloneNodes";
@@ -47,6 +49,8 @@ public class CoreActionNames {
     public static String PRINT = "print";
     public static String PRINTLN = "println";
     public static String READ_INDEX = "readIndex";
+    public static String READ_INDEX_RANGE = "readIndexRange";
+    public static String READ_INDEX_PREFIX = "readIndexPrefix";
     public static String READ_VAR = "readVar";
     public static String REMOVE = "remove";
     public static String SAVE = "save";
@@ -59,6 +63,7 @@ public class CoreActionNames {
     public static String SET_ATTRIBUTE = "setAttribute";
     public static String TIME_SENSITIVITY = "timeSensitivity";
     public static String TIMEPOINTS = "timepoints";
+    public static String AGGREGATE = "aggregate";
     public static String TRAVEL_IN_TIME = "travelInTime";
     public static String TRAVEL_IN_WORLD = "travelInWorld";
     public static String WITH = "with";
@@ -293,6 +293,48 @@ public class CoreActions {
         return new ActionDeclareIndex(true, name, attributes);
     }
 
+    /**
+     * Declares a global index additionally ordered by the given attribute, enabling range and prefix reads.
+     *
+     * @param name      of the index
+     * @param attribute indexed and ordering attribute
+     * @return the action to chain
+     */
+    public static Action declareSortedIndex(String name, String attribute) {
+        return new ActionDeclareSortedIndex(false, name, attribute);
+    }
+
+    public static Action declareTimedSortedIndex(String name, String attribute) {
+        return new ActionDeclareSortedIndex(true, name, attribute);
+    }
+
+    /**
+     * Retrieves nodes of a sorted index whose value lies between two inclusive bounds, ordered by value.
+     *
+     * @param indexName name of the sorted index to use
+     * @param from      lower bound, empty for none
+     * @param to        upper bound, empty for none
+     * @param offset    number of nodes to skip, empty for none
+     * @param limit     maximum number of nodes, empty for all
+     * @return the action to chain
+     */
+    public static Action readIndexRange(String indexName, String from, String to, String offset, String limit) {
+        return new ActionReadSortedIndex(false, indexName, from, to, offset, limit);
+    }
+
+    /**
+     * Retrieves nodes of a sorted index whose string value starts with the prefix, ordered by value.
+     *
+     * @param indexName name of the sorted index to use
+     * @param prefix    prefix of the values
+     * @param offset    number of nodes to skip, empty for none
+     * @param limit     maximum number of nodes, empty for all
+     * @return the action to chain
+     */
+    public static Action readIndexPrefix(String indexName, String prefix, String offset, String limit) {
+        return new ActionReadSortedIndex(true, indexName, prefix, null, offset, limit);
+    }
+
     /**
      * Retrieves all index names.
      *
@@ -508,6 +550,18 @@ public class CoreActions {
         return new ActionTimepoints(from, to);
     }
 
+    /**
+     * Aggregates the values of the NodeValue of the current result between two times, in buckets of bucketSize.
+     *
+     * @param from       start time of the aggregation (included)
+     * @param to         end time of the aggregation (included)
+     * @param bucketSize duration of each bucket, 0 for a single one
+     * @return the action to chain
+     */
+    public static Action aggregate(String from, String to, String bucketSize) {
+        return new ActionAggregate(from, to, bucketSize);
+    }
+
     /**
      * Resets the result of the task context.
      *
@@ -663,10 +663,10 @@ public class CoreTask implements Task {
      * return eval(script);
      */
     private static boolean executeScript(String script, TaskContext context) {
-        ScriptContext scriptCtx = new SimpleScriptContext();
+        final ScriptContext scriptCtx = new SimpleScriptContext();
         scriptCtx.setAttribute("ctx", context, ScriptContext.ENGINE_SCOPE);
         try {
-            return (boolean) TaskHelper.SCRIPT_ENGINE.eval(script, scriptCtx);
+            return (boolean) TaskHelper.evalScript(script, scriptCtx);
         } catch (ScriptException | ClassCastException e) {
             e.printStackTrace();
             return false;
@@ -718,6 +718,15 @@ public class CoreTask implements Task {
                         return new ActionTimepoints((String) params[0], (String) params[1]);
                     }
                 });
+        registry.getOrCreateDeclaration(CoreActionNames.AGGREGATE)
+                .setParams(Type.STRING, Type.STRING, Type.STRING)
+                .setDescription("Aggregates (min, max, sum, count) the values of the NodeValue of the current result between a start and an end time, in buckets of a given duration.")
+                .setFactory(new ActionFactory() {
+                    @Override
+                    public Action create(Object[] params) {
+                        return new ActionAggregate((String) params[0], (String) params[1], (String) params[2]);
+                    }
+                });
         registry.getOrCreateDeclaration(CoreActionNames.DEFINE_AS_GLOBAL_VAR)
                 .setParams(Type.STRING)
                 .setDescription("Stores the task result as a global variable in the task context and starts a new scope (for sub tasks).")
@@ -977,6 +986,24 @@ public class CoreTask implements Task {
                     }
                 });
 
+        registry.getOrCreateDeclaration(CoreActionNames.READ_INDEX_RANGE)
+                .setParams(Type.STRING, Type.STRING, Type.STRING, Type.STRING, Type.STRING)
+                .setDescription("Retrieves nodes of a sorted index with a value between two bounds, ordered by value.")
+                .setFactory(new ActionFactory() {
+                    @Override
+                    public Action create(Object[] params) {
+                        return new ActionReadSortedIndex(false, (String) params[0], (String) params[1], (String) params[2], (String) params[3], (String) params[4]);
+                    }
+                });
+        registry.getOrCreateDeclaration(CoreActionNames.READ_INDEX_PREFIX)
+                .setParams(Type.STRING, Type.STRING, Type.STRING, Type.STRING)
+                .setDescription("Retrieves nodes of a sorted index with a string value starting with a prefix, ordered by value.")
+                .setFactory(new ActionFactory() {
+                    @Override
+                    public Action create(Object[] params) {
+                        return new ActionReadSortedIndex(true, (String) params[0], (String) params[1], null, (String) params[2], (String) params[3]);
+                    }
+                });
         registry.getOrCreateDeclaration(CoreActionNames.READ_INDEX)
                 .setParams(Type.STRING, Type.STRING_ARRAY)
                 .setDescription("Retrieves indexed nodes matching the query.")
@@ -1065,6 +1092,24 @@ public class CoreTask implements Task {
                         return new ActionDeclareIndex(true, (String) params[0], castedVarrargs);
                     }
                 });
+        registry.getOrCreateDeclaration(CoreActionNames.DECLARE_SORTED_INDEX)
+                .setParams(Type.STRING, Type.STRING)
+                .setDescription("Declare a new global index ordered by one attribute")
+                .setFactory(new ActionFactory() {
+                    @Override
+                    public Action create(Object[] params) {
+                        return new ActionDeclareSortedIndex(false, (String) params[0], (String) params[1]);
+                    }
+                });
+        registry.getOrCreateDeclaration(CoreActionNames.DECLARE_TIMED_SORTED_INDEX)
+                .setParams(Type.STRING, Type.STRING)
+                .setDescription("Declare a new global index ordered by one attribute with time management")
+                .setFactory(new ActionFactory() {
+                    @Override
+                    public Action create(Object[] params) {
+                        return new ActionDeclareSortedIndex(true, (String) params[0], (String) params[1]);
+                    }
+                });
         registry.getOrCreateDeclaration(CoreActionNames.UPDATE_INDEX)
                 .setParams(Type.STRING)
                 .setDescription("Update global index with nodes present in current context")
@@ -1401,6 +1446,11 @@ public class CoreTask implements Task {
         return then(CoreActions.timepoints(from, to));
     }
 
+    @Override
+    public final Task aggregate(String from, String to, String bucketSize) {
+        return then(CoreActions.aggregate(from, to, bucketSize));
+    }
+
     @Override
     public final Task attributesWithType(int filterType) {
         return then(CoreActions.attributesWithTypes(filterType));
@@ -1456,6 +1506,26 @@ public class CoreTask implements Task {
         return then(CoreActions.declareTimedIndex(name, attributes));
     }
 
+    @Override
+    public final Task declareSortedIndex(String name, String attribute) {
+        return then(CoreActions.declareSortedIndex(name, attribute));
+    }
+
+    @Override
+    public final Task declareTimedSortedIndex(String name, String attribute) {
+        return then(CoreActions.declareTimedSortedIndex(name, attribute));
+    }
+
+    @Override
+    public final Task readIndexRange(String name, String from, String to, String offset, String limit) {
+        return then(CoreActions.readIndexRange(name, from, to, offset, limit));
+    }
+
+    @Override
+    public final Task readIndexPrefix(String name, String prefix, String offset, String limit) {
+        return then(CoreActions.readIndexPrefix(name, prefix, offset, limit));
+    }
+
     @Override
     public final Task indexNames() {
         return then(CoreActions.indexNames());
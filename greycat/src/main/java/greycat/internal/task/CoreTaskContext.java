@@ -19,8 +19,6 @@ import greycat.*;
 import greycat.base.BaseTaskResult;
 import greycat.chunk.StateChunk;
 import greycat.internal.CoreConstants;
-import greycat.internal.task.math.CoreMathExpressionEngine;
-import greycat.internal.task.math.MathExpressionEngine;
 import greycat.base.BaseNode;
 import greycat.struct.Buffer;
 import greycat.utility.*;
@@ -614,126 +612,86 @@ class CoreTaskContext implements TaskContext {
 
     @Override
     public final String template(String input) {
-        if (input == null) {
-            return null;
+        if (input == null || input.indexOf("{{") == -1) {
+            return input;
         }
-        int cursor = 0;
-        StringBuilder buffer = null;
-        int previousPos = -1;
-        while (cursor < input.length()) {
-            char currentChar = input.charAt(cursor);
-            char previousChar = '0';
-            char nextChar = '0';
-            if (cursor > 0) {
-                previousChar = input.charAt(cursor - 1);
-            }
-            if (cursor + 1 < input.length()) {
-                nextChar = input.charAt(cursor + 1);
-            }
-            if (currentChar == '{' && previousChar == '{') {
-                previousPos = cursor + 1;
-            } else if (previousPos != -1 && currentChar == '}' && previousChar == '}') {
-                if (buffer == null) {
-                    buffer = new StringBuilder();
-                    buffer.append(input.substring(0, previousPos - 2));
-                }
-                String contextKey = input.substring(previousPos, cursor - 1).trim();
-                if (contextKey.length() > 0 && contextKey.charAt(0) == '=') { //Math expression
-                    final MathExpressionEngine mathEngine = CoreMathExpressionEngine.parse(contextKey.substring(1));
-                    double value = mathEngine.eval(null, this, new HashMap<String, Double>());
+        final TaskTemplate compiled = TaskTemplate.compile(input);
+        if (compiled._static) {
+            return input;
+        }
+        final StringBuilder buffer = new StringBuilder();
+        for (int i = 0; i < compiled._kinds.length; i++) {
+            switch (compiled._kinds[i]) {
+                case TaskTemplate.LITERAL:
+                    buffer.append(compiled._values[i]);
+                    break;
+                case TaskTemplate.MATH:
+                    double value = compiled._engines[i].eval(null, this, null);
                     //supress ".0" if it exists
                     String valueStr = value + "";
-                    for (int i = valueStr.length() - 1; i >= 0; i--) {
-                        if (valueStr.charAt(i) == '.') {
-                            valueStr = valueStr.substring(0, i);
+                    for (int j = valueStr.length() - 1; j >= 0; j--) {
+                        if (valueStr.charAt(j) == '.') {
+                            valueStr = valueStr.substring(0, j);
                             break;
-                        } else if (valueStr.charAt(i) != '0') {
+                        } else if (valueStr.charAt(j) != '0') {
                             break;
                         }
                     }
                     buffer.append(valueStr);
-                } else {//variable name or array access
-                    //check if it is an array access
-                    int indexArray = -1;
-                    if (contextKey.charAt(contextKey.length() - 1) == ']') {
-                        int indexStart = -1;
-                        for (int i = contextKey.length() - 3; i >= 0; i--) {
-                            if (contextKey.charAt(i) == '[') {
-                                indexStart = i + 1;
-                                break;
-                            }
-                        }
-                        if (indexStart != -1) {
-                            indexArray = TaskHelper.parseInt(contextKey.substring(indexStart, contextKey.length() - 1));
-                            contextKey = contextKey.substring(0, indexStart - 1);
-                            if (indexArray < 0) {
-                                throw new RuntimeException("Array index out of range: " + indexArray);
-                            }
-                        }
-                    }
-                    TaskResult foundVar = variable(contextKey);
-                    if (foundVar == null) {
-                        switch (contextKey) {
-                            case "result": {
-                                foundVar = result();
-                            }
-                            break;
-                            case "time": {
-                                foundVar = wrap(_time);
-                            }
-                            break;
-                            case "world": {
-                                foundVar = wrap(_world);
-                            }
-                            break;
-                        }
-                    }
-                    if (foundVar != null) {
-                        if (foundVar.size() == 1 || indexArray != -1) {
-                            //show element of array
-                            Object toShow = null;
-                            if (indexArray == -1) {
-                                toShow = foundVar.get(0);
-                            } else {
-                                toShow = foundVar.get(indexArray);
-                            }
-                            buffer.append(toShow);
-                        } else {
-                            //show all
-                            TaskResultIterator it = foundVar.iterator();
-                            buffer.append("[");
-                            boolean isFirst = true;
-                            Object next = it.next();
-                            while (next != null) {
-                                if (isFirst) {
-                                    isFirst = false;
-                                } else {
-                                    buffer.append(",");
-                                }
-                                buffer.append(next);
-                                next = it.next();
-                            }
-                            buffer.append("]");
-                        }
-                    }
+                    break;
+                case TaskTemplate.VARIABLE:
+                    appendVariable(buffer, compiled._values[i], compiled._indexes[i]);
+                    break;
+            }
+        }
+        return buffer.toString();
+    }
+
+    private void appendVariable(final StringBuilder buffer, final String contextKey, final int indexArray) {
+        TaskResult foundVar = variable(contextKey);
+        if (foundVar == null) {
+            switch (contextKey) {
+                case "result": {
+                    foundVar = result();
                 }
-                previousPos = -1;
+                break;
+                case "time": {
+                    foundVar = wrap(_time);
+                }
+                break;
+                case "world": {
+                    foundVar = wrap(_world);
+                }
+                break;
+            }
+        }
+        if (foundVar != null) {
+            if (foundVar.size() == 1 || indexArray != -1) {
+                //show element of array
+                Object toShow = null;
+                if (indexArray == -1) {
+                    toShow = foundVar.get(0);
+                } else {
+                    toShow = foundVar.get(indexArray);
+                }
+                buffer.append(toShow);
             } else {
-                if (previousPos == -1 && buffer != null) {
-                    //check if we are not opening a {{
-                    if (currentChar == '{' && nextChar == '{') {
-                        //noop
+                //show all
+                TaskResultIterator it = foundVar.iterator();
+                buffer.append("[");
+                boolean isFirst = true;
+                Object next = it.next();
+                while (next != null) {
+                    if (isFirst) {
+                        isFirst = false;
                     } else {
-                        buffer.append(input.charAt(cursor));
+                        buffer.append(",");
                     }
+                    buffer.append(next);
+                    next = it.next();
                 }
+                buffer.append("]");
             }
-            cursor++;
-        }
-        if (buffer == null) {
-            return input;
-        } else {
-            return buffer.toString();
         }
     }
 
@@ -0,0 +1,393 @@
+/**
+ * Copyright 2017 The GreyCat Authors.  All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package greycat.internal.task;
+
+import greycat.Node;
+import greycat.TaskContext;
+import greycat.TaskFunctionSelect;
+import greycat.plugin.ScriptTranslator;
+
+/**
+ * Default translator of simple select scripts.
+ * Supported scripts are comparisons joined by && and ||, without parentheses nor negation, whose operands are
+ * node.get('attribute'), node.id(), node.time(), node.world(), numbers, quoted strings, true, false and null.
+ * Comparisons follow the JavaScript semantics of ==, ===, !=, !==, <, <=, > and >= on such primitive values.
+ *
+ * @ignore ts
+ */
+final class SelectScriptTranslator implements ScriptTranslator {
+
+    private static final byte EQ = 0;
+    private static final byte STRICT_EQ = 1;
+    private static final byte NEQ = 2;
+    private static final byte STRICT_NEQ = 3;
+    private static final byte LT = 4;
+    private static final byte LTE = 5;
+    private static final byte GT = 6;
+    private static final byte GTE = 7;
+
+    private static final String[] OPERATORS = {"===", "!==", "==", "!=", "<=", ">=", "<", ">"};
+    private static final byte[] OPERATOR_CODES = {STRICT_EQ, STRICT_NEQ, EQ, NEQ, LTE, GTE, LT, GT};
+
+    @Override
+    public final TaskFunctionSelect translate(final String script) {
+        if (script == null) {
+            return null;
+        }
+        final Parser parser = new Parser(script);
+        final Condition condition = parser.parseOr();
+        if (condition == null || !parser.end()) {
+            return null;
+        }
+        return new TaskFunctionSelect() {
+            @Override
+            public boolean select(final Node node, final TaskContext context) {
+                return condition.eval(node);
+            }
+        };
+    }
+
+    private static final class Operand {
+
+        private static final byte CONSTANT = 0;
+        private static final byte ATTRIBUTE = 1;
+        private static final byte ID = 2;
+        private static final byte TIME = 3;
+        private static final byte WORLD = 4;
+
+        private final byte _kind;
+        private final Object _value;
+
+        private Operand(final byte kind, final Object value) {
+            this._kind = kind;
+            this._value = value;
+        }
+
+        private Object value(final Node node) {
+            switch (_kind) {
+                case ATTRIBUTE:
+                    return node.get((String) _value);
+                case ID:
+                    return node.id();
+                case TIME:
+                    return node.time();
+                case WORLD:
+                    return node.world();
+                default:
+                    return _value;
+            }
+        }
+    }
+
+    private static final class Condition {
+
+        private static final byte COMPARE = 0;
+        private static final byte AND = 1;
+        private static final byte OR = 2;
+        private static final byte CONSTANT = 3;
+
+        private final byte _kind;
+        private final Condition _left;
+        private final Condition _right;
+        private final Operand _leftOperand;
+        private final Operand _rightOperand;
+        private final byte _operator;
+        private final boolean _constant;
+
+        private Condition(final byte kind, final Condition left, final Condition right, final Operand leftOperand, final Operand rightOperand, final byte operator, final boolean constant) {
+            this._kind = kind;
+            this._left = left;
+            this._right = right;
+            this._leftOperand = leftOperand;
+            this._rightOperand = rightOperand;
+            this._operator = operator;
+            this._constant = constant;
+        }
+
+        private boolean eval(final Node node) {
+            switch (_kind) {
+                case AND:
+                    return _left.eval(node) && _right.eval(node);
+                case OR:
+                    return _left.eval(node) || _right.eval(node);
+                case CONSTANT:
+                    return _constant;
+                default:
+                    return compare(_leftOperand.value(node), _operator, _rightOperand.value(node));
+            }
+        }
+    }
+
+    private static boolean compare(final Object left, final byte operator, final Object right) {
+        switch (operator) {
+            case EQ:
+                return looseEquals(left, right);
+            case NEQ:
+                return !looseEquals(left, right);
+            case STRICT_EQ:
+                return strictEquals(left, right);
+            case STRICT_NEQ:
+                return !strictEquals(left, right);
+        }
+        final int comparison;
+        if (left instanceof String && right instanceof String) {
+            comparison = ((String) left).compareTo((String) right);
+        } else {
+            final double leftNumber = left == null ? 0 : toNumber(left);
+            final double rightNumber = right == null ? 0 : toNumber(right);
+            if (leftNumber != leftNumber || rightNumber != rightNumber) {
+                return false;
+            }
+            comparison = Double.compare(leftNumber, rightNumber);
+        }
+        switch (operator) {
+            case LT:
+                return comparison < 0;
+            case LTE:
+                return comparison <= 0;
+            case GT:
+                return comparison > 0;
+            default:
+                return comparison >= 0;
+        }
+    }
+
+    private static boolean looseEquals(final Object left, final Object right) {
+        if (left == null || right == null) {
+            return left == right;
+        }
+        if ((left instanceof String && right instanceof String) || (left instanceof Boolean && right instanceof Boolean)) {
+            return left.equals(right);
+        }
+        return toNumber(left) == toNumber(right);
+    }
+
+    private static boolean strictEquals(final Object left, final Object right) {
+        if (left == null || right == null) {
+            return left == right;
+        }
+        if (left instanceof Number && right instanceof Number) {
+            return ((Number) left).doubleValue() == ((Number) right).doubleValue();
+        }
+        if ((left instanceof String && right instanceof String) || (left instanceof Boolean && right instanceof Boolean)) {
+            return left.equals(right);
+        }
+        return false;
+    }
+
+    private static double toNumber(final Object value) {
+        if (value instanceof Number) {
+            return ((Number) value).doubleValue();
+        }
+        if (value instanceof Boolean) {
+            return ((Boolean) value) ? 1 : 0;
+        }
+        if (value instanceof String) {
+            final String trimmed = ((String) value).trim();
+            if (trimmed.length() == 0) {
+                return 0;
+            }
+            try {
+                return Double.parseDouble(trimmed);
+            } catch (NumberFormatException e) {
+                return Double.NaN;
+            }
+        }
+        return Double.NaN;
+    }
+
+    private static final class Parser {
+
+        private final String _script;
+        private int _cursor = 0;
+
+        private Parser(final String script) {
+            this._script = script;
+        }
+
+        private boolean end() {
+            skipWhitespaces();
+            if (_cursor < _script.length() && _script.charAt(_cursor) == ';') {
+                _cursor++;
+                skipWhitespaces();
+            }
+            return _cursor == _script.length();
+        }
+
+        private Condition parseOr() {
+            Condition left = parseAnd();
+            while (left != null && consume("||")) {
+                final Condition right = parseAnd();
+                left = right == null ? null : new Condition(Condition.OR, left, right, null, null, (byte) -1, false);
+            }
+            return left;
+        }
+
+        private Condition parseAnd() {
+            Condition left = parseComparison();
+            while (left != null && consume("&&")) {
+                final Condition right = parseComparison();
+                left = right == null ? null : new Condition(Condition.AND, left, right, null, null, (byte) -1, false);
+            }
+            return left;
+        }
+
+        private Condition parseComparison() {
+            final Operand left = parseOperand();
+            if (left == null) {
+                return null;
+            }
+            final byte operator = parseOperator();
+            if (operator == -1) {
+                if (left._kind == Operand.CONSTANT && left._value instanceof Boolean) {
+                    return new Condition(Condition.CONSTANT, null, null, null, null, (byte) -1, (Boolean) left._value);
+                }
+                return null;
+            }
+            final Operand right = parseOperand();
+            if (right == null) {
+                return null;
+            }
+            return new Condition(Condition.COMPARE, null, null, left, right, operator, false);
+        }
+
+        private byte parseOperator() {
+            for (int i = 0; i < OPERATORS.length; i++) {
+                if (consume(OPERATORS[i])) {
+                    return OPERATOR_CODES[i];
+                }
+            }
+            return -1;
+        }
+
+        private Operand parseOperand() {
+            skipWhitespaces();
+            if (_cursor >= _script.length()) {
+                return null;
+            }
+            final char current = _script.charAt(_cursor);
+            if (current == '\'' || current == '"') {
+                final String literal = parseString();
+                return literal == null ? null : new Operand(Operand.CONSTANT, literal);
+            }
+            if (Character.isDigit(current) || current == '-' || current == '.') {
+                final int start = _cursor;
+                _cursor++;
+                while (_cursor < _script.length()) {
+                    final char c = _script.charAt(_cursor);
+                    if (Character.isDigit(c) || c == '.' || c == 'e' || c == 'E' || ((c == '-' || c == '+') && (_script.charAt(_cursor - 1) == 'e' || _script.charAt(_cursor - 1) == 'E'))) {
+                        _cursor++;
+                    } else {
+                        break;
+                    }
+                }
+                try {
+                    return new Operand(Operand.CONSTANT, Double.parseDouble(_script.substring(start, _cursor)));
+                } catch (NumberFormatException e) {
+                    return null;
+                }
+            }
+            if (keyword("true")) {
+                return new Operand(Operand.CONSTANT, Boolean.TRUE);
+            }
+            if (keyword("false")) {
+                return new Operand(Operand.CONSTANT, Boolean.FALSE);
+            }
+            if (keyword("null")) {
+                return new Operand(Operand.CONSTANT, null);
+            }
+            if (!consume("node.")) {
+                return null;
+            }
+            if (keyword("get")) {
+                if (!consume("(")) {
+                    return null;
+                }
+                skipWhitespaces();
+                final String name = parseString();
+                if (name == null || !consume(")")) {
+                    return null;
+                }
+                return new Operand(Operand.ATTRIBUTE, name);
+            }
+            final byte kind;
+            if (keyword("id")) {
+                kind = Operand.ID;
+            } else if (keyword("time")) {
+                kind = Operand.TIME;
+            } else if (keyword("world")) {
+                kind = Operand.WORLD;
+            } else {
+                return null;
+            }
+            if (!consume("(") || !consume(")")) {
+                return null;
+            }
+            return new Operand(kind, null);
+        }
+
+        private String parseString() {
+            if (_cursor >= _script.length()) {
+                return null;
+            }
+            final char quote = _script.charAt(_cursor);
+            if (quote != '\'' && quote != '"') {
+                return null;
+            }
+            final int end = _script.indexOf(quote, _cursor + 1);
+            if (end == -1) {
+                return null;
+            }
+            final String literal = _script.substring(_cursor + 1, end);
+            if (literal.indexOf('\\') != -1) {
+                return null;
+            }
+            _cursor = end + 1;
+            return literal;
+        }
+
+        /**
+         * Consumes a keyword, only if it is not the prefix of a longer identifier.
+         */
+        private boolean keyword(final String word) {
+            if (!_script.startsWith(word, _cursor)) {
+                return false;
+            }
+            final int next = _cursor + word.length();
+            if (next < _script.length() && (Character.isLetterOrDigit(_script.charAt(next)) || _script.charAt(next) == '_' || _script.charAt(next) == '$')) {
+                return false;
+            }
+            _cursor = next;
+            return true;
+        }
+
+        private boolean consume(final String token) {
+            skipWhitespaces();
+            if (_script.startsWith(token, _cursor)) {
+                _cursor += token.length();
+                return true;
+            }
+            return false;
+        }
+
+        private void skipWhitespaces() {
+            while (_cursor < _script.length() && Character.isWhitespace(_script.charAt(_cursor))) {
+                _cursor++;
+            }
+        }
+    }
+
+}
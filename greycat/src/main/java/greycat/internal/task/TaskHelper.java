@@ -17,12 +17,21 @@ package greycat.internal.task;
 
 import greycat.Constants;
 import greycat.Node;
+import greycat.TaskFunctionSelect;
 import greycat.Type;
 import greycat.base.BaseNode;
+import greycat.plugin.ScriptTranslator;
 import greycat.struct.Buffer;
+import greycat.utility.BoundedCache;
 
+import javax.script.Compilable;
+import javax.script.CompiledScript;
+import javax.script.ScriptContext;
 import javax.script.ScriptEngine;
 import javax.script.ScriptEngineManager;
+import javax.script.ScriptException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 public class TaskHelper {
 
@@ -31,6 +40,59 @@ public class TaskHelper {
      */
     static final ScriptEngine SCRIPT_ENGINE = new ScriptEngineManager().getEngineByName("JavaScript");
 
+    /**
+     * @ignore ts
+     */
+    private static final BoundedCache<CompiledScript> SCRIPT_CACHE = new BoundedCache<CompiledScript>(1024);
+
+    /**
+     * @ignore ts
+     */
+    private static final List<ScriptTranslator> SCRIPT_TRANSLATORS = new CopyOnWriteArrayList<ScriptTranslator>(new ScriptTranslator[]{new SelectScriptTranslator()});
+
+    /**
+     * Evaluates a script, compiling it only once per script text when the engine supports it.
+     * Only the compiled form is shared: callers pass a fresh context, so globals defined by a script never reach another one.
+     *
+     * @ignore ts
+     */
+    static Object evalScript(final String script, final ScriptContext scriptCtx) throws ScriptException {
+        if (SCRIPT_ENGINE instanceof Compilable) {
+            CompiledScript compiled = SCRIPT_CACHE.get(script);
+            if (compiled == null) {
+                compiled = ((Compilable) SCRIPT_ENGINE).compile(script);
+                SCRIPT_CACHE.put(script, compiled);
+            }
+            return compiled.eval(scriptCtx);
+        }
+        return SCRIPT_ENGINE.eval(script, scriptCtx);
+    }
+
+    /**
+     * Registers a translator of select scripts, tried before the previously registered ones.
+     *
+     * @param translator translator to register
+     * @ignore ts
+     */
+    public static void addScriptTranslator(final ScriptTranslator translator) {
+        SCRIPT_TRANSLATORS.add(0, translator);
+    }
+
+    /**
+     * @param script select script to translate
+     * @return the native selection function of the first translator supporting the script, null otherwise
+     * @ignore ts
+     */
+    static TaskFunctionSelect translateSelectScript(final String script) {
+        for (ScriptTranslator translator : SCRIPT_TRANSLATORS) {
+            final TaskFunctionSelect translated = translator.translate(script);
+            if (translated != null) {
+                return translated;
+            }
+        }
+        return null;
+    }
+
     /**
      * Return an array with all nodes contains in the input.
      * If the strict mode is enable, the input should contain only Node element. Otherwise, the not Node element will
@@ -0,0 +1,157 @@
+/**
+ * Copyright 2017 The GreyCat Authors.  All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package greycat.internal.task;
+
+import greycat.internal.task.math.CoreMathExpressionEngine;
+import greycat.internal.task.math.MathExpressionEngine;
+import greycat.utility.BoundedCache;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compiled form of a templated action parameter, as a list of literal, variable (optionally indexed) and math
+ * expression segments.
+ * Compiled templates hold no evaluation state, they are cached by input so that each parameter is scanned only once.
+ */
+final class TaskTemplate {
+
+    static final byte LITERAL = 0;
+    static final byte VARIABLE = 1;
+    static final byte MATH = 2;
+
+    private static final BoundedCache<TaskTemplate> _cache = new BoundedCache<TaskTemplate>(4096);
+
+    /**
+     * True if the input contains no complete {{...}} block, in which case it is used as is.
+     */
+    final boolean _static;
+    final byte[] _kinds;
+    /**
+     * Literal text for LITERAL segments, variable name for VARIABLE segments.
+     */
+    final String[] _values;
+    /**
+     * Array index for VARIABLE segments, -1 when the whole variable is used.
+     */
+    final int[] _indexes;
+    final MathExpressionEngine[] _engines;
+
+    static TaskTemplate compile(final String input) {
+        TaskTemplate compiled = _cache.get(input);
+        if (compiled == null) {
+            compiled = new TaskTemplate(input);
+            _cache.put(input, compiled);
+        }
+        return compiled;
+    }
+
+    private TaskTemplate(final String input) {
+        final List<Byte> kinds = new ArrayList<Byte>();
+        final List<String> values = new ArrayList<String>();
+        final List<Integer> indexes = new ArrayList<Integer>();
+        final List<MathExpressionEngine> engines = new ArrayList<MathExpressionEngine>();
+        StringBuilder literal = null;
+        int cursor = 0;
+        int previousPos = -1;
+        while (cursor < input.length()) {
+            char currentChar = input.charAt(cursor);
+            char previousChar = '0';
+            char nextChar = '0';
+            if (cursor > 0) {
+                previousChar = input.charAt(cursor - 1);
+            }
+            if (cursor + 1 < input.length()) {
+                nextChar = input.charAt(cursor + 1);
+            }
+            if (currentChar == '{' && previousChar == '{') {
+                previousPos = cursor + 1;
+            } else if (previousPos != -1 && currentChar == '}' && previousChar == '}') {
+                if (literal == null) {
+                    literal = new StringBuilder();
+                    literal.append(input.substring(0, previousPos - 2));
+                }
+                if (literal.length() > 0) {
+                    kinds.add(LITERAL);
+                    values.add(literal.toString());
+                    indexes.add(-1);
+                    engines.add(null);
+                    literal = new StringBuilder();
+                }
+                String contextKey = input.substring(previousPos, cursor - 1).trim();
+                if (contextKey.length() > 0 && contextKey.charAt(0) == '=') { //Math expression
+                    kinds.add(MATH);
+                    values.add(null);
+                    indexes.add(-1);
+                    engines.add(CoreMathExpressionEngine.parse(contextKey.substring(1)));
+                } else {//variable name or array access
+                    //check if it is an array access
+                    int indexArray = -1;
+                    if (contextKey.charAt(contextKey.length() - 1) == ']') {
+                        int indexStart = -1;
+                        for (int i = contextKey.length() - 3; i >= 0; i--) {
+                            if (contextKey.charAt(i) == '[') {
+                                indexStart = i + 1;
+                                break;
+                            }
+                        }
+                        if (indexStart != -1) {
+                            indexArray = TaskHelper.parseInt(contextKey.substring(indexStart, contextKey.length() - 1));
+                            contextKey = contextKey.substring(0, indexStart - 1);
+                            if (indexArray < 0) {
+                                throw new RuntimeException("Array index out of range: " + indexArray);
+                            }
+                        }
+                    }
+                    kinds.add(VARIABLE);
+                    values.add(contextKey);
+                    indexes.add(indexArray);
+                    engines.add(null);
+                }
+                previousPos = -1;
+            } else {
+                if (previousPos == -1 && literal != null) {
+                    //check if we are not opening a {{
+                    if (currentChar == '{' && nextChar == '{') {
+                        //noop
+                    } else {
+                        literal.append(currentChar);
+                    }
+                }
+            }
+            cursor++;
+        }
+        if (literal != null && literal.length() > 0) {
+            kinds.add(LITERAL);
+            values.add(literal.toString());
+            indexes.add(-1);
+            engines.add(null);
+        }
+        _static = literal == null;
+        final int size = kinds.size();
+        _kinds = new byte[size];
+        _values = new String[size];
+        _indexes = new int[size];
+        _engines = new MathExpressionEngine[size];
+        for (int i = 0; i < size; i++) {
+            _kinds[i] = kinds.get(i);
+            _values[i] = values.get(i);
+            _indexes[i] = indexes.get(i);
+            _engines[i] = engines.get(i);
+        }
+    }
+
+}
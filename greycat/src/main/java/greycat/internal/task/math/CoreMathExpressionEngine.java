@@ -18,6 +18,7 @@ package greycat.internal.task.math;
 import greycat.Node;
 import greycat.TaskContext;
 import greycat.TaskResult;
+import greycat.utility.BoundedCache;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -28,14 +29,28 @@ public class CoreMathExpressionEngine implements MathExpressionEngine {
 
     static final char decimalSeparator = '.';
     static final char minusSign = '-';
+
+    private static final BoundedCache<MathExpressionEngine> _cache = new BoundedCache<MathExpressionEngine>(1024);
+
     private final MathToken[] _cacheAST;
+    private final int _maxDepth;
 
     private CoreMathExpressionEngine(String expression) {
         _cacheAST = buildAST(shuntingYard(expression));
+        _maxDepth = maxDepth(_cacheAST);
     }
 
-    public static synchronized MathExpressionEngine parse(String p_expression) {
-        return new CoreMathExpressionEngine(p_expression);
+    /**
+     * Parses an expression, or returns the engine cached for the same expression.
+     * Engines hold no evaluation state and can therefore be shared between threads.
+     */
+    public static MathExpressionEngine parse(String p_expression) {
+        MathExpressionEngine engine = _cache.get(p_expression);
+        if (engine == null) {
+            engine = new CoreMathExpressionEngine(p_expression);
+            _cache.put(p_expression, engine);
+        }
+        return engine;
     }
 
     /**
@@ -169,119 +184,93 @@ public class CoreMathExpressionEngine implements MathExpressionEngine {
         if (this._cacheAST == null) {
             throw new RuntimeException("Call parse before");
         }
-        Stack<Double> stack = new Stack<Double>();
+        final double[] stack = new double[_maxDepth];
+        int top = 0;
         for (int ii = 0; ii < _cacheAST.length; ii++) {
             MathToken mathToken = _cacheAST[ii];
             switch (mathToken.type()) {
                 case 0:
-                    double v1 = stack.pop();
-                    double v2 = stack.pop();
-                    MathOperation castedOp = (MathOperation) mathToken;
-                    stack.push(castedOp.eval(v2, v1));
+                    top--;
+                    stack[top - 1] = ((MathOperation) mathToken).eval(stack[top - 1], stack[top]);
                     break;
                 case 1:
                     MathFunction castedFunction = (MathFunction) mathToken;
-                    double[] p = new double[castedFunction.getNumParams()];
-                    for (int i = castedFunction.getNumParams() - 1; i >= 0; i--) {
-                        p[i] = stack.pop();
-                    }
-                    stack.push(castedFunction.eval(p));
+                    final int base = top - castedFunction.getNumParams();
+                    stack[base] = castedFunction.eval(stack, base);
+                    top = base + 1;
                     break;
                 case 2:
-                    MathDoubleToken castedDouble = (MathDoubleToken) mathToken;
-                    stack.push(castedDouble.content());
+                    stack[top++] = ((MathDoubleToken) mathToken).content();
                     break;
                 case 3:
-                    MathFreeToken castedFreeToken = (MathFreeToken) mathToken;
-                    Double resolvedVar = null;
-                    if (variables != null) {
-                        resolvedVar = variables.get(castedFreeToken.content());
-                    }
-                    if (resolvedVar != null) {
-                        stack.push(resolvedVar);
-                    } else {
-                        if ("TIME".equals(castedFreeToken.content())) {
-                            stack.push((double) context.time());
-                        } else {
-                            String tokenName = castedFreeToken.content().trim();
-                            Object resolved = null;
-                            String cleanName = null;
-                            if (context != null) {
-                                if (tokenName.length() > 0 && tokenName.charAt(0) == '{' && tokenName.charAt(tokenName.length() - 1) == '}') {
-                                    resolved = context.get(castedFreeToken.content().substring(1, tokenName.length() - 1));
-                                    cleanName = castedFreeToken.content().substring(1, tokenName.length() - 1);
-                                } else {
-                                    resolved = context.get(castedFreeToken.content());
-                                    cleanName = castedFreeToken.content();
-                                }
-                                if (cleanName.length() > 0 && cleanName.charAt(0) == '$') {
-                                    cleanName = cleanName.substring(1);
-                                }
-                            }
-                            if (taskContext != null) {
-                                if (resolved == null) {
-                                    if (tokenName.charAt(tokenName.length() - 1) == ']') { //array access
-                                        int indexStart = -1;
-                                        int indexArray = -1;
-                                        for (int i = tokenName.length() - 3; i >= 0; i--) {
-                                            if (tokenName.charAt(i) == '[') {
-                                                indexStart = i + 1;
-                                                break;
-                                            }
-                                        }
-
-                                        if (indexStart != -1) {
-                                            indexArray = parseInt(tokenName.substring(indexStart, tokenName.length() - 1));
-                                            tokenName = tokenName.substring(0, indexStart - 1);
-                                        }
-
-                                        TaskResult varRes = taskContext.variable(tokenName);
-                                        if(varRes == null && tokenName.equals("result")) {
-                                            varRes = taskContext.result();
-                                        }
-                                        if (varRes != null && varRes.size() > indexArray) {
-                                            resolved = varRes.get(indexArray);
-                                        }
-                                    } else {
-                                        TaskResult varRes = taskContext.variable(tokenName);
-                                        if(varRes == null && tokenName.equals("result")) {
-                                            varRes = taskContext.result();
-                                        }
-                                        if(varRes != null) {
-                                            resolved = varRes.get(0);
-                                        }
-                                    }
-                                }
-                            }
-                            if (resolved != null) {
-                                double resultAsDouble = parseDouble(resolved.toString());
-                                variables.put(cleanName, resultAsDouble);
-                                String valueString = resolved.toString();
-                                if (valueString.equals("true")) {
-                                    stack.push(1.0);
-                                } else if (valueString.equals("false")) {
-                                    stack.push(0.0);
-                                } else {
-                                    try {
-                                        stack.push(resultAsDouble);
-                                    } catch (Exception e) {
-                                        //noop
-                                    }
-                                }
-                            } else {
-                                throw new RuntimeException("Unknow variable for name " + castedFreeToken.content());
-                            }
-                        }
-                    }
+                    stack[top++] = resolve((MathFreeToken) mathToken, context, taskContext, variables);
                     break;
             }
         }
-        Double result = stack.pop();
-        if (result == null) {
+        if (top == 0) {
             return 0;
-        } else {
-            return result;
         }
+        return stack[top - 1];
+    }
+
+    private double resolve(final MathFreeToken token, final Node context, final TaskContext taskContext, final Map<String, Double> variables) {
+        if (variables != null) {
+            final Double resolvedVar = variables.get(token.content());
+            if (resolvedVar != null) {
+                return resolvedVar;
+            }
+        }
+        if (token.isTime()) {
+            return (double) context.time();
+        }
+        Object resolved = null;
+        if (context != null) {
+            resolved = context.get(token.attribute());
+        }
+        if (resolved == null && taskContext != null) {
+            final String name = token.variable();
+            final int index = token.index();
+            TaskResult varRes = taskContext.variable(name);
+            if (varRes == null && name.equals("result")) {
+                varRes = taskContext.result();
+            }
+            if (varRes != null) {
+                if (index == -1) {
+                    resolved = varRes.get(0);
+                } else if (varRes.size() > index) {
+                    resolved = varRes.get(index);
+                }
+            }
+        }
+        if (resolved == null) {
+            throw new RuntimeException("Unknow variable for name " + token.content());
+        }
+        return toDouble(resolved);
+    }
+
+    /**
+     * Computes the deepest evaluation stack required by an expression, so that evaluation uses a single array.
+     */
+    private static int maxDepth(final MathToken[] ast) {
+        int depth = 0;
+        int max = 1;
+        for (int i = 0; i < ast.length; i++) {
+            switch (ast[i].type()) {
+                case 0:
+                    depth--;
+                    break;
+                case 1:
+                    depth = depth - ((MathFunction) ast[i]).getNumParams() + 1;
+                    break;
+                default:
+                    depth++;
+                    break;
+            }
+            if (depth > max) {
+                max = depth;
+            }
+        }
+        return max;
     }
 
     private MathToken[] buildAST(List<String> rpn) {
@@ -319,10 +308,24 @@ public class CoreMathExpressionEngine implements MathExpressionEngine {
 
     /**
      * @native ts
-     * return parseInt(val);
+     * if (value === true || value === "true") { return 1; }
+     * if (value === false || value === "false") { return 0; }
+     * return parseFloat(value);
      */
-    private int parseInt(String val) {
-        return Integer.parseInt(val);
+    private double toDouble(Object value) {
+        if (value instanceof Number) {
+            return ((Number) value).doubleValue();
+        }
+        if (value instanceof Boolean) {
+            return ((Boolean) value) ? 1 : 0;
+        }
+        final String valueString = value.toString();
+        if (valueString.equals("true")) {
+            return 1;
+        } else if (valueString.equals("false")) {
+            return 0;
+        }
+        return parseDouble(valueString);
     }
 
 
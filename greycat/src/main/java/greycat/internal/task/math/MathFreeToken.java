@@ -17,16 +17,76 @@ package greycat.internal.task.math;
 
 class MathFreeToken implements MathToken {
 
-    private String _content;
+    private final String _content;
+    private final boolean _isTime;
+    /**
+     * Attribute name looked up on the context node.
+     */
+    private final String _attribute;
+    /**
+     * Variable name looked up on the task context.
+     */
+    private final String _variable;
+    /**
+     * Index read from the variable, -1 when the token is not an array access.
+     */
+    private final int _index;
 
     MathFreeToken(String content) {
         this._content = content;
+        this._isTime = "TIME".equals(content);
+        String tokenName = content.trim();
+        if (tokenName.length() > 0 && tokenName.charAt(0) == '{' && tokenName.charAt(tokenName.length() - 1) == '}') {
+            this._attribute = content.substring(1, tokenName.length() - 1);
+        } else {
+            this._attribute = content;
+        }
+        int index = -1;
+        if (tokenName.length() > 0 && tokenName.charAt(tokenName.length() - 1) == ']') { //array access
+            int indexStart = -1;
+            for (int i = tokenName.length() - 3; i >= 0; i--) {
+                if (tokenName.charAt(i) == '[') {
+                    indexStart = i + 1;
+                    break;
+                }
+            }
+            if (indexStart != -1) {
+                index = parseInt(tokenName.substring(indexStart, tokenName.length() - 1));
+                tokenName = tokenName.substring(0, indexStart - 1);
+            }
+        }
+        this._index = index;
+        this._variable = tokenName;
     }
 
     String content() {
         return this._content;
     }
 
+    boolean isTime() {
+        return this._isTime;
+    }
+
+    String attribute() {
+        return this._attribute;
+    }
+
+    String variable() {
+        return this._variable;
+    }
+
+    int index() {
+        return this._index;
+    }
+
+    /**
+     * @native ts
+     * return parseInt(val);
+     */
+    private static int parseInt(String val) {
+        return Integer.parseInt(val);
+    }
+
     @Override
     public int type() {
         return 3;
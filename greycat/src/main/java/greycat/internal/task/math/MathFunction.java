@@ -24,6 +24,7 @@ import java.util.*;
  */
 class MathFunction implements MathToken {
 
+    private static final String[] FUNCTIONS = {"NOT", "IF", "RAND", "SIN", "COS", "TAN", "ASIN", "ACOS", "ATAN", "MAX", "MIN", "ABS", "LOG", "ROUND", "FLOOR", "CEILING", "SQRT", "SECONDS", "MINUTES", "HOURS", "DAY", "MONTH", "YEAR", "DAYOFWEEK"};
 
     /**
      * Name of this function.
@@ -33,6 +34,10 @@ class MathFunction implements MathToken {
      * Number of parameters expected for this function.
      */
     private int numParams;
+    /**
+     * Index of the function, resolved once so that evaluation does not compare strings.
+     */
+    private int code;
 
     /**
      * @ignore ts
@@ -53,6 +58,13 @@ class MathFunction implements MathToken {
     MathFunction(String name, int numParams) {
         this.name = name.toUpperCase();
         this.numParams = numParams;
+        this.code = -1;
+        for (int i = 0; i < FUNCTIONS.length; i++) {
+            if (FUNCTIONS[i].equals(this.name)) {
+                this.code = i;
+                break;
+            }
+        }
     }
 
     public String getName() {
@@ -63,63 +75,71 @@ class MathFunction implements MathToken {
         return numParams;
     }
 
-    double eval(double[] p) {
-        if (name.equals("NOT")) {
-            return (p[0] == 0) ? 1 : 0;
-        } else if (name.equals("IF")) {
-            return !(p[0] == 0) ? p[1] : p[2];
-        } else if (name.equals("RAND")) {
-            return Math.random();
-        } else if (name.equals("SIN")) {
-            return Math.sin(p[0]);
-        } else if (name.equals("COS")) {
-            return Math.cos(p[0]);
-        } else if (name.equals("TAN")) {
-            return Math.tan(p[0]);
-        } else if (name.equals("ASIN")) {
-            return Math.asin(p[0]);
-        } else if (name.equals("ACOS")) {
-            return Math.acos(p[0]);
-        } else if (name.equals("ATAN")) {
-            return Math.atan(p[0]);
-        } else if (name.equals("MAX")) {
-            return p[0] > p[1] ? p[0] : p[1];
-        } else if (name.equals("MIN")) {
-            return p[0] < p[1] ? p[0] : p[1];
-        } else if (name.equals("ABS")) {
-            return Math.abs(p[0]);
-        } else if (name.equals("LOG")) {
-            return Math.log(p[0]);
-        } else if (name.equals("ROUND")) {
-            long factor = (long) Math.pow(10, p[1]);
-            double value = p[0] * factor;
-            long tmp = Math.round(value);
-            return (double) tmp / factor;
-        } else if (name.equals("FLOOR")) {
-            return Math.floor(p[0]);
-        } else if (name.equals("CEILING")) {
-            return Math.ceil(p[0]);
-        } else if (name.equals("SQRT")) {
-            return Math.sqrt(p[0]);
-        } else if (name.equals("SECONDS")) {
-            return date_to_seconds(p[0]);
-        } else if (name.equals("MINUTES")) {
-            return date_to_minutes(p[0]);
-        } else if (name.equals( "HOURS")) {
-            return date_to_hours(p[0]);
-        } else if (name.equals("DAY")) {
-            return date_to_days(p[0]);
-        } else if (name.equals("MONTH")) {
-            return date_to_months(p[0]);
-        } else if (name.equals("YEAR")) {
-            return date_to_year(p[0]);
-        } else if (name.equals("DAYOFWEEK")) {
-            return date_to_dayofweek(p[0]);
+    /**
+     * Evaluates the function on its parameters, read in place from the evaluation stack.
+     *
+     * @param p the evaluation stack
+     * @param o the index of the first parameter in the stack
+     * @return the result of the function
+     */
+    double eval(double[] p, int o) {
+        switch (code) {
+            case 0:
+                return (p[o] == 0) ? 1 : 0;
+            case 1:
+                return !(p[o] == 0) ? p[o + 1] : p[o + 2];
+            case 2:
+                return Math.random();
+            case 3:
+                return Math.sin(p[o]);
+            case 4:
+                return Math.cos(p[o]);
+            case 5:
+                return Math.tan(p[o]);
+            case 6:
+                return Math.asin(p[o]);
+            case 7:
+                return Math.acos(p[o]);
+            case 8:
+                return Math.atan(p[o]);
+            case 9:
+                return p[o] > p[o + 1] ? p[o] : p[o + 1];
+            case 10:
+                return p[o] < p[o + 1] ? p[o] : p[o + 1];
+            case 11:
+                return Math.abs(p[o]);
+            case 12:
+                return Math.log(p[o]);
+            case 13: {
+                long factor = (long) Math.pow(10, p[o + 1]);
+                double value = p[o] * factor;
+                long tmp = Math.round(value);
+                return (double) tmp / factor;
+            }
+            case 14:
+                return Math.floor(p[o]);
+            case 15:
+                return Math.ceil(p[o]);
+            case 16:
+                return Math.sqrt(p[o]);
+            case 17:
+                return date_to_seconds(p[o]);
+            case 18:
+                return date_to_minutes(p[o]);
+            case 19:
+                return date_to_hours(p[o]);
+            case 20:
+                return date_to_days(p[o]);
+            case 21:
+                return date_to_months(p[o]);
+            case 22:
+                return date_to_year(p[o]);
+            case 23:
+                return date_to_dayofweek(p[o]);
         }
         return 0;
     }
 
-
     /**
      * @native ts
      * var date = new Date(value);
@@ -21,14 +21,27 @@ package greycat.internal.task.math;
  */
 class MathOperation implements MathToken {
 
+    private static final String[] OPERATORS = {"+", "-", "*", "/", "%", "^", "&&", "||", ">", ">=", "<", "<=", "==", "!="};
+
     private String oper;
     private int precedence;
     private boolean leftAssoc;
+    /**
+     * Index of the operator, resolved once so that evaluation does not compare strings.
+     */
+    private int code;
 
     MathOperation(String oper, int precedence, boolean leftAssoc) {
         this.oper = oper;
         this.precedence = precedence;
         this.leftAssoc = leftAssoc;
+        this.code = -1;
+        for (int i = 0; i < OPERATORS.length; i++) {
+            if (OPERATORS[i].equals(oper)) {
+                this.code = i;
+                break;
+            }
+        }
     }
 
     public String getOper() {
@@ -44,38 +57,35 @@ class MathOperation implements MathToken {
     }
 
     double eval(double v1, double v2) {
-        if (oper.equals("+")) {
-            return v1 + v2;
-        } else if (oper.equals("-")) {
-            return v1 - v2;
-        } else if (oper.equals("*")) {
-            return v1 * v2;
-        } else if (oper.equals("/")) {
-            return v1 / v2;
-        } else if (oper.equals("%")) {
-            return v1 % v2;
-        } else if (oper.equals("^")) {
-            return Math.pow(v1, v2);
-        } else if (oper.equals("&&")) {
-            boolean b1 = !(v1 == 0);
-            boolean b2 = !(v2 == 0);
-            return b1 && b2 ? 1 : 0;
-        } else if (oper.equals("||")) {
-            boolean b1 = !(v1 == 0);
-            boolean b2 = !(v2 == 0);
-            return b1 || b2 ? 1 : 0;
-        } else if (oper.equals(">")) {
-            return v1 > v2 ? 1 : 0;
-        } else if (oper.equals(">=")) {
-            return v1 >= v2 ? 1 : 0;
-        } else if (oper.equals("<")) {
-            return v1 < v2 ? 1 : 0;
-        } else if (oper.equals("<=")) {
-            return v1 <= v2 ? 1 : 0;
-        } else if (oper.equals("==")) {
-            return v1 == v2 ? 1 : 0;
-        } else if (oper.equals("!=")) {
-            return v1 != v2 ? 1 : 0;
+        switch (code) {
+            case 0:
+                return v1 + v2;
+            case 1:
+                return v1 - v2;
+            case 2:
+                return v1 * v2;
+            case 3:
+                return v1 / v2;
+            case 4:
+                return v1 % v2;
+            case 5:
+                return Math.pow(v1, v2);
+            case 6:
+                return (!(v1 == 0) && !(v2 == 0)) ? 1 : 0;
+            case 7:
+                return (!(v1 == 0) || !(v2 == 0)) ? 1 : 0;
+            case 8:
+                return v1 > v2 ? 1 : 0;
+            case 9:
+                return v1 >= v2 ? 1 : 0;
+            case 10:
+                return v1 < v2 ? 1 : 0;
+            case 11:
+                return v1 <= v2 ? 1 : 0;
+            case 12:
+                return v1 == v2 ? 1 : 0;
+            case 13:
+                return v1 != v2 ? 1 : 0;
         }
         return 0;
     }
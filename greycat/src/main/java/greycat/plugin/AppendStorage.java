@@ -0,0 +1,35 @@
+/**
+ * Copyright 2017 The GreyCat Authors.  All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package greycat.plugin;
+
+import greycat.Callback;
+import greycat.struct.Buffer;
+
+/**
+ * Extension of {@link Storage} for backends able to extend a stored value without rewriting it.<br>
+ * The space uses it to persist incremental records of chunks instead of their whole payload.
+ */
+public interface AppendStorage extends Storage {
+
+    /**
+     * Appends values to the existing values of their keys, a missing key is created with the value.
+     *
+     * @param stream   The keys and values to append, with the same layout as for {@link Storage#put(Buffer, Callback)}.
+     * @param callback Called when the operation is complete. The parameter will be true if the operation succeeded, false otherwise.
+     */
+    void append(Buffer stream, Callback<Boolean> callback);
+
+}
@@ -18,6 +18,7 @@ package greycat.plugin;
 import greycat.Node;
 import greycat.Callback;
 import greycat.internal.CoreNodeValue;
+import greycat.utility.Aggregation;
 import greycat.utility.Tuple;
 
 /**
@@ -118,6 +119,18 @@ public interface Resolver {
      */
     void resolveTimepoints(Node node, long beginningOfSearch, long endOfSearch, Callback<long[]> callback);
 
+    /**
+     * Aggregates the values of a value node by streaming over its time series chunks, without resolving one node per timepoint.
+     *
+     * @param world      The world identifier.
+     * @param from       The earliest timePoint of the aggregation (included).
+     * @param to         The latest timePoint of the aggregation (included).
+     * @param id         The id of the value node.
+     * @param bucketSize The duration of each downsampling bucket, zero or less for a single bucket.
+     * @param callback   Called when finished, with the aggregation (empty for non value nodes).
+     */
+    void aggregate(long world, long from, long to, long id, long bucketSize, Callback<Aggregation> callback);
+
     /**
      * Maps a String to a unique long. Can be reversed using {@link #hashToString(int)}.
      *
@@ -0,0 +1,38 @@
+/**
+ * Copyright 2017 The GreyCat Authors.  All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package greycat.plugin;
+
+import greycat.Callback;
+import greycat.struct.Buffer;
+
+/**
+ * Extension of {@link Storage} for backends keeping keys sorted, able to read a range of keys in one sequential pass.
+ */
+public interface ScanStorage extends Storage {
+
+    /**
+     * Reads all entries whose key starts with {@code prefix}, and whose remaining bytes are between {@code from} and {@code to} (inclusive).<br>
+     * Keys are compared as unsigned bytes, which is the numeric order of keys built with {@link greycat.chunk.KeyFormat#ORDERED}.
+     *
+     * @param prefix   common prefix of the keys to read, empty to read from the beginning
+     * @param from     lower bound of the key suffix, null for no lower bound
+     * @param to       upper bound of the key suffix, null for no upper bound
+     * @param limit    maximum number of entries to read, -1 to read the whole range
+     * @param callback Called with keys and values, in key order, assembled in a flat buffer and separated by BUFFER_SEP
+     */
+    void scan(Buffer prefix, Buffer from, Buffer to, int limit, Callback<Buffer> callback);
+
+}
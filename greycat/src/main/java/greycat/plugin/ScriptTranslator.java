@@ -0,0 +1,34 @@
+/**
+ * Copyright 2017 The GreyCat Authors.  All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package greycat.plugin;
+
+import greycat.TaskFunctionSelect;
+
+/**
+ * Script translator allows to replace select scripts by native selection functions, bypassing the script engine.
+ */
+@FunctionalInterface
+public interface ScriptTranslator {
+
+    /**
+     * Translate a select script
+     *
+     * @param script source of the select script
+     * @return the equivalent selection function, or null if this translator does not support the script
+     */
+    TaskFunctionSelect translate(String script);
+
+}
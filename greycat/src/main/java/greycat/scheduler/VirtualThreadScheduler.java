@@ -0,0 +1,148 @@
+/**
+ * Copyright 2017 The GreyCat Authors.  All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package greycat.scheduler;
+
+import greycat.plugin.Job;
+import greycat.plugin.Scheduler;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Scheduler running every job on its own lightweight thread, so that jobs blocking on storage round trips,
+ * executeSync or DeferCounterSync only park their thread instead of starving a fixed pool of workers.
+ * Task continuations are dispatched through the scheduler, hence resume on such threads as well.
+ * The number of jobs running at once is bounded by a semaphore; jobs dispatched beyond this bound wait in a lock-free
+ * queue and are picked up by the next thread that completes.
+ * Virtual threads are used when the running JVM provides them (Java 21+), platform daemon threads otherwise.
+ * As every job gets a fresh thread, all affinities are handled the same way.
+ *
+ * @ignore ts
+ */
+public class VirtualThreadScheduler implements Scheduler {
+
+    private static final int DEFAULT_VIRTUAL_CONCURRENCY = 10000;
+    private static final int DEFAULT_PLATFORM_CONCURRENCY = 256;
+
+    private final ConcurrentLinkedQueue<Job> _pending = new ConcurrentLinkedQueue<Job>();
+    private final int _requestedConcurrency;
+    private ThreadFactory _factory = null;
+    private Semaphore _permits = null;
+    private int _concurrency = -1;
+    private volatile boolean _running = false;
+
+    public VirtualThreadScheduler() {
+        this(-1);
+    }
+
+    /**
+     * @param maxConcurrency maximum number of jobs running at once, -1 for the default bound
+     */
+    public VirtualThreadScheduler(final int maxConcurrency) {
+        this._requestedConcurrency = maxConcurrency;
+    }
+
+    @Override
+    public final void dispatch(final byte affinity, final Job job) {
+        _pending.add(job);
+        spawn();
+    }
+
+    @Override
+    public final void start() {
+        _factory = virtualThreadFactory();
+        final boolean virtual = _factory != null;
+        if (!virtual) {
+            _factory = new PlatformThreadFactory();
+        }
+        _concurrency = _requestedConcurrency;
+        if (_concurrency == -1) {
+            _concurrency = virtual ? DEFAULT_VIRTUAL_CONCURRENCY : DEFAULT_PLATFORM_CONCURRENCY;
+        }
+        _permits = new Semaphore(_concurrency);
+        _running = true;
+        spawn();
+    }
+
+    @Override
+    public final void stop() {
+        _running = false;
+    }
+
+    @Override
+    public final int workers() {
+        return _concurrency;
+    }
+
+    /**
+     * @return true if jobs run on virtual threads, false if the JVM does not provide them
+     */
+    public final boolean isVirtual() {
+        return _factory != null && !(_factory instanceof PlatformThreadFactory);
+    }
+
+    private void spawn() {
+        while (_running && !_pending.isEmpty() && _permits.tryAcquire()) {
+            _factory.newThread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        Job job;
+                        while (_running && (job = _pending.poll()) != null) {
+                            try {
+                                job.run();
+                            } catch (Exception e) {
+                                e.printStackTrace();
+                            }
+                        }
+                    } finally {
+                        _permits.release();
+                    }
+                    // a job may have been queued while this thread still held its permit
+                    spawn();
+                }
+            }).start();
+        }
+    }
+
+    private static ThreadFactory virtualThreadFactory() {
+        try {
+            final Method ofVirtual = Thread.class.getMethod("ofVirtual");
+            final Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            Object builder = ofVirtual.invoke(null);
+            builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, "greycat-vt-", 0L);
+            return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private static final class PlatformThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger _counter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(final Runnable runnable) {
+            final Thread thread = new Thread(runnable, "greycat-pt-" + _counter.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+}
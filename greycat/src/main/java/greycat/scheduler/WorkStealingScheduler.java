@@ -0,0 +1,267 @@
+/**
+ * Copyright 2017 The GreyCat Authors.  All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package greycat.scheduler;
+
+import greycat.plugin.Job;
+import greycat.plugin.Scheduler;
+import greycat.plugin.SchedulerAffinity;
+
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Scheduler where every worker owns a lock-free deque.
+ * Jobs dispatched from a worker are pushed on its own deque and consumed LIFO by the owner, while idle workers steal
+ * the oldest jobs (FIFO) from their peers. Jobs dispatched from outside go through a shared lock-free injection queue.
+ * Idle workers spin for a while before parking, and are unparked when new work is published.
+ * SAME_THREAD jobs dispatched from a worker are trampolined on the calling worker and are never stolen, while
+ * OTHER_LOCAL_THREAD jobs are handed to the private inbox of another worker.
+ *
+ * @ignore ts
+ */
+public class WorkStealingScheduler implements Scheduler {
+
+    private static final int SPINS = 64;
+    private static final int YIELDS = 16;
+    private static final long PARK_NANOS = 10000000L;
+
+    private final ConcurrentLinkedQueue<Job> _injection = new ConcurrentLinkedQueue<Job>();
+    private final AtomicInteger _idle = new AtomicInteger();
+    private final int _nbWorkers;
+    private volatile Worker[] _workers = null;
+
+    public WorkStealingScheduler() {
+        this(-1);
+    }
+
+    public WorkStealingScheduler(final int nbWorkers) {
+        this._nbWorkers = nbWorkers;
+    }
+
+    @Override
+    public final void dispatch(final byte affinity, final Job job) {
+        final Thread currentThread = Thread.currentThread();
+        final Worker currentWorker = (currentThread instanceof Worker && ((Worker) currentThread).owner() == this) ? (Worker) currentThread : null;
+        if (currentWorker == null) {
+            _injection.add(job);
+            signal();
+            return;
+        }
+        switch (affinity) {
+            case SchedulerAffinity.SAME_THREAD:
+                currentWorker.trampoline(job);
+                break;
+            case SchedulerAffinity.OTHER_LOCAL_THREAD:
+                final Worker[] workers = _workers;
+                if (workers == null || workers.length < 2) {
+                    _injection.add(job);
+                    signal();
+                } else {
+                    final Worker target = workers[(currentWorker._index + 1 + currentWorker.nextRandom(workers.length - 1)) % workers.length];
+                    target._inbox.add(job);
+                    LockSupport.unpark(target);
+                }
+                break;
+            default:
+                currentWorker._deque.addFirst(job);
+                signal();
+                break;
+        }
+    }
+
+    @Override
+    public final void start() {
+        int nbcore = this._nbWorkers;
+        if (nbcore == -1) {
+            nbcore = Runtime.getRuntime().availableProcessors();
+        }
+        final Worker[] workers = new Worker[nbcore];
+        for (int i = 0; i < workers.length; i++) {
+            workers[i] = new Worker(i);
+        }
+        _workers = workers;
+        for (int i = 0; i < workers.length; i++) {
+            workers[i].start();
+        }
+    }
+
+    @Override
+    public final void stop() {
+        final Worker[] workers = _workers;
+        if (workers != null) {
+            _workers = null;
+            for (int i = 0; i < workers.length; i++) {
+                workers[i]._running = false;
+                LockSupport.unpark(workers[i]);
+            }
+        }
+    }
+
+    @Override
+    public final int workers() {
+        return _workers.length;
+    }
+
+    /**
+     * Wakes up one parked worker, if any, so that newly published work does not wait for a park timeout.
+     */
+    private void signal() {
+        if (_idle.get() == 0) {
+            return;
+        }
+        final Worker[] workers = _workers;
+        if (workers == null) {
+            return;
+        }
+        for (int i = 0; i < workers.length; i++) {
+            final Worker worker = workers[i];
+            if (worker._parked) {
+                LockSupport.unpark(worker);
+                return;
+            }
+        }
+    }
+
+    private final class Worker extends Thread {
+
+        private final int _index;
+        private final ConcurrentLinkedDeque<Job> _deque = new ConcurrentLinkedDeque<Job>();
+        private final ConcurrentLinkedQueue<Job> _inbox = new ConcurrentLinkedQueue<Job>();
+        private final JobQueue _sameThread = new JobQueue();
+        private int _wip = 0;
+        private int _seed;
+        private volatile boolean _running = true;
+        private volatile boolean _parked = false;
+
+        Worker(final int index) {
+            this._index = index;
+            this._seed = index + 1;
+            setName("greycat-ws-" + index);
+            setDaemon(false);
+        }
+
+        WorkStealingScheduler owner() {
+            return WorkStealingScheduler.this;
+        }
+
+        @Override
+        public void run() {
+            int idleRounds = 0;
+            while (_running) {
+                final Job job = find();
+                if (job != null) {
+                    idleRounds = 0;
+                    execute(job);
+                } else if (idleRounds < SPINS) {
+                    idleRounds++;
+                } else if (idleRounds < SPINS + YIELDS) {
+                    idleRounds++;
+                    Thread.yield();
+                } else {
+                    park();
+                    idleRounds = 0;
+                }
+            }
+        }
+
+        private Job find() {
+            Job job = _deque.pollFirst();
+            if (job == null) {
+                job = _inbox.poll();
+            }
+            if (job == null) {
+                job = _injection.poll();
+            }
+            if (job == null) {
+                job = steal();
+            }
+            return job;
+        }
+
+        private Job steal() {
+            final Worker[] workers = _workers;
+            if (workers == null || workers.length < 2) {
+                return null;
+            }
+            final int start = nextRandom(workers.length);
+            for (int i = 0; i < workers.length; i++) {
+                final Worker victim = workers[(start + i) % workers.length];
+                if (victim != this) {
+                    final Job stolen = victim._deque.pollLast();
+                    if (stolen != null) {
+                        return stolen;
+                    }
+                }
+            }
+            return null;
+        }
+
+        private boolean hasWork() {
+            if (!_deque.isEmpty() || !_inbox.isEmpty() || !_injection.isEmpty()) {
+                return true;
+            }
+            final Worker[] workers = _workers;
+            if (workers != null) {
+                for (int i = 0; i < workers.length; i++) {
+                    if (!workers[i]._deque.isEmpty()) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        private void park() {
+            _parked = true;
+            _idle.incrementAndGet();
+            if (_running && !hasWork()) {
+                LockSupport.parkNanos(this, PARK_NANOS);
+            }
+            _idle.decrementAndGet();
+            _parked = false;
+        }
+
+        private void execute(final Job job) {
+            try {
+                job.run();
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
+
+        void trampoline(final Job job) {
+            _sameThread.add(job);
+            if (_wip++ == 0) {
+                do {
+                    execute(_sameThread.poll());
+                } while (--_wip > 0);
+            }
+        }
+
+        int nextRandom(final int bound) {
+            int x = _seed;
+            x ^= x << 13;
+            x ^= x >>> 17;
+            x ^= x << 5;
+            _seed = x;
+            return (x & 0x7FFFFFFF) % bound;
+        }
+
+    }
+
+}
@@ -0,0 +1,51 @@
+/**
+ * Copyright 2017 The GreyCat Authors.  All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package greycat.struct;
+
+import greycat.Callback;
+
+/**
+ * Trees answering many neighbourhood queries at once: per query preparation is shared and results are written into
+ * flat arrays instead of one {@link TreeResult} per query.
+ */
+public interface TreeBatchQuery {
+
+    /**
+     * @param keys one vector per query
+     * @param max  number of neighbours per query, should be positive
+     * @return the neighbours of every query
+     */
+    TreeBatchResult queryAroundBatch(double[][] keys, int max);
+
+    /**
+     * @param keys   one vector per query
+     * @param radius maximum distance of neighbours, ignored when negative
+     * @param max    number of neighbours per query, should be positive
+     * @return the neighbours of every query
+     */
+    TreeBatchResult queryBoundedRadiusBatch(double[][] keys, double radius, int max);
+
+    /**
+     * Splits the batch in one slice per scheduler worker and dispatches the slices on the scheduler of the graph.
+     *
+     * @param keys     one vector per query
+     * @param radius   maximum distance of neighbours, ignored when negative
+     * @param max      number of neighbours per query, should be positive
+     * @param callback called once every slice is done
+     */
+    void queryBatchParallel(double[][] keys, double radius, int max, Callback<TreeBatchResult> callback);
+
+}
@@ -0,0 +1,54 @@
+/**
+ * Copyright 2017 The GreyCat Authors.  All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package greycat.struct;
+
+/**
+ * Results of a batch of tree queries, stored in flat arrays: the i-th neighbour of query q is at slot q * max() + i,
+ * neighbours of a query are sorted by ascending distance.
+ */
+public interface TreeBatchResult {
+
+    /**
+     * @return number of queries of the batch
+     */
+    int queries();
+
+    /**
+     * @return maximum number of neighbours per query, which is the stride of the flat arrays
+     */
+    int max();
+
+    /**
+     * @param query index of the query in the batch
+     * @return number of neighbours found for this query
+     */
+    int size(int query);
+
+    long value(int query, int index);
+
+    double distance(int query, int index);
+
+    /**
+     * @return values of all queries, to be read with {@link #size(int)} and the {@link #max()} stride
+     */
+    long[] values();
+
+    /**
+     * @return distances of all queries, to be read with {@link #size(int)} and the {@link #max()} stride
+     */
+    double[] distances();
+
+}
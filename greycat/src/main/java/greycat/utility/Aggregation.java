@@ -0,0 +1,189 @@
+/**
+ * Copyright 2017 The GreyCat Authors.  All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package greycat.utility;
+
+/**
+ * Min, max, sum and count of the non null values of a time series, downsampled in buckets of fixed duration.<br>
+ * Bucket i covers [from + i * bucketSize, from + (i + 1) * bucketSize[, a bucket size lower or equal to zero gives a single bucket for [from, to].
+ */
+public class Aggregation {
+
+    private final long _from;
+    private final long _to;
+    private final long _bucketSize;
+    private final long[] _counts;
+    private final double[] _sums;
+    private final double[] _mins;
+    private final double[] _maxs;
+
+    public Aggregation(final long p_from, final long p_to, final long p_bucketSize) {
+        if (p_to < p_from) {
+            throw new RuntimeException("Bad API usage, aggregation ends before it starts");
+        }
+        _from = p_from;
+        _to = p_to;
+        int nbBuckets = 1;
+        if (p_bucketSize > 0) {
+            final long buckets = (p_to - p_from) / p_bucketSize + 1;
+            if (buckets <= 0 || buckets > Integer.MAX_VALUE) {
+                throw new RuntimeException("Bad API usage, too many buckets for the aggregation range");
+            }
+            nbBuckets = (int) buckets;
+            _bucketSize = p_bucketSize;
+        } else {
+            _bucketSize = 0;
+        }
+        _counts = new long[nbBuckets];
+        _sums = new double[nbBuckets];
+        _mins = new double[nbBuckets];
+        _maxs = new double[nbBuckets];
+    }
+
+    public final long from() {
+        return _from;
+    }
+
+    public final long to() {
+        return _to;
+    }
+
+    public final long bucketSize() {
+        return _bucketSize;
+    }
+
+    public final int size() {
+        return _counts.length;
+    }
+
+    public final long start(final int bucket) {
+        return _from + bucket * _bucketSize;
+    }
+
+    public final long count(final int bucket) {
+        return _counts[bucket];
+    }
+
+    public final double sum(final int bucket) {
+        return _sums[bucket];
+    }
+
+    /**
+     * @return the minimum of the bucket, NaN if the bucket is empty
+     */
+    public final double min(final int bucket) {
+        if (_counts[bucket] == 0) {
+            return Double.NaN;
+        }
+        return _mins[bucket];
+    }
+
+    /**
+     * @return the maximum of the bucket, NaN if the bucket is empty
+     */
+    public final double max(final int bucket) {
+        if (_counts[bucket] == 0) {
+            return Double.NaN;
+        }
+        return _maxs[bucket];
+    }
+
+    /**
+     * @return the average of the bucket, NaN if the bucket is empty
+     */
+    public final double avg(final int bucket) {
+        if (_counts[bucket] == 0) {
+            return Double.NaN;
+        }
+        return _sums[bucket] / _counts[bucket];
+    }
+
+    /**
+     * @return the bucket containing the time, -1 if the time is out of the aggregation range
+     */
+    public final int bucketOf(final long time) {
+        if (time < _from || time > _to) {
+            return -1;
+        }
+        if (_bucketSize == 0) {
+            return 0;
+        }
+        return (int) ((time - _from) / _bucketSize);
+    }
+
+    /**
+     * @return true if every time in [startTime, endTime] falls in the same bucket
+     */
+    public final boolean covers(final long startTime, final long endTime) {
+        final int bucket = bucketOf(startTime);
+        return bucket != -1 && bucket == bucketOf(endTime);
+    }
+
+    public final void add(final long time, final double value) {
+        final int bucket = bucketOf(time);
+        if (bucket != -1) {
+            merge(bucket, 1, value, value, value);
+        }
+    }
+
+    /**
+     * Merges already aggregated values into a bucket.
+     */
+    public final void merge(final int bucket, final long count, final double sum, final double min, final double max) {
+        if (count == 0) {
+            return;
+        }
+        if (_counts[bucket] == 0) {
+            _mins[bucket] = min;
+            _maxs[bucket] = max;
+        } else {
+            if (min < _mins[bucket]) {
+                _mins[bucket] = min;
+            }
+            if (max > _maxs[bucket]) {
+                _maxs[bucket] = max;
+            }
+        }
+        _counts[bucket] = _counts[bucket] + count;
+        _sums[bucket] = _sums[bucket] + sum;
+    }
+
+    @Override
+    public final String toString() {
+        final StringBuilder builder = new StringBuilder();
+        builder.append('[');
+        for (int i = 0; i < _counts.length; i++) {
+            if (i != 0) {
+                builder.append(',');
+            }
+            builder.append("{\"start\":");
+            builder.append(start(i));
+            builder.append(",\"count\":");
+            builder.append(_counts[i]);
+            if (_counts[i] != 0) {
+                builder.append(",\"min\":");
+                builder.append(_mins[i]);
+                builder.append(",\"max\":");
+                builder.append(_maxs[i]);
+                builder.append(",\"avg\":");
+                builder.append(avg(i));
+            }
+            builder.append('}');
+        }
+        builder.append(']');
+        return builder.toString();
+    }
+
+}
@@ -0,0 +1,132 @@
+/**
+ * Copyright 2017 The GreyCat Authors.  All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package greycat.utility;
+
+import greycat.Constants;
+import greycat.struct.Buffer;
+
+/**
+ * Binary encoding of chunk payloads.
+ * Payloads start with a version byte outside of the Base64 alphabet, so they can be told apart from text ones.
+ * Integers are written as zigzag varints, doubles as raw IEEE 754 bits and strings as UTF-8 bytes prefixed by their length.
+ * As storages split buffers on {@link Constants#BUFFER_SEP}, this byte and the escape byte itself are escaped by a two bytes sequence.
+ */
+public class Binary {
+
+    public static final byte VERSION_1 = (byte) 0x81;
+
+    /**
+     * Header of an incremental record, appended by a storage after a {@link #VERSION_1} payload.
+     */
+    public static final byte DIFF_1 = (byte) 0x82;
+
+    static final byte ESCAPE = (byte) 0xFE;
+    static final byte ESCAPED_SEP = 1;
+    static final byte ESCAPED_ESCAPE = 2;
+
+    public static boolean isBinary(final Buffer buffer) {
+        return buffer != null && buffer.length() > 0 && buffer.read(0) == VERSION_1;
+    }
+
+    public static void writeHeader(final Buffer buffer) {
+        buffer.write(VERSION_1);
+    }
+
+    public static void writeDiffHeader(final Buffer buffer) {
+        buffer.write(DIFF_1);
+    }
+
+    public static void writeByte(final byte b, final Buffer buffer) {
+        if (b == Constants.BUFFER_SEP) {
+            buffer.write(ESCAPE);
+            buffer.write(ESCAPED_SEP);
+        } else if (b == ESCAPE) {
+            buffer.write(ESCAPE);
+            buffer.write(ESCAPED_ESCAPE);
+        } else {
+            buffer.write(b);
+        }
+    }
+
+    public static void writeBool(final boolean b, final Buffer buffer) {
+        buffer.write(b ? (byte) 1 : (byte) 0);
+    }
+
+    /**
+     * {@native ts
+     * var zigzag = Long.fromNumber(l).shiftLeft(1).xor(Long.fromNumber(l).shiftRight(63));
+     * while (!zigzag.and(Long.fromInt(~0x7F)).isZero()) {
+     * Binary.writeByte((zigzag.low & 0x7F) | 0x80, buffer);
+     * zigzag = zigzag.shiftRightUnsigned(7);
+     * }
+     * Binary.writeByte(zigzag.low & 0x7F, buffer);
+     * }
+     */
+    public static void writeVarLong(final long l, final Buffer buffer) {
+        long zigzag = (l << 1) ^ (l >> 63);
+        while ((zigzag & ~0x7FL) != 0) {
+            writeByte((byte) ((zigzag & 0x7F) | 0x80), buffer);
+            zigzag >>>= 7;
+        }
+        writeByte((byte) zigzag, buffer);
+    }
+
+    public static void writeVarInt(final int i, final Buffer buffer) {
+        writeVarLong(i, buffer);
+    }
+
+    /**
+     * {@native ts
+     * var view = new DataView(new ArrayBuffer(8));
+     * view.setFloat64(0, d);
+     * for (var i = 0; i < 8; i++) {
+     * Binary.writeByte(view.getUint8(i), buffer);
+     * }
+     * }
+     */
+    public static void writeDouble(final double d, final Buffer buffer) {
+        final long bits = Double.doubleToRawLongBits(d);
+        for (int i = 56; i >= 0; i -= 8) {
+            writeByte((byte) (bits >>> i), buffer);
+        }
+    }
+
+    /**
+     * {@native ts
+     * var utf8 = unescape(encodeURIComponent(s));
+     * Binary.writeVarInt(utf8.length, buffer);
+     * for (var i = 0; i < utf8.length; i++) {
+     * Binary.writeByte(utf8.charCodeAt(i), buffer);
+     * }
+     * }
+     */
+    public static void writeString(final String s, final Buffer buffer) {
+        final byte[] bytes = s.getBytes(java.nio.charset.StandardCharsets.UTF_8);
+        writeVarInt(bytes.length, buffer);
+        for (int i = 0; i < bytes.length; i++) {
+            writeByte(bytes[i], buffer);
+        }
+    }
+
+    /**
+     * Appends a text encoded block prefixed by its length, text payloads never contain bytes to escape.
+     */
+    public static void writeTextBlock(final byte[] text, final Buffer buffer) {
+        writeVarInt(text.length, buffer);
+        buffer.writeAll(text);
+    }
+
+}
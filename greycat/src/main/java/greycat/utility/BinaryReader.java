@@ -0,0 +1,133 @@
+/**
+ * Copyright 2017 The GreyCat Authors.  All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package greycat.utility;
+
+import greycat.Constants;
+import greycat.struct.Buffer;
+
+/**
+ * Sequential reader of payloads written with {@link Binary}.
+ */
+public class BinaryReader {
+
+    private final Buffer _buffer;
+    private final long _end;
+    private long _cursor;
+
+    /**
+     * Positions the reader after the version byte, the caller has checked it with {@link Binary#isBinary(Buffer)}.
+     */
+    public BinaryReader(final Buffer p_buffer) {
+        this._buffer = p_buffer;
+        this._end = p_buffer.length();
+        this._cursor = 1;
+    }
+
+    public final boolean hasNext() {
+        return _cursor < _end;
+    }
+
+    public final long cursor() {
+        return _cursor;
+    }
+
+    public final void skip(final long length) {
+        _cursor += length;
+    }
+
+    public final byte readByte() {
+        final byte b = _buffer.read(_cursor);
+        _cursor++;
+        if (b == Binary.ESCAPE) {
+            final byte escaped = _buffer.read(_cursor);
+            _cursor++;
+            if (escaped == Binary.ESCAPED_SEP) {
+                return Constants.BUFFER_SEP;
+            }
+            return Binary.ESCAPE;
+        }
+        return b;
+    }
+
+    public final boolean readBool() {
+        return readByte() != 0;
+    }
+
+    /**
+     * {@native ts
+     * var zigzag = Long.ZERO;
+     * var shift = 0;
+     * var b;
+     * do {
+     * b = this.readByte();
+     * zigzag = zigzag.or(Long.fromInt(b & 0x7F).shiftLeft(shift));
+     * shift += 7;
+     * } while ((b & 0x80) != 0);
+     * return zigzag.shiftRightUnsigned(1).xor(zigzag.and(Long.ONE).negate()).toNumber();
+     * }
+     */
+    public final long readVarLong() {
+        long zigzag = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = readByte();
+            zigzag |= ((long) (b & 0x7F)) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return (zigzag >>> 1) ^ -(zigzag & 1);
+    }
+
+    public final int readVarInt() {
+        return (int) readVarLong();
+    }
+
+    /**
+     * {@native ts
+     * var view = new DataView(new ArrayBuffer(8));
+     * for (var i = 0; i < 8; i++) {
+     * view.setUint8(i, this.readByte());
+     * }
+     * return view.getFloat64(0);
+     * }
+     */
+    public final double readDouble() {
+        long bits = 0;
+        for (int i = 0; i < 8; i++) {
+            bits = (bits << 8) | (readByte() & 0xFF);
+        }
+        return Double.longBitsToDouble(bits);
+    }
+
+    /**
+     * {@native ts
+     * var size = this.readVarInt();
+     * var utf8 = "";
+     * for (var i = 0; i < size; i++) {
+     * utf8 += String.fromCharCode(this.readByte() & 0xFF);
+     * }
+     * return decodeURIComponent(escape(utf8));
+     * }
+     */
+    public final String readString() {
+        final byte[] bytes = new byte[readVarInt()];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = readByte();
+        }
+        return new String(bytes, java.nio.charset.StandardCharsets.UTF_8);
+    }
+
+}
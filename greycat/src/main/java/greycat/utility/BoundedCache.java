@@ -0,0 +1,56 @@
+/**
+ * Copyright 2017 The GreyCat Authors.  All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package greycat.utility;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Thread safe cache of values derived from a string, such as parsed templates, expressions or scripts.
+ * It is bounded by flushing all entries once full: lookups stay lock free, and the working set of such caches is
+ * usually far below the bound.
+ *
+ * @param <V> type of the cached values
+ */
+public class BoundedCache<V> {
+
+    private final int _capacity;
+
+    private final Map<String, V> _values = new ConcurrentHashMap<String, V>();
+
+    /**
+     * @param capacity maximum number of entries, reached entries flush the whole cache
+     */
+    public BoundedCache(final int capacity) {
+        this._capacity = capacity;
+    }
+
+    public final V get(final String key) {
+        return _values.get(key);
+    }
+
+    public final void put(final String key, final V value) {
+        if (_values.size() >= _capacity) {
+            _values.clear();
+        }
+        _values.put(key, value);
+    }
+
+    public final int capacity() {
+        return _capacity;
+    }
+
+}
@@ -15,11 +15,32 @@
  */
 package greycat.utility;
 
+import greycat.Callback;
 import greycat.Constants;
+import greycat.Graph;
+import greycat.chunk.KeyFormat;
+import greycat.plugin.ScanStorage;
 import greycat.struct.Buffer;
+import greycat.struct.BufferIterator;
 
 public class KeyHelper {
 
+    /**
+     * Digits sorted in ascending ASCII order, so that comparing encoded keys byte per byte gives the numeric order.
+     * None of them is a separator of buffers or keys.
+     */
+    private static final byte[] ORDERED_DIGITS = new byte[]{'-', '0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'A', 'B', 'C', 'D', 'E', 'F', 'G', 'H', 'I', 'J', 'K', 'L', 'M', 'N', 'O', 'P', 'Q', 'R', 'S', 'T', 'U', 'V', 'W', 'X', 'Y', 'Z', '_', 'a', 'b', 'c', 'd', 'e', 'f', 'g', 'h', 'i', 'j', 'k', 'l', 'm', 'n', 'o', 'p', 'q', 'r', 's', 't', 'u', 'v', 'w', 'x', 'y', 'z'};
+
+    /**
+     * Size of a long encoded by {@link #orderedLongToBuffer(long, Buffer)}: 4 bits then 10 digits of 6 bits.
+     */
+    public static final int ORDERED_LONG_SIZE = 11;
+
+    /**
+     * Size of a key encoded with {@link KeyFormat#ORDERED}: the type then world, id and time.
+     */
+    public static final int ORDERED_KEY_SIZE = 1 + 3 * ORDERED_LONG_SIZE;
+
     public static void keyToBuffer(Buffer buffer, byte chunkType, long world, long time, long id) {
         Base64.encodeIntToBuffer((int) chunkType, buffer);
         buffer.write(Constants.KEY_SEP);
@@ -30,4 +51,243 @@ public class KeyHelper {
         Base64.encodeLongToBuffer(id, buffer);
     }
 
+    /**
+     * Writes a key in the given {@link KeyFormat}.
+     */
+    public static void keyToBufferWithFormat(Buffer buffer, byte keyFormat, byte chunkType, long world, long time, long id) {
+        if (keyFormat == KeyFormat.ORDERED) {
+            orderedKeyToBuffer(buffer, chunkType, world, time, id);
+        } else {
+            keyToBuffer(buffer, chunkType, world, time, id);
+        }
+    }
+
+    public static void orderedKeyToBuffer(Buffer buffer, byte chunkType, long world, long time, long id) {
+        orderedPrefixToBuffer(buffer, chunkType, world, id);
+        orderedLongToBuffer(time, buffer);
+    }
+
+    /**
+     * Writes the part of ordered keys shared by all chunks of a type for one node in one world, to be used as a scan prefix.
+     */
+    public static void orderedPrefixToBuffer(Buffer buffer, byte chunkType, long world, long id) {
+        buffer.write(ORDERED_DIGITS[chunkType]);
+        orderedLongToBuffer(world, buffer);
+        orderedLongToBuffer(id, buffer);
+    }
+
+    /**
+     * Fixed width big-endian encoding of a long, whose sign bit is flipped so that negative values sort first.
+     * {@native ts
+     * var flipped = Long.fromNumber(l).xor(Long.MIN_VALUE);
+     * buffer.write(KeyHelper.ORDERED_DIGITS[flipped.shiftRightUnsigned(60).low]);
+     * for (var i = 54; i >= 0; i -= 6) {
+     * buffer.write(KeyHelper.ORDERED_DIGITS[flipped.shiftRightUnsigned(i).low & 0x3F]);
+     * }
+     * }
+     */
+    public static void orderedLongToBuffer(long l, Buffer buffer) {
+        final long flipped = l ^ Long.MIN_VALUE;
+        buffer.write(ORDERED_DIGITS[(int) (flipped >>> 60)]);
+        for (int i = 54; i >= 0; i -= 6) {
+            buffer.write(ORDERED_DIGITS[(int) ((flipped >>> i) & 0x3F)]);
+        }
+    }
+
+    /**
+     * {@native ts
+     * var flipped = Long.ZERO;
+     * for (var i = 0; i < KeyHelper.ORDERED_LONG_SIZE; i++) {
+     * flipped = flipped.shiftLeft(6).or(Long.fromInt(KeyHelper.orderedDigit(buffer.read(offset + i))));
+     * }
+     * return flipped.xor(Long.MIN_VALUE).toNumber();
+     * }
+     */
+    public static long decodeOrderedLong(Buffer buffer, long offset) {
+        long flipped = 0;
+        for (int i = 0; i < ORDERED_LONG_SIZE; i++) {
+            flipped = (flipped << 6) | orderedDigit(buffer.read(offset + i));
+        }
+        return flipped ^ Long.MIN_VALUE;
+    }
+
+    public static byte decodeOrderedType(Buffer buffer, long offset) {
+        return (byte) orderedDigit(buffer.read(offset));
+    }
+
+    /**
+     * @return true if the key between offsetBegin (inclusive) and offsetEnd (exclusive) is encoded with {@link KeyFormat#ORDERED}
+     */
+    public static boolean isOrderedKey(Buffer buffer, long offsetBegin, long offsetEnd) {
+        if (offsetEnd - offsetBegin != ORDERED_KEY_SIZE) {
+            return false;
+        }
+        for (long i = offsetBegin; i < offsetEnd; i++) {
+            if (buffer.read(i) == Constants.KEY_SEP) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Decodes a key written in any {@link KeyFormat}.
+     *
+     * @param key    the key to decode
+     * @param target array filled with type, world, time and id
+     * @return false if the buffer is not a chunk key
+     */
+    public static boolean decodeKey(Buffer key, long[] target) {
+        final long length = key.length();
+        if (isOrderedKey(key, 0, length)) {
+            target[0] = decodeOrderedType(key, 0);
+            target[1] = decodeOrderedLong(key, 1);
+            target[3] = decodeOrderedLong(key, 1 + ORDERED_LONG_SIZE);
+            target[2] = decodeOrderedLong(key, 1 + 2 * ORDERED_LONG_SIZE);
+            return true;
+        }
+        int field = 0;
+        long previous = 0;
+        for (long cursor = 0; cursor <= length; cursor++) {
+            if (cursor == length || key.read(cursor) == Constants.KEY_SEP) {
+                if (field > 3 || cursor == previous) {
+                    return false;
+                }
+                if (field == 0) {
+                    target[0] = Base64.decodeToIntWithBounds(key, previous, cursor);
+                } else {
+                    target[field] = Base64.decodeToLongWithBounds(key, previous, cursor);
+                }
+                field++;
+                previous = cursor + 1;
+            }
+        }
+        return field == 4;
+    }
+
+    /**
+     * Default number of entries read, rewritten and removed at once by {@link #migrate(ScanStorage, Graph, byte, int, Callback)}.
+     */
+    public static final int MIGRATION_BATCH_SIZE = 1000;
+
+    /**
+     * Rewrites all chunks of a storage under keys of another format, so that graphs using this format can be opened on it.
+     * Entries which are not chunks, or already in the target format, are left untouched.
+     * At most {@code batchSize} entries are read at once, see {@link #MIGRATION_BATCH_SIZE}.<br>
+     * Old keys of a batch are removed only once its new keys are written, so an interrupted migration leaves some chunks
+     * under both formats and can simply be run again.
+     *
+     * @param storage   the connected storage to migrate
+     * @param graph     a graph used to allocate buffers
+     * @param keyFormat the target {@link KeyFormat}
+     * @param batchSize maximum number of entries held in memory, should be positive
+     * @param callback  called with the number of migrated chunks, or -1 if the storage failed to write a batch
+     */
+    public static void migrate(final ScanStorage storage, final Graph graph, final byte keyFormat, final int batchSize, final Callback<Integer> callback) {
+        if (batchSize <= 0) {
+            throw new RuntimeException("Migration batches need a positive size, received " + batchSize);
+        }
+        migrateBatch(storage, graph, keyFormat, batchSize, null, 0, callback);
+    }
+
+    private static void migrateBatch(final ScanStorage storage, final Graph graph, final byte keyFormat, final int batchSize, final byte[] after, final int previouslyMigrated, final Callback<Integer> callback) {
+        final Buffer prefix = graph.newBuffer();
+        Buffer from = null;
+        if (after != null) {
+            //smallest key greater than the last one read
+            from = graph.newBuffer();
+            from.writeAll(after);
+            from.write((byte) 0);
+        }
+        final Buffer finalFrom = from;
+        storage.scan(prefix, from, null, batchSize, new Callback<Buffer>() {
+            @Override
+            public void on(final Buffer entries) {
+                prefix.free();
+                if (finalFrom != null) {
+                    finalFrom.free();
+                }
+                final Buffer toPut = graph.newBuffer();
+                final Buffer toRemove = graph.newBuffer();
+                final long[] decoded = new long[Constants.KEY_SIZE];
+                int read = 0;
+                int migrated = 0;
+                byte[] last = null;
+                final BufferIterator it = entries.iterator();
+                while (it.hasNext()) {
+                    final Buffer keyView = it.next();
+                    final Buffer valueView = it.next();
+                    read++;
+                    last = keyView.data();
+                    final boolean isOrdered = isOrderedKey(keyView, 0, keyView.length());
+                    if (isOrdered != (keyFormat == KeyFormat.ORDERED) && decodeKey(keyView, decoded)) {
+                        if (migrated != 0) {
+                            toPut.write(Constants.BUFFER_SEP);
+                            toRemove.write(Constants.BUFFER_SEP);
+                        }
+                        keyToBufferWithFormat(toPut, keyFormat, (byte) decoded[0], decoded[1], decoded[2], decoded[3]);
+                        toPut.write(Constants.BUFFER_SEP);
+                        toPut.writeAll(valueView.data());
+                        toRemove.writeAll(last);
+                        migrated++;
+                    }
+                }
+                entries.free();
+                final boolean hasNext = read == batchSize;
+                final byte[] finalLast = last;
+                final int total = previouslyMigrated + migrated;
+                if (migrated == 0) {
+                    toPut.free();
+                    toRemove.free();
+                    if (hasNext) {
+                        migrateBatch(storage, graph, keyFormat, batchSize, finalLast, total, callback);
+                    } else {
+                        callback.on(total);
+                    }
+                    return;
+                }
+                storage.put(toPut, new Callback<Boolean>() {
+                    @Override
+                    public void on(final Boolean putResult) {
+                        toPut.free();
+                        if (putResult == null || !putResult) {
+                            //new keys are not confirmed, old ones are kept
+                            toRemove.free();
+                            callback.on(-1);
+                            return;
+                        }
+                        storage.remove(toRemove, new Callback<Boolean>() {
+                            @Override
+                            public void on(final Boolean removeResult) {
+                                toRemove.free();
+                                if (removeResult != null && !removeResult) {
+                                    //some chunks are left under both formats until the next run
+                                    callback.on(-1);
+                                } else if (hasNext) {
+                                    migrateBatch(storage, graph, keyFormat, batchSize, finalLast, total, callback);
+                                } else {
+                                    callback.on(total);
+                                }
+                            }
+                        });
+                    }
+                });
+            }
+        });
+    }
+
+    private static int orderedDigit(byte b) {
+        if (b == '-') {
+            return 0;
+        } else if (b <= '9') {
+            return b - '0' + 1;
+        } else if (b <= 'Z') {
+            return b - 'A' + 11;
+        } else if (b == '_') {
+            return 37;
+        } else {
+            return b - 'a' + 38;
+        }
+    }
+
 }
@@ -17,6 +17,7 @@ package greycatTest;
 
 import greycat.*;
 import greycat.scheduler.NoopScheduler;
+import greycat.struct.LongArray;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -82,6 +83,114 @@ public class IndexTest {
         });
     }
 
-}
+    @Test
+    public void testCoveringIndex() {
+        final Graph g = GraphBuilder.newBuilder().withScheduler(new NoopScheduler()).build();
+        g.connect(null);
+        final Node root = g.newNode(0, 0);
+        final Index index = (Index) root.getOrCreate("sensors", Type.INDEX);
+        index.declareAttributes(null, "name", "room");
+        index.setCovering(true);
+        Assert.assertTrue(index.isCovering());
+        final Node[] sensors = new Node[4];
+        for (int i = 0; i < sensors.length; i++) {
+            sensors[i] = g.newNode(0, 0);
+            sensors[i].set("name", Type.STRING, "sensor_" + i);
+            sensors[i].set("room", Type.INT, i % 2);
+            index.update(sensors[i]);
+        }
+        Assert.assertEquals("sensor_2", index.coveredValue(sensors[2].id(), "name"));
+        Assert.assertEquals(0, index.coveredValue(sensors[2].id(), "room"));
+        Assert.assertArrayEquals(new long[]{sensors[1].id()}, index.select("sensor_1", "1"));
+        Assert.assertEquals(0, index.select("sensor_1", "0").length);
+
+        //removing the first node moves the covered values of the last one
+        index.unindex(sensors[0]);
+        Assert.assertNull(index.coveredValue(sensors[0].id(), "name"));
+        Assert.assertEquals("sensor_3", index.coveredValue(sensors[3].id(), "name"));
+        sensors[3].set("room", Type.INT, 0);
+        index.update(sensors[3]);
+        Assert.assertEquals(0, index.coveredValue(sensors[3].id(), "room"));
+        Assert.assertArrayEquals(new long[]{sensors[3].id()}, index.select("sensor_3", "0"));
 
+        try {
+            index.setCovering(false);
+            Assert.fail("covering should not change on a non empty index");
+        } catch (RuntimeException e) {
+            //expected
+        }
+
+        newTask()
+                .travelInTime("0")
+                .lookup(String.valueOf(root.id()))
+                .traverse("sensors", "sensor_3", "0")
+                .thenDo(new ActionFunction() {
+                    @Override
+                    public void eval(TaskContext ctx) {
+                        Assert.assertEquals(1, ctx.result().size());
+                        Assert.assertEquals(sensors[3].id(), ((Node) ctx.result().get(0)).id());
+                        ctx.continueTask();
+                    }
+                })
+                .execute(g, new Callback<TaskResult>() {
+                    @Override
+                    public void on(TaskResult result) {
+                        Assert.assertNull(result.exception());
+                        result.free();
+                    }
+                });
 
+        final int[] found = new int[1];
+        index.find(new Callback<Node[]>() {
+            @Override
+            public void on(Node[] result) {
+                found[0] = result.length;
+                g.freeNodes(result);
+            }
+        }, 0, 0, "sensor_2", "0");
+        Assert.assertEquals(1, found[0]);
+        index.clear();
+        Assert.assertEquals(0, index.size());
+        Assert.assertNull(index.coveredValue(sensors[2].id(), "name"));
+        for (int i = 0; i < sensors.length; i++) {
+            sensors[i].free();
+        }
+        root.free();
+        g.disconnect(null);
+    }
+
+    @Test
+    public void testCoveringIndexTypes() {
+        final Graph g = GraphBuilder.newBuilder().withScheduler(new NoopScheduler()).build();
+        g.connect(null);
+        final Node root = g.newNode(0, 0);
+        final Index index = (Index) root.getOrCreate("tagged", Type.INDEX);
+        index.declareAttributes(null, "name", "value");
+        index.setCovering(true);
+        final Node node = g.newNode(0, 0);
+        node.set("name", Type.STRING, "node");
+        node.set("value", Type.DOUBLE, 1.5);
+        index.update(node);
+        //values are covered with the type of the attribute
+        Assert.assertEquals(1.5, index.coveredValue(node.id(), "value"));
+        Assert.assertArrayEquals(new long[]{node.id()}, index.select("node", "1.5"));
+
+        //attributes which cannot be covered are refused before the index changes
+        final Node other = g.newNode(0, 0);
+        other.set("name", Type.STRING, "other");
+        ((LongArray) other.getOrCreate("value", Type.LONG_ARRAY)).initWith(new long[]{4, 2});
+        try {
+            index.update(other);
+            Assert.fail("arrays cannot be covered");
+        } catch (RuntimeException e) {
+            //expected
+        }
+        Assert.assertEquals(1, index.size());
+        Assert.assertNull(index.coveredValue(other.id(), "name"));
+        other.free();
+        node.free();
+        root.free();
+        g.disconnect(null);
+    }
+
+}
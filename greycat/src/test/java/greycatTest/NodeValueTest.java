@@ -17,7 +17,9 @@ package greycatTest;
 
 import greycat.*;
 import greycat.internal.CoreNodeValue;
+import greycatTest.internal.MockStorage;
 import greycat.scheduler.NoopScheduler;
+import greycat.utility.Aggregation;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -186,4 +188,242 @@ public class NodeValueTest {
         });
     }
 
+    @Test
+    public void testBatchInsert() {
+        final Graph g = GraphBuilder.newBuilder().withScheduler(new NoopScheduler()).build();
+        g.connect(null);
+        final NodeValue nodeValue = (NodeValue) g.newTypedNode(0, 0, CoreNodeValue.NAME);
+        nodeValue.setValue(-1d);
+        //unsorted, spanning several time trees
+        final int size = 2500;
+        final long[] times = new long[size];
+        final double[] values = new double[size];
+        for (int i = 0; i < size; i++) {
+            times[i] = (size - i) * 2;
+            values[i] = (size - i) * 2 * 0.5d;
+        }
+        nodeValue.batchInsert(times, values);
+        //overwrite and insert in past, the last value of a duplicated time wins
+        nodeValue.batchInsert(new long[]{11, 10, 10, 5001}, new double[]{11d, 0d, 42d, 5001d});
+        final long id = nodeValue.id();
+        nodeValue.free();
+        g.save(null);
+        final int[] counter = {0};
+        for (int i = 1; i <= size * 2 + 1; i++) {
+            final long time = i;
+            g.lookup(0, time, id, new Callback<NodeValue>() {
+                @Override
+                public void on(NodeValue result) {
+                    final double expected;
+                    if (time == 1) {
+                        expected = -1d;
+                    } else if (time == 10) {
+                        expected = 42d;
+                    } else if (time == 11) {
+                        expected = 11d;
+                    } else if (time == 5001) {
+                        expected = 5001d;
+                    } else {
+                        expected = (time - (time % 2)) * 0.5d;
+                    }
+                    Assert.assertEquals(expected, result.getValue(), 0);
+                    result.free();
+                    counter[0]++;
+                }
+            });
+        }
+        Assert.assertEquals(size * 2 + 1, counter[0]);
+        g.lookup(0, 0, id, new Callback<NodeValue>() {
+            @Override
+            public void on(NodeValue result) {
+                Assert.assertEquals(-1d, result.getValue(), 0);
+                result.timepoints(Constants.BEGINNING_OF_TIME, Constants.END_OF_TIME, new Callback<long[]>() {
+                    @Override
+                    public void on(long[] timepoints) {
+                        Assert.assertEquals(size + 3, timepoints.length);
+                    }
+                });
+                result.free();
+                counter[0]++;
+            }
+        });
+        Assert.assertEquals(size * 2 + 2, counter[0]);
+        //first values in a child world
+        final long child = g.fork(0);
+        g.lookup(child, 3000, id, new Callback<NodeValue>() {
+            @Override
+            public void on(NodeValue result) {
+                result.batchInsert(new long[]{3002, 3000}, new double[]{2d, 1d});
+                result.free();
+            }
+        });
+        g.lookup(child, 3001, id, new Callback<NodeValue>() {
+            @Override
+            public void on(NodeValue result) {
+                Assert.assertEquals(1d, result.getValue(), 0);
+                result.free();
+                counter[0]++;
+            }
+        });
+        g.lookup(0, 3001, id, new Callback<NodeValue>() {
+            @Override
+            public void on(NodeValue result) {
+                Assert.assertEquals(1500d, result.getValue(), 0);
+                result.free();
+                counter[0]++;
+            }
+        });
+        Assert.assertEquals(size * 2 + 4, counter[0]);
+    }
+
+    @Test
+    public void testBatchInsertUnloaded() {
+        final MockStorage storage = new MockStorage();
+        final Graph g = GraphBuilder.newBuilder().withScheduler(new NoopScheduler()).withStorage(storage).build();
+        g.connect(null);
+        final NodeValue nodeValue = (NodeValue) g.newTypedNode(0, 0, CoreNodeValue.NAME);
+        final int size = 2500;
+        final long[] times = new long[size];
+        final double[] values = new double[size];
+        for (int i = 0; i < size; i++) {
+            times[i] = (i + 1) * 2;
+            values[i] = (i + 1) * 2;
+        }
+        nodeValue.batchInsert(times, values);
+        final long id = nodeValue.id();
+        nodeValue.free();
+        g.save(null);
+        g.disconnect(null);
+
+        final Graph reloaded = GraphBuilder.newBuilder().withScheduler(new NoopScheduler()).withStorage(storage).build();
+        reloaded.connect(null);
+        final int[] counter = {0};
+        reloaded.lookup(0, 3, id, new Callback<NodeValue>() {
+            @Override
+            public void on(NodeValue result) {
+                //only the first time tree is loaded, the insert is refused before writing anything in it
+                try {
+                    result.batchInsert(new long[]{size * 2 - 1, 3}, new double[]{-1d, -1d});
+                } catch (RuntimeException e) {
+                    counter[0]++;
+                }
+                result.free();
+            }
+        });
+        Assert.assertEquals(1, counter[0]);
+        final long[] checked = new long[]{3, size * 2 - 1};
+        for (int i = 0; i < checked.length; i++) {
+            final long time = checked[i];
+            reloaded.lookup(0, time, id, new Callback<NodeValue>() {
+                @Override
+                public void on(NodeValue result) {
+                    Assert.assertEquals(time - 1, result.getValue(), 0);
+                    result.free();
+                    counter[0]++;
+                }
+            });
+        }
+        Assert.assertEquals(3, counter[0]);
+        reloaded.disconnect(null);
+    }
+
+    @Test
+    public void testCompressed() {
+        final MockStorage storage = new MockStorage();
+        final Graph g = GraphBuilder.newBuilder().withScheduler(new NoopScheduler()).withStorage(storage).build();
+        g.connect(null);
+        final NodeValue plain = (NodeValue) g.newTypedNode(0, 0, CoreNodeValue.NAME);
+        final NodeValue compressed = (NodeValue) g.newTypedNode(0, 0, CoreNodeValue.COMPRESSED_NAME);
+        final int size = 2500;
+        final long[] times = new long[size];
+        final double[] values = new double[size];
+        for (int i = 0; i < size; i++) {
+            times[i] = (i + 1) * 2;
+            values[i] = Math.cos(i);
+        }
+        plain.batchInsert(times, values);
+        compressed.batchInsert(times, values);
+        //past insert and overwrite
+        plain.batchInsert(new long[]{1, 10}, new double[]{1d, 10d});
+        compressed.batchInsert(new long[]{1, 10}, new double[]{1d, 10d});
+        final long plainId = plain.id();
+        final long compressedId = compressed.id();
+        plain.free();
+        compressed.free();
+        g.save(null);
+        g.disconnect(null);
+
+        final Graph reloaded = GraphBuilder.newBuilder().withScheduler(new NoopScheduler()).withStorage(storage).build();
+        reloaded.connect(null);
+        final int[] counter = {0};
+        for (int i = 0; i <= size * 2 + 1; i++) {
+            final long time = i;
+            reloaded.lookup(0, time, plainId, new Callback<NodeValue>() {
+                @Override
+                public void on(final NodeValue expected) {
+                    reloaded.lookup(0, time, compressedId, new Callback<NodeValue>() {
+                        @Override
+                        public void on(NodeValue result) {
+                            Assert.assertEquals(expected.getValue(), result.getValue(), 0);
+                            result.free();
+                            counter[0]++;
+                        }
+                    });
+                    expected.free();
+                }
+            });
+        }
+        Assert.assertEquals(size * 2 + 2, counter[0]);
+        reloaded.disconnect(null);
+    }
+
+
+    @Test
+    public void testAggregate() {
+        final Graph g = GraphBuilder.newBuilder().withScheduler(new NoopScheduler()).build();
+        g.connect(null);
+        final NodeValue nodeValue = (NodeValue) g.newTypedNode(0, 0, CoreNodeValue.NAME);
+        final long[] times = new long[600];
+        final double[] values = new double[600];
+        for (int i = 0; i < times.length; i++) {
+            times[i] = i;
+            values[i] = 1d;
+        }
+        nodeValue.batchInsert(times, values);
+        final long id = nodeValue.id();
+        nodeValue.free();
+        //a child world overrides the series from 300
+        final long child = g.fork(0);
+        g.lookup(child, 300, id, new Callback<NodeValue>() {
+            @Override
+            public void on(NodeValue result) {
+                result.batchInsert(new long[]{300, 450}, new double[]{2d, 3d});
+                result.free();
+            }
+        });
+        final int[] counter = {0};
+        g.aggregate(0, 0, 599, id, 300, new Callback<Aggregation>() {
+            @Override
+            public void on(Aggregation result) {
+                Assert.assertEquals(2, result.size());
+                Assert.assertEquals(300, result.count(0));
+                Assert.assertEquals(300, result.count(1));
+                Assert.assertEquals(300d, result.sum(1), 0);
+                counter[0]++;
+            }
+        });
+        g.aggregate(child, 0, 599, id, 300, new Callback<Aggregation>() {
+            @Override
+            public void on(Aggregation result) {
+                Assert.assertEquals(300, result.count(0));
+                Assert.assertEquals(1d, result.max(0), 0);
+                Assert.assertEquals(2, result.count(1));
+                Assert.assertEquals(2d, result.min(1), 0);
+                Assert.assertEquals(3d, result.max(1), 0);
+                counter[0]++;
+            }
+        });
+        Assert.assertEquals(2, counter[0]);
+    }
+
 }
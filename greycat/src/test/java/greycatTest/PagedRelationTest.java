@@ -0,0 +1,119 @@
+/**
+ * Copyright 2017 The GreyCat Authors.  All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package greycatTest;
+
+import greycat.*;
+import greycat.scheduler.NoopScheduler;
+import greycatTest.internal.MockStorage;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class PagedRelationTest {
+
+    private static Graph newGraph(final MockStorage storage) {
+        final Graph g = GraphBuilder.newBuilder().withStorage(storage).withScheduler(new NoopScheduler()).build();
+        g.connect(null);
+        return g;
+    }
+
+    private static long[] window(final Node node, final int offset, final int limit) {
+        final long[][] result = new long[1][];
+        node.traversePage("children", offset, limit, new Callback<Node[]>() {
+            @Override
+            public void on(Node[] nodes) {
+                result[0] = new long[nodes.length];
+                for (int i = 0; i < nodes.length; i++) {
+                    result[0][i] = nodes[i].id();
+                }
+                node.graph().freeNodes(nodes);
+            }
+        });
+        return result[0];
+    }
+
+    @Test
+    public void test() {
+        final MockStorage storage = new MockStorage();
+        Graph g = newGraph(storage);
+        final Node root = g.newNode(0, 0);
+        final long[] children = new long[95];
+        final PagedRelation relation = (PagedRelation) root.getOrCreate("children", Type.PAGED_RELATION);
+        relation.setPageSize(10);
+        for (int i = 0; i < children.length; i++) {
+            final Node child = g.newNode(0, 0);
+            children[i] = child.id();
+            relation.add(0, 0, child.id(), null);
+            child.free();
+        }
+        Assert.assertEquals(95, relation.size());
+        long[] found = window(root, 42, 10);
+        Assert.assertEquals(10, found.length);
+        for (int i = 0; i < found.length; i++) {
+            Assert.assertEquals(children[42 + i], found[i]);
+        }
+        //windows are clamped to the relation size
+        Assert.assertEquals(5, window(root, 90, 10).length);
+        Assert.assertEquals(0, window(root, 100, 10).length);
+        final long rootId = root.id();
+        root.free();
+        g.save(null);
+        g.disconnect(null);
+
+        //pages are loaded from storage and copied only at the new time
+        g = newGraph(storage);
+        g.lookup(0, 10, rootId, new Callback<Node>() {
+            @Override
+            public void on(Node result) {
+                final PagedRelation rel = (PagedRelation) result.getOrCreate("children", Type.PAGED_RELATION);
+                Assert.assertEquals(95, rel.size());
+                rel.remove(0, 10, children[5], new Callback<Boolean>() {
+                    @Override
+                    public void on(Boolean removed) {
+                        Assert.assertTrue(removed);
+                    }
+                });
+                rel.remove(0, 10, -1, new Callback<Boolean>() {
+                    @Override
+                    public void on(Boolean removed) {
+                        Assert.assertFalse(removed);
+                    }
+                });
+                Assert.assertEquals(94, rel.size());
+                Assert.assertEquals(children[6], window(result, 5, 1)[0]);
+                result.free();
+            }
+        });
+        g.lookup(0, 0, rootId, new Callback<Node>() {
+            @Override
+            public void on(Node result) {
+                Assert.assertEquals(95, ((PagedRelation) result.get("children")).size());
+                Assert.assertEquals(children[5], window(result, 5, 1)[0]);
+                final Node[][] all = new Node[1][];
+                result.traverse("children", new Callback<Node[]>() {
+                    @Override
+                    public void on(Node[] nodes) {
+                        all[0] = nodes;
+                    }
+                });
+                Assert.assertEquals(95, all[0].length);
+                result.graph().freeNodes(all[0]);
+                result.free();
+            }
+        });
+        g.disconnect(null);
+    }
+
+}
@@ -0,0 +1,182 @@
+/**
+ * Copyright 2017 The GreyCat Authors.  All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package greycatTest;
+
+import greycat.*;
+import greycat.internal.custom.CoreSortedIndex;
+import greycat.scheduler.NoopScheduler;
+import greycatTest.internal.MockStorage;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static greycat.Tasks.newTask;
+
+public class SortedIndexTest {
+
+    private static Graph newGraph(final MockStorage storage) {
+        final Graph g = GraphBuilder.newBuilder().withStorage(storage).withScheduler(new NoopScheduler()).build();
+        g.connect(null);
+        return g;
+    }
+
+    @Test
+    public void numeric() {
+        final MockStorage storage = new MockStorage();
+        Graph g = newGraph(storage);
+        final Node root = g.newNode(0, 0);
+        final CoreSortedIndex index = (CoreSortedIndex) root.getOrCreate("byValue", Type.SORTED_INDEX);
+        index.setPageSize(4);
+        index.declareAttribute("value");
+        //values are inserted in random order to force splits everywhere in the tree
+        final int size = 500;
+        final long[] ids = new long[size];
+        final int[] order = new int[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        final Random random = new Random(42);
+        for (int i = size - 1; i > 0; i--) {
+            final int j = random.nextInt(i + 1);
+            final int tmp = order[i];
+            order[i] = order[j];
+            order[j] = tmp;
+        }
+        for (int i = 0; i < size; i++) {
+            final Node node = g.newNode(0, 0);
+            node.set("value", Type.INT, order[i]);
+            ids[order[i]] = node.id();
+            index.update(node);
+            node.free();
+        }
+        Assert.assertEquals(size, index.size());
+        long[] found = index.selectRange("100", "149", 0, -1);
+        Assert.assertEquals(50, found.length);
+        for (int i = 0; i < found.length; i++) {
+            Assert.assertEquals(ids[100 + i], found[i]);
+        }
+        found = index.selectRange("100.5", "", 10, 5);
+        Assert.assertEquals(5, found.length);
+        Assert.assertEquals(ids[111], found[0]);
+        found = index.selectOrdered(true, 3, 2);
+        Assert.assertArrayEquals(new long[]{ids[496], ids[495]}, found);
+        Assert.assertEquals(size, index.selectOrdered(false, 0, -1).length);
+
+        //moving a node keeps a single entry
+        g.lookup(0, 0, ids[10], new Callback<Node>() {
+            @Override
+            public void on(Node result) {
+                result.set("value", Type.INT, 1000);
+                index.update(result);
+                index.update(result);
+                result.free();
+            }
+        });
+        Assert.assertEquals(size, index.size());
+        Assert.assertEquals(10, index.selectRange("0", "10.5", 0, -1).length);
+        Assert.assertArrayEquals(new long[]{ids[10]}, index.selectOrdered(true, 0, 1));
+        g.lookup(0, 0, ids[20], new Callback<Node>() {
+            @Override
+            public void on(Node result) {
+                index.unindex(result);
+                result.free();
+            }
+        });
+        Assert.assertEquals(size - 1, index.size());
+        Assert.assertEquals(9, index.selectRange("12", "21", 0, -1).length);
+
+        final long rootId = root.id();
+        root.free();
+        g.save(null);
+        g.disconnect(null);
+
+        g = newGraph(storage);
+        g.lookup(0, 0, rootId, new Callback<Node>() {
+            @Override
+            public void on(Node result) {
+                final CoreSortedIndex reloaded = (CoreSortedIndex) result.getOrCreate("byValue", Type.SORTED_INDEX);
+                Assert.assertEquals(size - 1, reloaded.size());
+                final long[] range = reloaded.selectRange("100", "149", 0, -1);
+                Assert.assertEquals(50, range.length);
+                Assert.assertEquals(ids[100], range[0]);
+                final long[] window = new long[1];
+                result.traversePage("byValue", 0, 1, new Callback<Node[]>() {
+                    @Override
+                    public void on(Node[] nodes) {
+                        window[0] = nodes[0].id();
+                        result.graph().freeNodes(nodes);
+                    }
+                });
+                Assert.assertEquals(ids[0], window[0]);
+                result.free();
+            }
+        });
+        g.disconnect(null);
+    }
+
+    @Test
+    public void prefix() {
+        final Graph g = newGraph(new MockStorage());
+        final String[] names = new String[]{"sensor_b2", "actuator_1", "sensor_a1", "sensor_a2", "switch", "sensor_b1", "sensor"};
+        final Task task = newTask()
+                .declareSortedIndex("names", "name")
+                .readVar("names")
+                .forEach(newTask()
+                        .defineAsVar("name")
+                        .createNode()
+                        .setAttribute("name", Type.STRING, "{{name}}")
+                        .updateIndex("names")
+                )
+                .readIndexPrefix("names", "sensor_", "", "")
+                .defineAsVar("sensors")
+                .readIndexPrefix("names", "sensor_", "1", "2")
+                .defineAsVar("window")
+                .readIndexRange("names", "s", "sensor_a9", "", "")
+                .defineAsVar("range")
+                .readIndex("names", "switch")
+                .defineAsVar("exact")
+                .thenDo(new ActionFunction() {
+                    @Override
+                    public void eval(TaskContext ctx) {
+                        final TaskResult sensors = ctx.variable("sensors");
+                        Assert.assertEquals(4, sensors.size());
+                        Assert.assertEquals("sensor_a1", ((Node) sensors.get(0)).get("name"));
+                        Assert.assertEquals("sensor_b2", ((Node) sensors.get(3)).get("name"));
+                        final TaskResult window = ctx.variable("window");
+                        Assert.assertEquals(2, window.size());
+                        Assert.assertEquals("sensor_a2", ((Node) window.get(0)).get("name"));
+                        Assert.assertEquals("sensor_b1", ((Node) window.get(1)).get("name"));
+                        final TaskResult range = ctx.variable("range");
+                        Assert.assertEquals(3, range.size());
+                        Assert.assertEquals("sensor", ((Node) range.get(0)).get("name"));
+                        Assert.assertEquals(1, ctx.variable("exact").size());
+                        ctx.continueTask();
+                    }
+                });
+        final TaskContext context = task.prepare(g, null, new Callback<TaskResult>() {
+            @Override
+            public void on(TaskResult result) {
+                Assert.assertNull(result.exception());
+                result.free();
+            }
+        });
+        context.setVariable("names", names);
+        task.executeUsing(context);
+        g.disconnect(null);
+    }
+
+}
@@ -0,0 +1,84 @@
+/**
+ * Copyright 2017 The GreyCat Authors.  All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package greycatTest.bench;
+
+import greycat.*;
+import greycat.internal.CoreNodeValue;
+import greycat.scheduler.NoopScheduler;
+
+/**
+ * Compares the ingestion of a NodeValue time series one lookup and setValue at a time with NodeValue.batchInsert.
+ *
+ * @ignore ts
+ */
+public class BatchInsertBenchmark {
+
+    private static final int valuesToInsert = 1000000;
+
+    private static final int batchSize = 10000;
+
+    public static void main(String[] args) {
+        for (int run = 0; run < 3; run++) {
+            lookupInsert();
+            batchInsert();
+        }
+    }
+
+    private static void lookupInsert() {
+        final Graph graph = new GraphBuilder().withScheduler(new NoopScheduler()).withMemorySize(100000).build();
+        graph.connect(null);
+        final NodeValue node = (NodeValue) graph.newTypedNode(0, 0, CoreNodeValue.NAME);
+        final long before = System.currentTimeMillis();
+        for (int i = 0; i < valuesToInsert; i++) {
+            final double value = i * 0.3;
+            graph.lookup(0, i, node.id(), new Callback<NodeValue>() {
+                @Override
+                public void on(NodeValue result) {
+                    result.setValue(value);
+                    result.free();
+                }
+            });
+        }
+        report("lookup+setValue", before);
+        node.free();
+        graph.disconnect(null);
+    }
+
+    private static void batchInsert() {
+        final Graph graph = new GraphBuilder().withScheduler(new NoopScheduler()).withMemorySize(100000).build();
+        graph.connect(null);
+        final NodeValue node = (NodeValue) graph.newTypedNode(0, 0, CoreNodeValue.NAME);
+        final long[] times = new long[batchSize];
+        final double[] values = new double[batchSize];
+        final long before = System.currentTimeMillis();
+        for (int i = 0; i < valuesToInsert; i = i + batchSize) {
+            for (int j = 0; j < batchSize; j++) {
+                times[j] = i + j;
+                values[j] = (i + j) * 0.3;
+            }
+            node.batchInsert(times, values);
+        }
+        report("batchInsert", before);
+        node.free();
+        graph.disconnect(null);
+    }
+
+    private static void report(final String name, final long before) {
+        final long duration = System.currentTimeMillis() - before;
+        System.out.println(name + ": " + duration + "ms, " + (valuesToInsert / 1000) / (duration / 1000d) + " k values/s");
+    }
+
+}
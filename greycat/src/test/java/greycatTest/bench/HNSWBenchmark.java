@@ -0,0 +1,126 @@
+/**
+ * Copyright 2017 The GreyCat Authors.  All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package greycatTest.bench;
+
+import greycat.Graph;
+import greycat.GraphBuilder;
+import greycat.Node;
+import greycat.Type;
+import greycat.internal.custom.HNSWTree;
+import greycat.scheduler.NoopScheduler;
+import greycat.struct.Tree;
+import greycat.struct.TreeResult;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Measures recall at 10 and query latency of the HNSW index for several ef values, against the exact KDTree, on
+ * random high dimensional vectors queried with slightly perturbed vectors of the dataset.
+ *
+ * @ignore ts
+ */
+public class HNSWBenchmark {
+
+    private static final int SIZE = 20000;
+    private static final int DIM = 128;
+    private static final int QUERIES = 200;
+    private static final int K = 10;
+
+    public static void main(String[] args) {
+        final Random random = new Random(42);
+        final double[][] keys = new double[SIZE][DIM];
+        for (int i = 0; i < SIZE; i++) {
+            for (int j = 0; j < DIM; j++) {
+                keys[i][j] = random.nextDouble();
+            }
+        }
+        final double[][] targets = new double[QUERIES][DIM];
+        final double[] kthDistances = new double[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            final double[] origin = keys[random.nextInt(SIZE)];
+            for (int j = 0; j < DIM; j++) {
+                targets[i][j] = origin[j] + random.nextGaussian() * 0.05;
+            }
+            final double[] distances = new double[SIZE];
+            for (int k = 0; k < SIZE; k++) {
+                double sum = 0;
+                for (int j = 0; j < DIM; j++) {
+                    sum += (keys[k][j] - targets[i][j]) * (keys[k][j] - targets[i][j]);
+                }
+                distances[k] = Math.sqrt(sum);
+            }
+            Arrays.sort(distances);
+            kthDistances[i] = distances[K - 1];
+        }
+        final Graph graph = GraphBuilder.newBuilder().withMemorySize(10000000).withScheduler(new NoopScheduler()).build();
+        graph.connect(null);
+        final Node node = graph.newNode(0, 0);
+
+        long start = System.currentTimeMillis();
+        final HNSWTree hnsw = (HNSWTree) node.getOrCreate("hnsw", Type.HNSW);
+        for (int i = 0; i < SIZE; i++) {
+            hnsw.insert(keys[i], i);
+        }
+        System.out.println("build hnsw: " + (System.currentTimeMillis() - start) + " ms");
+        start = System.currentTimeMillis();
+        final Tree kdTree = (Tree) node.getOrCreate("kdtree", Type.KDTREE);
+        kdTree.setResolution(new double[DIM]);
+        for (int i = 0; i < SIZE; i++) {
+            kdTree.insert(keys[i], i);
+        }
+        System.out.println("build kdtree: " + (System.currentTimeMillis() - start) + " ms");
+
+        for (int round = 0; round < 2; round++) {
+            final int[] efs = new int[]{10, 50, 100, 200};
+            for (int e = 0; e < efs.length; e++) {
+                start = System.nanoTime();
+                int hits = 0;
+                for (int i = 0; i < QUERIES; i++) {
+                    final TreeResult result = hnsw.queryAroundWithEf(targets[i], K, efs[e]);
+                    hits += hits(result, kthDistances[i]);
+                    result.free();
+                }
+                report("hnsw ef=" + efs[e], hits, System.nanoTime() - start);
+            }
+            start = System.nanoTime();
+            int hits = 0;
+            for (int i = 0; i < QUERIES; i++) {
+                final TreeResult result = kdTree.queryAround(targets[i], K);
+                hits += hits(result, kthDistances[i]);
+                result.free();
+            }
+            report("kdtree", hits, System.nanoTime() - start);
+        }
+        node.free();
+        graph.disconnect(null);
+    }
+
+    private static int hits(final TreeResult result, final double kthDistance) {
+        int hits = 0;
+        for (int i = 0; i < result.size(); i++) {
+            if (result.distance(i) <= kthDistance + 1e-9) {
+                hits++;
+            }
+        }
+        return hits;
+    }
+
+    private static void report(final String name, final int hits, final long nanos) {
+        System.out.println(name + ": recall@" + K + " " + (hits / (double) (QUERIES * K)) + ", " + (nanos / QUERIES / 1000) + " us/query");
+    }
+
+}
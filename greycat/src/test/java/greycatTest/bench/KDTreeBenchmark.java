@@ -0,0 +1,91 @@
+/**
+ * Copyright 2017 The GreyCat Authors.  All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package greycatTest.bench;
+
+import greycat.Graph;
+import greycat.GraphBuilder;
+import greycat.Node;
+import greycat.Type;
+import greycat.internal.custom.FlatKDTree;
+import greycat.scheduler.NoopScheduler;
+import greycat.struct.Tree;
+import greycat.struct.TreeResult;
+
+import java.util.Random;
+
+/**
+ * Compares building and nearest neighbours queries of the linked KDTree with the bulk loaded FlatKDTree.
+ *
+ * @ignore ts
+ */
+public class KDTreeBenchmark {
+
+    private static final int SIZE = 200000;
+    private static final int DIM = 4;
+    private static final int QUERIES = 20000;
+    private static final int NEIGHBOURS = 10;
+
+    public static void main(String[] args) {
+        final Random random = new Random(42);
+        final double[][] keys = new double[SIZE][DIM];
+        final long[] values = new long[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            for (int j = 0; j < DIM; j++) {
+                keys[i][j] = random.nextDouble();
+            }
+            values[i] = i;
+        }
+        final double[][] targets = new double[QUERIES][DIM];
+        for (int i = 0; i < QUERIES; i++) {
+            for (int j = 0; j < DIM; j++) {
+                targets[i][j] = random.nextDouble();
+            }
+        }
+        final Graph graph = GraphBuilder.newBuilder().withMemorySize(10000000).withScheduler(new NoopScheduler()).build();
+        graph.connect(null);
+        final Node node = graph.newNode(0, 0);
+        for (int round = 0; round < 3; round++) {
+            node.remove("linked");
+            node.remove("flat");
+            final double[] resolution = new double[DIM];
+            long start = System.currentTimeMillis();
+            final Tree linked = (Tree) node.getOrCreate("linked", Type.KDTREE);
+            linked.setResolution(resolution);
+            for (int i = 0; i < SIZE; i++) {
+                linked.insert(keys[i], values[i]);
+            }
+            final long linkedBuild = System.currentTimeMillis() - start;
+            start = System.currentTimeMillis();
+            final FlatKDTree flat = (FlatKDTree) node.getOrCreate("flat", Type.FLAT_KDTREE);
+            flat.bulkInsert(keys, values);
+            final long flatBuild = System.currentTimeMillis() - start;
+            System.out.println("build linked: " + linkedBuild + " ms, flat: " + flatBuild + " ms");
+            System.out.println("query linked: " + query(linked, targets) + " ms, flat: " + query(flat, targets) + " ms");
+        }
+        node.free();
+        graph.disconnect(null);
+    }
+
+    private static long query(final Tree tree, final double[][] targets) {
+        final long start = System.currentTimeMillis();
+        for (int i = 0; i < targets.length; i++) {
+            final TreeResult result = tree.queryAround(targets[i], NEIGHBOURS);
+            result.free();
+        }
+        return System.currentTimeMillis() - start;
+    }
+
+}
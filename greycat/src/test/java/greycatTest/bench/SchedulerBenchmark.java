@@ -0,0 +1,123 @@
+/**
+ * Copyright 2017 The GreyCat Authors.  All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package greycatTest.bench;
+
+import greycat.Callback;
+import greycat.DeferCounterSync;
+import greycat.Graph;
+import greycat.GraphBuilder;
+import greycat.TaskResult;
+import greycat.Type;
+import greycat.plugin.Scheduler;
+import greycat.scheduler.ExecutorScheduler;
+import greycat.scheduler.HybridScheduler;
+import greycat.scheduler.WorkStealingScheduler;
+
+import static greycat.Tasks.cond;
+import static greycat.Tasks.newTask;
+
+/**
+ * Runs the BenchmarkParTest workload (parallel node creation, indexing and time travel) on the available schedulers.
+ * The first rounds of each scheduler are warmup and are not reported.
+ *
+ * @ignore ts
+ */
+public class SchedulerBenchmark {
+
+    private static final int NODES = 2000;
+    private static final int TIMEPOINTS = 200;
+    private static final int WARMUP = 2;
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) {
+        for (int i = 0; i < 2; i++) {
+            bench("hybrid", new SchedulerFactory() {
+                @Override
+                public Scheduler create() {
+                    return new HybridScheduler();
+                }
+            });
+            bench("executor", new SchedulerFactory() {
+                @Override
+                public Scheduler create() {
+                    return new ExecutorScheduler();
+                }
+            });
+            bench("workStealing", new SchedulerFactory() {
+                @Override
+                public Scheduler create() {
+                    return new WorkStealingScheduler();
+                }
+            });
+        }
+        System.exit(0);
+    }
+
+    private interface SchedulerFactory {
+        Scheduler create();
+    }
+
+    private static void bench(final String name, final SchedulerFactory factory) {
+        long total = 0;
+        for (int i = 0; i < WARMUP + ROUNDS; i++) {
+            final long time = run(factory.create());
+            if (i >= WARMUP) {
+                total += time;
+            }
+        }
+        System.out.println(name + ": " + (total / ROUNDS) + "ms");
+    }
+
+    private static long run(final Scheduler scheduler) {
+        final Graph g = new GraphBuilder()
+                .withMemorySize(1000000)
+                .withScheduler(scheduler)
+                .build();
+        final DeferCounterSync waiter = g.newSyncCounter(1);
+        final long[] time = new long[1];
+        g.connect(new Callback<Boolean>() {
+            @Override
+            public void on(Boolean result) {
+                final long before = System.currentTimeMillis();
+                newTask().declareIndex("nodes", "name").loopPar("0", String.valueOf(NODES - 1),
+                        newTask()
+                                .createNode()
+                                .setAttribute("name", Type.STRING, "node_{{i}}")
+                                .updateIndex("nodes")
+                                .loop("0", String.valueOf(TIMEPOINTS - 1),
+                                        newTask().travelInTime("{{i}}").setAttribute("val", Type.INT, "{{i}}").clearResult())
+                                .ifThen(cond("i % 100 == 0"), newTask().save())
+                                .clearResult()
+                ).save().execute(g, new Callback<TaskResult>() {
+                    @Override
+                    public void on(TaskResult result) {
+                        result.free();
+                        time[0] = System.currentTimeMillis() - before;
+                        g.disconnect(new Callback<Boolean>() {
+                            @Override
+                            public void on(Boolean result) {
+                                waiter.count();
+                            }
+                        });
+                    }
+                });
+            }
+        });
+        waiter.waitResult();
+        return time[0];
+    }
+
+}
@@ -0,0 +1,79 @@
+/**
+ * Copyright 2017 The GreyCat Authors.  All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package greycatTest.bench;
+
+import greycat.Callback;
+import greycat.Graph;
+import greycat.GraphBuilder;
+import greycat.Node;
+import greycat.Type;
+import greycat.scheduler.NoopScheduler;
+import greycat.struct.LongLongMap;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Compares the cost of new timepoints of a node holding a large map, when the map is left untouched (shared with the
+ * previous state) and when it is accessed at every timepoint (copied, as every new state used to do).
+ *
+ * @ignore ts
+ */
+public class TimepointCloneBenchmark {
+
+    private static final int MAP_SIZE = 1000;
+    private static final int ROUNDS = 10000;
+
+    public static void main(String[] args) {
+        run(false);
+        run(true);
+    }
+
+    private static void run(final boolean touchMap) {
+        final Graph g = GraphBuilder.newBuilder().withMemorySize(ROUNDS * 4).withScheduler(new NoopScheduler()).build();
+        g.connect(null);
+        final Node n = g.newNode(0, 0);
+        final LongLongMap map = (LongLongMap) n.getOrCreate("map", Type.LONG_TO_LONG_MAP);
+        for (int i = 0; i < MAP_SIZE; i++) {
+            map.put(i, i);
+        }
+        final long id = n.id();
+        n.free();
+        final long allocatedBefore = allocatedBytes();
+        final long before = System.currentTimeMillis();
+        for (int i = 1; i <= ROUNDS; i++) {
+            final int value = i;
+            g.lookup(0, i, id, new Callback<Node>() {
+                @Override
+                public void on(Node result) {
+                    result.set("value", Type.INT, value);
+                    if (touchMap) {
+                        result.get("map");
+                    }
+                    result.free();
+                }
+            });
+        }
+        final long after = System.currentTimeMillis();
+        final long allocated = allocatedBytes() - allocatedBefore;
+        System.out.println((touchMap ? "copied map: " : "shared map: ") + (after - before) + "ms, " + (allocated / ROUNDS) + " bytes/timepoint");
+        g.disconnect(null);
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+}
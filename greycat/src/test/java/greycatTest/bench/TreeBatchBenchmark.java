@@ -0,0 +1,125 @@
+/**
+ * Copyright 2017 The GreyCat Authors.  All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package greycatTest.bench;
+
+import greycat.Callback;
+import greycat.Graph;
+import greycat.GraphBuilder;
+import greycat.Node;
+import greycat.Type;
+import greycat.internal.custom.KDTree;
+import greycat.internal.custom.NDTree;
+import greycat.scheduler.WorkStealingScheduler;
+import greycat.struct.TreeBatchQuery;
+import greycat.struct.TreeBatchResult;
+import greycat.struct.TreeResult;
+
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Compares one query at a time with batched and parallel batched nearest neighbours queries of KDTree and NDTree.
+ *
+ * @ignore ts
+ */
+public class TreeBatchBenchmark {
+
+    private static final int SIZE = 50000;
+    private static final int DIM = 4;
+    private static final int QUERIES = 20000;
+    private static final int NEIGHBOURS = 10;
+
+    public static void main(String[] args) throws InterruptedException {
+        final Random random = new Random(42);
+        final double[][] keys = new double[SIZE][DIM];
+        for (int i = 0; i < SIZE; i++) {
+            for (int j = 0; j < DIM; j++) {
+                keys[i][j] = random.nextDouble();
+            }
+        }
+        final double[][] targets = new double[QUERIES][DIM];
+        for (int i = 0; i < QUERIES; i++) {
+            for (int j = 0; j < DIM; j++) {
+                targets[i][j] = random.nextDouble();
+            }
+        }
+        final Graph graph = GraphBuilder.newBuilder().withMemorySize(10000000).withScheduler(new WorkStealingScheduler(Runtime.getRuntime().availableProcessors())).build();
+        final CountDownLatch connected = new CountDownLatch(1);
+        graph.connect(new Callback<Boolean>() {
+            @Override
+            public void on(Boolean result) {
+                connected.countDown();
+            }
+        });
+        connected.await();
+        final Node node = graph.newNode(0, 0);
+        final double[] min = new double[DIM];
+        final double[] max = new double[DIM];
+        final double[] resolution = new double[DIM];
+        for (int i = 0; i < DIM; i++) {
+            max[i] = 1;
+            resolution[i] = 0.00001;
+        }
+        final KDTree kdTree = (KDTree) node.getOrCreate("kd", Type.KDTREE);
+        final NDTree ndTree = (NDTree) node.getOrCreate("nd", Type.NDTREE);
+        kdTree.setResolution(resolution);
+        ndTree.setMinBound(min);
+        ndTree.setMaxBound(max);
+        ndTree.setResolution(resolution);
+        for (int i = 0; i < SIZE; i++) {
+            kdTree.insert(keys[i], i);
+            ndTree.insert(keys[i], i);
+        }
+        for (int round = 0; round < 3; round++) {
+            long start = System.currentTimeMillis();
+            for (int i = 0; i < QUERIES; i++) {
+                final TreeResult result = kdTree.queryAround(targets[i], NEIGHBOURS);
+                result.free();
+            }
+            final long kdSingle = System.currentTimeMillis() - start;
+            start = System.currentTimeMillis();
+            kdTree.queryAroundBatch(targets, NEIGHBOURS);
+            final long kdBatch = System.currentTimeMillis() - start;
+            start = System.currentTimeMillis();
+            for (int i = 0; i < QUERIES; i++) {
+                final TreeResult result = ndTree.queryAround(targets[i], NEIGHBOURS);
+                result.free();
+            }
+            final long ndSingle = System.currentTimeMillis() - start;
+            start = System.currentTimeMillis();
+            ndTree.queryAroundBatch(targets, NEIGHBOURS);
+            final long ndBatch = System.currentTimeMillis() - start;
+            System.out.println("kdtree single: " + kdSingle + " ms, batch: " + kdBatch + " ms, parallel: " + parallel(kdTree, targets) + " ms");
+            System.out.println("ndtree single: " + ndSingle + " ms, batch: " + ndBatch + " ms, parallel: " + parallel(ndTree, targets) + " ms");
+        }
+        node.free();
+        graph.disconnect(null);
+    }
+
+    private static long parallel(final TreeBatchQuery tree, final double[][] targets) throws InterruptedException {
+        final CountDownLatch done = new CountDownLatch(1);
+        final long start = System.currentTimeMillis();
+        tree.queryBatchParallel(targets, -1, NEIGHBOURS, new Callback<TreeBatchResult>() {
+            @Override
+            public void on(TreeBatchResult result) {
+                done.countDown();
+            }
+        });
+        done.await();
+        return System.currentTimeMillis() - start;
+    }
+
+}
@@ -25,6 +25,9 @@ import greycat.scheduler.NoopScheduler;
 import greycat.utility.HashHelper;
 import greycat.GraphBuilder;
 import greycat.chunk.Chunk;
+import greycat.chunk.ChunkFormat;
+import greycat.chunk.EvictionPolicy;
+import greycat.chunk.KeyFormat;
 import greycat.internal.heap.HeapChunkSpace;
 
 import java.util.HashMap;
@@ -40,7 +43,7 @@ public class Benchmark4Test {
     public void test() {
         int nb = 3000000;
         long init = System.currentTimeMillis();
-        HeapChunkSpace space = new HeapChunkSpace(nb * 2,-1, null, false);
+        HeapChunkSpace space = new HeapChunkSpace(nb * 2, -1, null, false, EvictionPolicy.LRU, -1, 0, ChunkFormat.TEXT, KeyFormat.TEXT);
         for (int i = 0; i < nb; i++) {
             Chunk c = space.createAndMark(ChunkType.STATE_CHUNK, 0, 0, i);
             //space.putAndMark(ChunkType.STATE_CHUNK, 0, 0, i, c);
@@ -85,7 +88,7 @@ public class Benchmark4Test {
     // @Test
     public void test3() {
         int nb = 1000000;
-        HeapChunkSpace space = new HeapChunkSpace(nb,-1, null, true);
+        HeapChunkSpace space = new HeapChunkSpace(nb, -1, null, true, EvictionPolicy.LRU, -1, 0, ChunkFormat.TEXT, KeyFormat.TEXT);
         Map<Long, Chunk> map = new HashMap<Long, Chunk>();
         for (int i = 0; i < nb; i++) {
             long hashed = HashHelper.tripleHash(ChunkType.STATE_CHUNK, 0, 0, i, nb);
@@ -18,7 +18,8 @@ package greycatTest.internal;
 import greycat.Constants;
 import greycat.Graph;
 import greycat.internal.CoreConstants;
-import greycat.plugin.Storage;
+import greycat.plugin.AppendStorage;
+import greycat.plugin.ScanStorage;
 import greycat.struct.Buffer;
 import greycat.struct.BufferIterator;
 import greycat.utility.Base64;
@@ -26,15 +27,20 @@ import greycat.Callback;
 import greycat.utility.HashHelper;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
-public class MockStorage implements Storage {
+public class MockStorage implements ScanStorage, AppendStorage {
 
     private Graph _graph;
     private short prefix = 0;
     public final Map<String, byte[]> backend = new HashMap<String, byte[]>();
+    /**
+     * Simulates a storage refusing incremental records.
+     */
+    public boolean refuseAppend = false;
     private final List<Callback<Buffer>> updates = new ArrayList<Callback<Buffer>>();
 
     /**
@@ -69,6 +75,31 @@ public class MockStorage implements Storage {
         callback.on(result);
     }
 
+    @Override
+    public final void scan(Buffer prefix, Buffer from, Buffer to, int limit, Callback<Buffer> callback) {
+        final String prefixKey = keyToString(prefix.data());
+        final String lower = from == null ? null : prefixKey + keyToString(from.data());
+        final String upper = to == null ? null : prefixKey + keyToString(to.data());
+        final List<String> keys = new ArrayList<String>();
+        for (String key : backend.keySet()) {
+            if (key.startsWith(prefixKey) && (lower == null || key.compareTo(lower) >= 0) && (upper == null || key.compareTo(upper) <= 0)) {
+                keys.add(key);
+            }
+        }
+        Collections.sort(keys);
+        final Buffer result = _graph.newBuffer();
+        for (int i = 0; i < keys.size() && i != limit; i++) {
+            if (i != 0) {
+                result.write(CoreConstants.BUFFER_SEP);
+            }
+            final String key = keys.get(i);
+            result.writeString(key);
+            result.write(CoreConstants.BUFFER_SEP);
+            result.writeAll(backend.get(key));
+        }
+        callback.on(result);
+    }
+
     @Override
     public final void put(Buffer stream, Callback<Boolean> callback) {
         if (callback != null) {
@@ -103,6 +134,33 @@ public class MockStorage implements Storage {
         }
     }
 
+    @Override
+    public final void append(Buffer stream, Callback<Boolean> callback) {
+        if (refuseAppend) {
+            if (callback != null) {
+                callback.on(false);
+            }
+            return;
+        }
+        final BufferIterator it = stream.iterator();
+        while (it.hasNext()) {
+            final String key = keyToString(it.next().data());
+            final byte[] value = it.next().data();
+            final byte[] previous = backend.get(key);
+            if (previous == null) {
+                backend.put(key, value);
+            } else {
+                final byte[] merged = new byte[previous.length + value.length];
+                System.arraycopy(previous, 0, merged, 0, previous.length);
+                System.arraycopy(value, 0, merged, previous.length, value.length);
+                backend.put(key, merged);
+            }
+        }
+        if (callback != null) {
+            callback.on(true);
+        }
+    }
+
     @Override
     public final void putSilent(Buffer stream, Callback<Buffer> callback) {
         if (callback != null) {
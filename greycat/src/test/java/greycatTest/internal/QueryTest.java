@@ -22,6 +22,7 @@ import greycat.internal.heap.HeapMemoryFactory;
 import greycat.plugin.*;
 import greycat.struct.Buffer;
 import greycat.TaskHook;
+import greycat.utility.Aggregation;
 import greycat.utility.HashHelper;
 import greycat.utility.Tuple;
 import org.junit.Assert;
@@ -321,6 +322,11 @@ public class QueryTest implements Resolver, Graph {
 
     }
 
+    @Override
+    public void aggregate(long world, long from, long to, long id, long bucketSize, Callback<Aggregation> callback) {
+
+    }
+
     @Override
     public int stringToHash(String name, boolean insertIfNotExists) {
         return HashHelper.hash(name);
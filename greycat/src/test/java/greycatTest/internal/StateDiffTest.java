@@ -0,0 +1,175 @@
+/**
+ * Copyright 2017 The GreyCat Authors.  All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package greycatTest.internal;
+
+import greycat.*;
+import greycat.chunk.Chunk;
+import greycat.chunk.ChunkFormat;
+import greycat.chunk.ChunkType;
+import greycat.scheduler.NoopScheduler;
+import greycat.struct.Buffer;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class StateDiffTest {
+
+    private static long storedBytes(final MockStorage storage) {
+        long sum = 0;
+        for (byte[] value : storage.backend.values()) {
+            sum = sum + value.length;
+        }
+        return sum;
+    }
+
+    private static Graph newGraph(final MockStorage storage) {
+        final Graph g = GraphBuilder.newBuilder()
+                .withStorage(storage)
+                .withChunkFormat(ChunkFormat.BINARY)
+                .withScheduler(new NoopScheduler())
+                .build();
+        g.connect(null);
+        return g;
+    }
+
+    private static void update(final Graph g, final long id, final String name, final int value) {
+        g.lookup(0, 0, id, new Callback<Node>() {
+            @Override
+            public void on(Node result) {
+                result.set(name, Type.INT, value);
+                result.free();
+            }
+        });
+        g.save(null);
+    }
+
+    @Test
+    public void test() {
+        final MockStorage storage = new MockStorage();
+        Graph g = newGraph(storage);
+        final Node node = g.newNode(0, 0);
+        for (int i = 0; i < 50; i++) {
+            node.set("attribute" + i, Type.STRING, "a long enough value for attribute " + i);
+        }
+        final long id = node.id();
+        node.free();
+        g.save(null);
+        final long base = storedBytes(storage);
+
+        //a single attribute change is appended as a small record
+        update(g, id, "attribute3", 42);
+        final long afterFirstDiff = storedBytes(storage);
+        Assert.assertTrue(afterFirstDiff > base);
+        Assert.assertTrue(afterFirstDiff - base < 32);
+        g.disconnect(null);
+
+        //records are merged on load, and keep being appended after a reload
+        g = newGraph(storage);
+        update(g, id, "attribute4", 43);
+        Assert.assertTrue(storedBytes(storage) - afterFirstDiff < 32);
+        g.lookup(0, 0, id, new Callback<Node>() {
+            @Override
+            public void on(Node result) {
+                Assert.assertEquals(42, result.get("attribute3"));
+                Assert.assertEquals(43, result.get("attribute4"));
+                Assert.assertEquals("a long enough value for attribute 5", result.get("attribute5"));
+                result.free();
+            }
+        });
+
+        //records are compacted into a whole payload after a while
+        for (int i = 0; i < 10; i++) {
+            update(g, id, "attribute6", i);
+        }
+        Assert.assertTrue(storedBytes(storage) < afterFirstDiff + 64);
+        g.disconnect(null);
+
+        g = newGraph(storage);
+        g.lookup(0, 0, id, new Callback<Node>() {
+            @Override
+            public void on(Node result) {
+                Assert.assertEquals(42, result.get("attribute3"));
+                Assert.assertEquals(43, result.get("attribute4"));
+                Assert.assertEquals(9, result.get("attribute6"));
+                Assert.assertEquals("a long enough value for attribute 49", result.get("attribute49"));
+                result.free();
+            }
+        });
+        g.disconnect(null);
+    }
+
+    @Test
+    public void serializedWithoutSaveTest() {
+        final MockStorage storage = new MockStorage();
+        Graph g = newGraph(storage);
+        final Node node = g.newNode(0, 0);
+        for (int i = 0; i < 50; i++) {
+            node.set("attribute" + i, Type.STRING, "a long enough value for attribute " + i);
+        }
+        final long id = node.id();
+        node.free();
+        //serialized for a client, as a websocket server does, which does not persist the chunk
+        final Chunk chunk = g.space().getAndMark(ChunkType.STATE_CHUNK, 0, 0, id);
+        final Buffer buffer = g.newBuffer();
+        chunk.save(buffer);
+        buffer.free();
+        g.space().unmark(chunk.index());
+        update(g, id, "attribute3", 42);
+        g.disconnect(null);
+
+        g = newGraph(storage);
+        g.lookup(0, 0, id, new Callback<Node>() {
+            @Override
+            public void on(Node result) {
+                Assert.assertEquals(42, result.get("attribute3"));
+                Assert.assertEquals("a long enough value for attribute 5", result.get("attribute5"));
+                result.free();
+            }
+        });
+        g.disconnect(null);
+    }
+
+    @Test
+    public void refusedAppendTest() {
+        final MockStorage storage = new MockStorage();
+        Graph g = newGraph(storage);
+        final Node node = g.newNode(0, 0);
+        for (int i = 0; i < 50; i++) {
+            node.set("attribute" + i, Type.STRING, "a long enough value for attribute " + i);
+        }
+        final long id = node.id();
+        node.free();
+        g.save(null);
+        //refused records are saved as whole payloads
+        storage.refuseAppend = true;
+        update(g, id, "attribute3", 42);
+        storage.refuseAppend = false;
+        update(g, id, "attribute4", 43);
+        g.disconnect(null);
+
+        g = newGraph(storage);
+        g.lookup(0, 0, id, new Callback<Node>() {
+            @Override
+            public void on(Node result) {
+                Assert.assertEquals(42, result.get("attribute3"));
+                Assert.assertEquals(43, result.get("attribute4"));
+                Assert.assertEquals("a long enough value for attribute 5", result.get("attribute5"));
+                result.free();
+            }
+        });
+        g.disconnect(null);
+    }
+
+}
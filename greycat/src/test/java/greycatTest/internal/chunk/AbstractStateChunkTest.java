@@ -628,6 +628,50 @@ public abstract class AbstractStateChunkTest {
 
     }
 
+    @Test
+    public void copyOnWriteTest() {
+        ChunkSpace space = factory.newSpace(100, -1, null, false);
+        StateChunk chunk = (StateChunk) space.createAndMark(ChunkType.STATE_CHUNK, 0, 0, 0);
+        ((LongLongMap) chunk.getOrCreateAt(0, Type.LONG_TO_LONG_MAP)).put(1, 1);
+        ((Relation) chunk.getOrCreateAt(1, Type.RELATION)).add(1);
+        ((DMatrix) chunk.getOrCreateAt(2, Type.DMATRIX)).init(2, 2);
+        chunk.setAt(3, Type.INT, 0);
+
+        //a clone that is never accessed saves the same content than its origin
+        StateChunk chunk2 = (StateChunk) space.createAndMark(ChunkType.STATE_CHUNK, 0, 0, 1);
+        chunk2.loadFrom(chunk);
+        Buffer buffer = factory.newBuffer();
+        chunk.save(buffer);
+        Buffer buffer2 = factory.newBuffer();
+        chunk2.save(buffer2);
+        Assert.assertTrue(compareBuffers(buffer, buffer2));
+
+        //the origin modified after the clone does not leak into it, nor into a clone of the clone
+        StateChunk chunk3 = (StateChunk) space.createAndMark(ChunkType.STATE_CHUNK, 0, 0, 2);
+        chunk3.loadFrom(chunk2);
+        ((LongLongMap) chunk.getAt(0)).put(1, 2);
+        ((Relation) chunk.getAt(1)).add(2);
+        ((DMatrix) chunk.getAt(2)).set(0, 0, 5.0);
+        Assert.assertEquals(2, ((LongLongMap) chunk.getAt(0)).get(1));
+        Assert.assertEquals(1, ((LongLongMap) chunk2.getAt(0)).get(1));
+        Assert.assertEquals(1, ((LongLongMap) chunk3.getAt(0)).get(1));
+        Assert.assertEquals(2, ((Relation) chunk.getAt(1)).size());
+        Assert.assertEquals(1, ((Relation) chunk2.getAt(1)).size());
+        Assert.assertEquals(0.0, ((DMatrix) chunk3.getAt(2)).get(0, 0), 0);
+
+        //clones sharing a container do not see each other writes
+        ((LongLongMap) chunk3.getAt(0)).put(1, 3);
+        Assert.assertEquals(1, ((LongLongMap) chunk2.getAt(0)).get(1));
+        Assert.assertEquals(3, ((LongLongMap) chunk3.getAt(0)).get(1));
+
+        buffer.free();
+        buffer2.free();
+        space.free(chunk);
+        space.free(chunk2);
+        space.free(chunk3);
+        space.freeAll();
+    }
+
     @Test
     public void protectionTest() {
 
@@ -17,6 +17,9 @@ package greycatTest.internal.heap;
 
 import greycat.chunk.ChunkType;
 import greycat.chunk.Chunk;
+import greycat.chunk.ChunkFormat;
+import greycat.chunk.EvictionPolicy;
+import greycat.chunk.KeyFormat;
 import greycat.internal.heap.HeapChunkSpace;
 
 public class ChunkMicroBenchmark {
@@ -24,7 +27,7 @@ public class ChunkMicroBenchmark {
     public static void main(String[] args) {
         int nb = 10000000;
         long init = System.currentTimeMillis();
-        HeapChunkSpace space = new HeapChunkSpace(nb, -1, null, false);
+        HeapChunkSpace space = new HeapChunkSpace(nb, -1, null, false, EvictionPolicy.LRU, -1, 0, ChunkFormat.TEXT, KeyFormat.TEXT);
         for (int i = 0; i < nb; i++) {
             space.createAndMark(ChunkType.STATE_CHUNK, 0, 0, i);
 
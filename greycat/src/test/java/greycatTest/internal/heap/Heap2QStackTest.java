@@ -0,0 +1,60 @@
+/**
+ * Copyright 2017 The GreyCat Authors.  All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package greycatTest.internal.heap;
+
+import greycat.internal.heap.Heap2QStack;
+import greycatTest.internal.chunk.AbstractFixedStackTest;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class Heap2QStackTest extends AbstractFixedStackTest {
+
+    @Test
+    public void heap2QStackTest() {
+        test(new Heap2QStack(CAPACITY, true));
+    }
+
+    @Test
+    public void scanResistanceTest() {
+        final Heap2QStack stack = new Heap2QStack(CAPACITY, true);
+        //empty the stack, like a full space
+        for (int i = 0; i < CAPACITY; i++) {
+            stack.dequeueTail();
+        }
+        //0 to 4 are hot: unmarked then re-marked several times
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < 5; i++) {
+                Assert.assertTrue(stack.enqueue(i));
+            }
+            for (int i = 0; i < 5; i++) {
+                Assert.assertTrue(stack.dequeue(i));
+            }
+        }
+        for (int i = 0; i < 5; i++) {
+            Assert.assertTrue(stack.enqueue(i));
+        }
+        //5 to 14 are unmarked once by a scan
+        for (int i = 5; i < CAPACITY; i++) {
+            Assert.assertTrue(stack.enqueue(i));
+        }
+        //scanned ones are evicted first
+        for (int i = 5; i < 10; i++) {
+            long victim = stack.dequeueTail();
+            Assert.assertTrue(victim >= 5);
+        }
+    }
+
+}
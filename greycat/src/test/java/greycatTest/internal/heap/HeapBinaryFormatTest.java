@@ -0,0 +1,179 @@
+/**
+ * Copyright 2017 The GreyCat Authors.  All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package greycatTest.internal.heap;
+
+import greycat.Constants;
+import greycat.Type;
+import greycat.chunk.*;
+import greycat.internal.heap.HeapBuffer;
+import greycat.internal.heap.HeapChunkSpace;
+import greycat.struct.*;
+import greycat.utility.Binary;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class HeapBinaryFormatTest {
+
+    private static HeapChunkSpace newSpace(byte format) {
+        return new HeapChunkSpace(100, 10, null, false, EvictionPolicy.LRU, 100, 0, format, KeyFormat.TEXT);
+    }
+
+    @Test
+    public void stateChunkTest() {
+        final HeapChunkSpace binary = newSpace(ChunkFormat.BINARY);
+        final StateChunk chunk = (StateChunk) binary.createAndMark(ChunkType.STATE_CHUNK, 0, 0, 0);
+        //values chosen so that their encoding contains the buffer separator
+        chunk.setAt(0, Type.STRING, "hello#worldé世");
+        chunk.setAt(1, Type.LONG, (long) Constants.BUFFER_SEP);
+        chunk.setAt(2, Type.DOUBLE, Double.longBitsToDouble(0x2323232323232323L));
+        chunk.setAt(3, Type.INT, -35);
+        chunk.setAt(4, Type.BOOL, true);
+        chunk.setAt(5, Type.LONG, Constants.NULL_LONG);
+        final DoubleArray darray = (DoubleArray) chunk.getOrCreateAt(6, Type.DOUBLE_ARRAY);
+        darray.initWith(new double[]{1.5, -2.25, Double.NaN});
+        final Relation relation = (Relation) chunk.getOrCreateAt(7, Type.RELATION);
+        relation.add(35).add(Long.MAX_VALUE).add(-1);
+        final LongLongMap map = (LongLongMap) chunk.getOrCreateAt(8, Type.LONG_TO_LONG_MAP);
+        map.put(35, 0xFE);
+        map.put(-1, 42);
+        final IntArray iarray = (IntArray) chunk.getOrCreateAt(9, Type.INT_ARRAY);
+        iarray.initWith(new int[]{0xFE, 35, Integer.MIN_VALUE});
+
+        final Buffer binaryBuffer = new HeapBuffer();
+        chunk.save(binaryBuffer);
+        Assert.assertTrue(Binary.isBinary(binaryBuffer));
+        for (int i = 0; i < binaryBuffer.length(); i++) {
+            Assert.assertNotEquals(Constants.BUFFER_SEP, binaryBuffer.read(i));
+        }
+
+        final HeapChunkSpace text = newSpace(ChunkFormat.TEXT);
+        final StateChunk fromBinary = (StateChunk) text.createAndMark(ChunkType.STATE_CHUNK, 0, 0, 0);
+        fromBinary.load(binaryBuffer);
+        Assert.assertEquals("hello#worldé世", fromBinary.getAt(0));
+        Assert.assertEquals((long) Constants.BUFFER_SEP, fromBinary.getAt(1));
+        Assert.assertEquals(0x2323232323232323L, Double.doubleToRawLongBits((Double) fromBinary.getAt(2)));
+        Assert.assertEquals(-35, fromBinary.getAt(3));
+        Assert.assertEquals(true, fromBinary.getAt(4));
+        Assert.assertEquals(Constants.NULL_LONG, fromBinary.getAt(5));
+        final DoubleArray darray2 = (DoubleArray) fromBinary.getAt(6);
+        Assert.assertEquals(3, darray2.size());
+        Assert.assertTrue(-2.25 == darray2.get(1));
+        Assert.assertTrue(Double.isNaN(darray2.get(2)));
+        final Relation relation2 = (Relation) fromBinary.getAt(7);
+        Assert.assertEquals(3, relation2.size());
+        Assert.assertEquals(Long.MAX_VALUE, relation2.get(1));
+        Assert.assertEquals(-1, relation2.get(2));
+        final LongLongMap map2 = (LongLongMap) fromBinary.getAt(8);
+        Assert.assertEquals(0xFE, map2.get(35));
+        Assert.assertEquals(42, map2.get(-1));
+        final IntArray iarray2 = (IntArray) fromBinary.getAt(9);
+        Assert.assertEquals(Integer.MIN_VALUE, iarray2.get(2));
+
+        //the text encoding of the same state is loaded back in a binary space
+        final Buffer textBuffer = new HeapBuffer();
+        fromBinary.save(textBuffer);
+        Assert.assertFalse(Binary.isBinary(textBuffer));
+        Assert.assertTrue(binaryBuffer.length() < textBuffer.length());
+        final StateChunk fromText = (StateChunk) binary.createAndMark(ChunkType.STATE_CHUNK, 0, 0, 1);
+        fromText.load(textBuffer);
+        Assert.assertEquals((long) Constants.BUFFER_SEP, fromText.getAt(1));
+        Assert.assertEquals(0x2323232323232323L, Double.doubleToRawLongBits((Double) fromText.getAt(2)));
+        Assert.assertEquals(-35, fromText.getAt(3));
+        Assert.assertEquals(3, ((DoubleArray) fromText.getAt(6)).size());
+        Assert.assertEquals(35, ((Relation) fromText.getAt(7)).get(0));
+        Assert.assertEquals(42, ((LongLongMap) fromText.getAt(8)).get(-1));
+
+        binaryBuffer.free();
+        textBuffer.free();
+        binary.freeAll();
+        text.freeAll();
+    }
+
+    @Test
+    public void timeTreeTest() {
+        final HeapChunkSpace binary = newSpace(ChunkFormat.BINARY);
+        final TimeTreeChunk tree = (TimeTreeChunk) binary.createAndMark(ChunkType.TIME_TREE_CHUNK, 0, 0, 0);
+        final long start = 1500000000000L;
+        for (int i = 0; i < 100; i++) {
+            tree.insert(start + i * 1000);
+        }
+        tree.insert(Constants.BEGINNING_OF_TIME);
+        tree.insert(Constants.END_OF_TIME);
+        tree.setCapacity(1000);
+        final Buffer buffer = new HeapBuffer();
+        tree.save(buffer);
+        Assert.assertTrue(Binary.isBinary(buffer));
+
+        final HeapChunkSpace text = newSpace(ChunkFormat.TEXT);
+        final TimeTreeChunk loaded = (TimeTreeChunk) text.createAndMark(ChunkType.TIME_TREE_CHUNK, 0, 0, 0);
+        loaded.load(buffer);
+        Assert.assertEquals(102, loaded.size());
+        Assert.assertEquals(1000, loaded.capacity());
+        Assert.assertEquals(start + 5000, loaded.previousOrEqual(start + 5500));
+        Assert.assertEquals(Constants.BEGINNING_OF_TIME, loaded.previous(start));
+        Assert.assertEquals(Constants.END_OF_TIME, loaded.next(start + 99000));
+
+        final Buffer textBuffer = new HeapBuffer();
+        loaded.save(textBuffer);
+        Assert.assertTrue(buffer.length() < textBuffer.length());
+        buffer.free();
+        textBuffer.free();
+        binary.freeAll();
+        text.freeAll();
+    }
+
+    @Test
+    public void dValueTreeTest() {
+        final HeapChunkSpace binary = newSpace(ChunkFormat.BINARY);
+        final TimeTreeDValueChunk tree = (TimeTreeDValueChunk) binary.createAndMark(ChunkType.TIME_TREE_DVALUE_CHUNK, 0, 0, 0);
+        for (int i = 0; i < 100; i = i + 10) {
+            tree.insertValue(i, i * 1.5d);
+        }
+        final Buffer buffer = new HeapBuffer();
+        tree.save(buffer);
+        final TimeTreeDValueChunk loaded = (TimeTreeDValueChunk) binary.createAndMark(ChunkType.TIME_TREE_DVALUE_CHUNK, 0, 0, 1);
+        loaded.load(buffer);
+        for (int i = 5; i < 100; i = i + 10) {
+            final int offset = loaded.previousOffset(i);
+            Assert.assertEquals(i - 5, loaded.getKey(offset));
+            Assert.assertTrue((i - 5) * 1.5d == loaded.getValue(offset));
+        }
+        buffer.free();
+        binary.freeAll();
+    }
+
+    @Test
+    public void worldOrderTest() {
+        final HeapChunkSpace binary = newSpace(ChunkFormat.BINARY);
+        final WorldOrderChunk order = (WorldOrderChunk) binary.createAndMark(ChunkType.WORLD_ORDER_CHUNK, 0, 0, 0);
+        order.put(0, 35);
+        order.put(Constants.BUFFER_SEP, Constants.END_OF_TIME);
+        order.setType(42);
+        final Buffer buffer = new HeapBuffer();
+        order.save(buffer);
+        final HeapChunkSpace text = newSpace(ChunkFormat.TEXT);
+        final WorldOrderChunk loaded = (WorldOrderChunk) text.createAndMark(ChunkType.WORLD_ORDER_CHUNK, 0, 0, 0);
+        loaded.load(buffer);
+        Assert.assertEquals(2, loaded.size());
+        Assert.assertEquals(35, loaded.get(0));
+        Assert.assertEquals(Constants.END_OF_TIME, loaded.get(Constants.BUFFER_SEP));
+        Assert.assertEquals(42, loaded.type());
+        buffer.free();
+        binary.freeAll();
+        text.freeAll();
+    }
+
+}
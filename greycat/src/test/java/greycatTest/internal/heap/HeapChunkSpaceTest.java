@@ -15,8 +15,21 @@
  */
 package greycatTest.internal.heap;
 
+import greycat.Graph;
+import greycat.GraphBuilder;
+import greycat.Node;
+import greycat.chunk.Chunk;
+import greycat.chunk.ChunkFormat;
+import greycat.chunk.ChunkSpace;
+import greycat.chunk.ChunkType;
+import greycat.chunk.EvictionPolicy;
+import greycat.chunk.KeyFormat;
+import greycat.internal.heap.HeapChunkSpace;
 import greycat.internal.heap.HeapMemoryFactory;
+import greycat.scheduler.NoopScheduler;
 import greycatTest.internal.chunk.AbstractChunkSpaceTest;
+import org.junit.Assert;
+import org.junit.Test;
 
 public class HeapChunkSpaceTest extends AbstractChunkSpaceTest {
 
@@ -24,4 +37,95 @@ public class HeapChunkSpaceTest extends AbstractChunkSpaceTest {
         super(new HeapMemoryFactory());
     }
 
+    @Test
+    public void countersTest() {
+        final ChunkSpace space = new HeapChunkSpace(10, -1, null, false, EvictionPolicy.TWO_QUEUES, -1, 0, ChunkFormat.TEXT, KeyFormat.TEXT);
+        for (int i = 0; i < 20; i++) {
+            final Chunk chunk = space.createAndMark(ChunkType.STATE_CHUNK, 0, 0, i);
+            space.unmark(chunk.index());
+        }
+        Assert.assertEquals(10, space.evictions(ChunkType.STATE_CHUNK));
+        Assert.assertNull(space.getAndMark(ChunkType.STATE_CHUNK, 0, 0, 0));
+        final Chunk last = space.getAndMark(ChunkType.STATE_CHUNK, 0, 0, 19);
+        space.unmark(last.index());
+        Assert.assertEquals(1, space.hits(ChunkType.STATE_CHUNK));
+        Assert.assertEquals(1, space.misses(ChunkType.STATE_CHUNK));
+        Assert.assertEquals(0, space.hits(ChunkType.WORLD_ORDER_CHUNK));
+    }
+
+    @Test
+    public void elasticTest() {
+        final ChunkSpace space = new HeapChunkSpace(10, -1, null, false, EvictionPolicy.LRU, 30, 0, ChunkFormat.TEXT, KeyFormat.TEXT);
+        final Chunk[] chunks = new Chunk[30];
+        for (int i = 0; i < 30; i++) {
+            chunks[i] = space.createAndMark(ChunkType.STATE_CHUNK, 0, 0, i);
+        }
+        for (int i = 0; i < 30; i++) {
+            Assert.assertEquals(chunks[i], space.getAndMark(ChunkType.STATE_CHUNK, 0, 0, i));
+            space.unmark(chunks[i].index());
+        }
+        boolean failed = false;
+        try {
+            space.createAndMark(ChunkType.STATE_CHUNK, 0, 0, 30);
+        } catch (RuntimeException e) {
+            failed = true;
+        }
+        Assert.assertTrue(failed);
+        for (int i = 0; i < 30; i++) {
+            space.unmark(chunks[i].index());
+        }
+        Assert.assertEquals(30, space.available());
+        Assert.assertNotNull(space.createAndMark(ChunkType.STATE_CHUNK, 0, 0, 30));
+        Assert.assertEquals(1, space.evictions(ChunkType.STATE_CHUNK));
+    }
+
+    @Test
+    public void elasticShrinkTest() {
+        final Graph g = GraphBuilder.newBuilder()
+                .withMemorySize(100)
+                .withMaxMemorySize(1000)
+                .withScheduler(new NoopScheduler())
+                .build();
+        g.connect(null);
+        final Node[] nodes = new Node[100];
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i] = g.newNode(0, 0);
+        }
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i].free();
+        }
+        //dirty chunks are retained until save: the space has grown beyond its initial size
+        Assert.assertTrue(g.space().dirties() > 100);
+        g.save(null);
+        Assert.assertEquals(0, g.space().dirties());
+        Assert.assertTrue(g.space().available() <= 100);
+        g.disconnect(null);
+    }
+
+    /**
+     * @ignore ts
+     */
+    @Test
+    public void backpressureTest() throws InterruptedException {
+        final ChunkSpace space = new HeapChunkSpace(10, -1, null, false, EvictionPolicy.LRU, 10, 5000, ChunkFormat.TEXT, KeyFormat.TEXT);
+        final Chunk[] chunks = new Chunk[10];
+        for (int i = 0; i < 10; i++) {
+            chunks[i] = space.createAndMark(ChunkType.STATE_CHUNK, 0, 0, i);
+        }
+        final Thread releaser = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    Thread.sleep(50);
+                } catch (InterruptedException e) {
+                    e.printStackTrace();
+                }
+                space.unmark(chunks[0].index());
+            }
+        });
+        releaser.start();
+        Assert.assertNotNull(space.createAndMark(ChunkType.STATE_CHUNK, 0, 0, 10));
+        releaser.join();
+    }
+
 }
@@ -0,0 +1,128 @@
+/**
+ * Copyright 2017 The GreyCat Authors.  All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package greycatTest.internal.heap;
+
+import greycat.*;
+import greycat.chunk.Chunk;
+import greycat.chunk.ChunkSpace;
+import greycat.chunk.ChunkType;
+import greycat.internal.heap.HeapMemoryFactory;
+import greycat.internal.heap.HeapShardedChunkSpace;
+import greycat.scheduler.NoopScheduler;
+import greycatTest.internal.MockStorage;
+import greycatTest.internal.chunk.AbstractChunkSpaceTest;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @ignore ts
+ */
+public class HeapShardedChunkSpaceTest extends AbstractChunkSpaceTest {
+
+    public HeapShardedChunkSpaceTest() {
+        super(new HeapMemoryFactory().setSegments(4));
+    }
+
+    @Test
+    public void indexTest() {
+        final ChunkSpace space = new HeapShardedChunkSpace(1000, -1, null, false, 4);
+        final long[] indexes = new long[100];
+        for (int i = 0; i < 100; i++) {
+            final Chunk chunk = space.createAndMark(ChunkType.STATE_CHUNK, 0, 0, i);
+            indexes[i] = chunk.index();
+            Assert.assertEquals(i, chunk.id());
+        }
+        for (int i = 0; i < 100; i++) {
+            final Chunk chunk = space.getAndMark(ChunkType.STATE_CHUNK, 0, 0, i);
+            Assert.assertEquals(indexes[i], chunk.index());
+            Assert.assertEquals(chunk, space.get(indexes[i]));
+            space.unmark(chunk.index());
+            space.unmark(chunk.index());
+        }
+        Assert.assertEquals(1000, space.available());
+    }
+
+    @Test
+    public void concurrentTest() throws InterruptedException {
+        final ChunkSpace space = new HeapShardedChunkSpace(10000, -1, null, false, 8);
+        final Thread[] workers = new Thread[8];
+        for (int t = 0; t < workers.length; t++) {
+            final int offset = t * 1000;
+            workers[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = offset; i < offset + 1000; i++) {
+                        final Chunk chunk = space.createAndMark(ChunkType.STATE_CHUNK, 0, 0, i);
+                        space.unmark(chunk.index());
+                    }
+                }
+            });
+            workers[t].start();
+        }
+        for (int t = 0; t < workers.length; t++) {
+            workers[t].join();
+        }
+        Assert.assertEquals(10000, space.available());
+        for (int i = 0; i < 8000; i++) {
+            final Chunk chunk = space.getAndMark(ChunkType.STATE_CHUNK, 0, 0, i);
+            Assert.assertNotNull(chunk);
+            space.unmark(chunk.index());
+        }
+    }
+
+    @Test
+    public void graphTest() {
+        final MockStorage storage = new MockStorage();
+        final Graph g = GraphBuilder.newBuilder()
+                .withMemorySize(1000)
+                .withMemorySegments(4)
+                .withStorage(storage)
+                .withScheduler(new NoopScheduler())
+                .build();
+        g.connect(null);
+        final long[] ids = new long[10];
+        for (int i = 0; i < ids.length; i++) {
+            final Node n = g.newNode(0, 0);
+            n.set("value", Type.INT, i);
+            ids[i] = n.id();
+            n.free();
+        }
+        g.save(null);
+        g.disconnect(null);
+
+        final Graph g2 = GraphBuilder.newBuilder()
+                .withMemorySize(1000)
+                .withMemorySegments(4)
+                .withStorage(storage)
+                .withScheduler(new NoopScheduler())
+                .build();
+        g2.connect(null);
+        final long available = g2.space().available();
+        for (int i = 0; i < ids.length; i++) {
+            final int expected = i;
+            g2.lookup(0, 0, ids[i], new Callback<Node>() {
+                @Override
+                public void on(Node result) {
+                    Assert.assertEquals(expected, result.get("value"));
+                    result.free();
+                }
+            });
+        }
+        Assert.assertEquals(available, g2.space().available());
+        g2.disconnect(null);
+    }
+
+}
@@ -15,6 +15,9 @@
  */
 package greycatTest.internal.heap;
 
+import greycat.chunk.ChunkFormat;
+import greycat.chunk.EvictionPolicy;
+import greycat.chunk.KeyFormat;
 import greycat.internal.heap.HeapBuffer;
 import greycat.internal.heap.HeapChunkSpace;
 import greycat.internal.heap.HeapSuperTimeTreeChunk;
@@ -26,7 +29,7 @@ public class HeapSuperTimeTreeChunkTest {
 
     @Test
     public void test() {
-        HeapChunkSpace space = new HeapChunkSpace(100, 10, null, false);
+        HeapChunkSpace space = new HeapChunkSpace(100, 10, null, false, EvictionPolicy.LRU, -1, 0, ChunkFormat.TEXT, KeyFormat.TEXT);
         HeapSuperTimeTreeChunk tree = new HeapSuperTimeTreeChunk(space, -1);
         for (int i = 0; i < 100; i = i + 10) {
             tree.insert(i, i);
@@ -38,7 +41,7 @@ public class HeapSuperTimeTreeChunkTest {
 
     @Test
     public void loadSaveTest() {
-        HeapChunkSpace space = new HeapChunkSpace(100, 10, null, false);
+        HeapChunkSpace space = new HeapChunkSpace(100, 10, null, false, EvictionPolicy.LRU, -1, 0, ChunkFormat.TEXT, KeyFormat.TEXT);
         HeapSuperTimeTreeChunk tree = new HeapSuperTimeTreeChunk(space, -1);
         for (int i = 0; i < 100; i = i + 10) {
             tree.insert(i, i);
@@ -63,7 +66,7 @@ public class HeapSuperTimeTreeChunkTest {
 
     @Test
     public void stressTest() {
-        HeapChunkSpace space = new HeapChunkSpace(100, 10, null, false);
+        HeapChunkSpace space = new HeapChunkSpace(100, 10, null, false, EvictionPolicy.LRU, -1, 0, ChunkFormat.TEXT, KeyFormat.TEXT);
         HeapSuperTimeTreeChunk tree = new HeapSuperTimeTreeChunk(space, -1);
         for (long i = 1000000; i > 0; i = i - 2) {
             tree.insert(i,i);
@@ -0,0 +1,179 @@
+/**
+ * Copyright 2017 The GreyCat Authors.  All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package greycatTest.internal.heap;
+
+import greycat.Constants;
+import greycat.chunk.ChunkFormat;
+import greycat.chunk.ChunkType;
+import greycat.chunk.EvictionPolicy;
+import greycat.chunk.KeyFormat;
+import greycat.chunk.TimeTreeDValueChunk;
+import greycat.chunk.TreeDValueWalker;
+import greycat.internal.heap.HeapBuffer;
+import greycat.internal.heap.HeapChunkSpace;
+import greycat.struct.Buffer;
+import greycat.utility.Aggregation;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class HeapTimeSeriesChunkTest {
+
+    @Test
+    public void appendTest() {
+        HeapChunkSpace space = new HeapChunkSpace(100, 10, null, false, EvictionPolicy.LRU, -1, 0, ChunkFormat.TEXT, KeyFormat.TEXT);
+        TimeTreeDValueChunk series = (TimeTreeDValueChunk) space.createAndMark(ChunkType.TIME_SERIES_CHUNK, 0, 0, 1);
+        final int size = 1000;
+        for (int i = 0; i < size; i++) {
+            //irregular sampling and noisy values
+            series.insertValue(i * 10 + (i % 3), i % 7 == 0 ? null : Math.sin(i) * 100);
+        }
+        Assert.assertEquals(size, series.size());
+        Assert.assertEquals((size - 1) * 10 + ((size - 1) % 3), series.max());
+        for (int i = 0; i < size; i++) {
+            final long key = i * 10 + (i % 3);
+            final int offset = series.previousOrEqualOffset(key + 1);
+            Assert.assertEquals(key, series.getKey(offset));
+            if (i % 7 == 0) {
+                Assert.assertNull(series.getValue(offset));
+            } else {
+                Assert.assertEquals(Math.sin(i) * 100, series.getValue(offset), 0);
+            }
+            Assert.assertEquals(key, series.previousOrEqual(key));
+            if (i > 0) {
+                Assert.assertEquals((i - 1) * 10 + ((i - 1) % 3), series.previous(key));
+            }
+            if (i < size - 1) {
+                Assert.assertEquals((i + 1) * 10 + ((i + 1) % 3), series.next(key));
+            }
+        }
+        Assert.assertEquals(Constants.NULL_LONG, series.previousOrEqual(-1));
+        Assert.assertEquals(-1, series.previousOffset(0));
+        //overwrite in a sealed block and in the tail
+        series.setValue(series.previousOrEqualOffset(10), 42d);
+        series.insertValue((size - 1) * 10 + ((size - 1) % 3), 43d);
+        Assert.assertEquals(size, series.size());
+        Assert.assertEquals(42d, series.getValue(series.previousOrEqualOffset(10)), 0);
+        Assert.assertEquals(43d, series.getValue(series.previousOrEqualOffset(Constants.END_OF_TIME)), 0);
+        space.free(series);
+        space.freeAll();
+    }
+
+    @Test
+    public void outOfOrderTest() {
+        HeapChunkSpace space = new HeapChunkSpace(100, 10, null, false, EvictionPolicy.LRU, -1, 0, ChunkFormat.TEXT, KeyFormat.TEXT);
+        TimeTreeDValueChunk series = (TimeTreeDValueChunk) space.createAndMark(ChunkType.TIME_SERIES_CHUNK, 0, 0, 1);
+        for (int i = 0; i < 300; i++) {
+            series.insertValue(i * 2, i * 2d);
+        }
+        for (int i = 299; i >= 0; i--) {
+            series.insertValue(i * 2 + 1, i * 2 + 1d);
+        }
+        Assert.assertEquals(600, series.size());
+        for (int i = 0; i < 600; i++) {
+            Assert.assertEquals(i, series.previousOrEqual(i));
+            Assert.assertEquals(i, series.getValue(series.previousOrEqualOffset(i)), 0);
+        }
+        final long[] expected = {599};
+        series.rangeValue(100, 599, 1000, new TreeDValueWalker() {
+            @Override
+            public void elem(long t, Double value) {
+                Assert.assertEquals(expected[0], t);
+                Assert.assertEquals(expected[0], value, 0);
+                expected[0]--;
+            }
+        });
+        Assert.assertEquals(99, expected[0]);
+
+        Buffer buffer = new HeapBuffer();
+        series.save(buffer);
+        TimeTreeDValueChunk loaded = (TimeTreeDValueChunk) space.createAndMark(ChunkType.TIME_SERIES_CHUNK, 0, 0, 2);
+        loaded.load(buffer);
+        Assert.assertEquals(600, loaded.size());
+        Assert.assertEquals(599, loaded.max());
+        for (int i = 0; i < 600; i++) {
+            Assert.assertEquals(i, loaded.previousOrEqual(i));
+            Assert.assertEquals(i, loaded.getValue(loaded.previousOrEqualOffset(i)), 0);
+        }
+        //saving again gives back the same payload
+        Buffer second = new HeapBuffer();
+        loaded.save(second);
+        Assert.assertEquals(buffer.toString(), second.toString());
+        buffer.free();
+        second.free();
+        space.free(series);
+        space.free(loaded);
+        space.freeAll();
+    }
+
+    @Test
+    public void compressionTest() {
+        HeapChunkSpace space = new HeapChunkSpace(100, 10, null, false, EvictionPolicy.LRU, -1, 0, ChunkFormat.TEXT, KeyFormat.TEXT);
+        TimeTreeDValueChunk series = (TimeTreeDValueChunk) space.createAndMark(ChunkType.TIME_SERIES_CHUNK, 0, 0, 1);
+        TimeTreeDValueChunk tree = (TimeTreeDValueChunk) space.createAndMark(ChunkType.TIME_TREE_DVALUE_CHUNK, 0, 0, 2);
+        //regular sensor sampling
+        for (int i = 0; i < 1024; i++) {
+            series.insertValue(1500000000000L + i * 1000, 20d + (i % 10) * 0.5d);
+            tree.insertValue(1500000000000L + i * 1000, 20d + (i % 10) * 0.5d);
+        }
+        Buffer compressed = new HeapBuffer();
+        series.save(compressed);
+        Buffer raw = new HeapBuffer();
+        tree.save(raw);
+        Assert.assertTrue(compressed.length() * 4 < raw.length());
+        compressed.free();
+        raw.free();
+        space.free(series);
+        space.free(tree);
+        space.freeAll();
+    }
+
+    @Test
+    public void aggregateTest() {
+        HeapChunkSpace space = new HeapChunkSpace(100, 10, null, false, EvictionPolicy.LRU, -1, 0, ChunkFormat.TEXT, KeyFormat.TEXT);
+        TimeTreeDValueChunk series = (TimeTreeDValueChunk) space.createAndMark(ChunkType.TIME_SERIES_CHUNK, 0, 0, 1);
+        TimeTreeDValueChunk tree = (TimeTreeDValueChunk) space.createAndMark(ChunkType.TIME_TREE_DVALUE_CHUNK, 0, 0, 2);
+        for (int i = 0; i < 1000; i++) {
+            final Double value = i % 13 == 0 ? null : Math.sin(i);
+            series.insertValue(i, value);
+            tree.insertValue(i, value);
+        }
+        //overwrite inside a sealed block, its rollup must follow
+        series.insertValue(5, 10d);
+        tree.insertValue(5, 10d);
+        final long[] bucketSizes = {0, 1, 100, 256, 1000};
+        for (int i = 0; i < bucketSizes.length; i++) {
+            final Aggregation fromSeries = new Aggregation(3, 990, bucketSizes[i]);
+            series.aggregate(3, 990, fromSeries);
+            final Aggregation fromTree = new Aggregation(3, 990, bucketSizes[i]);
+            tree.aggregate(3, 990, fromTree);
+            Assert.assertEquals(fromTree.size(), fromSeries.size());
+            for (int j = 0; j < fromTree.size(); j++) {
+                Assert.assertEquals(fromTree.count(j), fromSeries.count(j));
+                Assert.assertEquals(fromTree.sum(j), fromSeries.sum(j), 0.0000001);
+                Assert.assertEquals(fromTree.min(j), fromSeries.min(j), 0);
+                Assert.assertEquals(fromTree.max(j), fromSeries.max(j), 0);
+            }
+        }
+        final Aggregation whole = new Aggregation(0, 999, 0);
+        series.aggregate(0, 999, whole);
+        Assert.assertEquals(1000 - 77, whole.count(0));
+        Assert.assertEquals(10d, whole.max(0), 0);
+        space.free(series);
+        space.free(tree);
+        space.freeAll();
+    }
+
+}
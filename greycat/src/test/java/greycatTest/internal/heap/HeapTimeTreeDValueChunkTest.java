@@ -15,7 +15,10 @@
  */
 package greycatTest.internal.heap;
 
+import greycat.chunk.ChunkFormat;
 import greycat.chunk.ChunkType;
+import greycat.chunk.EvictionPolicy;
+import greycat.chunk.KeyFormat;
 import greycat.chunk.TimeTreeDValueChunk;
 import greycat.internal.heap.HeapBuffer;
 import greycat.internal.heap.HeapChunkSpace;
@@ -27,7 +30,7 @@ public class HeapTimeTreeDValueChunkTest {
 
     @Test
     public void test() {
-        HeapChunkSpace space = new HeapChunkSpace(100, 10, null, false);
+        HeapChunkSpace space = new HeapChunkSpace(100, 10, null, false, EvictionPolicy.LRU, -1, 0, ChunkFormat.TEXT, KeyFormat.TEXT);
         TimeTreeDValueChunk ttvc = (TimeTreeDValueChunk) space.createAndMark(ChunkType.TIME_TREE_DVALUE_CHUNK, 0, 0, 1);
         for (int i = 0; i < 100; i = i + 10) {
             ttvc.insertValue(i, i * 1.5d);
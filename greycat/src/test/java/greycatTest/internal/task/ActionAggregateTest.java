@@ -0,0 +1,110 @@
+/**
+ * Copyright 2017 The GreyCat Authors.  All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package greycatTest.internal.task;
+
+import greycat.*;
+import greycat.chunk.Chunk;
+import greycat.chunk.ChunkType;
+import greycat.internal.CoreNodeValue;
+import greycat.scheduler.NoopScheduler;
+import greycat.utility.Aggregation;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ActionAggregateTest {
+
+    private static long marks(final Graph graph, final long id) {
+        final Chunk worldOrder = graph.space().getAndMark(ChunkType.WORLD_ORDER_CHUNK, 0, 0, id);
+        final long marks = graph.space().mark(worldOrder.index()) - 2;
+        graph.space().unmark(worldOrder.index());
+        graph.space().unmark(worldOrder.index());
+        return marks;
+    }
+
+    @Test
+    public void testAggregate() {
+        final Graph graph = new GraphBuilder().withScheduler(new NoopScheduler()).build();
+        graph.connect(null);
+        final NodeValue plain = (NodeValue) graph.newTypedNode(0, 0, CoreNodeValue.NAME);
+        final NodeValue compressed = (NodeValue) graph.newTypedNode(0, 0, CoreNodeValue.COMPRESSED_NAME);
+        final long[] times = new long[1000];
+        final double[] values = new double[1000];
+        for (int i = 0; i < times.length; i++) {
+            times[i] = i;
+            values[i] = i % 100;
+        }
+        plain.batchInsert(times, values);
+        compressed.batchInsert(times, values);
+        final int[] counter = {0};
+        Tasks.newTask()
+                .travelInTime("0")
+                .lookupAll(plain.id() + "," + compressed.id())
+                .aggregate("0", "999", "100")
+                .execute(graph, new Callback<TaskResult>() {
+                    @Override
+                    public void on(TaskResult result) {
+                        Assert.assertEquals(2, result.size());
+                        for (int i = 0; i < result.size(); i++) {
+                            final Aggregation aggregation = (Aggregation) result.get(i);
+                            Assert.assertEquals(10, aggregation.size());
+                            for (int j = 0; j < aggregation.size(); j++) {
+                                Assert.assertEquals(j * 100, aggregation.start(j));
+                                Assert.assertEquals(100, aggregation.count(j));
+                                Assert.assertEquals(0d, aggregation.min(j), 0);
+                                Assert.assertEquals(99d, aggregation.max(j), 0);
+                                Assert.assertEquals(49.5d, aggregation.avg(j), 0);
+                            }
+                        }
+                        counter[0]++;
+                    }
+                });
+        Assert.assertEquals(1, counter[0]);
+        plain.free();
+        compressed.free();
+        graph.disconnect(null);
+    }
+
+    @Test
+    public void testAggregateReleasesOtherNodes() {
+        final Graph graph = new GraphBuilder().withScheduler(new NoopScheduler()).build();
+        graph.connect(null);
+        final NodeValue value = (NodeValue) graph.newTypedNode(0, 0, CoreNodeValue.NAME);
+        value.batchInsert(new long[]{0, 1}, new double[]{1, 2});
+        final Node other = graph.newNode(0, 0);
+        final long otherId = other.id();
+        final String ids = value.id() + "," + otherId;
+        value.free();
+        other.free();
+        final long marks = marks(graph, otherId);
+        final int[] counter = {0};
+        Tasks.newTask()
+                .travelInTime("0")
+                .lookupAll(ids)
+                .aggregate("0", "1", "1")
+                .execute(graph, new Callback<TaskResult>() {
+                    @Override
+                    public void on(TaskResult result) {
+                        Assert.assertEquals(1, result.size());
+                        counter[0]++;
+                    }
+                });
+        Assert.assertEquals(1, counter[0]);
+        //the node which is not a NodeValue is dropped without leaking its marks
+        Assert.assertEquals(marks, marks(graph, otherId));
+        graph.disconnect(null);
+    }
+
+}
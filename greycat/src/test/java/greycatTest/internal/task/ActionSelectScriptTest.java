@@ -75,4 +75,53 @@ public class ActionSelectScriptTest extends AbstractActionTest {
         removeGraph();
     }
 
+    @Test
+    public void translatedScript() {
+        initGraph();
+        final int[] results = new int[4];
+        newTask()
+                .readIndex("nodes")
+                .selectScript("node.get('value') >= 3 && node.get(\"name\") != 'n1'")
+                .thenDo(new ActionFunction() {
+                    @Override
+                    public void eval(TaskContext ctx) {
+                        results[0] = ctx.result().size();
+                        ctx.continueTask();
+                    }
+                })
+                .readIndex("nodes")
+                .selectScript("node.get('value') === null || node.get('value') < 4.5;")
+                .thenDo(new ActionFunction() {
+                    @Override
+                    public void eval(TaskContext ctx) {
+                        results[1] = ctx.result().size();
+                        ctx.continueTask();
+                    }
+                })
+                .readIndex("nodes")
+                .selectScript("node.get('value') == '8' || node.time() < 0 && node.get('name') == 'root'")
+                .thenDo(new ActionFunction() {
+                    @Override
+                    public void eval(TaskContext ctx) {
+                        results[2] = ctx.result().size();
+                        ctx.continueTask();
+                    }
+                })
+                .readIndex("nodes")
+                .selectScript("node.get('value') !== 8")
+                .thenDo(new ActionFunction() {
+                    @Override
+                    public void eval(TaskContext ctx) {
+                        results[3] = ctx.result().size();
+                        ctx.continueTask();
+                    }
+                })
+                .execute(graph, null);
+        Assert.assertEquals(1, results[0]);
+        Assert.assertEquals(2, results[1]);
+        Assert.assertEquals(2, results[2]);
+        Assert.assertEquals(2, results[3]);
+        removeGraph();
+    }
+
 }
@@ -72,4 +72,30 @@ public class CoreTaskContextTests {
             }
         });
     }
+
+    @Test
+    public void testCompiledTemplate() {
+        final Graph graph = new GraphBuilder().build();
+        graph.connect(new Callback<Boolean>() {
+            @Override
+            public void on(Boolean result) {
+                newTask()
+                        .then(inject("x"))
+                        .then(defineAsGlobalVar("name"))
+                        .loop("0", "2", newTask().thenDo(new ActionFunction() {
+                            @Override
+                            public void eval(TaskContext ctx) {
+                                final String i = ctx.template("{{i}}");
+                                Assert.assertEquals("node_" + i + "_x{y}", ctx.template("node_{{i}}_{{name}}{y}"));
+                                Assert.assertEquals("a" + i + "b" + (Integer.parseInt(i) * 2), ctx.template("a{{i}}b{{=i*2}}"));
+                                Assert.assertEquals("plain {{unclosed", ctx.template("plain {{unclosed"));
+                                Assert.assertEquals("x-", ctx.template("{{name}}-{{unclosed"));
+                                ctx.continueTask();
+                            }
+                        }))
+                        .execute(graph, null);
+            }
+        });
+    }
+
 }
@@ -148,4 +148,18 @@ public class MathEngineTest {
             }
         });
     }
+
+    @Test
+    public void cachedEngine() {
+        final MathExpressionEngine engine = CoreMathExpressionEngine.parse("max(a, 3) + if(a > 4, sqrt(16), round(2.345, 2)) * 2");
+        Assert.assertTrue(engine == CoreMathExpressionEngine.parse("max(a, 3) + if(a > 4, sqrt(16), round(2.345, 2)) * 2"));
+        final Map<String, Double> variables = new HashMap<String, Double>();
+        variables.put("a", 5.0);
+        Assert.assertEquals(5 + 4 * 2, engine.eval(null, null, variables), 0.0001);
+        variables.put("a", 1.0);
+        Assert.assertEquals(3 + 2.35 * 2, engine.eval(null, null, variables), 0.0001);
+        Assert.assertEquals(1 - 2 - 3, CoreMathExpressionEngine.parse("1 - 2 - 3").eval(null, null, null), 0);
+        Assert.assertEquals(Math.pow(2, 9), CoreMathExpressionEngine.parse("2 ^ 3 ^ 2").eval(null, null, null), 0);
+    }
+
 }
@@ -0,0 +1,122 @@
+/**
+ * Copyright 2017 The GreyCat Authors.  All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package greycatTest.internal.tree;
+
+import greycat.Graph;
+import greycat.GraphBuilder;
+import greycat.Node;
+import greycat.Type;
+import greycat.internal.custom.FlatKDTree;
+import greycat.scheduler.NoopScheduler;
+import greycat.struct.TreeResult;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+public class FlatKDTreeTest {
+
+    private static final int DIM = 3;
+
+    private static void checkAround(final FlatKDTree tree, final double[][] keys, final double[] target, final int max) {
+        final double[] distances = new double[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            distances[i] = TreeTestHelper.distance(keys[i], target);
+        }
+        Arrays.sort(distances);
+        final TreeResult result = tree.queryAround(target, max);
+        Assert.assertEquals(max, result.size());
+        for (int i = 0; i < max; i++) {
+            Assert.assertEquals(distances[i], result.distance(i), 1e-9);
+            Assert.assertEquals(distances[i], TreeTestHelper.distance(keys[(int) result.value(i)], target), 1e-9);
+        }
+        result.free();
+    }
+
+    private static void checkRadius(final FlatKDTree tree, final double[][] keys, final double[] target, final double radius) {
+        int expected = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (TreeTestHelper.distance(keys[i], target) < radius) {
+                expected++;
+            }
+        }
+        final TreeResult result = tree.queryRadius(target, radius);
+        Assert.assertEquals(expected, result.size());
+        result.free();
+    }
+
+    private static void checkArea(final FlatKDTree tree, final double[][] keys, final double[] min, final double[] max) {
+        int expected = 0;
+        for (int i = 0; i < keys.length; i++) {
+            boolean inside = true;
+            for (int j = 0; j < DIM; j++) {
+                inside = inside && keys[i][j] >= min[j] && keys[i][j] <= max[j];
+            }
+            if (inside) {
+                expected++;
+            }
+        }
+        final TreeResult result = tree.queryArea(min, max);
+        Assert.assertEquals(expected, result.size());
+        result.free();
+    }
+
+    @Test
+    public void bulkAndIncremental() {
+        final Graph graph = GraphBuilder.newBuilder().withScheduler(new NoopScheduler()).build();
+        graph.connect(null);
+        final Node node = graph.newNode(0, 0);
+        final FlatKDTree tree = (FlatKDTree) node.getOrCreate("tree", Type.FLAT_KDTREE);
+        final Random random = new Random(1234);
+        final double[][] bulk = TreeTestHelper.randomKeys(random, 2000, DIM);
+        final long[] values = new long[bulk.length];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = i;
+        }
+        tree.bulkInsert(bulk, values);
+        Assert.assertEquals(2000, tree.size());
+
+        //incremental inserts of sorted keys trigger rebuilds
+        final double[][] keys = new double[5000][];
+        System.arraycopy(bulk, 0, keys, 0, bulk.length);
+        for (int i = bulk.length; i < keys.length; i++) {
+            final double coordinate = (i - bulk.length) / 3000d;
+            keys[i] = new double[]{coordinate, coordinate, coordinate};
+            tree.insert(keys[i], i);
+        }
+        Assert.assertEquals(5000, tree.size());
+        //an already indexed key only replaces the value
+        tree.insert(keys[10], 10);
+        Assert.assertEquals(5000, tree.size());
+
+        for (int i = 0; i < 20; i++) {
+            final double[] target = TreeTestHelper.randomKeys(random, 1, DIM)[0];
+            checkAround(tree, keys, target, 10);
+            checkRadius(tree, keys, target, 0.1);
+            final double[] min = new double[DIM];
+            final double[] max = new double[DIM];
+            for (int j = 0; j < DIM; j++) {
+                min[j] = target[j] - 0.2;
+                max[j] = target[j] + 0.2;
+            }
+            checkArea(tree, keys, min, max);
+        }
+        node.free();
+        graph.disconnect(null);
+    }
+
+}
@@ -0,0 +1,195 @@
+/**
+ * Copyright 2017 The GreyCat Authors.  All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package greycatTest.internal.tree;
+
+import greycat.Callback;
+import greycat.Graph;
+import greycat.GraphBuilder;
+import greycat.Node;
+import greycat.Type;
+import greycat.internal.custom.HNSWTree;
+import greycat.scheduler.NoopScheduler;
+import greycat.struct.TreeResult;
+import greycatTest.internal.MockStorage;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+public class HNSWTreeTest {
+
+    private static final int DIM = 32;
+    private static final int SIZE = 2000;
+    private static final int K = 10;
+
+    private static Graph newGraph(final MockStorage storage) {
+        final Graph g = GraphBuilder.newBuilder().withStorage(storage).withScheduler(new NoopScheduler()).build();
+        g.connect(null);
+        return g;
+    }
+
+    private static double recall(final HNSWTree tree, final double[][] keys, final double[][] targets) {
+        int hits = 0;
+        for (int t = 0; t < targets.length; t++) {
+            final double[] distances = new double[keys.length];
+            for (int i = 0; i < keys.length; i++) {
+                distances[i] = TreeTestHelper.distance(keys[i], targets[t]);
+            }
+            Arrays.sort(distances);
+            final TreeResult result = tree.queryAroundWithEf(targets[t], K, 100);
+            Assert.assertEquals(K, result.size());
+            for (int i = 0; i < result.size(); i++) {
+                if (result.distance(i) <= distances[K - 1] + 1e-9) {
+                    hits++;
+                }
+            }
+            result.free();
+        }
+        return hits / (double) (targets.length * K);
+    }
+
+    @Test
+    public void recallTest() {
+        final MockStorage storage = new MockStorage();
+        Graph g = newGraph(storage);
+        final Node node = g.newNode(0, 0);
+        final HNSWTree tree = (HNSWTree) node.getOrCreate("hnsw", Type.HNSW);
+        final Random random = new Random(7);
+        final double[][] keys = new double[SIZE][DIM];
+        for (int i = 0; i < SIZE; i++) {
+            for (int j = 0; j < DIM; j++) {
+                keys[i][j] = random.nextDouble();
+            }
+            tree.insert(keys[i], i);
+        }
+        Assert.assertEquals(SIZE, tree.size());
+        final double[][] targets = new double[20][DIM];
+        for (int i = 0; i < targets.length; i++) {
+            for (int j = 0; j < DIM; j++) {
+                targets[i][j] = random.nextDouble();
+            }
+        }
+        Assert.assertTrue(recall(tree, keys, targets) > 0.9);
+
+        //removed values are never returned, inserting a value again replaces its vector
+        final TreeResult before = tree.queryAroundWithEf(keys[5], 1, 50);
+        Assert.assertEquals(5, before.value(0));
+        before.free();
+        Assert.assertTrue(tree.remove(5));
+        Assert.assertFalse(tree.remove(5));
+        Assert.assertEquals(SIZE - 1, tree.size());
+        final TreeResult after = tree.queryAroundWithEf(keys[5], 3, 50);
+        for (int i = 0; i < after.size(); i++) {
+            Assert.assertTrue(after.value(i) != 5);
+        }
+        after.free();
+        tree.insert(keys[6], 7);
+        Assert.assertEquals(SIZE - 1, tree.size());
+        final TreeResult moved = tree.queryAroundWithEf(keys[6], 2, 50);
+        Assert.assertEquals(0, moved.distance(0), 1e-9);
+        Assert.assertEquals(0, moved.distance(1), 1e-9);
+        moved.free();
+
+        final long nodeId = node.id();
+        node.free();
+        g.save(null);
+        g.disconnect(null);
+
+        //the graph of neighbours is persisted with the node
+        g = newGraph(storage);
+        g.lookup(0, 0, nodeId, new Callback<Node>() {
+            @Override
+            public void on(Node result) {
+                final HNSWTree reloaded = (HNSWTree) result.getOrCreate("hnsw", Type.HNSW);
+                Assert.assertEquals(SIZE - 1, reloaded.size());
+                final TreeResult around = reloaded.queryAroundWithEf(keys[100], 1, 50);
+                Assert.assertEquals(100, around.value(0));
+                around.free();
+                result.free();
+            }
+        });
+        g.disconnect(null);
+    }
+
+    @Test
+    public void radiusTest() {
+        final Graph g = newGraph(new MockStorage());
+        final Node node = g.newNode(0, 0);
+        final HNSWTree tree = (HNSWTree) node.getOrCreate("hnsw", Type.HNSW);
+        final Random random = new Random(11);
+        final double[][] keys = new double[500][2];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i][0] = random.nextDouble();
+            keys[i][1] = random.nextDouble();
+            tree.insert(keys[i], i);
+        }
+        //the radius holds far more vectors than the default ef
+        final double[] center = new double[]{0.5, 0.5};
+        final double radius = 0.4;
+        int expected = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (TreeTestHelper.distance(keys[i], center) < radius) {
+                expected++;
+            }
+        }
+        Assert.assertTrue(expected > 4 * HNSWTree.DEFAULT_EF);
+        final TreeResult result = tree.queryRadius(center, radius);
+        Assert.assertEquals(expected, result.size());
+        for (int i = 0; i < result.size(); i++) {
+            Assert.assertTrue(result.distance(i) < radius);
+        }
+        result.free();
+        node.free();
+        g.disconnect(null);
+    }
+
+    @Test
+    public void seedTest() {
+        final Graph g = newGraph(new MockStorage());
+        final Node node = g.newNode(0, 0);
+        final HNSWTree first = ((HNSWTree) node.getOrCreate("first", Type.HNSW)).setSeed(3);
+        final HNSWTree second = ((HNSWTree) node.getOrCreate("second", Type.HNSW)).setSeed(3);
+        final Random random = new Random(5);
+        for (int i = 0; i < 300; i++) {
+            final double[] key = new double[DIM];
+            for (int j = 0; j < DIM; j++) {
+                key[j] = random.nextDouble();
+            }
+            first.insert(key, i);
+            //wrappers are rebuilt on each access, the levels must not depend on them
+            ((HNSWTree) node.getOrCreate("second", Type.HNSW)).insert(key, i);
+        }
+        //same seed and same inserts build the same graph, hence the same approximate answers
+        for (int t = 0; t < 20; t++) {
+            final double[] target = new double[DIM];
+            for (int j = 0; j < DIM; j++) {
+                target[j] = random.nextDouble();
+            }
+            final TreeResult a = first.queryAroundWithEf(target, K, 10);
+            final TreeResult b = second.queryAroundWithEf(target, K, 10);
+            Assert.assertEquals(a.size(), b.size());
+            for (int i = 0; i < a.size(); i++) {
+                Assert.assertEquals(a.value(i), b.value(i));
+            }
+            a.free();
+            b.free();
+        }
+        node.free();
+        g.disconnect(null);
+    }
+
+}
@@ -0,0 +1,81 @@
+/**
+ * Copyright 2017 The GreyCat Authors.  All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package greycatTest.internal.tree;
+
+import greycat.Callback;
+import greycat.Graph;
+import greycat.GraphBuilder;
+import greycat.Node;
+import greycat.Type;
+import greycat.internal.custom.KDTree;
+import greycat.internal.custom.NDTree;
+import greycat.scheduler.WorkStealingScheduler;
+import greycat.struct.TreeBatchResult;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static greycatTest.internal.tree.TreeBatchQueryTest.*;
+
+/**
+ * @ignore ts
+ */
+public class TreeBatchQueryParallelTest {
+
+    @Test
+    public void test() throws InterruptedException {
+        final Graph g = GraphBuilder.newBuilder().withScheduler(new WorkStealingScheduler(4)).build();
+        final CountDownLatch connected = new CountDownLatch(1);
+        g.connect(new Callback<Boolean>() {
+            @Override
+            public void on(Boolean result) {
+                connected.countDown();
+            }
+        });
+        Assert.assertTrue(connected.await(10, TimeUnit.SECONDS));
+        final Node node = g.newNode(0, 0);
+        final KDTree kdTree = (KDTree) node.getOrCreate("kd", Type.KDTREE);
+        final NDTree ndTree = (NDTree) node.getOrCreate("nd", Type.NDTREE);
+        final Random random = new Random(43);
+        fill(kdTree, ndTree, TreeTestHelper.randomKeys(random, SIZE, DIM));
+        final double[][] queries = TreeTestHelper.randomKeys(random, QUERIES, DIM);
+
+        final TreeBatchResult[] results = new TreeBatchResult[2];
+        final CountDownLatch done = new CountDownLatch(2);
+        kdTree.queryBatchParallel(queries, -1, K, new Callback<TreeBatchResult>() {
+            @Override
+            public void on(TreeBatchResult result) {
+                results[0] = result;
+                done.countDown();
+            }
+        });
+        ndTree.queryBatchParallel(queries, -1, K, new Callback<TreeBatchResult>() {
+            @Override
+            public void on(TreeBatchResult result) {
+                results[1] = result;
+                done.countDown();
+            }
+        });
+        Assert.assertTrue(done.await(10, TimeUnit.SECONDS));
+        compare(results[0], singles(kdTree, queries, -1));
+        compare(results[1], singles(ndTree, queries, -1));
+        g.disconnect(null);
+    }
+
+}
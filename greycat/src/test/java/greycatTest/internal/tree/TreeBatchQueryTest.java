@@ -0,0 +1,132 @@
+/**
+ * Copyright 2017 The GreyCat Authors.  All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package greycatTest.internal.tree;
+
+import greycat.Graph;
+import greycat.GraphBuilder;
+import greycat.Node;
+import greycat.Type;
+import greycat.internal.custom.KDTree;
+import greycat.internal.custom.NDTree;
+import greycat.scheduler.NoopScheduler;
+import greycat.struct.TreeBatchQuery;
+import greycat.struct.TreeBatchResult;
+import greycat.struct.TreeResult;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Random;
+
+public class TreeBatchQueryTest {
+
+    static final int DIM = 4;
+    static final int SIZE = 500;
+    static final int QUERIES = 50;
+    static final int K = 8;
+
+    static void fill(final KDTree kdTree, final NDTree ndTree, final double[][] keys) {
+        final double[] min = new double[DIM];
+        final double[] max = new double[DIM];
+        final double[] resolution = new double[DIM];
+        for (int i = 0; i < DIM; i++) {
+            max[i] = 1;
+            resolution[i] = 0.0001;
+        }
+        ndTree.setMinBound(min);
+        ndTree.setMaxBound(max);
+        ndTree.setResolution(resolution);
+        kdTree.setResolution(resolution);
+        for (int i = 0; i < keys.length; i++) {
+            kdTree.insert(keys[i], i);
+            ndTree.insert(keys[i], i);
+        }
+    }
+
+    static TreeResult[] singles(final KDTree tree, final double[][] queries, final double radius) {
+        final TreeResult[] results = new TreeResult[queries.length];
+        for (int q = 0; q < queries.length; q++) {
+            results[q] = tree.queryBoundedRadius(queries[q], radius, K);
+        }
+        return results;
+    }
+
+    static TreeResult[] singles(final NDTree tree, final double[][] queries, final double radius) {
+        final TreeResult[] results = new TreeResult[queries.length];
+        for (int q = 0; q < queries.length; q++) {
+            results[q] = tree.queryBoundedRadius(queries[q], radius, K);
+        }
+        return results;
+    }
+
+    static void compare(final TreeBatchResult batch, final TreeResult[] singles) {
+        Assert.assertEquals(singles.length, batch.queries());
+        for (int q = 0; q < singles.length; q++) {
+            Assert.assertEquals(singles[q].size(), batch.size(q));
+            for (int i = 0; i < singles[q].size(); i++) {
+                Assert.assertEquals(singles[q].distance(i), batch.distance(q, i), 1e-12);
+                Assert.assertEquals(singles[q].distance(i), batch.distances()[q * batch.max() + i], 1e-12);
+            }
+            singles[q].free();
+        }
+    }
+
+    @Test
+    public void batchTest() {
+        final Graph g = GraphBuilder.newBuilder().withScheduler(new NoopScheduler()).build();
+        g.connect(null);
+        final Node node = g.newNode(0, 0);
+        final KDTree kdTree = (KDTree) node.getOrCreate("kd", Type.KDTREE);
+        final NDTree ndTree = (NDTree) node.getOrCreate("nd", Type.NDTREE);
+        final Random random = new Random(42);
+        fill(kdTree, ndTree, TreeTestHelper.randomKeys(random, SIZE, DIM));
+        final double[][] queries = TreeTestHelper.randomKeys(random, QUERIES, DIM);
+
+        compare(kdTree.queryAroundBatch(queries, K), singles(kdTree, queries, -1));
+        compare(ndTree.queryAroundBatch(queries, K), singles(ndTree, queries, -1));
+        compare(kdTree.queryBoundedRadiusBatch(queries, 0.2, K), singles(kdTree, queries, 0.2));
+        compare(ndTree.queryBoundedRadiusBatch(queries, 0.2, K), singles(ndTree, queries, 0.2));
+
+        final TreeBatchResult around = kdTree.queryAroundBatch(queries, K);
+        for (int q = 0; q < QUERIES; q++) {
+            Assert.assertEquals(K, around.size(q));
+            for (int i = 1; i < K; i++) {
+                Assert.assertTrue(around.distance(q, i - 1) <= around.distance(q, i));
+            }
+        }
+
+        boolean failed = false;
+        try {
+            kdTree.queryAroundBatch(queries, 0);
+        } catch (RuntimeException e) {
+            failed = true;
+        }
+        Assert.assertTrue(failed);
+        g.disconnect(null);
+    }
+
+    @Test
+    public void emptyTest() {
+        final Graph g = GraphBuilder.newBuilder().withScheduler(new NoopScheduler()).build();
+        g.connect(null);
+        final Node node = g.newNode(0, 0);
+        final TreeBatchQuery kdTree = (TreeBatchQuery) node.getOrCreate("kd", Type.KDTREE);
+        final TreeBatchResult result = kdTree.queryAroundBatch(TreeTestHelper.randomKeys(new Random(1), 3, DIM), K);
+        Assert.assertEquals(3, result.queries());
+        Assert.assertEquals(0, result.size(0));
+        g.disconnect(null);
+    }
+
+}
@@ -0,0 +1,49 @@
+/**
+ * Copyright 2017 The GreyCat Authors.  All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package greycatTest.internal.tree;
+
+import java.util.Random;
+
+/**
+ * Brute force references shared by the tree tests.
+ */
+class TreeTestHelper {
+
+    /**
+     * @return size keys of dim uniform coordinates in [0, 1)
+     */
+    static double[][] randomKeys(final Random random, final int size, final int dim) {
+        final double[][] keys = new double[size][dim];
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < dim; j++) {
+                keys[i][j] = random.nextDouble();
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * Euclidean distance, the default distance of the trees.
+     */
+    static double distance(final double[] a, final double[] b) {
+        double sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += (a[i] - b[i]) * (a[i] - b[i]);
+        }
+        return Math.sqrt(sum);
+    }
+
+}
@@ -0,0 +1,229 @@
+/**
+ * Copyright 2017 The GreyCat Authors.  All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package greycatTest.internal.utility;
+
+import greycat.*;
+import greycat.chunk.Chunk;
+import greycat.chunk.ChunkType;
+import greycat.chunk.KeyFormat;
+import greycat.chunk.StateChunk;
+import greycat.internal.heap.HeapBuffer;
+import greycat.scheduler.NoopScheduler;
+import greycat.struct.Buffer;
+import greycat.utility.KeyHelper;
+import greycatTest.internal.MockStorage;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class KeyHelperTest {
+
+    @Test
+    public void orderTest() {
+        final long[] values = new long[]{Long.MIN_VALUE, Constants.BEGINNING_OF_TIME, -1000, -1, 0, 1, 63, 64, 1000, Constants.END_OF_TIME, Long.MAX_VALUE};
+        String previous = null;
+        for (int i = 0; i < values.length; i++) {
+            final Buffer buffer = new HeapBuffer();
+            KeyHelper.orderedLongToBuffer(values[i], buffer);
+            Assert.assertEquals(KeyHelper.ORDERED_LONG_SIZE, buffer.length());
+            Assert.assertEquals(values[i], KeyHelper.decodeOrderedLong(buffer, 0));
+            final String encoded = new String(buffer.data());
+            if (previous != null) {
+                Assert.assertTrue(previous.compareTo(encoded) <= 0);
+            }
+            previous = encoded;
+        }
+    }
+
+    @Test
+    public void decodeTest() {
+        final long[] decoded = new long[Constants.KEY_SIZE];
+        final byte[] formats = new byte[]{KeyFormat.TEXT, KeyFormat.ORDERED};
+        for (int i = 0; i < formats.length; i++) {
+            final Buffer buffer = new HeapBuffer();
+            KeyHelper.keyToBufferWithFormat(buffer, formats[i], ChunkType.STATE_CHUNK, 3, -42, 1000);
+            Assert.assertEquals(formats[i] == KeyFormat.ORDERED, KeyHelper.isOrderedKey(buffer, 0, buffer.length()));
+            Assert.assertTrue(KeyHelper.decodeKey(buffer, decoded));
+            Assert.assertEquals(ChunkType.STATE_CHUNK, decoded[0]);
+            Assert.assertEquals(3, decoded[1]);
+            Assert.assertEquals(-42, decoded[2]);
+            Assert.assertEquals(1000, decoded[3]);
+        }
+        final Buffer notAKey = new HeapBuffer();
+        notAKey.writeString("prefix");
+        Assert.assertFalse(KeyHelper.decodeKey(notAKey, decoded));
+    }
+
+    @Test
+    public void rangeTest() {
+        final MockStorage storage = new MockStorage();
+        final Graph g = GraphBuilder.newBuilder()
+                .withScheduler(new NoopScheduler())
+                .withStorage(storage)
+                .withKeyFormat(KeyFormat.ORDERED)
+                .build();
+        g.connect(null);
+        final Node node = g.newNode(0, 0);
+        final long id = node.id();
+        for (int i = 1; i < 10; i++) {
+            g.lookup(0, i * 10, id, new Callback<Node>() {
+                @Override
+                public void on(Node result) {
+                    result.set("value", Type.INT, (int) result.time());
+                    result.free();
+                }
+            });
+        }
+        node.free();
+        g.save(null);
+        for (String key : storage.backend.keySet()) {
+            Assert.assertEquals(KeyHelper.ORDERED_KEY_SIZE, key.length());
+        }
+        g.disconnect(null);
+
+        final Graph g2 = GraphBuilder.newBuilder()
+                .withScheduler(new NoopScheduler())
+                .withStorage(storage)
+                .withKeyFormat(KeyFormat.ORDERED)
+                .build();
+        g2.connect(null);
+        final int[] counter = {0};
+        g2.space().getOrLoadAndMarkRange(ChunkType.STATE_CHUNK, 0, id, 25, 70, new Callback<Chunk[]>() {
+            @Override
+            public void on(Chunk[] result) {
+                Assert.assertEquals(5, result.length);
+                for (int i = 0; i < result.length; i++) {
+                    Assert.assertEquals(30 + i * 10, result[i].time());
+                    Assert.assertEquals((int) result[i].time(), ((StateChunk) result[i]).getAt(g2.resolver().stringToHash("value", false)));
+                    g2.space().unmark(result[i].index());
+                }
+                counter[0]++;
+            }
+        });
+        Assert.assertEquals(1, counter[0]);
+        g2.lookup(0, 55, id, new Callback<Node>() {
+            @Override
+            public void on(Node result) {
+                Assert.assertEquals(50, result.get("value"));
+                result.free();
+                counter[0]++;
+            }
+        });
+        Assert.assertEquals(2, counter[0]);
+        g2.disconnect(null);
+    }
+
+    @Test
+    public void migrateTest() {
+        final MockStorage storage = new MockStorage();
+        final Graph g = GraphBuilder.newBuilder()
+                .withScheduler(new NoopScheduler())
+                .withStorage(storage)
+                .build();
+        g.connect(null);
+        final Node node = g.newNode(0, 0);
+        node.set("name", Type.STRING, "migrated");
+        final long id = node.id();
+        node.free();
+        g.save(null);
+        final int size = storage.backend.size();
+        final int[] migrated = {-1};
+        KeyHelper.migrate(storage, g, KeyFormat.ORDERED, KeyHelper.MIGRATION_BATCH_SIZE, new Callback<Integer>() {
+            @Override
+            public void on(Integer result) {
+                migrated[0] = result;
+            }
+        });
+        g.disconnect(null);
+        Assert.assertTrue(migrated[0] > 0);
+        Assert.assertEquals(size, storage.backend.size());
+
+        final Graph g2 = GraphBuilder.newBuilder()
+                .withScheduler(new NoopScheduler())
+                .withStorage(storage)
+                .withKeyFormat(KeyFormat.ORDERED)
+                .build();
+        g2.connect(null);
+        g2.lookup(0, 0, id, new Callback<Node>() {
+            @Override
+            public void on(Node result) {
+                Assert.assertEquals("migrated", result.get("name"));
+                result.free();
+                migrated[0] = -2;
+            }
+        });
+        Assert.assertEquals(-2, migrated[0]);
+        g2.disconnect(null);
+    }
+
+    @Test
+    public void migrateInBatchesTest() {
+        final MockStorage storage = new MockStorage();
+        final Graph g = GraphBuilder.newBuilder()
+                .withScheduler(new NoopScheduler())
+                .withStorage(storage)
+                .build();
+        g.connect(null);
+        final long[] ids = new long[10];
+        for (int i = 0; i < ids.length; i++) {
+            final Node node = g.newNode(0, 0);
+            node.set("index", Type.INT, i);
+            ids[i] = node.id();
+            node.free();
+        }
+        g.save(null);
+        final int size = storage.backend.size();
+        final int[] migrated = {-1, -1};
+        KeyHelper.migrate(storage, g, KeyFormat.ORDERED, 3, new Callback<Integer>() {
+            @Override
+            public void on(Integer result) {
+                migrated[0] = result;
+            }
+        });
+        //nothing is left to migrate
+        KeyHelper.migrate(storage, g, KeyFormat.ORDERED, 3, new Callback<Integer>() {
+            @Override
+            public void on(Integer result) {
+                migrated[1] = result;
+            }
+        });
+        g.disconnect(null);
+        Assert.assertTrue(migrated[0] >= ids.length);
+        Assert.assertEquals(0, migrated[1]);
+        Assert.assertEquals(size, storage.backend.size());
+
+        final Graph g2 = GraphBuilder.newBuilder()
+                .withScheduler(new NoopScheduler())
+                .withStorage(storage)
+                .withKeyFormat(KeyFormat.ORDERED)
+                .build();
+        g2.connect(null);
+        final int[] found = {0};
+        for (int i = 0; i < ids.length; i++) {
+            final int index = i;
+            g2.lookup(0, 0, ids[i], new Callback<Node>() {
+                @Override
+                public void on(Node result) {
+                    Assert.assertEquals(index, result.get("index"));
+                    result.free();
+                    found[0]++;
+                }
+            });
+        }
+        Assert.assertEquals(ids.length, found[0]);
+        g2.disconnect(null);
+    }
+
+}
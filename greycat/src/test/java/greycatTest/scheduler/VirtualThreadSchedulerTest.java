@@ -0,0 +1,75 @@
+/**
+ * Copyright 2017 The GreyCat Authors.  All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package greycatTest.scheduler;
+
+import greycat.ActionFunction;
+import greycat.Callback;
+import greycat.DeferCounterSync;
+import greycat.Graph;
+import greycat.GraphBuilder;
+import greycat.TaskContext;
+import greycat.TaskResult;
+import greycat.scheduler.VirtualThreadScheduler;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static greycat.Tasks.newTask;
+
+/**
+ * @ignore ts
+ */
+public class VirtualThreadSchedulerTest {
+
+    /**
+     * Every parallel sub task blocks on a synchronous task, which requires a thread per blocked job.
+     */
+    @Test
+    public void blockingTest() {
+        final AtomicInteger counter = new AtomicInteger();
+        final Graph g = new GraphBuilder().withScheduler(new VirtualThreadScheduler(128)).build();
+        final DeferCounterSync waiter = g.newSyncCounter(1);
+        g.connect(new Callback<Boolean>() {
+            @Override
+            public void on(Boolean result) {
+                newTask().loopPar("0", "99", newTask().thenDo(new ActionFunction() {
+                    @Override
+                    public void eval(TaskContext ctx) {
+                        final TaskResult sub = newTask().inject(1).executeSync(ctx.graph());
+                        counter.addAndGet((Integer) sub.get(0));
+                        sub.free();
+                        ctx.continueTask();
+                    }
+                })).execute(g, new Callback<TaskResult>() {
+                    @Override
+                    public void on(TaskResult result) {
+                        result.free();
+                        g.disconnect(new Callback<Boolean>() {
+                            @Override
+                            public void on(Boolean result) {
+                                waiter.count();
+                            }
+                        });
+                    }
+                });
+            }
+        });
+        waiter.waitResult();
+        Assert.assertEquals(100, counter.get());
+    }
+
+}
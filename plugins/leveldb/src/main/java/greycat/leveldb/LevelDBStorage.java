@@ -18,7 +18,7 @@ package greycat.leveldb;
 import greycat.Callback;
 import greycat.Constants;
 import greycat.Graph;
-import greycat.plugin.Storage;
+import greycat.plugin.ScanStorage;
 import greycat.struct.Buffer;
 import greycat.struct.BufferIterator;
 import greycat.utility.Base64;
@@ -26,6 +26,7 @@ import greycat.utility.HashHelper;
 import org.fusesource.leveldbjni.JniDBFactory;
 import org.iq80.leveldb.CompressionType;
 import org.iq80.leveldb.DB;
+import org.iq80.leveldb.DBIterator;
 import org.iq80.leveldb.Options;
 import org.iq80.leveldb.WriteBatch;
 import org.iq80.leveldb.impl.Iq80DBFactory;
@@ -33,8 +34,9 @@ import org.iq80.leveldb.impl.Iq80DBFactory;
 import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
-public class LevelDBStorage implements Storage {
+public class LevelDBStorage implements ScanStorage {
 
     private static final String _connectedError = "PLEASE CONNECT YOUR DATABASE FIRST";
     private static final byte[] prefixKey = "prefix".getBytes();
@@ -86,6 +88,84 @@ public class LevelDBStorage implements Storage {
         }
     }
 
+    @Override
+    public void scan(Buffer prefix, Buffer from, Buffer to, int limit, Callback<Buffer> callback) {
+        if (!isConnected) {
+            throw new RuntimeException(_connectedError);
+        }
+        final byte[] prefixBytes = prefix.data();
+        final byte[] upper = to == null ? null : concat(prefixBytes, to.data());
+        final Buffer result = graph.newBuffer();
+        final DBIterator it = db.iterator();
+        try {
+            if (from == null && prefixBytes.length == 0) {
+                it.seekToFirst();
+            } else {
+                it.seek(from == null ? prefixBytes : concat(prefixBytes, from.data()));
+            }
+            boolean isFirst = true;
+            int count = 0;
+            while (it.hasNext() && count != limit) {
+                final Map.Entry<byte[], byte[]> entry = it.next();
+                if (!inRange(entry.getKey(), prefixBytes, upper)) {
+                    break;
+                }
+                if (!isFirst) {
+                    result.write(Constants.BUFFER_SEP);
+                } else {
+                    isFirst = false;
+                }
+                count++;
+                result.writeAll(entry.getKey());
+                result.write(Constants.BUFFER_SEP);
+                result.writeAll(entry.getValue());
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+        } finally {
+            try {
+                it.close();
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
+        if (callback != null) {
+            callback.on(result);
+        }
+    }
+
+    private static byte[] concat(final byte[] left, final byte[] right) {
+        final byte[] result = new byte[left.length + right.length];
+        System.arraycopy(left, 0, result, 0, left.length);
+        System.arraycopy(right, 0, result, left.length, right.length);
+        return result;
+    }
+
+    /**
+     * @return true if key starts with prefix and is lower or equal to upper, bytes being compared as unsigned
+     */
+    private static boolean inRange(final byte[] key, final byte[] prefix, final byte[] upper) {
+        if (key.length < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (key[i] != prefix[i]) {
+                return false;
+            }
+        }
+        if (upper == null) {
+            return true;
+        }
+        final int length = Math.min(key.length, upper.length);
+        for (int i = prefix.length; i < length; i++) {
+            final int diff = (key[i] & 0xFF) - (upper[i] & 0xFF);
+            if (diff != 0) {
+                return diff < 0;
+            }
+        }
+        return key.length <= upper.length;
+    }
+
     @Override
     public void put(Buffer stream, Callback<Boolean> callback) {
         if (!isConnected) {
@@ -0,0 +1,206 @@
+/**
+ * Copyright 2017 The GreyCat Authors.  All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package greycat.mmap;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * One append-only log file of a {@link MMapStorage}.
+ * Records are appended through the channel and read back through read-only mappings of fixed size regions of the file.
+ * A region is mapped once it is complete, so that no mapping is ever replaced, the incomplete tail being read through the channel.
+ * Once sealed, the segment is forced, all its regions are mapped and its file is closed.
+ */
+final class MMapSegment {
+
+    /**
+     * Size of the mapped regions, 4MB.
+     */
+    static final int REGION_SIZE = 1 << 22;
+
+    private final long _id;
+
+    private final File _file;
+
+    private final RandomAccessFile _raf;
+
+    private final FileChannel _channel;
+
+    private MappedByteBuffer[] _regions = new MappedByteBuffer[0];
+
+    private boolean _sealed = false;
+
+    private long _size;
+
+    MMapSegment(final long id, final File file) throws IOException {
+        this._id = id;
+        this._file = file;
+        this._raf = new RandomAccessFile(file, "rw");
+        this._channel = _raf.getChannel();
+        this._size = _channel.size();
+    }
+
+    final long id() {
+        return _id;
+    }
+
+    final long size() {
+        return _size;
+    }
+
+    /**
+     * Appends the remaining bytes of the buffer at the end of the segment.
+     *
+     * @return the offset of the first appended byte
+     */
+    final long append(final ByteBuffer records) throws IOException {
+        if (_sealed) {
+            throw new IOException("Segment " + _file.getName() + " is sealed");
+        }
+        final long offset = _size;
+        long position = offset;
+        while (records.hasRemaining()) {
+            position += _channel.write(records, position);
+        }
+        _size = position;
+        return offset;
+    }
+
+    /**
+     * @return a read-only view on length bytes starting at offset, sharing the mapped memory of the file when they lie in one mapped region
+     */
+    final ByteBuffer view(final long offset, final int length) throws IOException {
+        final int index = (int) (offset / REGION_SIZE);
+        final long end = offset + length;
+        if (end <= (long) (index + 1) * REGION_SIZE) {
+            final MappedByteBuffer region = region(index);
+            if (region != null && end - (long) index * REGION_SIZE <= region.capacity()) {
+                final ByteBuffer view = region.duplicate();
+                final int position = (int) (offset - (long) index * REGION_SIZE);
+                view.position(position);
+                view.limit(position + length);
+                return view;
+            }
+        }
+        return ByteBuffer.wrap(read(offset, length));
+    }
+
+    final byte[] read(final long offset, final int length) throws IOException {
+        final byte[] result = new byte[length];
+        int done = 0;
+        while (done < length) {
+            final long position = offset + done;
+            final int index = (int) (position / REGION_SIZE);
+            final int inRegion = (int) (position - (long) index * REGION_SIZE);
+            final int chunk = (int) Math.min(length - done, (long) REGION_SIZE - inRegion);
+            final MappedByteBuffer region = region(index);
+            if (region != null && inRegion + chunk <= region.capacity()) {
+                final ByteBuffer view = region.duplicate();
+                view.position(inRegion);
+                view.get(result, done, chunk);
+            } else {
+                //incomplete tail, not mapped yet
+                final ByteBuffer target = ByteBuffer.wrap(result, done, chunk);
+                long cursor = position;
+                while (target.hasRemaining()) {
+                    final int read = _channel.read(target, cursor);
+                    if (read < 0) {
+                        throw new IOException("Unexpected end of segment " + _file.getName());
+                    }
+                    cursor += read;
+                }
+            }
+            done += chunk;
+        }
+        return result;
+    }
+
+    /**
+     * @return the mapping of a region, created on first use once the region is complete or the segment sealed, null otherwise
+     */
+    private MappedByteBuffer region(final int index) throws IOException {
+        if (index < _regions.length && _regions[index] != null) {
+            return _regions[index];
+        }
+        final long start = (long) index * REGION_SIZE;
+        final long length;
+        if (start + REGION_SIZE <= _size) {
+            length = REGION_SIZE;
+        } else if (_sealed && start < _size) {
+            length = _size - start;
+        } else {
+            return null;
+        }
+        if (index >= _regions.length) {
+            final MappedByteBuffer[] regions = new MappedByteBuffer[index + 1];
+            System.arraycopy(_regions, 0, regions, 0, _regions.length);
+            _regions = regions;
+        }
+        _regions[index] = _channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+        return _regions[index];
+    }
+
+    /**
+     * Drops everything after size, used to discard a record partially written before a crash.
+     */
+    final void truncate(final long size) throws IOException {
+        _regions = new MappedByteBuffer[0];
+        _channel.truncate(size);
+        _size = size;
+    }
+
+    final void force() throws IOException {
+        if (!_sealed) {
+            _channel.force(false);
+        }
+    }
+
+    /**
+     * Forces the segment to disk, maps all its regions and closes its file, no record can be appended afterwards.
+     */
+    final void seal() throws IOException {
+        if (_sealed) {
+            return;
+        }
+        _channel.force(false);
+        _sealed = true;
+        //the file is closed, every region is mapped beforehand
+        for (long start = 0; start < _size; start += REGION_SIZE) {
+            region((int) (start / REGION_SIZE));
+        }
+        _channel.close();
+        _raf.close();
+    }
+
+    final void close() throws IOException {
+        _regions = new MappedByteBuffer[0];
+        _sealed = true;
+        _channel.close();
+        _raf.close();
+    }
+
+    final void delete() throws IOException {
+        close();
+        if (!_file.delete()) {
+            throw new IOException("Unable to delete segment " + _file.getAbsolutePath());
+        }
+    }
+
+}
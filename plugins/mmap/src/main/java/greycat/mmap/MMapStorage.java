@@ -0,0 +1,721 @@
+/**
+ * Copyright 2017 The GreyCat Authors.  All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package greycat.mmap;
+
+import greycat.Callback;
+import greycat.Constants;
+import greycat.Graph;
+import greycat.plugin.AppendStorage;
+import greycat.plugin.ScanStorage;
+import greycat.struct.Buffer;
+import greycat.struct.BufferIterator;
+import greycat.utility.Base64;
+import greycat.utility.HashHelper;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+
+/**
+ * Pure Java storage, without native dependency.
+ * Entries are appended to log segments, read back through memory mapping, and located through an in-memory index rebuilt at connect.
+ * Each record is written as [key length][value length][crc32][key][value], a value length of -1 marking a removal.
+ * A negative key length marks a value appended to the previous ones of the key, read back as their concatenation.
+ * At connect, segments are replayed in order and a record truncated or corrupted by a crash is dropped with everything after it.
+ * Once overwritten and removed entries weigh more than the compaction ratio, live entries are rewritten into new segments and the previous ones are deleted.
+ */
+public class MMapStorage implements ScanStorage, AppendStorage {
+
+    private static final String _connectedError = "PLEASE CONNECT YOUR DATABASE FIRST";
+
+    private static final byte[] prefixKey = "prefix".getBytes();
+
+    /**
+     * Bijective between bytes and chars, and preserves the unsigned order of bytes.
+     */
+    private static final Charset KEY_CHARSET = Charset.forName("ISO-8859-1");
+
+    private static final String SEGMENT_EXTENSION = ".log";
+
+    private static final int HEADER_SIZE = 12;
+
+    private static final int TOMBSTONE = -1;
+
+    private final String _storagePath;
+
+    private final List<Callback<Buffer>> updates = new ArrayList<Callback<Buffer>>();
+
+    /**
+     * key to {segment id, value offset, value length, record size}, repeated for each appended fragment
+     */
+    private final TreeMap<String, long[]> _index = new TreeMap<String, long[]>();
+
+    private final TreeMap<Long, MMapSegment> _segments = new TreeMap<Long, MMapSegment>();
+
+    private final CRC32 _crc = new CRC32();
+
+    private long _segmentSize = 64 * 1024 * 1024;
+
+    private double _compactionRatio = 0.5;
+
+    private boolean _sync = false;
+
+    private MMapSegment _active;
+
+    private long _totalBytes;
+
+    private long _liveBytes;
+
+    private File _location;
+
+    private Graph _graph;
+
+    private boolean _isConnected = false;
+
+    public MMapStorage(String storagePath) {
+        this._storagePath = storagePath;
+    }
+
+    /**
+     * Size in bytes after which a new segment is started, 64MB by default.
+     */
+    public MMapStorage withSegmentSize(long segmentSize) {
+        if (segmentSize <= 0 || segmentSize > Integer.MAX_VALUE) {
+            throw new RuntimeException("Segment size must be between 1 and " + Integer.MAX_VALUE);
+        }
+        this._segmentSize = segmentSize;
+        return this;
+    }
+
+    /**
+     * Compaction starts when live entries weigh less than this ratio of the segments, 0.5 by default.
+     * 0 disables automatic compaction.
+     */
+    public MMapStorage withCompactionRatio(double compactionRatio) {
+        this._compactionRatio = compactionRatio;
+        return this;
+    }
+
+    /**
+     * Forces every write to disk before acknowledging it, false by default.
+     * Without sync, a crash can lose the last writes but never corrupt the previous ones.
+     */
+    public MMapStorage withSync(boolean sync) {
+        this._sync = sync;
+        return this;
+    }
+
+    @Override
+    public void listen(Callback<Buffer> synCallback) {
+        updates.add(synCallback);
+    }
+
+    @Override
+    public synchronized void get(Buffer keys, Callback<Buffer> callback) {
+        if (!_isConnected) {
+            throw new RuntimeException(_connectedError);
+        }
+        final Buffer result = _graph.newBuffer();
+        final BufferIterator it = keys.iterator();
+        boolean isFirst = true;
+        try {
+            while (it.hasNext()) {
+                final Buffer view = it.next();
+                if (!isFirst) {
+                    result.write(Constants.BUFFER_SEP);
+                } else {
+                    isFirst = false;
+                }
+                final byte[] value = read(view.data());
+                if (value != null) {
+                    result.writeAll(value);
+                }
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        if (callback != null) {
+            callback.on(result);
+        }
+    }
+
+    @Override
+    public synchronized void scan(Buffer prefix, Buffer from, Buffer to, int limit, Callback<Buffer> callback) {
+        if (!_isConnected) {
+            throw new RuntimeException(_connectedError);
+        }
+        final String prefixKey = toKey(prefix.data());
+        final String lower = from == null ? prefixKey : prefixKey + toKey(from.data());
+        //upper bound is inclusive
+        final String upper = to == null ? null : prefixKey + toKey(to.data()) + '\0';
+        final SortedMap<String, long[]> range;
+        if (upper == null) {
+            range = _index.tailMap(lower);
+        } else if (lower.compareTo(upper) < 0) {
+            range = _index.subMap(lower, upper);
+        } else {
+            range = new TreeMap<String, long[]>();
+        }
+        final Buffer result = _graph.newBuffer();
+        boolean isFirst = true;
+        int count = 0;
+        try {
+            for (Map.Entry<String, long[]> entry : range.entrySet()) {
+                if (!entry.getKey().startsWith(prefixKey) || count == limit) {
+                    break;
+                }
+                count++;
+                if (!isFirst) {
+                    result.write(Constants.BUFFER_SEP);
+                } else {
+                    isFirst = false;
+                }
+                result.writeAll(entry.getKey().getBytes(KEY_CHARSET));
+                result.write(Constants.BUFFER_SEP);
+                result.writeAll(read(entry.getValue()));
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        if (callback != null) {
+            callback.on(result);
+        }
+    }
+
+    @Override
+    public synchronized void put(Buffer stream, Callback<Boolean> callback) {
+        if (!_isConnected) {
+            throw new RuntimeException(_connectedError);
+        }
+        try {
+            Buffer result = null;
+            if (updates.size() != 0) {
+                result = _graph.newBuffer();
+            }
+            final List<byte[]> keys = new ArrayList<byte[]>();
+            final List<byte[]> values = new ArrayList<byte[]>();
+            BufferIterator it = stream.iterator();
+            boolean isFirst = true;
+            while (it.hasNext()) {
+                Buffer keyView = it.next();
+                Buffer valueView = it.next();
+                if (valueView != null) {
+                    keys.add(keyView.data());
+                    values.add(valueView.data());
+                }
+                if (result != null) {
+                    if (isFirst) {
+                        isFirst = false;
+                    } else {
+                        result.write(Constants.KEY_SEP);
+                    }
+                    result.writeAll(keyView.data());
+                    result.write(Constants.KEY_SEP);
+                    Base64.encodeLongToBuffer(HashHelper.hashBuffer(valueView, 0, valueView.length()), result);
+                }
+            }
+            write(keys, values, false);
+            for (int i = 0; i < updates.size(); i++) {
+                final Callback<Buffer> explicit = updates.get(i);
+                explicit.on(result);
+            }
+            if (callback != null) {
+                callback.on(true);
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+            if (callback != null) {
+                callback.on(false);
+            }
+        }
+    }
+
+    @Override
+    public synchronized void putSilent(Buffer stream, Callback<Buffer> callback) {
+        if (!_isConnected) {
+            throw new RuntimeException(_connectedError);
+        }
+        try {
+            Buffer result = _graph.newBuffer();
+            final List<byte[]> keys = new ArrayList<byte[]>();
+            final List<byte[]> values = new ArrayList<byte[]>();
+            BufferIterator it = stream.iterator();
+            boolean isFirst = true;
+            while (it.hasNext()) {
+                Buffer keyView = it.next();
+                Buffer valueView = it.next();
+                if (valueView != null) {
+                    keys.add(keyView.data());
+                    values.add(valueView.data());
+                }
+                if (isFirst) {
+                    isFirst = false;
+                } else {
+                    result.write(Constants.KEY_SEP);
+                }
+                result.writeAll(keyView.data());
+                result.write(Constants.KEY_SEP);
+                Base64.encodeLongToBuffer(HashHelper.hashBuffer(valueView, 0, valueView.length()), result);
+            }
+            write(keys, values, false);
+            for (int i = 0; i < updates.size(); i++) {
+                final Callback<Buffer> explicit = updates.get(i);
+                explicit.on(result);
+            }
+            callback.on(result);
+        } catch (Exception e) {
+            e.printStackTrace();
+            if (callback != null) {
+                callback.on(null);
+            }
+        }
+    }
+
+    @Override
+    public synchronized void append(Buffer stream, Callback<Boolean> callback) {
+        if (!_isConnected) {
+            throw new RuntimeException(_connectedError);
+        }
+        try {
+            Buffer result = null;
+            if (updates.size() != 0) {
+                result = _graph.newBuffer();
+            }
+            final List<byte[]> keys = new ArrayList<byte[]>();
+            final List<byte[]> values = new ArrayList<byte[]>();
+            final BufferIterator it = stream.iterator();
+            boolean isFirst = true;
+            while (it.hasNext()) {
+                final Buffer keyView = it.next();
+                final Buffer valueView = it.next();
+                if (valueView != null) {
+                    keys.add(keyView.data());
+                    values.add(valueView.data());
+                }
+                if (result != null) {
+                    if (isFirst) {
+                        isFirst = false;
+                    } else {
+                        result.write(Constants.KEY_SEP);
+                    }
+                    result.writeAll(keyView.data());
+                    result.write(Constants.KEY_SEP);
+                    Base64.encodeLongToBuffer(HashHelper.hashBuffer(valueView, 0, valueView.length()), result);
+                }
+            }
+            write(keys, values, true);
+            //peers are notified as for a put
+            for (int i = 0; i < updates.size(); i++) {
+                final Callback<Buffer> explicit = updates.get(i);
+                explicit.on(result);
+            }
+            if (callback != null) {
+                callback.on(true);
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+            if (callback != null) {
+                callback.on(false);
+            }
+        }
+    }
+
+    @Override
+    public synchronized void remove(Buffer keys, Callback<Boolean> callback) {
+        if (!_isConnected) {
+            throw new RuntimeException(_connectedError);
+        }
+        try {
+            final List<byte[]> removed = new ArrayList<byte[]>();
+            final List<byte[]> tombstones = new ArrayList<byte[]>();
+            BufferIterator it = keys.iterator();
+            while (it.hasNext()) {
+                final byte[] key = it.next().data();
+                if (_index.containsKey(toKey(key))) {
+                    removed.add(key);
+                    tombstones.add(null);
+                }
+            }
+            write(removed, tombstones, false);
+            if (callback != null) {
+                callback.on(true);
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+            if (callback != null) {
+                callback.on(false);
+            }
+        }
+    }
+
+    /**
+     * Rewrites live entries into new segments and deletes the previous ones, whatever the compaction ratio.
+     */
+    public synchronized void compact(Callback<Boolean> callback) {
+        if (!_isConnected) {
+            throw new RuntimeException(_connectedError);
+        }
+        try {
+            compact();
+            if (callback != null) {
+                callback.on(true);
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+            if (callback != null) {
+                callback.on(false);
+            }
+        }
+    }
+
+    @Override
+    public synchronized void connect(Graph graph, Callback<Boolean> callback) {
+        if (_isConnected) {
+            if (callback != null) {
+                callback.on(true);
+            }
+            return;
+        }
+        _graph = graph;
+        _location = new File(new File(_storagePath), "data");
+        if (!_location.exists()) {
+            _location.mkdirs();
+        }
+        try {
+            final File[] files = _location.listFiles();
+            final List<Long> ids = new ArrayList<Long>();
+            if (files != null) {
+                for (int i = 0; i < files.length; i++) {
+                    final String name = files[i].getName();
+                    if (name.endsWith(SEGMENT_EXTENSION)) {
+                        ids.add(Long.parseLong(name.substring(0, name.length() - SEGMENT_EXTENSION.length())));
+                    }
+                }
+            }
+            final Long[] sorted = ids.toArray(new Long[ids.size()]);
+            Arrays.sort(sorted);
+            for (int i = 0; i < sorted.length; i++) {
+                final MMapSegment segment = new MMapSegment(sorted[i], segmentFile(sorted[i]));
+                _segments.put(segment.id(), segment);
+                recover(segment);
+                if (_active != null) {
+                    _active.seal();
+                }
+                _active = segment;
+            }
+            if (_active == null) {
+                roll();
+            }
+            _isConnected = true;
+            if (callback != null) {
+                callback.on(true);
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+            if (callback != null) {
+                callback.on(false);
+            }
+        }
+    }
+
+    @Override
+    public synchronized void disconnect(Callback<Boolean> callback) {
+        try {
+            if (_active != null) {
+                _active.force();
+            }
+            for (MMapSegment segment : _segments.values()) {
+                segment.close();
+            }
+            _segments.clear();
+            _index.clear();
+            _active = null;
+            _totalBytes = 0;
+            _liveBytes = 0;
+            _isConnected = false;
+            if (callback != null) {
+                callback.on(true);
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+            if (callback != null) {
+                callback.on(false);
+            }
+        }
+    }
+
+    @Override
+    public synchronized void lock(Callback<Buffer> callback) {
+        if (!_isConnected) {
+            throw new RuntimeException(_connectedError);
+        }
+        try {
+            byte[] current = read(prefixKey);
+            if (current == null) {
+                current = new String("0").getBytes();
+            }
+            Short currentPrefix = Short.parseShort(new String(current));
+            final List<byte[]> keys = new ArrayList<byte[]>();
+            final List<byte[]> values = new ArrayList<byte[]>();
+            keys.add(prefixKey);
+            values.add(((currentPrefix + 1) + "").getBytes());
+            write(keys, values, false);
+            if (callback != null) {
+                Buffer newBuf = _graph.newBuffer();
+                Base64.encodeIntToBuffer(currentPrefix, newBuf);
+                callback.on(newBuf);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            if (callback != null) {
+                callback.on(null);
+            }
+        }
+    }
+
+    @Override
+    public void unlock(Buffer previousLock, Callback<Boolean> callback) {
+        //noop
+        callback.on(true);
+    }
+
+    private byte[] read(final byte[] key) throws IOException {
+        final long[] entry = _index.get(toKey(key));
+        if (entry == null) {
+            return null;
+        }
+        return read(entry);
+    }
+
+    private byte[] read(final long[] entry) throws IOException {
+        if (entry.length == 4) {
+            return _segments.get(entry[0]).read(entry[1], (int) entry[2]);
+        }
+        int length = 0;
+        for (int i = 0; i < entry.length; i += 4) {
+            length += (int) entry[i + 2];
+        }
+        final byte[] value = new byte[length];
+        int cursor = 0;
+        for (int i = 0; i < entry.length; i += 4) {
+            final byte[] fragment = _segments.get(entry[i]).read(entry[i + 1], (int) entry[i + 2]);
+            System.arraycopy(fragment, 0, value, cursor, fragment.length);
+            cursor += fragment.length;
+        }
+        return value;
+    }
+
+    /**
+     * Writes one record per key, a null value being a removal, then compacts if needed.
+     * Records are written with one call per segment they fall into.
+     *
+     * @param extend true to append values to the existing ones instead of replacing them
+     */
+    private void write(final List<byte[]> keys, final List<byte[]> values, final boolean extend) throws IOException {
+        int begin = 0;
+        while (begin < keys.size()) {
+            int end = begin;
+            long runSize = 0;
+            while (end < keys.size()) {
+                final long recordSize = recordSize(keys.get(end), values.get(end));
+                if (_active.size() + runSize > 0 && _active.size() + runSize + recordSize > _segmentSize) {
+                    break;
+                }
+                runSize += recordSize;
+                end++;
+            }
+            if (end == begin) {
+                roll();
+                continue;
+            }
+            final ByteBuffer run = ByteBuffer.allocate((int) runSize);
+            for (int i = begin; i < end; i++) {
+                final byte[] key = keys.get(i);
+                final byte[] value = values.get(i);
+                run.putInt(extend ? -key.length : key.length);
+                run.putInt(value == null ? TOMBSTONE : value.length);
+                run.putInt(checksum(key, value));
+                run.put(key);
+                if (value != null) {
+                    run.put(value);
+                }
+            }
+            run.flip();
+            long offset = _active.append(run);
+            for (int i = begin; i < end; i++) {
+                offset += index(keys.get(i), values.get(i) == null ? TOMBSTONE : values.get(i).length, extend, _active.id(), offset);
+            }
+            begin = end;
+        }
+        if (_sync) {
+            _active.force();
+        }
+        if (_compactionRatio > 0 && _totalBytes > _segmentSize && _liveBytes < _totalBytes * _compactionRatio) {
+            compact();
+        }
+    }
+
+    /**
+     * Records the position of a value in the index.
+     *
+     * @return the size of the record
+     */
+    private long index(final byte[] key, final int valueLength, final boolean extend, final long segment, final long offset) {
+        final long recordSize = HEADER_SIZE + key.length + (valueLength == TOMBSTONE ? 0 : valueLength);
+        final long[] fragment = new long[]{segment, offset + HEADER_SIZE + key.length, valueLength, recordSize};
+        final String indexKey = toKey(key);
+        _totalBytes += recordSize;
+        if (valueLength != TOMBSTONE) {
+            _liveBytes += recordSize;
+        }
+        if (extend) {
+            final long[] previous = _index.get(indexKey);
+            if (previous == null) {
+                _index.put(indexKey, fragment);
+            } else {
+                final long[] fragments = new long[previous.length + 4];
+                System.arraycopy(previous, 0, fragments, 0, previous.length);
+                System.arraycopy(fragment, 0, fragments, previous.length, 4);
+                _index.put(indexKey, fragments);
+            }
+            return recordSize;
+        }
+        final long[] previous;
+        if (valueLength == TOMBSTONE) {
+            previous = _index.remove(indexKey);
+        } else {
+            previous = _index.put(indexKey, fragment);
+        }
+        if (previous != null) {
+            for (int i = 0; i < previous.length; i += 4) {
+                _liveBytes -= previous[i + 3];
+            }
+        }
+        return recordSize;
+    }
+
+    /**
+     * Replays the records of a segment into the index, and truncates it after the last valid one.
+     */
+    private void recover(final MMapSegment segment) throws IOException {
+        final long size = segment.size();
+        long offset = 0;
+        while (offset + HEADER_SIZE <= size) {
+            final ByteBuffer header = segment.view(offset, HEADER_SIZE);
+            final int rawKeyLength = header.getInt();
+            final boolean extend = rawKeyLength < 0;
+            final int keyLength = extend ? -rawKeyLength : rawKeyLength;
+            final int valueLength = header.getInt();
+            final int checksum = header.getInt();
+            final long payload = (long) keyLength + (valueLength == TOMBSTONE ? 0 : valueLength);
+            if (keyLength <= 0 || valueLength < TOMBSTONE || (extend && valueLength == TOMBSTONE) || offset + HEADER_SIZE + payload > size) {
+                break;
+            }
+            final byte[] key = segment.read(offset + HEADER_SIZE, keyLength);
+            final byte[] value = valueLength == TOMBSTONE ? null : segment.read(offset + HEADER_SIZE + keyLength, valueLength);
+            if (checksum(key, value) != checksum) {
+                break;
+            }
+            offset += index(key, valueLength, extend, segment.id(), offset);
+        }
+        if (offset != size) {
+            segment.truncate(offset);
+        }
+    }
+
+    private void compact() throws IOException {
+        final List<MMapSegment> previous = new ArrayList<MMapSegment>(_segments.values());
+        roll();
+        final long rewritten = _active.id();
+        final List<String> live = new ArrayList<String>(_index.keySet());
+        final List<byte[]> keys = new ArrayList<byte[]>();
+        final List<byte[]> values = new ArrayList<byte[]>();
+        long pending = 0;
+        final double ratio = _compactionRatio;
+        //no nested compaction while rewriting
+        _compactionRatio = 0;
+        try {
+            for (int i = 0; i < live.size(); i++) {
+                final byte[] key = live.get(i).getBytes(KEY_CHARSET);
+                final byte[] value = read(_index.get(live.get(i)));
+                keys.add(key);
+                values.add(value);
+                pending += recordSize(key, value);
+                if (pending >= _segmentSize || i == live.size() - 1) {
+                    write(keys, values, false);
+                    keys.clear();
+                    values.clear();
+                    pending = 0;
+                }
+            }
+        } finally {
+            _compactionRatio = ratio;
+        }
+        //everything rewritten has to be on disk before the originals are deleted
+        for (MMapSegment segment : _segments.tailMap(rewritten).values()) {
+            segment.force();
+        }
+        //oldest first, so that a crash in between never resurrects an entry removed in a later segment
+        for (int i = 0; i < previous.size(); i++) {
+            final MMapSegment segment = previous.get(i);
+            _segments.remove(segment.id());
+            _totalBytes -= segment.size();
+            segment.delete();
+        }
+    }
+
+    /**
+     * Starts a new segment, after sealing the current one so that it is on disk whatever the sync mode.
+     */
+    private void roll() throws IOException {
+        if (_active != null) {
+            _active.seal();
+        }
+        final long id = _segments.isEmpty() ? 0 : _segments.lastKey() + 1;
+        _active = new MMapSegment(id, segmentFile(id));
+        _segments.put(id, _active);
+    }
+
+    private File segmentFile(final long id) {
+        return new File(_location, String.format("%016d", id) + SEGMENT_EXTENSION);
+    }
+
+    private int checksum(final byte[] key, final byte[] value) {
+        _crc.reset();
+        _crc.update(key, 0, key.length);
+        if (value != null) {
+            _crc.update(value, 0, value.length);
+        }
+        return (int) _crc.getValue();
+    }
+
+    private static long recordSize(final byte[] key, final byte[] value) {
+        return HEADER_SIZE + key.length + (value == null ? 0 : value.length);
+    }
+
+    private static String toKey(final byte[] key) {
+        return new String(key, KEY_CHARSET);
+    }
+
+}
@@ -0,0 +1,275 @@
+/**
+ * Copyright 2017 The GreyCat Authors.  All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package greycat.mmap;
+
+import greycat.*;
+import greycat.chunk.ChunkFormat;
+import greycat.scheduler.NoopScheduler;
+import greycat.struct.Buffer;
+import greycat.struct.BufferIterator;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+public class StorageTest {
+
+    private File location;
+
+    @Before
+    public void init() throws IOException {
+        location = File.createTempFile("mmap", "");
+        location.delete();
+    }
+
+    @After
+    public void clean() {
+        delete(location);
+    }
+
+    @Test
+    public void reopenTest() {
+        final long id = write(new MMapStorage(location.getAbsolutePath()), 100);
+        check(new MMapStorage(location.getAbsolutePath()), id, 100);
+    }
+
+    @Test
+    public void recoveryTest() throws IOException {
+        final long id = write(new MMapStorage(location.getAbsolutePath()), 10);
+        final File[] segments = new File(location, "data").listFiles();
+        Assert.assertEquals(1, segments.length);
+        final long size = segments[0].length();
+        //simulate a record torn by a crash
+        final FileOutputStream out = new FileOutputStream(segments[0], true);
+        out.write(new byte[]{0, 0, 0, 5, 0, 0, 0, 100, 1, 2});
+        out.close();
+        final MMapStorage storage = new MMapStorage(location.getAbsolutePath());
+        storage.connect(null, null);
+        storage.disconnect(null);
+        Assert.assertEquals(size, segments[0].length());
+        check(new MMapStorage(location.getAbsolutePath()), id, 10);
+    }
+
+    @Test
+    public void compactionTest() {
+        final long id = write(new MMapStorage(location.getAbsolutePath()).withSegmentSize(4096), 2000);
+        //each version of the node overwrites the previous chunks, only the last ones are kept
+        final File[] segments = new File(location, "data").listFiles();
+        long total = 0;
+        for (int i = 0; i < segments.length; i++) {
+            total += segments[i].length();
+        }
+        Assert.assertTrue(total < 2000 * 100);
+        check(new MMapStorage(location.getAbsolutePath()).withSegmentSize(4096), id, 2000);
+    }
+
+    @Test
+    public void appendTest() {
+        final Graph graph = new GraphBuilder().withStorage(new MMapStorage(location.getAbsolutePath())).withChunkFormat(ChunkFormat.BINARY).withScheduler(new NoopScheduler()).build();
+        graph.connect(null);
+        final Node node = graph.newNode(0, 0);
+        for (int i = 0; i < 50; i++) {
+            node.set("attribute" + i, Type.STRING, "value of attribute " + i);
+        }
+        final long id = node.id();
+        node.free();
+        graph.save(null);
+        //small changes are appended as fragments of the node state
+        for (int i = 0; i < 5; i++) {
+            final int value = i;
+            graph.lookup(0, 0, id, new Callback<Node>() {
+                @Override
+                public void on(Node result) {
+                    result.set("attribute" + value, Type.INT, value);
+                    result.free();
+                }
+            });
+            graph.save(null);
+        }
+        graph.disconnect(null);
+        final Graph reopened = new GraphBuilder().withStorage(new MMapStorage(location.getAbsolutePath())).withChunkFormat(ChunkFormat.BINARY).withScheduler(new NoopScheduler()).build();
+        reopened.connect(null);
+        final int[] called = {0};
+        reopened.lookup(0, 0, id, new Callback<Node>() {
+            @Override
+            public void on(Node result) {
+                for (int i = 0; i < 5; i++) {
+                    Assert.assertEquals(i, result.get("attribute" + i));
+                }
+                Assert.assertEquals("value of attribute 5", result.get("attribute5"));
+                result.free();
+                called[0]++;
+            }
+        });
+        Assert.assertEquals(1, called[0]);
+        reopened.disconnect(null);
+    }
+
+    @Test
+    public void syncRollTest() {
+        //every segment left by a roll is sealed, and read back through its mappings
+        final long id = write(new MMapStorage(location.getAbsolutePath()).withSegmentSize(4096).withCompactionRatio(0).withSync(true), 300);
+        Assert.assertTrue(new File(location, "data").listFiles().length > 2);
+        check(new MMapStorage(location.getAbsolutePath()).withSegmentSize(4096).withCompactionRatio(0), id, 300);
+    }
+
+    @Test
+    public void regionTest() {
+        final MMapStorage storage = new MMapStorage(location.getAbsolutePath());
+        final Graph graph = new GraphBuilder().withStorage(storage).withScheduler(new NoopScheduler()).build();
+        graph.connect(null);
+        //values larger than a region, so that records span mapped regions and the unmapped tail
+        final int size = MMapSegment.REGION_SIZE / 3 * 2;
+        final Buffer toPut = graph.newBuffer();
+        for (int i = 0; i < 5; i++) {
+            if (i != 0) {
+                toPut.write(Constants.BUFFER_SEP);
+            }
+            toPut.writeString("key" + i);
+            toPut.write(Constants.BUFFER_SEP);
+            final byte[] value = new byte[size];
+            Arrays.fill(value, (byte) ('a' + i));
+            toPut.writeAll(value);
+        }
+        storage.put(toPut, null);
+        toPut.free();
+        checkValues(graph, storage, size);
+        graph.disconnect(null);
+        final MMapStorage reopened = new MMapStorage(location.getAbsolutePath());
+        final Graph reopenedGraph = new GraphBuilder().withStorage(reopened).withScheduler(new NoopScheduler()).build();
+        reopenedGraph.connect(null);
+        checkValues(reopenedGraph, reopened, size);
+        reopenedGraph.disconnect(null);
+    }
+
+    @Test
+    public void appendNotificationTest() {
+        final MMapStorage storage = new MMapStorage(location.getAbsolutePath());
+        final Graph graph = new GraphBuilder().withStorage(storage).withScheduler(new NoopScheduler()).build();
+        graph.connect(null);
+        final String[] notified = {null};
+        storage.listen(new Callback<Buffer>() {
+            @Override
+            public void on(Buffer result) {
+                notified[0] = new String(result.data());
+            }
+        });
+        final Buffer toAppend = graph.newBuffer();
+        toAppend.writeString("appended");
+        toAppend.write(Constants.BUFFER_SEP);
+        toAppend.writeString("value");
+        storage.append(toAppend, null);
+        toAppend.free();
+        Assert.assertNotNull(notified[0]);
+        Assert.assertTrue(notified[0].startsWith("appended"));
+        graph.disconnect(null);
+    }
+
+    @Test
+    public void disconnectTest() {
+        final boolean[] result = {false};
+        new MMapStorage(location.getAbsolutePath()).disconnect(new Callback<Boolean>() {
+            @Override
+            public void on(Boolean disconnected) {
+                result[0] = disconnected;
+            }
+        });
+        Assert.assertTrue(result[0]);
+    }
+
+    private void checkValues(final Graph graph, final MMapStorage storage, final int size) {
+        final Buffer keys = graph.newBuffer();
+        for (int i = 0; i < 5; i++) {
+            if (i != 0) {
+                keys.write(Constants.BUFFER_SEP);
+            }
+            keys.writeString("key" + i);
+        }
+        final int[] called = {0};
+        storage.get(keys, new Callback<Buffer>() {
+            @Override
+            public void on(Buffer result) {
+                final BufferIterator it = result.iterator();
+                int i = 0;
+                while (it.hasNext()) {
+                    final byte[] value = it.next().data();
+                    Assert.assertEquals(size, value.length);
+                    Assert.assertEquals('a' + i, value[0]);
+                    Assert.assertEquals('a' + i, value[size - 1]);
+                    i++;
+                }
+                Assert.assertEquals(5, i);
+                result.free();
+                called[0]++;
+            }
+        });
+        keys.free();
+        Assert.assertEquals(1, called[0]);
+    }
+
+    private long write(final MMapStorage storage, final int versions) {
+        final Graph graph = new GraphBuilder().withStorage(storage).withScheduler(new NoopScheduler()).build();
+        graph.connect(null);
+        final Node node = graph.newNode(0, 0);
+        final long id = node.id();
+        node.free();
+        for (int i = 0; i < versions; i++) {
+            final int value = i;
+            graph.lookup(0, 0, id, new Callback<Node>() {
+                @Override
+                public void on(Node result) {
+                    result.set("value", Type.INT, value);
+                    result.free();
+                }
+            });
+            graph.save(null);
+        }
+        graph.disconnect(null);
+        return id;
+    }
+
+    private void check(final MMapStorage storage, final long id, final int versions) {
+        final Graph graph = new GraphBuilder().withStorage(storage).withScheduler(new NoopScheduler()).build();
+        graph.connect(null);
+        final int[] called = {0};
+        graph.lookup(0, 0, id, new Callback<Node>() {
+            @Override
+            public void on(Node result) {
+                Assert.assertEquals(versions - 1, result.get("value"));
+                result.free();
+                called[0]++;
+            }
+        });
+        Assert.assertEquals(1, called[0]);
+        graph.disconnect(null);
+    }
+
+    private static void delete(File file) {
+        final File[] children = file.listFiles();
+        if (children != null) {
+            for (int i = 0; i < children.length; i++) {
+                delete(children[i]);
+            }
+        }
+        file.delete();
+    }
+
+}
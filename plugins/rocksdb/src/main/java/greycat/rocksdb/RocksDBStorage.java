@@ -18,7 +18,7 @@ package greycat.rocksdb;
 import greycat.Callback;
 import greycat.Constants;
 import greycat.Graph;
-import greycat.plugin.Storage;
+import greycat.plugin.ScanStorage;
 import greycat.struct.Buffer;
 import greycat.struct.BufferIterator;
 import greycat.utility.Base64;
@@ -30,12 +30,24 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
-public class RocksDBStorage implements Storage {
+public class RocksDBStorage implements ScanStorage {
 
     private Options _options;
 
     private RocksDB _db;
 
+    private ReadOptions _readOptions;
+
+    private WriteOptions _writeOptions;
+
+    private Filter _filter;
+
+    private long _blockCacheSize = 8 * 1024 * 1024;
+
+    private int _bloomFilterBits = 10;
+
+    private CompressionType _compression = CompressionType.SNAPPY_COMPRESSION;
+
     private Graph _graph;
     private final List<Callback<Buffer>> updates = new ArrayList<Callback<Buffer>>();
 
@@ -53,6 +65,33 @@ public class RocksDBStorage implements Storage {
         this._storagePath = storagePath;
     }
 
+    /**
+     * Size in bytes of the LRU cache of uncompressed blocks, 8MB by default.
+     * Must be set before connect.
+     */
+    public RocksDBStorage withBlockCacheSize(long blockCacheSize) {
+        this._blockCacheSize = blockCacheSize;
+        return this;
+    }
+
+    /**
+     * Bits per key of the bloom filter used to skip blocks on point lookups, 10 by default, 0 to disable.
+     * Must be set before connect.
+     */
+    public RocksDBStorage withBloomFilterBits(int bloomFilterBits) {
+        this._bloomFilterBits = bloomFilterBits;
+        return this;
+    }
+
+    /**
+     * Compression of stored blocks, snappy by default.
+     * Must be set before connect.
+     */
+    public RocksDBStorage withCompression(CompressionType compression) {
+        this._compression = compression;
+        return this;
+    }
+
     @Override
     public void listen(Callback<Buffer> synCallback) {
         updates.add(synCallback);
@@ -65,55 +104,101 @@ public class RocksDBStorage implements Storage {
         }
         final Buffer result = _graph.newBuffer();
         final BufferIterator it = keys.iterator();
-        /*
-        List<byte[]> query = new ArrayList<byte[]>();
+        final List<byte[]> query = new ArrayList<byte[]>();
         while (it.hasNext()) {
-            Buffer view = it.next();
-            query.add(view.data());
+            query.add(it.next().data());
         }
         try {
-            Map<byte[], byte[]> dbResult = _db.multiGet(query);
-            boolean isFirst = true;
+            //results are keyed by the identity of the query arrays, so duplicated keys are resolved independently
+            final Map<byte[], byte[]> dbResult = _db.multiGet(_readOptions, query);
             for (int i = 0; i < query.size(); i++) {
-                if (!isFirst) {
+                if (i != 0) {
                     result.write(Constants.BUFFER_SEP);
-                } else {
-                    isFirst = false;
                 }
-                byte[] subResult = dbResult.get(query.get(i));
+                final byte[] subResult = dbResult.get(query.get(i));
                 if (subResult != null) {
                     result.writeAll(subResult);
                 }
             }
-        } catch (Exception e) {
+        } catch (RocksDBException e) {
             e.printStackTrace();
         }
         if (callback != null) {
             callback.on(result);
         }
-        */
+    }
 
-        boolean isFirst = true;
-        while (it.hasNext()) {
-            Buffer view = it.next();
-            try {
+    @Override
+    public void scan(Buffer prefix, Buffer from, Buffer to, int limit, Callback<Buffer> callback) {
+        if (!_isConnected) {
+            throw new RuntimeException(_connectedError);
+        }
+        final byte[] prefixBytes = prefix.data();
+        final byte[] upper = to == null ? null : concat(prefixBytes, to.data());
+        final Buffer result = _graph.newBuffer();
+        final RocksIterator it = _db.newIterator(_readOptions);
+        try {
+            if (from == null && prefixBytes.length == 0) {
+                it.seekToFirst();
+            } else {
+                it.seek(from == null ? prefixBytes : concat(prefixBytes, from.data()));
+            }
+            boolean isFirst = true;
+            int count = 0;
+            while (it.isValid() && count != limit) {
+                final byte[] key = it.key();
+                if (!inRange(key, prefixBytes, upper)) {
+                    break;
+                }
                 if (!isFirst) {
                     result.write(Constants.BUFFER_SEP);
                 } else {
                     isFirst = false;
                 }
-                byte[] res = _db.get(view.data());
-                if (res != null) {
-                    result.writeAll(res);
-                }
-            } catch (Exception e) {
-                e.printStackTrace();
+                count++;
+                result.writeAll(key);
+                result.write(Constants.BUFFER_SEP);
+                result.writeAll(it.value());
+                it.next();
             }
+        } finally {
+            it.close();
         }
         if (callback != null) {
             callback.on(result);
         }
+    }
 
+    private static byte[] concat(final byte[] left, final byte[] right) {
+        final byte[] result = new byte[left.length + right.length];
+        System.arraycopy(left, 0, result, 0, left.length);
+        System.arraycopy(right, 0, result, left.length, right.length);
+        return result;
+    }
+
+    /**
+     * @return true if key starts with prefix and is lower or equal to upper, bytes being compared as unsigned
+     */
+    private static boolean inRange(final byte[] key, final byte[] prefix, final byte[] upper) {
+        if (key.length < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (key[i] != prefix[i]) {
+                return false;
+            }
+        }
+        if (upper == null) {
+            return true;
+        }
+        final int length = Math.min(key.length, upper.length);
+        for (int i = prefix.length; i < length; i++) {
+            final int diff = (key[i] & 0xFF) - (upper[i] & 0xFF);
+            if (diff != 0) {
+                return diff < 0;
+            }
+        }
+        return key.length <= upper.length;
     }
 
     @Override
@@ -145,10 +230,8 @@ public class RocksDBStorage implements Storage {
                 Base64.encodeLongToBuffer(HashHelper.hashBuffer(valueView, 0, valueView.length()), result);
             }
         }
-        WriteOptions options = new WriteOptions();
-        options.setSync(false);
         try {
-            _db.write(options, batch);
+            _db.write(_writeOptions, batch);
             for (int i = 0; i < updates.size(); i++) {
                 final Callback<Buffer> explicit = updates.get(i);
                 explicit.on(result);
@@ -161,6 +244,8 @@ public class RocksDBStorage implements Storage {
             if (p_callback != null) {
                 p_callback.on(false);
             }
+        } finally {
+            batch.close();
         }
     }
 
@@ -188,10 +273,8 @@ public class RocksDBStorage implements Storage {
             result.write(Constants.KEY_SEP);
             Base64.encodeLongToBuffer(HashHelper.hashBuffer(valueView, 0, valueView.length()), result);
         }
-        WriteOptions options = new WriteOptions();
-        options.setSync(false);
         try {
-            _db.write(options, batch);
+            _db.write(_writeOptions, batch);
             for (int i = 0; i < updates.size(); i++) {
                 final Callback<Buffer> explicit = updates.get(i);
                 explicit.on(result);
@@ -200,6 +283,8 @@ public class RocksDBStorage implements Storage {
         } catch (RocksDBException e) {
             e.printStackTrace();
             callback.on(null);
+        } finally {
+            batch.close();
         }
     }
 
@@ -208,12 +293,14 @@ public class RocksDBStorage implements Storage {
         if (!_isConnected) {
             throw new RuntimeException(_connectedError);
         }
+        final WriteBatch batch = new WriteBatch();
         try {
             BufferIterator it = keys.iterator();
             while (it.hasNext()) {
                 Buffer view = it.next();
-                _db.delete(view.data());
+                batch.remove(view.data());
             }
+            _db.write(_writeOptions, batch);
             if (callback != null) {
                 callback.on(null);
             }
@@ -222,18 +309,28 @@ public class RocksDBStorage implements Storage {
             if (callback != null) {
                 callback.on(false);
             }
+        } finally {
+            batch.close();
         }
     }
 
     @Override
     public void disconnect(Callback<Boolean> callback) {
         //TODO write the prefix
+        final WriteOptions options = new WriteOptions().setSync(true);
+        final WriteBatch batch = new WriteBatch();
         try {
-            WriteOptions options = new WriteOptions();
-            options.sync();
-            _db.write(options, new WriteBatch());
+            _db.write(options, batch);
             _db.close();
+            _readOptions.close();
+            _writeOptions.close();
             _options.close();
+            if (_filter != null) {
+                _filter.close();
+                _filter = null;
+            }
+            _readOptions = null;
+            _writeOptions = null;
             _options = null;
             _db = null;
             _isConnected = false;
@@ -245,6 +342,9 @@ public class RocksDBStorage implements Storage {
             if (callback != null) {
                 callback.on(false);
             }
+        } finally {
+            batch.close();
+            options.close();
         }
     }
 
@@ -259,10 +359,18 @@ public class RocksDBStorage implements Storage {
             return;
         }
         _graph = graph;
-        //by default activate snappy compression of bytes
+        final BlockBasedTableConfig tableConfig = new BlockBasedTableConfig();
+        tableConfig.setBlockCacheSize(_blockCacheSize);
+        if (_bloomFilterBits > 0) {
+            _filter = new BloomFilter(_bloomFilterBits, false);
+            tableConfig.setFilter(_filter);
+        }
         _options = new Options()
                 .setCreateIfMissing(true)
-                .setCompressionType(CompressionType.SNAPPY_COMPRESSION);
+                .setCompressionType(_compression)
+                .setTableFormatConfig(tableConfig);
+        _readOptions = new ReadOptions();
+        _writeOptions = new WriteOptions().setSync(false);
         File location = new File(_storagePath);
         if (!location.exists()) {
             location.mkdirs();
@@ -16,6 +16,9 @@
 package greycat.rocksdb;
 
 import greycat.*;
+import greycat.struct.Buffer;
+import greycat.struct.BufferIterator;
+import org.junit.Assert;
 import org.junit.Test;
 import greycat.scheduler.NoopScheduler;
 import greycat.plugin.Job;
@@ -43,6 +46,45 @@ public class StorageTest {
         test("rocksdb_test ", new GraphBuilder().withStorage(new RocksDBStorage("data")).withScheduler(new NoopScheduler()).withMemorySize(20000).build());
     }
 
+    @Test
+    public void multiGetTest() throws IOException {
+        if (System.getProperty("os.name").toLowerCase().contains("win")) {
+            return;
+        }
+        final RocksDBStorage storage = new RocksDBStorage("data_multiget")
+                .withBlockCacheSize(1024 * 1024)
+                .withBloomFilterBits(8)
+                .withCompression(org.rocksdb.CompressionType.NO_COMPRESSION);
+        final Graph graph = new GraphBuilder().withStorage(storage).withScheduler(new NoopScheduler()).build();
+        graph.connect(null);
+        final Buffer toPut = graph.newBuffer();
+        toPut.writeString("k1#v1#k2#v2");
+        storage.put(toPut, null);
+        toPut.free();
+        final Buffer keys = graph.newBuffer();
+        keys.writeString("k2#missing#k1#k2");
+        final int[] called = {0};
+        storage.get(keys, new Callback<Buffer>() {
+            @Override
+            public void on(Buffer result) {
+                final String[] expected = {"v2", "", "v1", "v2"};
+                final BufferIterator it = result.iterator();
+                int i = 0;
+                while (it.hasNext()) {
+                    Assert.assertEquals(expected[i], new String(it.next().data()));
+                    i++;
+                }
+                Assert.assertEquals(expected.length, i);
+                result.free();
+                called[0]++;
+            }
+        });
+        keys.free();
+        Assert.assertEquals(1, called[0]);
+        graph.disconnect(null);
+        delete(new File("data_multiget"));
+    }
+
     final int valuesToInsert = 1000000;
     final long timeOrigin = 1000;
 
@@ -18,6 +18,7 @@ package greycat.websocket;
 import greycat.Constants;
 import greycat.struct.Buffer;
 import greycat.utility.Base64;
+import greycat.utility.KeyHelper;
 
 class ChunkKey {
 
@@ -33,6 +34,13 @@ class ChunkKey {
         ChunkKey tuple = new ChunkKey();
         long cursor = 0;
         long length = buffer.length();
+        if (KeyHelper.isOrderedKey(buffer, 0, length)) {
+            tuple.type = KeyHelper.decodeOrderedType(buffer, 0);
+            tuple.world = KeyHelper.decodeOrderedLong(buffer, 1);
+            tuple.id = KeyHelper.decodeOrderedLong(buffer, 1 + KeyHelper.ORDERED_LONG_SIZE);
+            tuple.time = KeyHelper.decodeOrderedLong(buffer, 1 + 2 * KeyHelper.ORDERED_LONG_SIZE);
+            return tuple;
+        }
         long previous = 0;
         int index = 0;
         while (cursor < length) {
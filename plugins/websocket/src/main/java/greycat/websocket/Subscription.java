@@ -0,0 +1,195 @@
+/**
+ * Copyright 2017 The GreyCat Authors.  All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package greycat.websocket;
+
+import greycat.Constants;
+import greycat.internal.heap.HeapBuffer;
+import greycat.struct.Buffer;
+import greycat.utility.Base64;
+import greycat.utility.KeyHelper;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Notification interests of a connected peer.<br>
+ * Until its first subscription, a peer receives every update. Afterwards, it only receives the updates of the
+ * subscribed nodes, worlds and chunk types, and of the nodes it fetched chunks of.
+ * Matching updates are collected until drained, the last hash of a chunk replacing the previous ones.
+ */
+class Subscription {
+
+    private boolean _filtered = false;
+    private final Set<Long> _ids = new HashSet<Long>();
+    private final Set<Long> _worlds = new HashSet<Long>();
+    private final boolean[] _types = new boolean[256];
+
+    //chunk key to its last hash, in arrival order
+    private final Map<String, String> _pending = new LinkedHashMap<String, String>();
+    private boolean _scheduled = false;
+
+    /**
+     * Restricts the notifications of the peer to its subscriptions and the chunks it fetched.
+     */
+    final synchronized void restrict() {
+        _filtered = true;
+    }
+
+    final synchronized void subscribe(final int kind, final long value) {
+        switch (kind) {
+            case WSConstants.SUBSCRIBE_NODE:
+                _ids.add(value);
+                break;
+            case WSConstants.SUBSCRIBE_WORLD:
+                _worlds.add(value);
+                break;
+            case WSConstants.SUBSCRIBE_TYPE:
+                _types[((int) value) & 0xFF] = true;
+                break;
+        }
+    }
+
+    final synchronized void unsubscribe(final int kind, final long value) {
+        switch (kind) {
+            case WSConstants.SUBSCRIBE_NODE:
+                _ids.remove(value);
+                break;
+            case WSConstants.SUBSCRIBE_WORLD:
+                _worlds.remove(value);
+                break;
+            case WSConstants.SUBSCRIBE_TYPE:
+                _types[((int) value) & 0xFF] = false;
+                break;
+        }
+    }
+
+    /**
+     * Registers the interest of the peer for a chunk it fetched.
+     */
+    final synchronized void track(final ChunkKey key) {
+        _ids.add(key.id);
+    }
+
+    final synchronized boolean filtered() {
+        return _filtered;
+    }
+
+    private boolean matches(final byte type, final long world, final long id) {
+        return !_filtered || _types[type & 0xFF] || _ids.contains(id) || _worlds.contains(world);
+    }
+
+    /**
+     * Collects the matching entries of an update notification, made of chunk keys each followed by their hash.
+     *
+     * @param notification update notification, as produced by the storage
+     * @return true if entries are pending
+     */
+    final synchronized boolean collect(final Buffer notification) {
+        final long end = notification.length();
+        long cursor = 0;
+        while (cursor < end) {
+            final long keyBegin = cursor;
+            long fieldEnd = next(notification, keyBegin, end);
+            final byte type;
+            final long world;
+            final long id;
+            if (KeyHelper.isOrderedKey(notification, keyBegin, fieldEnd)) {
+                type = KeyHelper.decodeOrderedType(notification, keyBegin);
+                world = KeyHelper.decodeOrderedLong(notification, keyBegin + 1);
+                id = KeyHelper.decodeOrderedLong(notification, keyBegin + 1 + KeyHelper.ORDERED_LONG_SIZE);
+            } else {
+                type = (byte) Base64.decodeToIntWithBounds(notification, keyBegin, fieldEnd);
+                long fieldBegin = fieldEnd + 1;
+                fieldEnd = next(notification, fieldBegin, end);
+                world = Base64.decodeToLongWithBounds(notification, fieldBegin, fieldEnd);
+                //skip the time
+                fieldEnd = next(notification, fieldEnd + 1, end);
+                fieldBegin = fieldEnd + 1;
+                fieldEnd = next(notification, fieldBegin, end);
+                id = Base64.decodeToLongWithBounds(notification, fieldBegin, fieldEnd);
+            }
+            final long hashBegin = fieldEnd + 1;
+            if (hashBegin > end) {
+                break;
+            }
+            final long hashEnd = next(notification, hashBegin, end);
+            if (matches(type, world, id)) {
+                _pending.put(read(notification, keyBegin, fieldEnd), read(notification, hashBegin, hashEnd));
+            }
+            cursor = hashEnd + 1;
+        }
+        return !_pending.isEmpty();
+    }
+
+    /**
+     * @return true if the caller has to schedule the drain of pending entries, false if it is already scheduled
+     */
+    final synchronized boolean schedule() {
+        if (_scheduled) {
+            return false;
+        }
+        _scheduled = true;
+        return true;
+    }
+
+    /**
+     * @return the update message of pending entries, null if none
+     */
+    final synchronized byte[] drain() {
+        _scheduled = false;
+        if (_pending.isEmpty()) {
+            return null;
+        }
+        final Buffer message = new HeapBuffer();
+        message.write(WSConstants.NOTIFY_UPDATE);
+        message.write(Constants.BUFFER_SEP);
+        boolean isFirst = true;
+        for (Map.Entry<String, String> entry : _pending.entrySet()) {
+            if (isFirst) {
+                isFirst = false;
+            } else {
+                message.write(Constants.KEY_SEP);
+            }
+            message.writeAll(entry.getKey().getBytes(StandardCharsets.ISO_8859_1));
+            message.write(Constants.KEY_SEP);
+            message.writeAll(entry.getValue().getBytes(StandardCharsets.ISO_8859_1));
+        }
+        _pending.clear();
+        final byte[] flat = message.data();
+        message.free();
+        return flat;
+    }
+
+    private static long next(final Buffer buffer, final long begin, final long end) {
+        long cursor = begin;
+        while (cursor < end && buffer.read(cursor) != Constants.KEY_SEP) {
+            cursor++;
+        }
+        return cursor;
+    }
+
+    private static String read(final Buffer buffer, final long begin, final long end) {
+        final byte[] flat = new byte[(int) (end - begin)];
+        for (int i = 0; i < flat.length; i++) {
+            flat[i] = buffer.read(begin + i);
+        }
+        return new String(flat, StandardCharsets.ISO_8859_1);
+    }
+
+}
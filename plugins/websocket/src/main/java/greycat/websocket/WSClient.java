@@ -41,6 +41,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class WSClient implements Storage, TaskExecutor {
 
@@ -54,6 +55,8 @@ public class WSClient implements Storage, TaskExecutor {
 
     private Map<Integer, Callback> _callbacks;
 
+    private final AtomicInteger _nextRequestId = new AtomicInteger(0);
+
     private final List<Callback<Buffer>> _listeners = new ArrayList<Callback<Buffer>>();
 
     public WSClient(String p_url) {
@@ -161,6 +164,69 @@ public class WSClient implements Storage, TaskExecutor {
         _listeners.add(synCallback);
     }
 
+    /**
+     * Restricts the updates notified by the server to the given nodes, and to the nodes whose chunks were fetched by
+     * this client. Until a first subscription, the server notifies every update.
+     *
+     * @param ids      ids of the nodes to be notified about
+     * @param callback called once the server applied the subscription
+     */
+    public final void subscribeNodes(final long[] ids, final Callback<Boolean> callback) {
+        send_subscription(WSConstants.REQ_SUBSCRIBE, WSConstants.SUBSCRIBE_NODE, ids, callback);
+    }
+
+    public final void unsubscribeNodes(final long[] ids, final Callback<Boolean> callback) {
+        send_subscription(WSConstants.REQ_UNSUBSCRIBE, WSConstants.SUBSCRIBE_NODE, ids, callback);
+    }
+
+    public final void subscribeWorlds(final long[] worlds, final Callback<Boolean> callback) {
+        send_subscription(WSConstants.REQ_SUBSCRIBE, WSConstants.SUBSCRIBE_WORLD, worlds, callback);
+    }
+
+    public final void subscribeChunkTypes(final byte[] chunkTypes, final Callback<Boolean> callback) {
+        final long[] values = new long[chunkTypes.length];
+        for (int i = 0; i < chunkTypes.length; i++) {
+            values[i] = chunkTypes[i];
+        }
+        send_subscription(WSConstants.REQ_SUBSCRIBE, WSConstants.SUBSCRIBE_TYPE, values, callback);
+    }
+
+    public final void subscribeIndex(final long world, final String name, final Callback<Boolean> callback) {
+        final Buffer buffer = _graph.newBuffer();
+        Base64.encodeIntToBuffer(WSConstants.SUBSCRIBE_INDEX, buffer);
+        buffer.write(Constants.KEY_SEP);
+        Base64.encodeLongToBuffer(world, buffer);
+        buffer.write(Constants.KEY_SEP);
+        Base64.encodeStringToBuffer(name, buffer);
+        send_rpc_req(WSConstants.REQ_SUBSCRIBE, buffer, subscriptionCallback(callback));
+        buffer.free();
+    }
+
+    private void send_subscription(final byte operationId, final int kind, final long[] values, final Callback<Boolean> callback) {
+        final Buffer buffer = _graph.newBuffer();
+        for (int i = 0; i < values.length; i++) {
+            if (i != 0) {
+                buffer.write(Constants.BUFFER_SEP);
+            }
+            Base64.encodeIntToBuffer(kind, buffer);
+            buffer.write(Constants.KEY_SEP);
+            Base64.encodeLongToBuffer(values[i], buffer);
+        }
+        send_rpc_req(operationId, buffer, subscriptionCallback(callback));
+        buffer.free();
+    }
+
+    private static Callback<Boolean> subscriptionCallback(final Callback<Boolean> callback) {
+        return new Callback<Boolean>() {
+            @Override
+            public void on(Boolean result) {
+                if (callback != null) {
+                    callback.on(result);
+                }
+            }
+        };
+    }
+
     @Override
     public final void execute(final Callback<TaskResult> callback, final Task task, final TaskContext prepared) {
         final Buffer buffer = _graph.newBuffer();
@@ -171,8 +237,7 @@ public class WSClient implements Storage, TaskExecutor {
             buffer.write(Constants.BUFFER_SEP);
             final Callback<String> printHook = prepared.printHook();
             if (printHook != null) {
-                hashPrint = printHook.hashCode();
-                _callbacks.put(hashPrint, printHook);
+                hashPrint = register(printHook);
                 Base64.encodeIntToBuffer(hashPrint, buffer);
             } else {
                 hashPrint = -1;
@@ -181,8 +246,7 @@ public class WSClient implements Storage, TaskExecutor {
             buffer.write(Constants.BUFFER_SEP);
             final Callback<TaskProgressReport> progressHook = prepared.progressHook();
             if (progressHook != null) {
-                hashProgress = progressHook.hashCode();
-                _callbacks.put(hashProgress, progressHook);
+                hashProgress = register(progressHook);
                 Base64.encodeIntToBuffer(hashProgress, buffer);
             } else {
                 hashProgress = -1;
@@ -233,6 +297,16 @@ public class WSClient implements Storage, TaskExecutor {
         }
     }
 
+    /**
+     * Allocates a fresh request id, so that any number of requests can be in flight on the same connection,
+     * even when they share the same callback instance.
+     */
+    private int register(final Callback callback) {
+        final int requestId = _nextRequestId.incrementAndGet() & 0x7FFFFFFF;
+        _callbacks.put(requestId, callback);
+        return requestId;
+    }
+
     private void send_rpc_req(final byte operationId, final Buffer payload, final Callback callback) {
         if (_channel == null) {
             throw new RuntimeException(WSConstants.DISCONNECTED_ERROR);
@@ -240,9 +314,8 @@ public class WSClient implements Storage, TaskExecutor {
         Buffer buffer = _graph.newBuffer();
         buffer.write(operationId);
         buffer.write(Constants.BUFFER_SEP);
-        int hash = callback.hashCode();
-        _callbacks.put(hash, callback);
-        Base64.encodeIntToBuffer(hash, buffer);
+        final int requestId = register(callback);
+        Base64.encodeIntToBuffer(requestId, buffer);
         if (payload != null) {
             buffer.write(Constants.BUFFER_SEP);
             buffer.writeAll(payload.data());
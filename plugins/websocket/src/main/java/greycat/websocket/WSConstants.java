@@ -38,5 +38,15 @@ class WSConstants {
 
     static final byte HEART_BEAT_PING = 15;
     static final byte HEART_BEAT_PONG = 16;
+
+    static final byte REQ_SUBSCRIBE = 17;
+    static final byte REQ_UNSUBSCRIBE = 18;
+    static final byte RESP_SUBSCRIBE = 19;
+
+    /* kinds of subscription, first field of each subscription view */
+    static final int SUBSCRIBE_NODE = 0;
+    static final int SUBSCRIBE_WORLD = 1;
+    static final int SUBSCRIBE_TYPE = 2;
+    static final int SUBSCRIBE_INDEX = 3;
     
 }
@@ -0,0 +1,203 @@
+/**
+ * Copyright 2017 The GreyCat Authors.  All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package greycat.websocket;
+
+import greycat.Callback;
+import greycat.Constants;
+import greycat.DeferCounter;
+import greycat.Graph;
+import greycat.NodeIndex;
+import greycat.internal.heap.HeapBuffer;
+import greycat.plugin.Job;
+import greycat.struct.Buffer;
+import greycat.struct.BufferIterator;
+import greycat.utility.Base64;
+import io.undertow.websockets.core.WebSocketChannel;
+import io.undertow.websockets.core.WebSockets;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Dispatches storage updates to the connected peers, according to their subscriptions.<br>
+ * With a coalescing window, updates of a peer are gathered during the window and sent as a single message.
+ * Once stopped, updates are ignored.
+ */
+class WSNotifier {
+
+    private final Map<WebSocketChannel, Subscription> _peers = new ConcurrentHashMap<WebSocketChannel, Subscription>();
+
+    private volatile long _window = 0;
+    private volatile boolean _stopped = false;
+    private ScheduledExecutorService _timer = null;
+
+    final void add(final WebSocketChannel channel) {
+        _peers.put(channel, new Subscription());
+    }
+
+    final void remove(final WebSocketChannel channel) {
+        _peers.remove(channel);
+    }
+
+    final synchronized void setWindow(final long milliseconds) {
+        _window = milliseconds;
+        if (milliseconds > 0 && _timer == null) {
+            _timer = Executors.newSingleThreadScheduledExecutor();
+        }
+    }
+
+    final synchronized void stop() {
+        _stopped = true;
+        if (_timer != null) {
+            _timer.shutdown();
+            _timer = null;
+        }
+    }
+
+    final void track(final WebSocketChannel channel, final ChunkKey[] keys) {
+        final Subscription subscription = _peers.get(channel);
+        if (subscription != null) {
+            for (int i = 0; i < keys.length; i++) {
+                subscription.track(keys[i]);
+            }
+        }
+    }
+
+    final void notify(final Buffer result) {
+        if (_stopped) {
+            return;
+        }
+        final long window = _window;
+        byte[] broadcast = null;
+        for (Map.Entry<WebSocketChannel, Subscription> entry : _peers.entrySet()) {
+            final WebSocketChannel channel = entry.getKey();
+            final Subscription subscription = entry.getValue();
+            if (window == 0 && !subscription.filtered()) {
+                //the message is shared by every peer without subscriptions
+                if (broadcast == null) {
+                    final Buffer notificationBuffer = new HeapBuffer();
+                    notificationBuffer.write(WSConstants.NOTIFY_UPDATE);
+                    notificationBuffer.write(Constants.BUFFER_SEP);
+                    notificationBuffer.writeAll(result.data());
+                    broadcast = notificationBuffer.data();
+                    notificationBuffer.free();
+                }
+                send(broadcast, channel);
+            } else if (subscription.collect(result)) {
+                if (window == 0) {
+                    send(subscription.drain(), channel);
+                } else if (subscription.schedule()) {
+                    final boolean scheduled = defer(new Runnable() {
+                        @Override
+                        public void run() {
+                            final byte[] message = subscription.drain();
+                            if (message != null && channel.isOpen()) {
+                                send(message, channel);
+                            }
+                        }
+                    }, window);
+                    if (!scheduled) {
+                        //stopped meanwhile, pending entries are dropped
+                        subscription.drain();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Applies the subscriptions of a request, one per view made of a kind and its value.
+     * Indexes are given by world and name, and resolved to the id of their node.
+     */
+    final void process_subscribe(final Graph graph, final WebSocketChannel channel, final BufferIterator it, final boolean subscribe, final Job job) {
+        final Subscription subscription = _peers.get(channel);
+        final List<Long> indexWorlds = new ArrayList<Long>();
+        final List<String> indexNames = new ArrayList<String>();
+        while (it.hasNext()) {
+            final Buffer view = it.next();
+            final long length = view.length();
+            long sep = 0;
+            while (sep < length && view.read(sep) != Constants.KEY_SEP) {
+                sep++;
+            }
+            if (sep == 0 || sep == length) {
+                continue;
+            }
+            final int kind = Base64.decodeToIntWithBounds(view, 0, sep);
+            if (kind == WSConstants.SUBSCRIBE_INDEX) {
+                long nameSep = sep + 1;
+                while (nameSep < length && view.read(nameSep) != Constants.KEY_SEP) {
+                    nameSep++;
+                }
+                indexWorlds.add(Base64.decodeToLongWithBounds(view, sep + 1, nameSep));
+                indexNames.add(Base64.decodeToStringWithBounds(view, nameSep + 1, length));
+            } else if (subscription != null) {
+                final long value = Base64.decodeToLongWithBounds(view, sep + 1, length);
+                if (subscribe) {
+                    subscription.subscribe(kind, value);
+                } else {
+                    subscription.unsubscribe(kind, value);
+                }
+            }
+        }
+        if (subscription != null && subscribe) {
+            //even an empty subscription restricts the peer to what it fetched
+            subscription.restrict();
+        }
+        final DeferCounter defer = graph.newCounter(indexNames.size());
+        defer.then(job);
+        for (int i = 0; i < indexNames.size(); i++) {
+            graph.index(indexWorlds.get(i), Constants.END_OF_TIME, indexNames.get(i), new Callback<NodeIndex>() {
+                @Override
+                public void on(final NodeIndex index) {
+                    if (index != null) {
+                        if (subscription != null) {
+                            if (subscribe) {
+                                subscription.subscribe(WSConstants.SUBSCRIBE_NODE, index.id());
+                            } else {
+                                subscription.unsubscribe(WSConstants.SUBSCRIBE_NODE, index.id());
+                            }
+                        }
+                        index.free();
+                    }
+                    defer.count();
+                }
+            });
+        }
+    }
+
+    /**
+     * @return false if the notifier is stopped, the task being ignored
+     */
+    private synchronized boolean defer(final Runnable task, final long window) {
+        if (_timer == null) {
+            return false;
+        }
+        _timer.schedule(task, window, TimeUnit.MILLISECONDS);
+        return true;
+    }
+
+    private static void send(final byte[] flat, final WebSocketChannel channel) {
+        WebSockets.sendBinary(ByteBuffer.wrap(flat), channel, null);
+    }
+
+}
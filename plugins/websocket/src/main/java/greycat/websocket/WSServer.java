@@ -17,7 +17,6 @@ package greycat.websocket;
 
 import greycat.*;
 import greycat.chunk.Chunk;
-import greycat.internal.heap.HeapBuffer;
 import greycat.internal.task.CoreProgressReport;
 import greycat.plugin.Job;
 import greycat.struct.Buffer;
@@ -42,7 +41,7 @@ public class WSServer implements WebSocketConnectionCallback, Callback<Buffer> {
     private final int port;
     private Undertow server;
 
-    private Set<WebSocketChannel> peers;
+    private final WSNotifier notifier = new WSNotifier();
     protected Map<String, HttpHandler> handlers;
 
     public static void attach(GraphBuilder storage, int port) {
@@ -54,11 +53,21 @@ public class WSServer implements WebSocketConnectionCallback, Callback<Buffer> {
     public WSServer(GraphBuilder p_builder, int p_port) {
         this.builder = p_builder;
         this.port = p_port;
-        peers = new HashSet<WebSocketChannel>();
         handlers = new HashMap<String, HttpHandler>();
         handlers.put(PREFIX, Handlers.websocket(this));
     }
 
+    /**
+     * Gathers the updates sent to each peer during a window, repeated updates of a chunk being sent once.
+     *
+     * @param milliseconds duration of the window, 0 to send each update immediately
+     * @return this server, fluent API
+     */
+    public WSServer setCoalescingWindow(long milliseconds) {
+        notifier.setWindow(milliseconds);
+        return this;
+    }
+
     public WSServer addHandler(String prefix, HttpHandler httpHandler) {
         handlers.put(prefix, httpHandler);
         return this;
@@ -81,6 +90,7 @@ public class WSServer implements WebSocketConnectionCallback, Callback<Buffer> {
     public void stop() {
         server.stop();
         server = null;
+        notifier.stop();
     }
 
     @Override
@@ -92,24 +102,14 @@ public class WSServer implements WebSocketConnectionCallback, Callback<Buffer> {
             public void on(Boolean result) {
                 webSocketChannel.getReceiveSetter().set(new PeerInternalListener(graph));
                 webSocketChannel.resumeReceives();
-                peers.add(webSocketChannel);
+                notifier.add(webSocketChannel);
             }
         });
     }
 
     @Override
     public final void on(final Buffer result) {
-        //broadcast to anyone...
-        WebSocketChannel[] others = peers.toArray(new WebSocketChannel[peers.size()]);
-        Buffer notificationBuffer = new HeapBuffer();
-        notificationBuffer.write(WSConstants.NOTIFY_UPDATE);
-        notificationBuffer.write(Constants.BUFFER_SEP);
-        notificationBuffer.writeAll(result.data());
-        byte[] notificationMsg = notificationBuffer.data();
-        notificationBuffer.free();
-        for (int i = 0; i < others.length; i++) {
-            send_flat_resp(notificationMsg, others[i]);
-        }
+        notifier.notify(result);
     }
 
     private class PeerInternalListener extends AbstractReceiveListener {
@@ -135,7 +135,7 @@ public class WSServer implements WebSocketConnectionCallback, Callback<Buffer> {
 
         @Override
         protected final void onClose(WebSocketChannel webSocketChannel, StreamSourceFrameChannel channel) throws IOException {
-            peers.remove(webSocketChannel);
+            notifier.remove(webSocketChannel);
             graph.disconnect(new Callback<Boolean>() {
                 @Override
                 public void on(Boolean result) {
@@ -193,21 +193,35 @@ public class WSServer implements WebSocketConnectionCallback, Callback<Buffer> {
                     while (it.hasNext()) {
                         keys.add(ChunkKey.build(it.next()));
                     }
-                    process_get(graph, keys.toArray(new ChunkKey[keys.size()]), new Callback<Buffer>() {
+                    final ChunkKey[] getKeys = keys.toArray(new ChunkKey[keys.size()]);
+                    notifier.track(channel, getKeys);
+                    final Buffer concatGet = graph.newBuffer();
+                    concatGet.write(WSConstants.RESP_GET);
+                    concatGet.write(Constants.BUFFER_SEP);
+                    concatGet.writeAll(callbackCodeView.data());
+                    concatGet.write(Constants.BUFFER_SEP);
+                    process_get(graph, getKeys, concatGet, new Job() {
                         @Override
-                        public void on(Buffer streamResult) {
-                            final Buffer concatGet = graph.newBuffer();
-                            concatGet.write(WSConstants.RESP_GET);
-                            concatGet.write(Constants.BUFFER_SEP);
-                            concatGet.writeAll(callbackCodeView.data());
-                            concatGet.write(Constants.BUFFER_SEP);
-                            concatGet.writeAll(streamResult.data());
-                            streamResult.free();
+                        public void run() {
                             payload.free();
                             WSServer.this.send_resp(concatGet, channel);
                         }
                     });
                     break;
+                case WSConstants.REQ_SUBSCRIBE:
+                case WSConstants.REQ_UNSUBSCRIBE:
+                    notifier.process_subscribe(graph, channel, it, firstCodeView == WSConstants.REQ_SUBSCRIBE, new Job() {
+                        @Override
+                        public void run() {
+                            final Buffer concatSub = graph.newBuffer();
+                            concatSub.write(WSConstants.RESP_SUBSCRIBE);
+                            concatSub.write(Constants.BUFFER_SEP);
+                            concatSub.writeAll(callbackCodeView.data());
+                            payload.free();
+                            WSServer.this.send_resp(concatSub, channel);
+                        }
+                    });
+                    break;
                 case WSConstants.REQ_TASK:
                     graph.setProperty("ws.last", System.currentTimeMillis());
                     if (it.hasNext()) {
@@ -387,7 +401,7 @@ public class WSServer implements WebSocketConnectionCallback, Callback<Buffer> {
                 buffer.write(Constants.BUFFER_SEP);
             }
             ChunkKey tuple = keys[i];
-            KeyHelper.keyToBuffer(buffer, tuple.type, tuple.world, tuple.time, tuple.id);
+            KeyHelper.keyToBufferWithFormat(buffer, graph.space().keyFormat(), tuple.type, tuple.world, tuple.time, tuple.id);
             graph.space().delete(tuple.type, tuple.world, tuple.time, tuple.id);
         }
         graph.storage().remove(buffer, new Callback<Boolean>() {
@@ -399,43 +413,34 @@ public class WSServer implements WebSocketConnectionCallback, Callback<Buffer> {
         });
     }
 
-    private void process_get(final Graph graph, ChunkKey[] keys, final Callback<Buffer> callback) {
-        final DeferCounter defer = graph.newCounter(keys.length);
-        final Buffer[] buffers = new Buffer[keys.length];
-        defer.then(new Job() {
+    /**
+     * Resolves all requested chunks in a single space round trip and serializes them straight into the response.
+     */
+    private void process_get(final Graph graph, final ChunkKey[] keys, final Buffer stream, final Job done) {
+        final long[] flatKeys = new long[keys.length * Constants.KEY_SIZE];
+        for (int i = 0; i < keys.length; i++) {
+            final ChunkKey tuple = keys[i];
+            final int offset = i * Constants.KEY_SIZE;
+            flatKeys[offset] = tuple.type;
+            flatKeys[offset + 1] = tuple.world;
+            flatKeys[offset + 2] = tuple.time;
+            flatKeys[offset + 3] = tuple.id;
+        }
+        graph.space().getOrLoadAndMarkAll(flatKeys, new Callback<Chunk[]>() {
             @Override
-            public void run() {
-                Buffer stream = graph.newBuffer();
-                for (int i = 0; i < buffers.length; i++) {
+            public void on(final Chunk[] chunks) {
+                for (int i = 0; i < chunks.length; i++) {
                     if (i != 0) {
                         stream.write(Constants.BUFFER_SEP);
                     }
-                    if (buffers[i] != null) {
-                        stream.writeAll(buffers[i].data());
-                        buffers[i].free();
+                    if (chunks[i] != null) {
+                        chunks[i].save(stream);
+                        graph.space().unmark(chunks[i].index());
                     }
                 }
-                callback.on(stream);
+                done.run();
             }
         });
-        for (int i = 0; i < keys.length; i++) {
-            final int fixedI = i;
-            ChunkKey tuple = keys[i];
-            graph.space().getOrLoadAndMark(tuple.type, tuple.world, tuple.time, tuple.id, new Callback<Chunk>() {
-                @Override
-                public void on(Chunk memoryChunk) {
-                    if (memoryChunk != null) {
-                        final Buffer toSaveBuffer = graph.newBuffer();
-                        memoryChunk.save(toSaveBuffer);
-                        graph.space().unmark(memoryChunk.index());
-                        buffers[fixedI] = toSaveBuffer;
-                    } else {
-                        buffers[fixedI] = null;
-                    }
-                    defer.count();
-                }
-            });
-        }
     }
 
     private void send_resp(final Buffer stream, final WebSocketChannel channel) {
@@ -444,8 +449,4 @@ public class WSServer implements WebSocketConnectionCallback, Callback<Buffer> {
         WebSockets.sendBinary(finalBuf, channel, null);
     }
 
-    private void send_flat_resp(final byte[] flat, final WebSocketChannel channel) {
-        WebSockets.sendBinary(ByteBuffer.wrap(flat), channel, null);
-    }
-
 }
@@ -0,0 +1,154 @@
+/**
+ * Copyright 2017 The GreyCat Authors.  All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package greycat.websocket;
+
+import greycat.*;
+import greycat.chunk.Chunk;
+import greycat.chunk.ChunkType;
+import greycat.struct.Buffer;
+import greycat.utility.KeyHelper;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class BatchedGetTest {
+
+    private static final int NODES = 30;
+
+    private static final int BATCH = 3;
+
+    private static final int THREADS = 4;
+
+    private static final int REQUESTS = 25;
+
+    @Test
+    public void concurrentBatchedGetTest() throws InterruptedException {
+        final Graph graph = new GraphBuilder().withMemorySize(10000).build();
+        final long[] ids = new long[NODES];
+        final byte[][] expected = new byte[NODES][];
+        graph.connect(new Callback<Boolean>() {
+            @Override
+            public void on(Boolean result) {
+                for (int i = 0; i < NODES; i++) {
+                    Node node = graph.newNode(0, 0);
+                    node.set("name", Type.STRING, "node_" + i);
+                    ids[i] = node.id();
+                    node.free();
+                }
+                for (int i = 0; i < NODES; i++) {
+                    Chunk chunk = graph.space().getAndMark(ChunkType.STATE_CHUNK, 0, 0, ids[i]);
+                    Buffer buffer = graph.newBuffer();
+                    chunk.save(buffer);
+                    expected[i] = buffer.data();
+                    buffer.free();
+                    graph.space().unmark(chunk.index());
+                }
+            }
+        });
+
+        int port = 8050;
+        try {
+            ServerSocket servSock = new ServerSocket(0);
+            port = servSock.getLocalPort();
+            servSock.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        final WSSharedServer graphServer = new WSSharedServer(graph, port);
+        graphServer.start();
+
+        final WSClient client = new WSClient("ws://localhost:" + port + "/ws");
+        final Graph graph2 = new GraphBuilder().withMemorySize(10000).withStorage(client).build();
+        final CountDownLatch connected = new CountDownLatch(1);
+        graph2.connect(new Callback<Boolean>() {
+            @Override
+            public void on(Boolean result) {
+                connected.countDown();
+            }
+        });
+        Assert.assertTrue(connected.await(10, TimeUnit.SECONDS));
+
+        final CountDownLatch responses = new CountDownLatch(THREADS * REQUESTS);
+        final AtomicInteger mismatches = new AtomicInteger(0);
+        final Thread[] threads = new Thread[THREADS];
+        for (int t = 0; t < THREADS; t++) {
+            final int thread = t;
+            threads[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int r = 0; r < REQUESTS; r++) {
+                        //every request asks for a distinct window of nodes, so a response delivered to the wrong callback is detected
+                        final int first = (thread * REQUESTS + r) % NODES;
+                        final Buffer keys = graph2.newBuffer();
+                        final Buffer wanted = graph2.newBuffer();
+                        for (int k = 0; k < BATCH; k++) {
+                            final int offset = (first + k) % NODES;
+                            if (k != 0) {
+                                keys.write(Constants.BUFFER_SEP);
+                                wanted.write(Constants.BUFFER_SEP);
+                            }
+                            KeyHelper.keyToBuffer(keys, ChunkType.STATE_CHUNK, 0, 0, ids[offset]);
+                            wanted.writeAll(expected[offset]);
+                        }
+                        final byte[] wantedPayload = wanted.data();
+                        wanted.free();
+                        client.get(keys, new Callback<Buffer>() {
+                            @Override
+                            public void on(Buffer result) {
+                                if (!Arrays.equals(wantedPayload, result.data())) {
+                                    mismatches.incrementAndGet();
+                                }
+                                result.free();
+                                responses.countDown();
+                            }
+                        });
+                        keys.free();
+                    }
+                }
+            });
+        }
+        for (int t = 0; t < THREADS; t++) {
+            threads[t].start();
+        }
+        for (int t = 0; t < THREADS; t++) {
+            threads[t].join();
+        }
+        Assert.assertTrue(responses.await(10, TimeUnit.SECONDS));
+        Assert.assertEquals(0, mismatches.get());
+
+        final CountDownLatch disconnected = new CountDownLatch(1);
+        graph2.disconnect(new Callback<Boolean>() {
+            @Override
+            public void on(Boolean result) {
+                graphServer.stop();
+                graph.disconnect(new Callback<Boolean>() {
+                    @Override
+                    public void on(Boolean result) {
+                        disconnected.countDown();
+                    }
+                });
+            }
+        });
+        Assert.assertTrue(disconnected.await(10, TimeUnit.SECONDS));
+    }
+
+}
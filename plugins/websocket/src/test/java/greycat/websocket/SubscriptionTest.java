@@ -0,0 +1,93 @@
+/**
+ * Copyright 2017 The GreyCat Authors.  All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package greycat.websocket;
+
+import greycat.Constants;
+import greycat.chunk.ChunkType;
+import greycat.internal.heap.HeapBuffer;
+import greycat.struct.Buffer;
+import greycat.utility.Base64;
+import greycat.utility.KeyHelper;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SubscriptionTest {
+
+    private static void entry(final Buffer notification, final byte type, final long world, final long time, final long id, final long hash) {
+        if (notification.length() != 0) {
+            notification.write(Constants.KEY_SEP);
+        }
+        KeyHelper.keyToBuffer(notification, type, world, time, id);
+        notification.write(Constants.KEY_SEP);
+        Base64.encodeLongToBuffer(hash, notification);
+    }
+
+    private static String content(final byte[] message) {
+        return new String(message, 2, message.length - 2);
+    }
+
+    @Test
+    public void test() {
+        final Subscription subscription = new Subscription();
+        final Buffer notification = new HeapBuffer();
+        entry(notification, ChunkType.STATE_CHUNK, 0, 10, 1, 100);
+        entry(notification, ChunkType.STATE_CHUNK, 0, 10, 2, 200);
+        entry(notification, ChunkType.WORLD_ORDER_CHUNK, 3, 0, 4, 300);
+
+        //without subscriptions everything is kept
+        Assert.assertTrue(subscription.collect(notification));
+        final byte[] all = subscription.drain();
+        Assert.assertEquals(WSConstants.NOTIFY_UPDATE, all[0]);
+        Assert.assertEquals(new String(notification.data()), content(all));
+        Assert.assertNull(subscription.drain());
+
+        //fetched chunks and subscribed worlds are kept
+        final ChunkKey fetched = new ChunkKey();
+        fetched.id = 2;
+        subscription.track(fetched);
+        subscription.restrict();
+        subscription.subscribe(WSConstants.SUBSCRIBE_WORLD, 3);
+        Assert.assertTrue(subscription.collect(notification));
+        final Buffer expected = new HeapBuffer();
+        entry(expected, ChunkType.STATE_CHUNK, 0, 10, 2, 200);
+        entry(expected, ChunkType.WORLD_ORDER_CHUNK, 3, 0, 4, 300);
+        Assert.assertEquals(new String(expected.data()), content(subscription.drain()));
+
+        //repeated updates of a chunk are coalesced, the last hash wins
+        subscription.unsubscribe(WSConstants.SUBSCRIBE_WORLD, 3);
+        final Buffer update = new HeapBuffer();
+        entry(update, ChunkType.STATE_CHUNK, 0, 10, 2, 201);
+        Assert.assertTrue(subscription.schedule());
+        Assert.assertFalse(subscription.schedule());
+        Assert.assertTrue(subscription.collect(notification));
+        Assert.assertTrue(subscription.collect(update));
+        Assert.assertEquals(new String(update.data()), content(subscription.drain()));
+        Assert.assertTrue(subscription.schedule());
+
+        //ordered keys are understood as well
+        final Buffer ordered = new HeapBuffer();
+        KeyHelper.orderedKeyToBuffer(ordered, ChunkType.STATE_CHUNK, 0, 10, 2);
+        ordered.write(Constants.KEY_SEP);
+        Base64.encodeLongToBuffer(202, ordered);
+        ordered.write(Constants.KEY_SEP);
+        KeyHelper.orderedKeyToBuffer(ordered, ChunkType.STATE_CHUNK, 0, 10, 5);
+        ordered.write(Constants.KEY_SEP);
+        Base64.encodeLongToBuffer(500, ordered);
+        Assert.assertTrue(subscription.collect(ordered));
+        Assert.assertEquals(1, content(subscription.drain()).split(String.valueOf((char) Constants.KEY_SEP)).length - 1);
+    }
+
+}